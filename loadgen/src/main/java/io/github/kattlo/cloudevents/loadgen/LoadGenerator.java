@@ -0,0 +1,403 @@
+package io.github.kattlo.cloudevents.loadgen;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.RandomData;
+import org.apache.avro.util.Utf8;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import io.github.kattlo.cloudevents.AvroCloudEventData;
+import io.github.kattlo.cloudevents.KafkaAvroCloudEventDeserializer;
+import io.github.kattlo.cloudevents.KafkaAvroCloudEventSerializer;
+import io.github.kattlo.cloudevents.LatencyHistogram;
+import io.github.kattlo.cloudevents.SchemaRegistryStandIn;
+import org.acme.AvroEventDataExample;
+
+/**
+ * Drives random records of a schema through the serializer and the
+ * deserializer, with N threads sharing one instance of each, as the
+ * producer and the consumer do, to find their throughput ceiling.
+ *
+ * <pre>
+ * gradle :loadgen:run --args='[options] [config=value]...'
+ *
+ *   --schema file.avsc      default org.acme.AvroEventDataExample
+ *   --threads N             default 1
+ *   --records N             per thread, default 1000000
+ *   --warmup N              per thread, not measured, default 100000
+ *   --string-length N       of every string field, default random up to 40
+ *   --registry-url URL      default an in-memory MockSchemaRegistryClient
+ *   --stand-in-latency-us N of each request to an in-process HTTP registry,
+ *                           see SchemaRegistryStandIn
+ *   --stand-in-failure-rate R of the requests to that registry, 0 to 1
+ *   --seed N                of the random records, default 130
+ * </pre>
+ *
+ * It prints records/s, MB/s of the values plus headers and the latency
+ * percentiles of serialize, deserialize and both.
+ *
+ * @author fabiojose
+ */
+public final class LoadGenerator {
+
+    static final String TOPIC = "loadgen";
+
+    /**
+     * Distinct random events of each thread, built before the run and reused
+     * in round-robin so the generation, ids included, is out of the measures
+     */
+    static final int POOL = 1024;
+
+    static final class Options {
+        Schema schema = AvroEventDataExample.getClassSchema();
+        int threads = 1;
+        long records = 1_000_000;
+        long warmup = 100_000;
+        int stringLength = -1;
+        String registryUrl;
+        boolean standIn;
+        long standInLatencyMicros;
+        double standInFailureRate;
+        long seed = 130;
+        final Map<String, Object> configs = new HashMap<>();
+
+        static Options of(String[] args) throws IOException {
+            var options = new Options();
+
+            for(int i = 0; i < args.length; i++){
+                var arg = args[i];
+                if(arg.startsWith("--")){
+                    if(i + 1 >= args.length){
+                        throw new IllegalArgumentException(arg + " without value");
+                    }
+                    var value = args[++i];
+
+                    switch(arg){
+                        case "--schema":
+                            options.schema = new Schema.Parser().parse(Paths.get(value).toFile());
+                            break;
+                        case "--threads":
+                            options.threads = Integer.parseInt(value);
+                            break;
+                        case "--records":
+                            options.records = Long.parseLong(value);
+                            break;
+                        case "--warmup":
+                            options.warmup = Long.parseLong(value);
+                            break;
+                        case "--string-length":
+                            options.stringLength = Integer.parseInt(value);
+                            break;
+                        case "--registry-url":
+                            options.registryUrl = value;
+                            break;
+                        case "--stand-in-latency-us":
+                            options.standIn = true;
+                            options.standInLatencyMicros = Long.parseLong(value);
+                            break;
+                        case "--stand-in-failure-rate":
+                            options.standIn = true;
+                            options.standInFailureRate = Double.parseDouble(value);
+                            break;
+                        case "--seed":
+                            options.seed = Long.parseLong(value);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown option " + arg);
+                    }
+
+                } else {
+                    var separator = arg.indexOf('=');
+                    if(separator < 1){
+                        throw new IllegalArgumentException("Expected config=value, got " + arg);
+                    }
+                    options.configs.put(arg.substring(0, separator), arg.substring(separator + 1));
+                }
+            }
+
+            if(options.standIn && options.registryUrl != null){
+                throw new IllegalArgumentException("--registry-url and --stand-in-* are exclusive");
+            }
+            if(options.threads < 1){
+                throw new IllegalArgumentException("--threads must be at least 1");
+            }
+
+            return options;
+        }
+    }
+
+    static final class Report {
+        long records;
+        long bytes;
+        long elapsedNanos;
+        long registryRequests = -1;
+        final LatencyHistogram serialize = new LatencyHistogram();
+        final LatencyHistogram deserialize = new LatencyHistogram();
+        final LatencyHistogram roundTrip = new LatencyHistogram();
+
+        double recordsPerSecond() {
+            return (elapsedNanos == 0 ? 0 : records * 1e9 / elapsedNanos);
+        }
+
+        double megabytesPerSecond() {
+            return (elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1024 * 1024));
+        }
+
+        private static String percentiles(LatencyHistogram histogram) {
+            return String.format("p50=%d p99=%d p999=%d max=%d",
+                histogram.valueAtPercentile(50), histogram.valueAtPercentile(99),
+                histogram.valueAtPercentile(99.9), histogram.getMax());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("records=%d, records/s=%.0f, MB/s=%.2f, avg bytes/record=%.0f%n"
+                + "serialize ns   %s%n"
+                + "deserialize ns %s%n"
+                + "round trip ns  %s",
+                records, recordsPerSecond(), megabytesPerSecond(),
+                (records == 0 ? 0 : (double)bytes / records),
+                percentiles(serialize), percentiles(deserialize), percentiles(roundTrip))
+                + (registryRequests < 0 ? "" : String.format("%nregistry requests %d", registryRequests));
+        }
+    }
+
+    /**
+     * State of one thread, its histograms are added to the report at the end
+     */
+    private static final class Worker {
+        final List<CloudEvent> pool = new ArrayList<>(POOL);
+        final Report report = new Report();
+    }
+
+    private LoadGenerator() {
+    }
+
+    private static Object withStrings(Schema schema, Object value, int length, Random random) {
+        switch(schema.getType()){
+            case STRING:
+                var chars = new char[length];
+                for(int i = 0; i < length; i++){
+                    chars[i] = (char)('a' + random.nextInt(26));
+                }
+                return new Utf8(new String(chars));
+
+            case RECORD:
+                var record = (GenericRecord)value;
+                for(var field : schema.getFields()){
+                    record.put(field.pos(), withStrings(field.schema(), record.get(field.pos()), length, random));
+                }
+                return record;
+
+            case UNION:
+                var branch = GenericData.get().resolveUnion(schema, value);
+                return withStrings(schema.getTypes().get(branch), value, length, random);
+
+            default:
+                return value;
+        }
+    }
+
+    static List<GenericRecord> records(Schema schema, int count, long seed, int stringLength) {
+        var result = new ArrayList<GenericRecord>(count);
+        var random = new Random(seed);
+
+        for(var value : new RandomData(schema, count, seed)){
+            var record = (GenericRecord)value;
+            if(stringLength >= 0){
+                withStrings(schema, record, stringLength, random);
+            }
+            result.add(record);
+        }
+
+        return result;
+    }
+
+    private static long bytesOf(Headers headers, byte[] value) {
+        long bytes = (value == null ? 0 : value.length);
+        for(var header : headers){
+            bytes += header.key().length() + (header.value() == null ? 0 : header.value().length);
+        }
+        return bytes;
+    }
+
+    static List<CloudEvent> events(List<GenericRecord> records, URI source, String type) {
+        var result = new ArrayList<CloudEvent>(records.size());
+        for(var record : records){
+            result.add(CloudEventBuilder.v1()
+                .withId(UUID.randomUUID().toString())
+                .withSource(source)
+                .withType(type)
+                .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(record))
+                .build());
+        }
+
+        return result;
+    }
+
+    private static void run(Worker worker, long count, boolean measured,
+            KafkaAvroCloudEventSerializer serializer, KafkaAvroCloudEventDeserializer deserializer) {
+
+        var report = worker.report;
+
+        for(long i = 0; i < count; i++){
+            var event = worker.pool.get((int)(i % worker.pool.size()));
+            var headers = new RecordHeaders();
+
+            var start = System.nanoTime();
+            var bytes = serializer.serialize(TOPIC, headers, event);
+            var serialized = System.nanoTime();
+            deserializer.deserialize(TOPIC, headers, bytes);
+            var end = System.nanoTime();
+
+            if(measured){
+                report.serialize.record(serialized - start);
+                report.deserialize.record(end - serialized);
+                report.roundTrip.record(end - start);
+                report.bytes += bytesOf(headers, bytes);
+                report.records++;
+            }
+        }
+    }
+
+    /**
+     * Runs the load, warm-up then measure, all threads starting together
+     */
+    static Report run(Options options) throws InterruptedException, IOException {
+        if(options.standIn){
+            try(var standIn = new SchemaRegistryStandIn(Math.max(8, options.threads))){
+                standIn.withLatency(options.standInLatencyMicros, 0)
+                    .withFailureRate(options.standInFailureRate);
+
+                var report = run(options, standIn.getUrl());
+                report.registryRequests = standIn.getRequests();
+                return report;
+            }
+        }
+
+        return run(options, options.registryUrl);
+    }
+
+    private static Report run(Options options, String registryUrl) throws InterruptedException {
+        // as producers and consumers, the serializer and deserializer have their own client
+        SchemaRegistryClient serializerRegistry;
+        SchemaRegistryClient deserializerRegistry;
+        if(registryUrl == null){
+            serializerRegistry = new MockSchemaRegistryClient();
+            deserializerRegistry = serializerRegistry;
+        } else {
+            serializerRegistry = new CachedSchemaRegistryClient(registryUrl, 1000);
+            deserializerRegistry = new CachedSchemaRegistryClient(registryUrl, 1000);
+        }
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            (registryUrl == null ? "http://localhost:8081" : registryUrl));
+        configs.putAll(options.configs);
+
+        var serializer = new KafkaAvroCloudEventSerializer(serializerRegistry);
+        serializer.configure(configs, false);
+
+        var deserializer = new KafkaAvroCloudEventDeserializer(deserializerRegistry);
+        deserializer.configure(configs, false);
+
+        var type = options.schema.getFullName();
+        var workers = new ArrayList<Worker>();
+        for(int t = 0; t < options.threads; t++){
+            var worker = new Worker();
+            worker.pool.addAll(events(records(options.schema, POOL, options.seed + t, options.stringLength),
+                URI.create("/loadgen/worker-" + t), type));
+            workers.add(worker);
+        }
+
+        var executor = Executors.newFixedThreadPool(options.threads);
+        var warmed = new CountDownLatch(options.threads);
+        var go = new CountDownLatch(1);
+
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for(var worker : workers){
+                futures.add(executor.submit(() -> {
+                    run(worker, options.warmup, false, serializer, deserializer);
+                    warmed.countDown();
+
+                    go.await();
+                    run(worker, options.records, true, serializer, deserializer);
+                    return null;
+                }));
+            }
+
+            warmed.await();
+            var start = System.nanoTime();
+            go.countDown();
+
+            for(var future : futures){
+                future.get();
+            }
+
+            var report = new Report();
+            report.elapsedNanos = System.nanoTime() - start;
+
+            for(var worker : workers){
+                report.records += worker.report.records;
+                report.bytes += worker.report.bytes;
+                report.serialize.add(worker.report.serialize);
+                report.deserialize.add(worker.report.deserialize);
+                report.roundTrip.add(worker.report.roundTrip);
+            }
+
+            return report;
+
+        }catch(ExecutionException e){
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+
+        }finally {
+            executor.shutdownNow();
+            serializer.close();
+            deserializer.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.of(args);
+        }catch(IllegalArgumentException e){
+            System.err.println(e.getMessage());
+            System.err.println("usage: LoadGenerator [--schema file.avsc] [--threads N] [--records N]"
+                + " [--warmup N] [--string-length N] [--registry-url URL]"
+                + " [--stand-in-latency-us N] [--stand-in-failure-rate R] [--seed N] [config=value]...");
+            System.exit(1);
+            return;
+        }
+
+        System.out.println(options.schema.getFullName() + ", threads=" + options.threads
+            + ", records/thread=" + options.records);
+        System.out.println(run(options));
+    }
+}
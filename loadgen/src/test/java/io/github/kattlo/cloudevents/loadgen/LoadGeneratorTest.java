@@ -0,0 +1,63 @@
+package io.github.kattlo.cloudevents.loadgen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import org.acme.AvroEventDataExample;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void should_generate_records_with_the_string_length() {
+
+        // act
+        var registros = LoadGenerator.records(AvroEventDataExample.getClassSchema(), 10, 130, 64);
+
+        // assert
+        assertEquals(10, registros.size());
+        assertEquals(64, registros.get(0).get("name").toString().length());
+        assertEquals(64, registros.get(9).get("description").toString().length());
+    }
+
+    @Test
+    public void should_run_the_load_with_many_threads() throws Exception {
+
+        // setup
+        var options = LoadGenerator.Options.of(new String[]{
+            "--threads", "2", "--records", "500", "--warmup", "50"});
+
+        // act
+        var report = LoadGenerator.run(options);
+
+        // assert
+        assertEquals(1000, report.records);
+        assertEquals(1000, report.roundTrip.getCount());
+        assertTrue(report.bytes > 0);
+        assertTrue(report.recordsPerSecond() > 0);
+    }
+
+    @Test
+    public void should_throw_when_the_option_is_unknown() {
+
+        assertThrows(IllegalArgumentException.class,
+            () -> LoadGenerator.Options.of(new String[]{"--nope", "1"}));
+    }
+
+    @Test
+    public void should_run_the_load_against_the_registry_stand_in() throws Exception {
+
+        // setup
+        var options = LoadGenerator.Options.of(new String[]{
+            "--threads", "2", "--records", "200", "--warmup", "10", "--stand-in-latency-us", "1000"});
+
+        // act
+        var report = LoadGenerator.run(options);
+
+        // assert
+        assertEquals(400, report.records);
+        assertTrue(report.registryRequests > 0);
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.kattlo.cloudevents;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.test.TestRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+/**
+ * One event through a Streams topology with {@link CloudEventSerde}: source,
+ * repartition, reduce into an in-memory state store and sink, in the
+ * {@link TopologyTestDriver}. Each hop decodes and encodes the data, unless
+ * {@code keepEncoded}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamsSerdeBenchmark {
+
+    @Param({"false", "true"})
+    public boolean keepEncoded;
+
+    private CloudEventSerde serde;
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, byte[]> input;
+    private TestOutputTopic<String, byte[]> output;
+
+    private byte[] value;
+    private Headers headers;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var registry = new MockSchemaRegistryClient();
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "true");
+        configs.put(KafkaAvroCloudEventDeserializer.KEEP_ENCODED_CONFIG, keepEncoded);
+
+        serde = new CloudEventSerde(registry);
+        serde.configure(configs, false);
+
+        var builder = new StreamsBuilder();
+        builder.stream("input", Consumed.with(Serdes.String(), serde))
+            .selectKey((k, v) -> v.getSource().toString())
+            .groupByKey(Grouped.with(Serdes.String(), serde))
+            .reduce((previous, current) -> current,
+                Materialized.<String, CloudEvent>as(Stores.inMemoryKeyValueStore("latest"))
+                    .withKeySerde(Serdes.String())
+                    .withValueSerde(serde))
+            .toStream()
+            .to("output", Produced.with(Serdes.String(), serde));
+
+        var props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "benchmark");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        props.put(StreamsConfig.CACHE_MAX_BYTES_BUFFERING_CONFIG, 0);
+
+        driver = new TopologyTestDriver(builder.build(), props);
+        input = driver.createInputTopic("input", new StringSerializer(), new ByteArraySerializer());
+        output = driver.createOutputTopic("output", new StringDeserializer(), new ByteArrayDeserializer());
+
+        var data = new AvroEventDataExample(130l, "Nome 130", "Descrição 130");
+        var event = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/benchmark"))
+            .withType(data.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(data))
+            .build();
+
+        headers = new RecordHeaders();
+        value = serde.serializer().serialize("input", headers, event);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        driver.close();
+        serde.close();
+    }
+
+    @Benchmark
+    public Object topology() {
+        input.pipeInput(new TestRecord<>("key-" + (sequence++ & 1023), value, headers));
+        return output.readRecord();
+    }
+}
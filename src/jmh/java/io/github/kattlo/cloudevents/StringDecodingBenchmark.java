@@ -0,0 +1,124 @@
+package io.github.kattlo.cloudevents;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+
+/**
+ * Allocation of each {@link StringDecoding}, with and without interned
+ * fields. Run with {@code gradle jmh}, the gc profiler reports
+ * {@code gc.alloc.rate.norm} in bytes per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StringDecodingBenchmark {
+
+    private static final Schema SCHEMA = SchemaBuilder.record("Pedido").namespace("org.acme")
+        .fields()
+            .requiredString("id")
+            .requiredString("status")
+            .requiredString("country")
+            .requiredString("description")
+        .endRecord();
+
+    private static final String TOPIC = "benchmark";
+
+    @Param({"UTF8", "LAZY"})
+    public String decoding;
+
+    @Param({"", "status,country"})
+    public String interned;
+
+    private KafkaAvroCloudEventDeserializer deserializer;
+    private Headers headers;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var registry = new MockSchemaRegistryClient();
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(KafkaAvroCloudEventDeserializer.STRING_DECODING_CONFIG, decoding);
+        configs.put(KafkaAvroCloudEventDeserializer.INTERNED_FIELDS_CONFIG, interned);
+
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs, false);
+
+        deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        deserializer.configure(configs, false);
+
+        var value = new GenericData.Record(SCHEMA);
+        value.put("id", UUID.randomUUID().toString());
+        value.put("status", "SHIPPED");
+        value.put("country", "BR");
+        value.put("description", "Order shipped to the customer address, waiting for delivery");
+
+        var event = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/benchmark"))
+            .withType("org.acme.Pedido")
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(value))
+            .build();
+
+        headers = new RecordHeaders();
+        bytes = serializer.serialize(TOPIC, headers, event);
+        serializer.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deserializer.close();
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return deserializer.deserialize(TOPIC, headers, bytes);
+    }
+
+    @Benchmark
+    public void deserializeAndReadStrings(Blackhole bh) {
+        var event = deserializer.deserialize(TOPIC, headers, bytes);
+        GenericRecord value = AvroCloudEventData.dataOf(event.getData());
+
+        bh.consume(value.get("id").toString());
+        bh.consume(value.get("status").toString());
+        bh.consume(value.get("country").toString());
+        bh.consume(value.get("description").toString());
+    }
+}
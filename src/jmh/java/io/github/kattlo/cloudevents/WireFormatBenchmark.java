@@ -0,0 +1,101 @@
+package io.github.kattlo.cloudevents;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+/**
+ * Serialize and deserialize of one event with the {@link WireFormat.Engine}
+ * of {@link WireFormat#ENGINE_CONFIG}, the same bytes each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final String TOPIC = "benchmark";
+
+    @Param({"confluent", "lean"})
+    public String engine;
+
+    private KafkaAvroCloudEventSerializer serializer;
+    private KafkaAvroCloudEventDeserializer deserializer;
+
+    private CloudEvent event;
+    private byte[] value;
+    private Headers headers;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var registry = new MockSchemaRegistryClient();
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "true");
+        configs.put(WireFormat.ENGINE_CONFIG, engine);
+
+        serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs, false);
+        deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        deserializer.configure(configs, false);
+
+        var data = new AvroEventDataExample(130l, "Nome 130", "Descrição 130");
+        event = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/benchmark"))
+            .withType(data.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(data))
+            .build();
+
+        headers = new RecordHeaders();
+        value = serializer.serialize(TOPIC, headers, event);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public CloudEvent deserialize() {
+        return deserializer.deserialize(TOPIC, headers, value);
+    }
+}
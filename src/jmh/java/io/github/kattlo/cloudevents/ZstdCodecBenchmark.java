@@ -0,0 +1,185 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.luben.zstd.Zstd;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+
+/**
+ * CPU of serialize and deserialize for each payload codec: {@code NONE},
+ * zstd without dictionary, as a plain per-record {@code Zstd.compress}, and
+ * {@code ZSTD_DICT}, the trained dictionary of {@link ZstdDictionaries}. The
+ * average payload size of each codec is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZstdCodecBenchmark {
+
+    private static final Schema SCHEMA = SchemaBuilder.record("Pedido").namespace("org.acme")
+        .fields()
+            .requiredString("id")
+            .requiredString("status")
+            .requiredString("country")
+            .requiredString("description")
+        .endRecord();
+
+    private static final String TOPIC = "benchmark";
+
+    private static final String[] STATUS = {"CREATED", "PAID", "SHIPPED", "DELIVERED"};
+    private static final String[] COUNTRY = {"BR", "PT", "US", "DE", "JP"};
+
+    @Param({"NONE", "ZSTD", "ZSTD_DICT"})
+    public String codec;
+
+    private Path directory;
+    private KafkaAvroCloudEventSerializer serializer;
+    private KafkaAvroCloudEventDeserializer deserializer;
+
+    private CloudEvent event;
+    private Headers headers;
+    private byte[] bytes;
+    private int uncompressed;
+
+    private static GenericRecord pedido(int i) {
+        var value = new GenericData.Record(SCHEMA);
+        value.put("id", UUID.randomUUID().toString());
+        value.put("status", STATUS[i % STATUS.length]);
+        value.put("country", COUNTRY[i % COUNTRY.length]);
+        value.put("description", "Order " + i + " " + STATUS[i % STATUS.length].toLowerCase()
+            + ", waiting for the next step of the delivery");
+        return value;
+    }
+
+    private static CloudEvent eventOf(GenericRecord value) {
+        return CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/benchmark"))
+            .withType("org.acme.Pedido")
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(value))
+            .build();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        var registry = new MockSchemaRegistryClient();
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+
+        if("ZSTD_DICT".equals(codec)){
+            var samples = new ArrayList<GenericRecord>();
+            for(int i = 0; i < 2000; i++){
+                samples.add(pedido(i));
+            }
+
+            directory = Files.createTempDirectory("zstd-dictionaries");
+            ZstdDictionaryTrainer.write(directory, SCHEMA,
+                ZstdDictionaryTrainer.train(samples, ZstdDictionaryTrainer.DEFAULT_DICTIONARY_SIZE));
+
+            configs.put(ZstdDictionaries.DIRECTORY_CONFIG, directory.toString());
+        }
+
+        serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs, false);
+
+        deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        deserializer.configure(configs, false);
+
+        var sizes = new ArrayList<Integer>();
+        for(int i = 0; i < 1000; i++){
+            sizes.add(serialize(new RecordHeaders(), eventOf(pedido(i))).length);
+        }
+        System.out.println(codec + " average payload bytes: "
+            + sizes.stream().mapToInt(Integer::intValue).average().orElse(0));
+
+        event = eventOf(pedido(130));
+        headers = new RecordHeaders();
+        bytes = serialize(headers, event);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        serializer.close();
+        deserializer.close();
+
+        if(directory != null){
+            try(var files = Files.list(directory)){
+                for(var file : (Iterable<Path>)files::iterator){
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private byte[] serialize(Headers headers, CloudEvent event) {
+        var result = serializer.serialize(TOPIC, headers, event);
+        if("ZSTD".equals(codec)){
+            uncompressed = result.length - 5;
+            var compressed = Zstd.compress(Arrays.copyOfRange(result, 5, result.length), 3);
+
+            var framed = Arrays.copyOf(result, 5 + compressed.length);
+            System.arraycopy(compressed, 0, framed, 5, compressed.length);
+            result = framed;
+        }
+        return result;
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serialize(new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        var value = bytes;
+        if("ZSTD".equals(codec)){
+            var body = Zstd.decompress(Arrays.copyOfRange(value, 5, value.length), uncompressed);
+
+            value = Arrays.copyOf(value, 5 + body.length);
+            System.arraycopy(body, 0, value, 5, body.length);
+        }
+        return deserializer.deserialize(TOPIC, headers, value);
+    }
+}
@@ -0,0 +1,284 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaAndValue;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.storage.Converter;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.SpecVersion;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+
+/**
+ * Kafka Connect {@link Converter} of binary-mode CloudEvents with Avro data,
+ * with the {@link KafkaAvroCloudEventSerializer} and the
+ * {@link KafkaAvroCloudEventDeserializer}, so the same configurations apply.
+ *
+ * <p>The {@code ce_*} headers and the Avro data become a {@link Struct} named
+ * {@link #ENVELOPE_NAME}: the context attributes as fields, the extensions in
+ * {@link #EXTENSIONS_FIELD} and the data in {@link #DATA_FIELD}, translated
+ * from the Avro schema. Sink connectors receive it; source connectors produce
+ * it, and the converter writes the attributes back as {@code ce_*} headers.
+ * Events without data have the {@link #DATALESS_SCHEMA}, without the data
+ * field, and a {@code null} record value.
+ *
+ * <p>The extensions are strings only, a map of optional strings: the Kafka
+ * binary mode carries them as {@code ce_*} headers, that the deserializer
+ * reads as strings whatever type they were written with. Parse them in the
+ * connector, or in a transform, when they stand for numbers or booleans.
+ *
+ * <p>The Avro to Connect translation is cached per writer schema, that the
+ * registry client keeps one per schema id, and the Connect to Avro one per
+ * Connect schema of the data.
+ *
+ * @author fabiojose
+ */
+public class AvroCloudEventConverter implements Converter, Closeable {
+
+    public static final String ENVELOPE_NAME = "io.github.kattlo.cloudevents.CloudEvent";
+
+    public static final String SPECVERSION_FIELD = "specversion";
+    public static final String ID_FIELD = "id";
+    public static final String SOURCE_FIELD = "source";
+    public static final String TYPE_FIELD = "type";
+    public static final String DATACONTENTTYPE_FIELD = "datacontenttype";
+    public static final String DATASCHEMA_FIELD = "dataschema";
+    public static final String SUBJECT_FIELD = "subject";
+    public static final String TIME_FIELD = "time";
+    /**
+     * Map of the extension names to their values, always strings
+     */
+    public static final String EXTENSIONS_FIELD = "extensions";
+    public static final String DATA_FIELD = "data";
+
+    private static final Schema EXTENSIONS_SCHEMA =
+        SchemaBuilder.map(Schema.STRING_SCHEMA, Schema.OPTIONAL_STRING_SCHEMA).optional().build();
+
+    /**
+     * Envelope of the events without data
+     */
+    public static final Schema DATALESS_SCHEMA = envelopeOf(null);
+
+    /**
+     * Connect schemas of one Avro data schema
+     */
+    private static final class Translation {
+        private final org.apache.avro.Schema avro;
+        private final Schema data;
+        private final Schema envelope;
+
+        private Translation(org.apache.avro.Schema avro) {
+            this.avro = avro;
+            this.data = ConnectSchemas.toConnect(avro);
+            this.envelope = envelopeOf(data);
+        }
+    }
+
+    private final KafkaAvroCloudEventSerializer serializer;
+    private final KafkaAvroCloudEventDeserializer deserializer;
+
+    private final Map<org.apache.avro.Schema, Translation> translations = new ConcurrentHashMap<>();
+    private final Map<Schema, org.apache.avro.Schema> reverse = new ConcurrentHashMap<>();
+
+    public AvroCloudEventConverter() {
+        this.serializer = new KafkaAvroCloudEventSerializer();
+        this.deserializer = new KafkaAvroCloudEventDeserializer();
+    }
+
+    public AvroCloudEventConverter(SchemaRegistryClient registry) {
+        this.serializer = new KafkaAvroCloudEventSerializer(registry);
+        this.deserializer = new KafkaAvroCloudEventDeserializer(registry);
+    }
+
+    /**
+     * @param data Connect schema of the data, {@code null} for events without
+     * data
+     * @return The envelope schema
+     */
+    public static Schema envelopeOf(Schema data) {
+        var builder = SchemaBuilder.struct()
+            .name(ENVELOPE_NAME)
+            .field(SPECVERSION_FIELD, Schema.STRING_SCHEMA)
+            .field(ID_FIELD, Schema.STRING_SCHEMA)
+            .field(SOURCE_FIELD, Schema.STRING_SCHEMA)
+            .field(TYPE_FIELD, Schema.STRING_SCHEMA)
+            .field(DATACONTENTTYPE_FIELD, Schema.OPTIONAL_STRING_SCHEMA)
+            .field(DATASCHEMA_FIELD, Schema.OPTIONAL_STRING_SCHEMA)
+            .field(SUBJECT_FIELD, Schema.OPTIONAL_STRING_SCHEMA)
+            .field(TIME_FIELD, Schema.OPTIONAL_STRING_SCHEMA)
+            .field(EXTENSIONS_FIELD, EXTENSIONS_SCHEMA);
+
+        if(data != null){
+            builder.field(DATA_FIELD, data);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param configs Of the serializer and deserializer, always in binary
+     * mode and with generic records
+     */
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Map<String, Object> all = new HashMap<>(configs);
+        all.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        all.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, Boolean.FALSE);
+        all.put(KafkaAvroCloudEventDeserializer.KEEP_ENCODED_CONFIG, Boolean.FALSE);
+
+        serializer.configure(all, isKey);
+        deserializer.configure(all, isKey);
+
+        translations.clear();
+        reverse.clear();
+    }
+
+    private static String stringOf(Object value) {
+        return (value == null ? null : value.toString());
+    }
+
+    /**
+     * RFC 3339, unlike {@link OffsetDateTime#toString()} that leaves out zero seconds
+     */
+    private static String timeOf(OffsetDateTime time) {
+        return (time == null ? null : DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(time));
+    }
+
+    @Override
+    public byte[] fromConnectData(String topic, Schema schema, Object value) {
+        throw new DataException("Binary-mode CloudEvents need the record headers, use a Kafka Connect 2.4 or newer");
+    }
+
+    @Override
+    public byte[] fromConnectData(String topic, Headers headers, Schema schema, Object value) {
+        if(value == null){
+            return null;
+        }
+
+        if(schema == null || !ENVELOPE_NAME.equals(schema.name()) || !(value instanceof Struct)){
+            throw new DataException("Expecting a Struct with schema " + ENVELOPE_NAME + ", see "
+                + AvroCloudEventConverter.class.getName() + ".envelopeOf(Schema)");
+        }
+
+        var struct = (Struct)value;
+
+        var builder = CloudEventBuilder.fromSpecVersion(SpecVersion.parse(struct.getString(SPECVERSION_FIELD)))
+            .withId(struct.getString(ID_FIELD))
+            .withSource(URI.create(struct.getString(SOURCE_FIELD)))
+            .withType(struct.getString(TYPE_FIELD));
+
+        var dataField = schema.field(DATA_FIELD);
+        var data = (dataField == null ? null : struct.get(dataField));
+        if(data != null){
+            var avro = reverse.computeIfAbsent(dataField.schema(), ConnectSchemas::toAvro);
+            builder.withData(AvroCloudEventData.MIME_TYPE,
+                new AvroCloudEventData<>((GenericRecord)ConnectSchemas.toAvro(dataField.schema(), avro, data)));
+        }
+
+        var dataschema = struct.getString(DATASCHEMA_FIELD);
+        if(dataschema != null){
+            builder.withDataSchema(URI.create(dataschema));
+        }
+
+        var subject = struct.getString(SUBJECT_FIELD);
+        if(subject != null){
+            builder.withSubject(subject);
+        }
+
+        var time = struct.getString(TIME_FIELD);
+        if(time != null){
+            builder.withTime(OffsetDateTime.parse(time));
+        }
+
+        Map<String, String> extensions = struct.getMap(EXTENSIONS_FIELD);
+        if(extensions != null){
+            extensions.forEach((name, extension) -> {
+                if(extension != null){
+                    builder.withExtension(name, extension);
+                }
+            });
+        }
+
+        try {
+            return serializer.serialize(topic, headers, builder.build());
+        }catch(SerializationException e){
+            throw new DataException("Failed to serialize the CloudEvent of " + topic, e);
+        }
+    }
+
+    @Override
+    public SchemaAndValue toConnectData(String topic, byte[] value) {
+        throw new DataException("Binary-mode CloudEvents need the record headers, use a Kafka Connect 2.4 or newer");
+    }
+
+    @Override
+    public SchemaAndValue toConnectData(String topic, Headers headers, byte[] value) {
+        CloudEvent event;
+        try {
+            event = deserializer.deserialize(topic, headers, value);
+        }catch(SerializationException e){
+            throw new DataException("Failed to deserialize the CloudEvent of " + topic, e);
+        }
+
+        // duplicated, or tombstone without ce_* headers
+        if(event == null){
+            return SchemaAndValue.NULL;
+        }
+
+        if(FailedCloudEvent.isFailed(event)){
+            throw new DataException("Failed to deserialize the CloudEvent of " + topic,
+                ((FailedCloudEvent)event).getException());
+        }
+
+        Translation translation = null;
+        GenericRecord data = null;
+        if(event.getData() != null){
+            data = AvroCloudEventData.dataOf(event.getData());
+            translation = translations.computeIfAbsent(data.getSchema(), Translation::new);
+        }
+        var envelope = (translation == null ? DATALESS_SCHEMA : translation.envelope);
+
+        var extensions = new HashMap<String, String>();
+        for(var name : event.getExtensionNames()){
+            extensions.put(name, stringOf(event.getExtension(name)));
+        }
+
+        var struct = new Struct(envelope)
+            .put(SPECVERSION_FIELD, event.getSpecVersion().toString())
+            .put(ID_FIELD, event.getId())
+            .put(SOURCE_FIELD, event.getSource().toString())
+            .put(TYPE_FIELD, event.getType())
+            .put(DATACONTENTTYPE_FIELD, event.getDataContentType())
+            .put(DATASCHEMA_FIELD, stringOf(event.getDataSchema()))
+            .put(SUBJECT_FIELD, event.getSubject())
+            .put(TIME_FIELD, timeOf(event.getTime()))
+            .put(EXTENSIONS_FIELD, (extensions.isEmpty() ? null : extensions));
+
+        if(translation != null){
+            struct.put(DATA_FIELD, ConnectSchemas.toConnect(translation.avro, translation.data, data));
+        }
+
+        return new SchemaAndValue(envelope, struct);
+    }
+
+    @Override
+    public void close() {
+        serializer.close();
+        deserializer.close();
+    }
+}
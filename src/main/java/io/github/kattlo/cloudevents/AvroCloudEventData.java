@@ -23,11 +23,22 @@ implements
 
     public static final String MIME_TYPE = "application/avro";
 
-    public final T value;
+    /**
+     * Read through {@link #getValue()}, that subclasses like
+     * {@link ClaimCheckCloudEventData} override to resolve it on demand
+     */
+    private final T value;
     public AvroCloudEventData(final T value){
         this.value = Objects.requireNonNull(value);
     }
 
+    /**
+     * For subclasses that override {@link #getValue()}
+     */
+    protected AvroCloudEventData(){
+        this.value = null;
+    }
+
     @Override
     public byte[] toBytes() {
         return new byte[]{};
@@ -0,0 +1,49 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+
+/**
+ * Where the claim-check mode keeps oversized payloads. Implementations
+ * that also implement {@link org.apache.kafka.common.Configurable} receive
+ * the serializer, or deserializer, configurations.
+ *
+ * <p>Neither the serializer nor the deserializer knows when every consumer
+ * has read a payload, so none is deleted by them: the store must expire
+ * them, after the retention of their topics, through {@link #expire(Instant)}
+ * or its own means, like a bucket lifecycle rule.
+ *
+ * @see ClaimCheck
+ * @author fabiojose
+ */
+public interface BlobStore extends Closeable {
+
+    /**
+     * @param topic Where the record will be sent
+     * @param payload The wire format value
+     * @return Reference to put in the {@code ce_claimcheck} extension
+     */
+    String put(String topic, byte[] payload) throws IOException;
+
+    /**
+     * @param reference Returned by {@link #put(String, byte[])}
+     * @return Stream over the payload, read on demand
+     */
+    InputStream open(String reference) throws IOException;
+
+    /**
+     * Deletes the payloads put before the instant, for stores that do not
+     * expire them by their own means.
+     *
+     * @return How many payloads were deleted
+     */
+    default int expire(Instant before) throws IOException {
+        return 0;
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
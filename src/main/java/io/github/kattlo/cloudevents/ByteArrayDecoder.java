@@ -0,0 +1,260 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.util.Utf8;
+
+/**
+ * Avro binary {@link Decoder} over a byte array that never copies the
+ * payload and remembers where the last string or bytes value was found,
+ * so it can be exposed as a view instead of a copy.
+ *
+ * <p>Wire compatible with {@link BinaryDecoder}. Instances are reusable
+ * but not thread-safe.
+ *
+ * @author fabiojose
+ */
+final class ByteArrayDecoder extends Decoder {
+
+    private byte[] buf;
+    private int pos;
+    private int limit;
+
+    private int lastOffset;
+    private int lastLength;
+
+    ByteArrayDecoder configure(byte[] buf, int offset, int length) {
+        this.buf = buf;
+        this.pos = offset;
+        this.limit = offset + length;
+        this.lastOffset = 0;
+        this.lastLength = 0;
+
+        return this;
+    }
+
+    /**
+     * @return The array being decoded
+     */
+    byte[] buffer() {
+        return buf;
+    }
+
+    /**
+     * @return The offset of the last string or bytes value read or skipped
+     */
+    int lastOffset() {
+        return lastOffset;
+    }
+
+    /**
+     * @return The length of the last string or bytes value read or skipped
+     */
+    int lastLength() {
+        return lastLength;
+    }
+
+    private void ensure(int length) throws EOFException {
+        if(length > limit - pos){
+            throw new EOFException();
+        }
+    }
+
+    private int readLength() throws IOException {
+        var length = readLong();
+        if(length < 0){
+            throw new AvroRuntimeException("Malformed data. Length is negative: " + length);
+        }
+        ensure((int)Math.min(length, Integer.MAX_VALUE));
+
+        return (int)length;
+    }
+
+    private int mark() throws IOException {
+        lastLength = readLength();
+        lastOffset = pos;
+        pos += lastLength;
+
+        return lastOffset;
+    }
+
+    @Override
+    public void readNull() throws IOException {
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        ensure(1);
+        return buf[pos++] == 1;
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        var value = readLong();
+        if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE){
+            throw new AvroRuntimeException("Invalid int encoding");
+        }
+        return (int)value;
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        long raw = 0;
+        for(int shift = 0; shift < 64; shift += 7){
+            ensure(1);
+            int b = buf[pos++] & 0xff;
+            raw |= (long)(b & 0x7f) << shift;
+            if((b & 0x80) == 0){
+                return (raw >>> 1) ^ -(raw & 1);
+            }
+        }
+        throw new AvroRuntimeException("Invalid long encoding");
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        ensure(4);
+        int bits = (buf[pos] & 0xff)
+            | (buf[pos + 1] & 0xff) << 8
+            | (buf[pos + 2] & 0xff) << 16
+            | (buf[pos + 3] & 0xff) << 24;
+        pos += 4;
+
+        return Float.intBitsToFloat(bits);
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        ensure(8);
+        long bits = 0;
+        for(int i = 7; i >= 0; i--){
+            bits = (bits << 8) | (buf[pos + i] & 0xff);
+        }
+        pos += 8;
+
+        return Double.longBitsToDouble(bits);
+    }
+
+    @Override
+    public Utf8 readString(Utf8 old) throws IOException {
+        var offset = mark();
+        var result = (old != null ? old : new Utf8());
+        result.setByteLength(lastLength);
+        System.arraycopy(buf, offset, result.getBytes(), 0, lastLength);
+
+        return result;
+    }
+
+    @Override
+    public String readString() throws IOException {
+        var offset = mark();
+        return new String(buf, offset, lastLength, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void skipString() throws IOException {
+        mark();
+    }
+
+    @Override
+    public ByteBuffer readBytes(ByteBuffer old) throws IOException {
+        var offset = mark();
+
+        ByteBuffer result;
+        if(old != null && old.hasArray() && lastLength <= old.capacity()){
+            result = old;
+            result.clear();
+        } else {
+            result = ByteBuffer.allocate(lastLength);
+        }
+        System.arraycopy(buf, offset, result.array(), result.arrayOffset(), lastLength);
+        result.limit(lastLength);
+
+        return result;
+    }
+
+    @Override
+    public void skipBytes() throws IOException {
+        mark();
+    }
+
+    @Override
+    public void readFixed(byte[] bytes, int start, int length) throws IOException {
+        ensure(length);
+        System.arraycopy(buf, pos, bytes, start, length);
+        pos += length;
+    }
+
+    @Override
+    public void skipFixed(int length) throws IOException {
+        ensure(length);
+        pos += length;
+    }
+
+    @Override
+    public int readEnum() throws IOException {
+        return readInt();
+    }
+
+    private long readItemCount() throws IOException {
+        var count = readLong();
+        if(count < 0){
+            // block size in bytes follows a negative count
+            readLong();
+            count = -count;
+        }
+        return count;
+    }
+
+    private long skipItems() throws IOException {
+        var count = readLong();
+        while(count < 0){
+            var size = readLong();
+            ensure((int)Math.min(size, Integer.MAX_VALUE));
+            pos += size;
+            count = readLong();
+        }
+        return count;
+    }
+
+    @Override
+    public long readArrayStart() throws IOException {
+        return readItemCount();
+    }
+
+    @Override
+    public long arrayNext() throws IOException {
+        return readItemCount();
+    }
+
+    @Override
+    public long skipArray() throws IOException {
+        return skipItems();
+    }
+
+    @Override
+    public long readMapStart() throws IOException {
+        return readItemCount();
+    }
+
+    @Override
+    public long mapNext() throws IOException {
+        return readItemCount();
+    }
+
+    @Override
+    public long skipMap() throws IOException {
+        return skipItems();
+    }
+
+    @Override
+    public int readIndex() throws IOException {
+        return readInt();
+    }
+}
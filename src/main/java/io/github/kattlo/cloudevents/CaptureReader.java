@@ -0,0 +1,179 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+/**
+ * Reads a capture file written by {@link CaptureWriter}, memory-mapped in
+ * windows of up to 256 MiB.
+ *
+ * @author fabiojose
+ */
+public final class CaptureReader implements Closeable {
+
+    static final long WINDOW = 256L * 1024 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final String topic;
+    private final long first;
+
+    public CaptureReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+            var header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(channel.size(), CaptureWriter.MAGIC.length + 1 + 2 + 0xffff));
+
+            var magic = new byte[CaptureWriter.MAGIC.length];
+            header.get(magic);
+            if(!Arrays.equals(magic, CaptureWriter.MAGIC)){
+                throw new IOException(file + " is not a capture file");
+            }
+
+            var version = header.get();
+            if(version != CaptureWriter.VERSION){
+                throw new IOException(file + " has the unsupported version " + version);
+            }
+
+            var name = new byte[header.getShort() & 0xffff];
+            header.get(name);
+
+            this.topic = new String(name, StandardCharsets.UTF_8);
+            this.first = header.position();
+
+        }catch(BufferUnderflowException e){
+            channel.close();
+            throw new IOException(file + " is not a capture file", e);
+        }catch(IOException e){
+            channel.close();
+            throw e;
+        }
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        var bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(MappedByteBuffer buffer) {
+        var length = buffer.getInt();
+        if(length < 0){
+            return null;
+        }
+
+        var bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return Bytes of the file up to the end of the last complete record
+     */
+    long validLength() throws IOException {
+        var size = channel.size();
+        var length = ByteBuffer.allocate(4);
+
+        var position = first;
+        while(position + 4 <= size){
+            length.clear();
+            if(channel.read(length, position) < 4 || length.getInt(0) < 0
+                    || position + 4 + length.getInt(0) > size){
+                break;
+            }
+            position += 4 + length.getInt(0);
+        }
+
+        return position;
+    }
+
+    /**
+     * Reads the record after its length
+     */
+    private static CapturedRecord read(MappedByteBuffer buffer) {
+        var timestamp = buffer.getLong();
+
+        var headers = new RecordHeaders();
+        for(int h = buffer.getShort() & 0xffff; h > 0; h--){
+            headers.add(readString(buffer), readBytes(buffer));
+        }
+
+        return new CapturedRecord(timestamp, headers, readBytes(buffer));
+    }
+
+    /**
+     * Hands every record, in the order they were appended
+     *
+     * @return Number of records
+     */
+    public long forEach(Consumer<CapturedRecord> consumer) throws IOException {
+        var size = channel.size();
+        var position = first;
+        long count = 0;
+
+        while(position + 4 <= size){
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(size - position, WINDOW));
+
+            while(buffer.remaining() >= 4){
+                var start = buffer.position();
+                var length = buffer.getInt();
+                if(length < 0){
+                    throw new IOException(file + " is corrupted at " + (position + start));
+                }
+                if(buffer.remaining() < length){
+                    buffer.position(start);
+                    break;
+                }
+
+                consumer.accept(read(buffer));
+                count++;
+            }
+
+            var consumed = buffer.position();
+            if(consumed == 0){
+                if(position + 4 + buffer.getInt(0) > size){
+                    // truncated last record
+                    break;
+                }
+                // a record larger than the window
+                var length = 4L + buffer.getInt(0);
+                if(length > Integer.MAX_VALUE){
+                    throw new IOException(file + " has a record too large at " + position);
+                }
+                var large = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                large.getInt();
+
+                consumer.accept(read(large));
+                count++;
+
+                consumed = (int)length;
+            }
+            position += consumed;
+        }
+
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
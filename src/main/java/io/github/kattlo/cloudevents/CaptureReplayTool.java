@@ -0,0 +1,229 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import lombok.Getter;
+
+/**
+ * Captures the records of a topic to a file, see {@link CaptureWriter}, and
+ * replays them through the {@link KafkaAvroCloudEventDeserializer} without
+ * a cluster nor a registry, reporting throughput, allocation and latency.
+ *
+ * <pre>
+ * java -cp ... io.github.kattlo.cloudevents.CaptureReplayTool \
+ *   capture &lt;bootstrap servers&gt; &lt;registry url&gt; &lt;topic&gt; &lt;file&gt; [max records]
+ *
+ * java -cp ... io.github.kattlo.cloudevents.CaptureReplayTool \
+ *   replay &lt;file&gt; [iterations] [config=value]...
+ * </pre>
+ *
+ * The schemas go to {@code <file>.schemas}, see {@link SchemaSnapshot}.
+ *
+ * @author fabiojose
+ */
+public final class CaptureReplayTool {
+
+    static final String SCHEMAS_SUFFIX = ".schemas";
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final int MAX_EMPTY_POLLS = 3;
+
+    /**
+     * Measures of the replay iterations, warm-up excluded
+     */
+    @Getter
+    public static final class ReplayReport {
+        private long records;
+        private long elapsedNanos;
+
+        /**
+         * Bytes allocated by the replaying thread, reading included, or -1
+         * when the JVM does not support it
+         */
+        private long allocatedBytes;
+
+        /**
+         * Nanoseconds to deserialize each record
+         */
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        public double getRecordsPerSecond() {
+            return (elapsedNanos == 0 ? 0 : records * 1e9 / elapsedNanos);
+        }
+
+        public double getAllocatedBytesPerRecord() {
+            return (allocatedBytes < 0 || records == 0 ? -1 : (double)allocatedBytes / records);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("records=%d, records/s=%.0f, allocated bytes/record=%.0f,"
+                + " latency ns p50=%d p99=%d p999=%d max=%d",
+                records, getRecordsPerSecond(), getAllocatedBytesPerRecord(),
+                latency.valueAtPercentile(50), latency.valueAtPercentile(99),
+                latency.valueAtPercentile(99.9), latency.getMax());
+        }
+    }
+
+    private CaptureReplayTool() {
+    }
+
+    static Path schemasOf(Path capture) {
+        return capture.resolveSibling(capture.getFileName() + SCHEMAS_SUFFIX);
+    }
+
+    private static long allocatedBytes() {
+        var threads = ManagementFactory.getThreadMXBean();
+        if(threads instanceof com.sun.management.ThreadMXBean){
+            return ((com.sun.management.ThreadMXBean)threads)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Replays the capture, with the schemas of its snapshot
+     *
+     * @param configs Of the deserializer, the encoding and registry url are
+     * set when absent
+     * @param warmup Iterations not measured
+     * @param iterations Measured ones
+     */
+    public static ReplayReport replay(Path capture, Map<String, ?> configs, int warmup,
+            int iterations) throws IOException {
+
+        try(var reader = new CaptureReader(capture)){
+            var topic = reader.getTopic();
+
+            Map<String, Object> all = new HashMap<>(configs);
+            all.putIfAbsent(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+            all.putIfAbsent(KafkaAvroDeserializerConfig.SCHEMA_REGISTRY_URL_CONFIG, "http://replay:8081");
+
+            var deserializer = new KafkaAvroCloudEventDeserializer(
+                SchemaSnapshot.registryOf(schemasOf(capture), topic));
+            deserializer.configure(all, false);
+
+            try {
+                for(int i = 0; i < warmup; i++){
+                    reader.forEach(r -> deserializer.deserialize(topic, r.getHeaders(), r.getValue()));
+                }
+
+                var report = new ReplayReport();
+                var allocatedBefore = allocatedBytes();
+                var start = System.nanoTime();
+
+                for(int i = 0; i < iterations; i++){
+                    report.records += reader.forEach(r -> {
+                        var begin = System.nanoTime();
+                        deserializer.deserialize(topic, r.getHeaders(), r.getValue());
+                        report.latency.record(System.nanoTime() - begin);
+                    });
+                }
+
+                report.elapsedNanos = System.nanoTime() - start;
+                var allocatedAfter = allocatedBytes();
+                report.allocatedBytes = (allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore);
+
+                return report;
+
+            }finally {
+                deserializer.close();
+            }
+        }
+    }
+
+    /**
+     * Captures the topic from the beginning, until {@code max} records or
+     * no more records to read
+     *
+     * @return Number of captured records
+     */
+    public static long capture(String bootstrapServers, String registryUrl, String topic, Path file,
+            long max) throws IOException {
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        configs.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        try(var consumer = new KafkaConsumer<>(configs, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+            var writer = new CaptureWriter(file, topic)){
+
+            consumer.assign(consumer.partitionsFor(topic).stream()
+                .map(p -> new TopicPartition(p.topic(), p.partition()))
+                .collect(Collectors.toList()));
+            consumer.seekToBeginning(consumer.assignment());
+
+            var empty = 0;
+            while(writer.getCount() < max && empty < MAX_EMPTY_POLLS){
+                var records = consumer.poll(POLL_TIMEOUT);
+                empty = (records.isEmpty() ? empty + 1 : 0);
+
+                for(var record : records){
+                    if(writer.getCount() >= max){
+                        break;
+                    }
+                    writer.append(record);
+                }
+            }
+
+            writer.flush();
+            SchemaSnapshot.write(schemasOf(file), new CachedSchemaRegistryClient(registryUrl, 100),
+                writer.getSchemaIds());
+
+            return writer.getCount();
+        }
+    }
+
+    private static void usage() {
+        System.err.println("usage: CaptureReplayTool capture <bootstrap servers> <registry url> <topic> <file> [max records]");
+        System.err.println("       CaptureReplayTool replay <file> [iterations] [config=value]...");
+        System.exit(1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length >= 5 && "capture".equals(args[0])){
+            var max = (args.length > 5 ? Long.parseLong(args[5]) : Long.MAX_VALUE);
+            var count = capture(args[1], args[2], args[3], Paths.get(args[4]), max);
+
+            System.out.println(count + " records captured to " + args[4]);
+
+        } else if(args.length >= 2 && "replay".equals(args[0])){
+            var i = 2;
+            var iterations = 5;
+            if(args.length > 2 && !args[2].contains("=")){
+                iterations = Integer.parseInt(args[2]);
+                i = 3;
+            }
+
+            Map<String, Object> configs = new HashMap<>();
+            for(; i < args.length; i++){
+                var separator = args[i].indexOf('=');
+                if(separator < 1){
+                    usage();
+                }
+                configs.put(args[i].substring(0, separator), args[i].substring(separator + 1));
+            }
+
+            System.out.println(replay(Paths.get(args[1]), configs, 1, iterations));
+
+        } else {
+            usage();
+        }
+    }
+}
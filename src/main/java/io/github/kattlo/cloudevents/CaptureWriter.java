@@ -0,0 +1,149 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Appends records of one topic to a capture file, to replay them later
+ * with {@link CaptureReader}.
+ *
+ * <p>The format, big-endian:
+ * <pre>
+ * file   = "CECAPT" version:u8 topic:string record*
+ * record = length:i32 timestamp:i64 headers:u16 (key:string value:bytes)* value:bytes
+ * string = length:u16 utf-8
+ * bytes  = length:i32, -1 for null, then the bytes
+ * </pre>
+ * where the record {@code length} counts the bytes after itself. Opening
+ * an existing file appends to it, after dropping a truncated last record.
+ *
+ * @author fabiojose
+ */
+public final class CaptureWriter implements Closeable {
+
+    static final byte[] MAGIC = "CECAPT".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+
+    private final String topic;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(1024);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final Set<Integer> schemaIds = new TreeSet<>();
+
+    private long count;
+
+    public CaptureWriter(Path file, String topic) throws IOException {
+        this.topic = topic;
+
+        var exists = Files.exists(file) && Files.size(file) > 0;
+        if(exists){
+            long valid;
+            try(var reader = new CaptureReader(file)){
+                if(!topic.equals(reader.getTopic())){
+                    throw new IllegalArgumentException(file + " is a capture of " + reader.getTopic()
+                        + ", not of " + topic);
+                }
+                valid = reader.validLength();
+            }
+
+            // drop the truncated last record, if any
+            try(var channel = FileChannel.open(file, StandardOpenOption.WRITE)){
+                channel.truncate(valid);
+            }
+        }
+
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE), 64 * 1024));
+
+        if(!exists){
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            writeString(out, topic);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if(value == null){
+            out.writeInt(-1);
+        } else {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * @return Number of records appended by this writer
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The schema ids of the appended values in the wire format,
+     * to snapshot with {@link SchemaSnapshot}
+     */
+    public Set<Integer> getSchemaIds() {
+        return Collections.unmodifiableSet(schemaIds);
+    }
+
+    public void append(ConsumerRecord<byte[], byte[]> consumed) throws IOException {
+        append(consumed.timestamp(), consumed.headers(), consumed.value());
+    }
+
+    public void append(long timestamp, Headers headers, byte[] value) throws IOException {
+        record.reset();
+
+        recordOut.writeLong(timestamp);
+
+        var all = headers.toArray();
+        recordOut.writeShort(all.length);
+
+        for(var header : all){
+            writeString(recordOut, header.key());
+            writeBytes(recordOut, header.value());
+        }
+        writeBytes(recordOut, value);
+
+        out.writeInt(record.size());
+        record.writeTo(out);
+
+        if(value != null && value.length >= 5 && value[0] == 0){
+            schemaIds.add(((value[1] & 0xff) << 24) | ((value[2] & 0xff) << 16)
+                | ((value[3] & 0xff) << 8) | (value[4] & 0xff));
+        }
+        this.count++;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.kattlo.cloudevents;
+
+import org.apache.kafka.common.header.Headers;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One record of a capture file, see {@link CaptureWriter}.
+ *
+ * @author fabiojose
+ */
+@Getter
+@ToString
+public final class CapturedRecord {
+
+    private final long timestamp;
+    private final Headers headers;
+
+    /**
+     * {@code null} for tombstones
+     */
+    @ToString.Exclude
+    private final byte[] value;
+
+    CapturedRecord(long timestamp, Headers headers, byte[] value) {
+        this.timestamp = timestamp;
+        this.headers = headers;
+        this.value = value;
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.kattlo.cloudevents;
+
+import java.util.Map;
+
+import org.apache.kafka.common.Configurable;
+
+/**
+ * Claim-check mode: values larger than a threshold are kept in a
+ * {@link BlobStore}, the record carries just a stub, the magic byte and the
+ * schema id, plus the reference in the {@code claimcheck} extension.
+ *
+ * @author fabiojose
+ */
+public final class ClaimCheck {
+
+    /**
+     * CloudEvent extension with the reference of the payload in the store
+     */
+    public static final String EXTENSION = "claimcheck";
+
+    public static final String HEADER = "ce_" + EXTENSION;
+
+    /**
+     * Class name, or {@link Class}, of the {@link BlobStore}. When absent the
+     * claim-check mode is disabled
+     */
+    public static final String STORE_CONFIG = "cloudevents.avro.claimcheck.store";
+
+    /**
+     * Values larger than this number of bytes are claim-checked. Default is
+     * 1048576
+     */
+    public static final String THRESHOLD_CONFIG = "cloudevents.avro.claimcheck.threshold.bytes";
+
+    static final int DEFAULT_THRESHOLD = 1024 * 1024;
+
+    static final int STUB_SIZE = 1 + 4;
+
+    private ClaimCheck() {
+    }
+
+    /**
+     * @return The configured store, or {@code null} when not configured
+     */
+    static BlobStore storeOf(Map<String, ?> configs) {
+        var config = configs.get(STORE_CONFIG);
+
+        Class<?> type;
+        if(config == null){
+            return null;
+        } else if(config instanceof Class){
+            type = (Class<?>)config;
+        } else if(config instanceof String){
+            try {
+                type = Class.forName(((String)config).trim());
+            }catch(ClassNotFoundException e){
+                throw new IllegalArgumentException(STORE_CONFIG + "=" + config + " not found", e);
+            }
+        } else {
+            throw new IllegalArgumentException(STORE_CONFIG + " can be of type String or " + Class.class.getName());
+        }
+
+        if(!BlobStore.class.isAssignableFrom(type)){
+            throw new IllegalArgumentException(STORE_CONFIG + "=" + type.getName()
+                + " must implement " + BlobStore.class.getName());
+        }
+
+        try {
+            var store = (BlobStore)type.getDeclaredConstructor().newInstance();
+            if(store instanceof Configurable){
+                ((Configurable)store).configure(configs);
+            }
+
+            return store;
+        }catch(ReflectiveOperationException e){
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    static int thresholdOf(Map<String, ?> configs) {
+        var config = configs.get(THRESHOLD_CONFIG);
+
+        if(config == null){
+            return DEFAULT_THRESHOLD;
+        } else if(config instanceof Number){
+            return ((Number)config).intValue();
+        } else {
+            return Integer.parseInt(config.toString().trim());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.kattlo.cloudevents;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.apache.avro.generic.IndexedRecord;
+
+/**
+ * Data of a claim-checked event: the value is read from the
+ * {@link BlobStore} and decoded just on the first {@link #getValue()}.
+ *
+ * @author fabiojose
+ */
+public final class ClaimCheckCloudEventData<T extends IndexedRecord> extends AvroCloudEventData<T> {
+
+    private final String reference;
+    private final Supplier<T> loader;
+    private volatile T loaded;
+
+    ClaimCheckCloudEventData(String reference, Supplier<T> loader) {
+        this.reference = Objects.requireNonNull(reference);
+        this.loader = Objects.requireNonNull(loader);
+    }
+
+    /**
+     * @return The reference of the payload in the {@link BlobStore}
+     */
+    public String getReference() {
+        return reference;
+    }
+
+    /**
+     * @return {@code true} when the value was already read from the store
+     */
+    public boolean isLoaded() {
+        return loaded != null;
+    }
+
+    /**
+     * @throws org.apache.kafka.common.errors.SerializationException When the
+     * payload could not be read or decoded
+     */
+    @Override
+    public T getValue() {
+        var result = loaded;
+        if(result == null){
+            synchronized(this){
+                result = loaded;
+                if(result == null){
+                    result = Objects.requireNonNull(loader.get());
+                    loaded = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ClaimCheckCloudEventData(reference=" + reference + ", loaded=" + isLoaded() + ")";
+    }
+}
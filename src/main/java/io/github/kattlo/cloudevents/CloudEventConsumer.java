@@ -0,0 +1,720 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.kafka.PartitionKeyExtensionInterceptor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumer runtime that dispatches the deserialized events to a pool of
+ * threads, keeping the order of events with the same key.
+ *
+ * <ul>
+ *   <li>Events are sharded in lanes by the {@code partitionkey} extension,
+ *   or by the record key, or by the partition when there is no key</li>
+ *   <li>A lane handles one event at time, in offset order</li>
+ *   <li>Offsets are committed up to the lowest one not handled yet, also
+ *   before partitions are revoked, and sent again until a commit succeeds</li>
+ *   <li>Partitions with too many pending events are paused until the
+ *   handlers catch up</li>
+ *   <li>Records that could not be deserialized, with the tolerant
+ *   {@link PoisonPills}, are skipped without reaching the handler</li>
+ *   <li>With the {@link DuplicateFilter} of the deserializer, events are
+ *   marked as seen once handled, so redeliveries of those never handled
+ *   are not skipped</li>
+ * </ul>
+ *
+ * <p>An event completes, and its offset may be committed, only when the
+ * handler returns. When it throws, it is retried {@link #RETRIES_CONFIG}
+ * times with an exponential backoff, in its lane, so the next events of the
+ * key wait. Then it goes to the {@link #DEAD_LETTER_CONFIG} handler, when
+ * set, and completes. Otherwise, or when that throws too, its partition
+ * stops: it is paused, the events already dispatched are not handled, and
+ * the offsets are committed just up to the failed event. The partition is
+ * consumed again from it when reassigned or when the consumer restarts.
+ *
+ * <p>The poll loop runs on the thread calling {@link #run()}, that is the
+ * only one touching the {@link Consumer}.
+ *
+ * @param <K> Type of the record key
+ * @author fabiojose
+ */
+@Slf4j
+public class CloudEventConsumer<K> implements Runnable, Closeable {
+
+    /**
+     * Threads handling events. Default is {@code 0}: virtual threads when
+     * the JVM supports them, otherwise the number of available processors
+     */
+    public static final String THREADS_CONFIG = "cloudevents.consumer.threads";
+
+    /**
+     * Number of lanes events are sharded in. Default is 256
+     */
+    public static final String LANES_CONFIG = "cloudevents.consumer.lanes";
+
+    /**
+     * Pending events that pause a partition, resumed at the half. Default is 1000
+     */
+    public static final String MAX_PENDING_CONFIG = "cloudevents.consumer.max.pending";
+
+    /**
+     * Milliseconds between offset commits. Default is 5000
+     */
+    public static final String COMMIT_INTERVAL_MS_CONFIG = "cloudevents.consumer.commit.interval.ms";
+
+    /**
+     * Max milliseconds waiting for pending events of revoked partitions or
+     * at close. Default is 30000
+     */
+    public static final String DRAIN_TIMEOUT_MS_CONFIG = "cloudevents.consumer.drain.timeout.ms";
+
+    /**
+     * Times an event whose handler threw is handled again. Default is 3
+     */
+    public static final String RETRIES_CONFIG = "cloudevents.consumer.retries";
+
+    /**
+     * Milliseconds before the first retry, doubled at each one. Default is 100
+     */
+    public static final String RETRY_BACKOFF_MS_CONFIG = "cloudevents.consumer.retry.backoff.ms";
+
+    /**
+     * The {@link CloudEventHandler} instance for the events that failed every
+     * retry, their offsets are committed once it returns. Default is none,
+     * the partition stops at the failed event
+     */
+    public static final String DEAD_LETTER_CONFIG = "cloudevents.consumer.dead.letter";
+
+    private static final int DEFAULT_LANES = 256;
+    private static final int DEFAULT_MAX_PENDING = 1000;
+    private static final long DEFAULT_COMMIT_INTERVAL_MS = 5000;
+    private static final long DEFAULT_DRAIN_TIMEOUT_MS = 30_000;
+    private static final int DEFAULT_RETRIES = 3;
+    private static final long DEFAULT_RETRY_BACKOFF_MS = 100;
+    private static final int MAX_BACKOFF_SHIFT = 16;
+    private static final int LANE_BATCH = 64;
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+
+    private final class Task {
+        final ConsumerRecord<K, CloudEvent> record;
+        final OffsetTracker tracker;
+
+        Task(ConsumerRecord<K, CloudEvent> record, OffsetTracker tracker) {
+            this.record = record;
+            this.tracker = tracker;
+        }
+    }
+
+    /**
+     * Serial executor: tasks run one at time, in the order they were added.
+     */
+    private final class Lane implements Runnable {
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+
+        void add(Task task) {
+            synchronized(this){
+                tasks.add(task);
+                if(scheduled){
+                    return;
+                }
+                scheduled = true;
+            }
+            executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            for(int i = 0; i < LANE_BATCH; i++){
+                Task task;
+                synchronized(this){
+                    task = tasks.poll();
+                    if(task == null){
+                        scheduled = false;
+                        return;
+                    }
+                }
+                handle(task);
+            }
+
+            // yield the thread to other lanes
+            executor.execute(this);
+        }
+    }
+
+    private final Consumer<K, CloudEvent> consumer;
+    private final CloudEventHandler<K> handler;
+    private final CloudEventHandler<K> deadLetter;
+    private final DuplicateFilter duplicates;
+    private final ExecutorService executor;
+    private final boolean owned;
+
+    private final List<Lane> lanes;
+    private final int maxPending;
+    private final long commitIntervalMs;
+    private final long drainTimeoutMs;
+    private final int retries;
+    private final long retryBackoffMs;
+
+    private final Map<TopicPartition, OffsetTracker> trackers = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, OffsetTracker> paused = new HashMap<>();
+    private long lastCommit = System.currentTimeMillis();
+
+    private final LongAdder handled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder poisoned = new LongAdder();
+
+    private volatile boolean running = true;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Creates the {@link KafkaConsumer} with {@link KafkaAvroCloudEventDeserializer},
+     * configured with the same configurations. The {@code enable.auto.commit}
+     * is always {@code false}. When the handler is a {@link CloudEventDispatcher}
+     * the deserializer decodes the data of its types into their classes.
+     */
+    public CloudEventConsumer(Map<String, Object> configs, Deserializer<K> keyDeserializer,
+            CloudEventHandler<K> handler) {
+
+        this(configs, keyDeserializer, handler,
+            configured(withDispatcher(configs, handler)));
+    }
+
+    private CloudEventConsumer(Map<String, Object> configs, Deserializer<K> keyDeserializer,
+            CloudEventHandler<K> handler, KafkaAvroCloudEventDeserializer deserializer) {
+
+        this(new KafkaConsumer<>(withoutAutoCommit(configs), keyDeserializer, deserializerOf(deserializer)),
+            handler, executorOf(configs), true, deserializer.getDuplicateFilter(), configs);
+    }
+
+    /**
+     * @param consumer With auto commit disabled, it is not closed by {@link #close()}
+     * @param handler To handle the events
+     * @param executor To handle on, it is not shutdown by {@link #close()}
+     * @param configs The {@code cloudevents.consumer.*} configurations
+     */
+    public CloudEventConsumer(Consumer<K, CloudEvent> consumer, CloudEventHandler<K> handler,
+            ExecutorService executor, Map<String, ?> configs) {
+
+        this(consumer, handler, executor, null, configs);
+    }
+
+    /**
+     * @param duplicates The {@link KafkaAvroCloudEventDeserializer#getDuplicateFilter()}
+     * of the consumer, the events are marked as seen once handled
+     * @see #CloudEventConsumer(Consumer, CloudEventHandler, ExecutorService, Map)
+     */
+    public CloudEventConsumer(Consumer<K, CloudEvent> consumer, CloudEventHandler<K> handler,
+            ExecutorService executor, DuplicateFilter duplicates, Map<String, ?> configs) {
+
+        this(consumer, handler, executor, false, duplicates, configs);
+    }
+
+    private CloudEventConsumer(Consumer<K, CloudEvent> consumer, CloudEventHandler<K> handler,
+            ExecutorService executor, boolean owned, DuplicateFilter duplicates,
+            Map<String, ?> configs) {
+
+        this.consumer = Objects.requireNonNull(consumer);
+        this.handler = Objects.requireNonNull(handler);
+        this.executor = Objects.requireNonNull(executor);
+        this.owned = owned;
+        this.duplicates = duplicates;
+
+        var lanes = (int)longOf(configs, LANES_CONFIG, DEFAULT_LANES);
+        if(lanes <= 0){
+            throw new IllegalArgumentException(LANES_CONFIG + " must be greater than zero");
+        }
+
+        this.lanes = new ArrayList<>(lanes);
+        for(int i = 0; i < lanes; i++){
+            this.lanes.add(new Lane());
+        }
+
+        this.maxPending = (int)longOf(configs, MAX_PENDING_CONFIG, DEFAULT_MAX_PENDING);
+        this.commitIntervalMs = longOf(configs, COMMIT_INTERVAL_MS_CONFIG, DEFAULT_COMMIT_INTERVAL_MS);
+        this.drainTimeoutMs = longOf(configs, DRAIN_TIMEOUT_MS_CONFIG, DEFAULT_DRAIN_TIMEOUT_MS);
+        this.retries = (int)longOf(configs, RETRIES_CONFIG, DEFAULT_RETRIES);
+        this.retryBackoffMs = longOf(configs, RETRY_BACKOFF_MS_CONFIG, DEFAULT_RETRY_BACKOFF_MS);
+        this.deadLetter = deadLetterOf(configs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> CloudEventHandler<K> deadLetterOf(Map<String, ?> configs) {
+        var config = configs.get(DEAD_LETTER_CONFIG);
+
+        if(config == null){
+            return null;
+        } else if(config instanceof CloudEventHandler){
+            return (CloudEventHandler<K>)config;
+        } else {
+            throw new IllegalArgumentException(DEAD_LETTER_CONFIG + " must be an instance of "
+                + CloudEventHandler.class.getName());
+        }
+    }
+
+    private static Map<String, Object> withoutAutoCommit(Map<String, Object> configs) {
+        var result = new HashMap<>(configs);
+        result.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+
+        return result;
+    }
+
+    private static Map<String, Object> withDispatcher(Map<String, Object> configs,
+            CloudEventHandler<?> handler) {
+
+        if(!(handler instanceof CloudEventDispatcher)
+                || configs.containsKey(CloudEventDispatcher.DISPATCHER_CONFIG)){
+            return configs;
+        }
+
+        var result = new HashMap<>(configs);
+        result.put(CloudEventDispatcher.DISPATCHER_CONFIG, handler);
+
+        return result;
+    }
+
+    private static KafkaAvroCloudEventDeserializer configured(Map<String, Object> configs) {
+        var deserializer = new KafkaAvroCloudEventDeserializer();
+        deserializer.configure(configs, false);
+
+        return deserializer;
+    }
+
+    private static Deserializer<CloudEvent> deserializerOf(KafkaAvroCloudEventDeserializer deserializer) {
+        return new Deserializer<>() {
+            @Override
+            public CloudEvent deserialize(String topic, byte[] data) {
+                throw new UnsupportedOperationException("CloudEvents need the record headers");
+            }
+
+            @Override
+            public CloudEvent deserialize(String topic, Headers headers, byte[] data) {
+                return deserializer.deserialize(topic, headers, data);
+            }
+
+            @Override
+            public void close() {
+                deserializer.close();
+            }
+        };
+    }
+
+    private static long longOf(Map<String, ?> configs, String name, long defaultValue) {
+        var config = configs.get(name);
+
+        if(config == null){
+            return defaultValue;
+        } else if(config instanceof Number){
+            return ((Number)config).longValue();
+        } else {
+            return Long.parseLong(config.toString().trim());
+        }
+    }
+
+    /**
+     * Virtual threads through reflection, to keep running on Java 11.
+     */
+    static ExecutorService executorOf(Map<String, ?> configs) {
+        var threads = (int)longOf(configs, THREADS_CONFIG, 0);
+
+        if(threads <= 0){
+            try {
+                return (ExecutorService)Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            }catch(ReflectiveOperationException e){
+                log.debug("virtual threads not supported, using platform threads");
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+        }
+
+        var sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "cloudevent-consumer-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Subscribes with a listener that commits what was handled before the
+     * partitions are revoked.
+     */
+    public void subscribe(Collection<String> topics) {
+        consumer.subscribe(topics, new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                revoked(partitions);
+            }
+
+            @Override
+            public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                partitions.forEach(partition -> {
+                    trackers.remove(partition);
+                    paused.remove(partition);
+                });
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            }
+        });
+    }
+
+    private void revoked(Collection<TopicPartition> partitions) {
+        var offsets = new HashMap<TopicPartition, OffsetAndMetadata>();
+
+        for(var partition : partitions){
+            paused.remove(partition);
+
+            var tracker = trackers.remove(partition);
+            if(tracker != null){
+                await(partition, tracker);
+
+                var offset = tracker.committable();
+                if(offset >= 0){
+                    offsets.put(partition, new OffsetAndMetadata(offset));
+                }
+            }
+        }
+
+        commitSync(offsets);
+    }
+
+    /**
+     * The {@link #close()} may have left a wakeup to be consumed.
+     */
+    private void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        if(offsets.isEmpty()){
+            return;
+        }
+
+        try {
+            consumer.commitSync(offsets);
+        }catch(WakeupException e){
+            consumer.commitSync(offsets);
+        }
+        committed(offsets);
+    }
+
+    private void committed(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((partition, offset) -> {
+            var tracker = trackers.get(partition);
+            if(tracker != null){
+                tracker.committed(offset.offset());
+            }
+        });
+    }
+
+    private void await(TopicPartition partition, OffsetTracker tracker) {
+        try {
+            if(!tracker.awaitCompletion(drainTimeoutMs) && !tracker.isStopped()){
+                log.warn("{} still pending after {} ms: {}", partition, drainTimeoutMs, tracker);
+            }
+        }catch(InterruptedException e){
+            throw new InterruptException(e);
+        }
+    }
+
+    private int laneOf(ConsumerRecord<K, CloudEvent> record) {
+        int hash;
+
+        var event = record.value();
+        var partitionKey = (event == null
+            ? null
+            : event.getExtension(PartitionKeyExtensionInterceptor.PARTITION_KEY_EXTENSION));
+
+        if(partitionKey != null){
+            hash = partitionKey.toString().hashCode();
+        } else if(record.key() instanceof byte[]){
+            hash = Arrays.hashCode((byte[])record.key());
+        } else if(record.key() != null){
+            hash = record.key().hashCode();
+        } else {
+            hash = 31 * record.topic().hashCode() + record.partition();
+        }
+
+        // spread the high bits, as HashMap does
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, lanes.size());
+    }
+
+    private void dispatch(ConsumerRecords<K, CloudEvent> records) {
+        for(var partition : records.partitions()){
+            var tracker = trackers.computeIfAbsent(partition, p -> new OffsetTracker());
+            if(tracker.isStopped()){
+                // fetched before it was paused
+                continue;
+            }
+
+            for(var record : records.records(partition)){
+                tracker.dispatched(record.offset());
+
+                if(record.value() == null){
+                    // duplicated, as seen by the DuplicateFilter of the deserializer,
+                    // or a tombstone without ce_* headers
+                    skipped.increment();
+                    tracker.completed(record.offset());
+                } else if(FailedCloudEvent.isFailed(record.value())){
+                    // counted, and forwarded, by the PoisonPills of the deserializer
+                    poisoned.increment();
+                    tracker.completed(record.offset());
+                } else {
+                    lanes.get(laneOf(record)).add(new Task(record, tracker));
+                }
+            }
+        }
+    }
+
+    private void handle(Task task) {
+        var record = task.record;
+        if(task.tracker.isStopped()){
+            // left pending, consumed again
+            return;
+        }
+
+        for(int attempt = 0; ; attempt++){
+            try {
+                handler.handle(record);
+                handled.increment();
+                completed(task);
+                return;
+
+            }catch(Exception e){
+                if(attempt < retries && backoff(attempt)){
+                    log.warn("Error handling event of partition {}-{} at offset {}, retry {} of {}",
+                        record.topic(), record.partition(), record.offset(), attempt + 1, retries, e);
+                } else {
+                    failed.increment();
+                    failed(task, e);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Seen just once handled: an event polled and not handled, as those of
+     * revoked or stopped partitions, is handled when delivered again.
+     */
+    private void completed(Task task) {
+        if(duplicates != null){
+            duplicates.markSeen(task.record.headers());
+        }
+        task.tracker.completed(task.record.offset());
+    }
+
+    /**
+     * @return {@code false} when interrupted
+     */
+    private boolean backoff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs << Math.min(attempt, MAX_BACKOFF_SHIFT));
+            return true;
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void failed(Task task, Exception cause) {
+        var record = task.record;
+
+        if(deadLetter != null){
+            try {
+                deadLetter.handle(record);
+                log.error("Event of partition {}-{} at offset {} sent to the dead letter",
+                    record.topic(), record.partition(), record.offset(), cause);
+
+                completed(task);
+                return;
+
+            }catch(Exception e){
+                cause.addSuppressed(e);
+            }
+        }
+
+        log.error("Stopping partition {}-{} at offset {}, it is consumed again from there",
+            record.topic(), record.partition(), record.offset(), cause);
+        task.tracker.stop();
+    }
+
+    private void backpressure() {
+        for(var entry : trackers.entrySet()){
+            var partition = entry.getKey();
+            var tracker = entry.getValue();
+
+            if(!paused.containsKey(partition)
+                    && (tracker.pending() >= maxPending || tracker.isStopped())){
+                consumer.pause(List.of(partition));
+                paused.put(partition, tracker);
+            }
+        }
+
+        var resumed = new ArrayList<TopicPartition>();
+        for(var entry : paused.entrySet()){
+            if(!entry.getValue().isStopped() && entry.getValue().pending() <= maxPending / 2){
+                resumed.add(entry.getKey());
+            }
+        }
+
+        if(!resumed.isEmpty()){
+            resumed.forEach(paused::remove);
+            consumer.resume(resumed);
+        }
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> committable() {
+        var offsets = new HashMap<TopicPartition, OffsetAndMetadata>();
+
+        for(var entry : trackers.entrySet()){
+            var offset = entry.getValue().committable();
+            if(offset >= 0){
+                offsets.put(entry.getKey(), new OffsetAndMetadata(offset));
+            }
+        }
+        return offsets;
+    }
+
+    private void commitIfDue() {
+        var now = System.currentTimeMillis();
+        if(now - lastCommit < commitIntervalMs){
+            return;
+        }
+        lastCommit = now;
+
+        var offsets = committable();
+        if(!offsets.isEmpty()){
+            consumer.commitAsync(offsets, (result, exception) -> {
+                if(exception != null){
+                    log.warn("Error committing offsets {}", result, exception);
+                } else {
+                    committed(result);
+                }
+            });
+        }
+    }
+
+    /**
+     * Polls and dispatches until {@link #close()}, then waits for the
+     * pending events and commits their offsets.
+     */
+    @Override
+    public void run() {
+        if(!started.compareAndSet(false, true)){
+            throw new IllegalStateException("Already running or closed");
+        }
+
+        try {
+            while(running){
+                dispatch(consumer.poll(POLL_TIMEOUT));
+                backpressure();
+                commitIfDue();
+            }
+        }catch(WakeupException e){
+            if(running){
+                throw e;
+            }
+        }finally {
+            try {
+                trackers.forEach(this::await);
+                commitSync(committable());
+            }finally {
+                release();
+            }
+        }
+    }
+
+    private void release() {
+        if(owned){
+            executor.shutdown();
+            consumer.close();
+        }
+        stopped.countDown();
+    }
+
+    /**
+     * @return Events handled successfully
+     */
+    public long handled() {
+        return handled.sum();
+    }
+
+    /**
+     * @return Events whose handler threw in every retry
+     */
+    public long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return Records without event, skipped as duplicated by the
+     * {@link DuplicateFilter} or as tombstones without {@code ce_*} headers
+     */
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * @return Records that could not be deserialized, skipped when
+     * {@link PoisonPills#ENABLED_CONFIG} is {@code true}
+     */
+    public long poisoned() {
+        return poisoned.sum();
+    }
+
+    /**
+     * Stops the poll loop and waits for {@link #run()} to return, when it was
+     * started.
+     */
+    @Override
+    public void close() {
+        running = false;
+
+        if(started.compareAndSet(false, true)){
+            release();
+            return;
+        }
+
+        consumer.wakeup();
+
+        try {
+            stopped.await();
+        }catch(InterruptedException e){
+            throw new InterruptException(e);
+        }
+    }
+}
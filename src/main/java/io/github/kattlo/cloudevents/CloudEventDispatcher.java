@@ -0,0 +1,225 @@
+package io.github.kattlo.cloudevents;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+
+import io.cloudevents.CloudEvent;
+
+/**
+ * Handler of the events of many types in the same topic, as with the
+ * {@code TopicRecordNameStrategy}, by their {@code ce_type}: one handler and
+ * one specific record class per type, and a fallback to the unknown ones.
+ *
+ * <p>The type, its class, reader schema and handler are found by one lookup
+ * in a precomputed hash table, with the raw bytes of the {@code ce_type}
+ * header, nothing decoded. With the {@link KafkaAvroCloudEventDeserializer}
+ * configured with the dispatcher in {@link #DISPATCHER_CONFIG}, as the
+ * {@link CloudEventConsumer} does, the data is decoded straight into the
+ * class of the type, whatever the {@code specific.avro.reader}:
+ * <pre>
+ * var dispatcher = new CloudEventDispatcher&lt;String&gt;(record -&gt; log.warn(...))
+ *     .on("com.example.order.created", OrderCreated.class, (record, order) -&gt; ...)
+ *     .on("com.example.order.paid", OrderPaid.class, (record, order) -&gt; ...);
+ *
+ * var consumer = new CloudEventConsumer&lt;&gt;(configs, new StringDeserializer(), dispatcher);
+ * </pre>
+ *
+ * <p>Register the types before dispatching, it is thread-safe to dispatch
+ * concurrently.
+ *
+ * @param <K> Type of the record key
+ * @author fabiojose
+ */
+public final class CloudEventDispatcher<K> implements CloudEventHandler<K> {
+
+    /**
+     * The {@link CloudEventDispatcher} instance whose types are decoded into
+     * their classes by the deserializer. Default is none
+     */
+    public static final String DISPATCHER_CONFIG = "cloudevents.avro.dispatcher";
+
+    static final String TYPE_HEADER = "ce_type";
+
+    /**
+     * Handles the events of one type.
+     *
+     * @param <K> Type of the record key
+     * @param <T> Class of the data
+     */
+    @FunctionalInterface
+    public interface TypedHandler<K, T> {
+
+        /**
+         * @param record With the deserialized event as value
+         * @param data The data of the event, {@code null} for events without data
+         * @throws Exception As in {@link CloudEventHandler#handle(ConsumerRecord)}
+         */
+        void handle(ConsumerRecord<K, CloudEvent> record, T data) throws Exception;
+    }
+
+    static final class Route {
+        final byte[] type;
+        final int hash;
+        final Class<?> data;
+        final Schema reader;
+        final TypedHandler<?, ?> handler;
+
+        private Route(byte[] type, Class<?> data, TypedHandler<?, ?> handler) {
+            this.type = type;
+            this.hash = hashOf(type, type.length);
+            this.data = data;
+            this.reader = SpecificData.get().getSchema(data);
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * Data decoded into the class of its route, so it is not looked up again
+     */
+    static final class RoutedCloudEventData<T extends IndexedRecord> extends AvroCloudEventData<T> {
+        final Route route;
+
+        RoutedCloudEventData(T value, Route route) {
+            super(value);
+            this.route = route;
+        }
+    }
+
+    private final CloudEventHandler<K> fallback;
+
+    private final List<Route> routes = new ArrayList<>();
+
+    // open addressing, at most half full
+    private volatile Route[] table = new Route[2];
+
+    /**
+     * @param fallback To handle the events of unknown types, and those
+     * without {@code ce_type}
+     */
+    public CloudEventDispatcher(CloudEventHandler<K> fallback) {
+        this.fallback = Objects.requireNonNull(fallback);
+    }
+
+    /**
+     * @return {@code null} when {@link #DISPATCHER_CONFIG} is not set
+     */
+    static CloudEventDispatcher<?> of(Map<String, ?> configs) {
+        var config = configs.get(DISPATCHER_CONFIG);
+
+        if(config == null){
+            return null;
+        } else if(config instanceof CloudEventDispatcher){
+            return (CloudEventDispatcher<?>)config;
+        } else {
+            throw new IllegalArgumentException(DISPATCHER_CONFIG + " must be an instance of "
+                + CloudEventDispatcher.class.getName());
+        }
+    }
+
+    private static int hashOf(byte[] bytes, int length) {
+        var hash = 1;
+        for(int i = 0; i < length; i++){
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @param type The {@code ce_type}
+     * @param data The specific record class the data is decoded into
+     * @param handler To handle the events of the type
+     * @return This dispatcher
+     */
+    public synchronized <T extends SpecificRecord> CloudEventDispatcher<K> on(String type,
+            Class<T> data, TypedHandler<K, ? super T> handler) {
+
+        var route = new Route(type.getBytes(StandardCharsets.UTF_8),
+            Objects.requireNonNull(data), Objects.requireNonNull(handler));
+
+        for(var registered : routes){
+            if(Arrays.equals(registered.type, route.type)){
+                throw new IllegalArgumentException("ce_type " + type + " already registered");
+            }
+        }
+        routes.add(route);
+
+        var capacity = 2;
+        while(capacity < routes.size() * 2){
+            capacity <<= 1;
+        }
+
+        var built = new Route[capacity];
+        for(var registered : routes){
+            var i = registered.hash & (capacity - 1);
+            while(built[i] != null){
+                i = (i + 1) & (capacity - 1);
+            }
+            built[i] = registered;
+        }
+        table = built;
+
+        return this;
+    }
+
+    /**
+     * @return The route of the type, or {@code null} when unknown
+     */
+    Route routeOf(byte[] type) {
+        var routes = table;
+        var mask = routes.length - 1;
+        var hash = hashOf(type, type.length);
+
+        for(var i = hash & mask; ; i = (i + 1) & mask){
+            var route = routes[i];
+            if(route == null){
+                return null;
+            } else if(route.hash == hash && Arrays.equals(route.type, type)){
+                return route;
+            }
+        }
+    }
+
+    /**
+     * @return The route of the {@code ce_type} header, or {@code null}
+     */
+    Route routeOf(Headers headers) {
+        var type = (headers == null ? null : headers.lastHeader(TYPE_HEADER));
+        return (type == null || type.value() == null ? null : routeOf(type.value()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handle(ConsumerRecord<K, CloudEvent> record) throws Exception {
+        var event = record.value();
+        var data = (event == null ? null : event.getData());
+
+        var route = (data instanceof RoutedCloudEventData
+            ? ((RoutedCloudEventData<?>)data).route
+            : routeOf(record.headers()));
+
+        if(route == null){
+            fallback.handle(record);
+            return;
+        }
+
+        Object value = (data == null ? null : AvroCloudEventData.dataOf(data));
+        if(value != null && !route.data.isInstance(value)){
+            throw new IllegalStateException("Data of " + event.getType() + " is "
+                + value.getClass().getName() + ", not " + route.data.getName()
+                + ": configure the deserializer with " + DISPATCHER_CONFIG);
+        }
+
+        ((TypedHandler<K, Object>)route.handler).handle(record, value);
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.kattlo.cloudevents;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import io.cloudevents.CloudEvent;
+
+/**
+ * Handles the events dispatched by {@link CloudEventConsumer}.
+ *
+ * @param <K> Type of the record key
+ * @author fabiojose
+ */
+@FunctionalInterface
+public interface CloudEventHandler<K> {
+
+    /**
+     * Called once per record, never concurrently for records of the same key.
+     *
+     * @param record With the deserialized event as value
+     * @throws Exception To retry, and then to stop the partition or forward
+     * the record to the dead letter, as {@link CloudEventConsumer} documents
+     */
+    void handle(ConsumerRecord<K, CloudEvent> record) throws Exception;
+}
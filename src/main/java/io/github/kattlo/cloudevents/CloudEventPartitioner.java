@@ -0,0 +1,143 @@
+package io.github.kattlo.cloudevents;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.clients.producer.internals.DefaultPartitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.kafka.PartitionKeyExtensionInterceptor;
+
+/**
+ * {@link Partitioner} by the {@code partitionkey} extension, or by a
+ * configured context attribute or extension, the same written by the
+ * {@link KafkaAvroCloudEventSerializer} as {@code ce_*} header. The data is
+ * never accessed.
+ *
+ * <p>The partition is the murmur2 of the UTF-8 value, as the
+ * {@link DefaultPartitioner} does for keys: the same of records keyed by that
+ * value with the {@code StringSerializer}. The hashes are cached per value,
+ * up to {@link #MAX_CACHED_KEYS_CONFIG}.
+ *
+ * <p>Kafka calls partitioners with the value before serialization, so it
+ * works with {@code KafkaProducer<K, CloudEvent>}; the
+ * {@link CloudEventProducer} applies it itself. Records without the
+ * attribute, or whose value is not a {@link CloudEvent}, are partitioned by
+ * the {@link DefaultPartitioner}.
+ *
+ * @author fabiojose
+ */
+public class CloudEventPartitioner implements Partitioner {
+
+    /**
+     * Attribute or extension to partition by. Default is {@code partitionkey}
+     */
+    public static final String ATTRIBUTE_CONFIG = "cloudevents.partitioner.attribute";
+
+    /**
+     * Max number of values with the hash cached. Default is 10000
+     */
+    public static final String MAX_CACHED_KEYS_CONFIG = "cloudevents.partitioner.max.cached.keys";
+
+    private static final int DEFAULT_MAX_CACHED_KEYS = 10_000;
+
+    private static final Set<String> ATTRIBUTES = Set.of("specversion", "id", "source",
+        "type", "datacontenttype", "dataschema", "subject", "time");
+
+    private final DefaultPartitioner fallback = new DefaultPartitioner();
+    private final Map<String, Integer> hashes = new ConcurrentHashMap<>();
+
+    private String attribute = PartitionKeyExtensionInterceptor.PARTITION_KEY_EXTENSION;
+    private boolean contextAttribute;
+    private int maxCachedKeys = DEFAULT_MAX_CACHED_KEYS;
+
+    private static int maxCachedKeysOf(Map<String, ?> configs) {
+        var config = configs.get(MAX_CACHED_KEYS_CONFIG);
+
+        if(config == null){
+            return DEFAULT_MAX_CACHED_KEYS;
+        } else if(config instanceof Number){
+            return ((Number)config).intValue();
+        } else {
+            return Integer.parseInt(config.toString().trim());
+        }
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        var config = configs.get(ATTRIBUTE_CONFIG);
+        attribute = (config == null
+            ? PartitionKeyExtensionInterceptor.PARTITION_KEY_EXTENSION
+            : config.toString().trim());
+        contextAttribute = ATTRIBUTES.contains(attribute);
+
+        maxCachedKeys = maxCachedKeysOf(configs);
+        if(maxCachedKeys < 0){
+            throw new IllegalArgumentException(MAX_CACHED_KEYS_CONFIG + " must not be negative");
+        }
+        hashes.clear();
+
+        fallback.configure(configs);
+    }
+
+    private int hashOf(String value) {
+        var hash = hashes.get(value);
+        if(hash == null){
+            hash = Utils.murmur2(value.getBytes(StandardCharsets.UTF_8));
+
+            if(maxCachedKeys > 0){
+                // a rough bound, enough to not grow with high cardinality values
+                if(hashes.size() >= maxCachedKeys){
+                    hashes.clear();
+                }
+                hashes.put(value, hash);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return The partition of the event, or {@code -1} when it has no value
+     * for the configured attribute
+     */
+    public int partitionOf(CloudEvent event, int numPartitions) {
+        var value = (contextAttribute
+            ? event.getAttribute(attribute)
+            : event.getExtension(attribute));
+
+        if(value == null){
+            return -1;
+        }
+
+        return Utils.toPositive(hashOf(value.toString())) % numPartitions;
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value,
+            byte[] valueBytes, Cluster cluster) {
+
+        if(value instanceof CloudEvent){
+            var partition = partitionOf((CloudEvent)value, cluster.partitionsForTopic(topic).size());
+            if(partition >= 0){
+                return partition;
+            }
+        }
+
+        return fallback.partition(topic, key, keyBytes, value, valueBytes, cluster);
+    }
+
+    @Override
+    public void onNewBatch(String topic, Cluster cluster, int prevPartition) {
+        fallback.onNewBatch(topic, cluster, prevPartition);
+    }
+
+    @Override
+    public void close() {
+        fallback.close();
+    }
+}
@@ -0,0 +1,505 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+
+import io.cloudevents.CloudEvent;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Asynchronous CloudEvent producer on top of a {@link Producer} and the
+ * {@link KafkaAvroCloudEventSerializer}.
+ *
+ * <ul>
+ *   <li>Serialization runs off the caller thread, on a configurable executor</li>
+ *   <li>Records reach the producer in the order of {@link #send(String, Object, CloudEvent)} calls,
+ *   even when serialized in parallel</li>
+ *   <li>At most {@code max.in.flight} records are between {@code send} and the broker
+ *   ack, beyond that {@code send} blocks up to {@code max.block.ms}</li>
+ *   <li>Futures are completed in batches by a dedicated thread, never by the
+ *   producer I/O thread, so their non-async callbacks must not block it</li>
+ *   <li>With the {@link CloudEventPartitioner}, records are sent to the
+ *   partition of the event, the producer only sees its bytes</li>
+ * </ul>
+ *
+ * @param <K> Type of the record key
+ * @author fabiojose
+ */
+@Slf4j
+public class CloudEventProducer<K> implements Closeable {
+
+    /**
+     * Max records not acknowledged yet. Default is 10000
+     */
+    public static final String MAX_IN_FLIGHT_CONFIG = "cloudevents.producer.max.in.flight";
+
+    /**
+     * Max milliseconds {@code send} blocks waiting for in-flight room. Default is 60000
+     */
+    public static final String MAX_BLOCK_MS_CONFIG = "cloudevents.producer.max.block.ms";
+
+    /**
+     * Threads serializing events. Default is 1
+     */
+    public static final String SERIALIZER_THREADS_CONFIG = "cloudevents.producer.serializer.threads";
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = 10_000;
+    private static final long DEFAULT_MAX_BLOCK_MS = 60_000;
+    private static final int COMPLETION_BATCH = 1024;
+
+    private final class Entry {
+        final CompletableFuture<RecordMetadata> future = new CompletableFuture<>();
+        final long started = System.nanoTime();
+        final String topic;
+        final K key;
+        final CloudEvent event;
+
+        ProducerRecord<K, byte[]> record;
+        Throwable error;
+        volatile boolean ready;
+
+        Entry(String topic, K key, CloudEvent event) {
+            this.topic = topic;
+            this.key = key;
+            this.event = event;
+        }
+    }
+
+    private static final class Completion {
+        final CloudEventProducer<?>.Entry entry;
+        final RecordMetadata metadata;
+        final Exception exception;
+        final CountDownLatch barrier;
+
+        Completion(CloudEventProducer<?>.Entry entry, RecordMetadata metadata,
+                Exception exception, CountDownLatch barrier) {
+            this.entry = entry;
+            this.metadata = metadata;
+            this.exception = exception;
+            this.barrier = barrier;
+        }
+    }
+
+    private static final Completion SHUTDOWN = new Completion(null, null, null, null);
+
+    private final Producer<K, byte[]> producer;
+    private final KafkaAvroCloudEventSerializer serializer;
+    private final CloudEventPartitioner partitioner;
+    private final ExecutorService executor;
+    private final boolean owned;
+    private final long maxBlockMs;
+
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private long submitted;
+    private long sent;
+    private boolean draining;
+
+    private final BlockingQueue<Completion> completions = new LinkedBlockingQueue<>();
+    private final Thread completer;
+
+    private final long startedAt = System.nanoTime();
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * @param producer To send the serialized records
+     * @param serializer Configured serializer
+     * @param executor To serialize on, it is not shutdown by {@link #close()}
+     * @param maxInFlight Max records not acknowledged yet
+     * @param maxBlock Max time {@code send} blocks waiting for in-flight room
+     */
+    public CloudEventProducer(Producer<K, byte[]> producer, KafkaAvroCloudEventSerializer serializer,
+            ExecutorService executor, int maxInFlight, Duration maxBlock) {
+
+        this(producer, serializer, null, executor, false, maxInFlight, maxBlock.toMillis());
+    }
+
+    /**
+     * @param partitioner Configured partitioner, to send the records to the
+     * partition of their event
+     * @see #CloudEventProducer(Producer, KafkaAvroCloudEventSerializer, ExecutorService, int, Duration)
+     */
+    public CloudEventProducer(Producer<K, byte[]> producer, KafkaAvroCloudEventSerializer serializer,
+            CloudEventPartitioner partitioner, ExecutorService executor, int maxInFlight, Duration maxBlock) {
+
+        this(producer, serializer, Objects.requireNonNull(partitioner), executor, false, maxInFlight,
+            maxBlock.toMillis());
+    }
+
+    /**
+     * Creates the {@link KafkaProducer} and the serializer from the same
+     * configurations, and the {@link CloudEventPartitioner} when it is the
+     * {@code partitioner.class}.
+     */
+    public CloudEventProducer(Map<String, Object> configs, Serializer<K> keySerializer) {
+        this(new KafkaProducer<>(configs, keySerializer, new ByteArraySerializer()),
+            serializerOf(configs),
+            partitionerOf(configs),
+            Executors.newFixedThreadPool(intOf(configs, SERIALIZER_THREADS_CONFIG, 1), daemon("cloudevent-producer-serializer")),
+            true,
+            intOf(configs, MAX_IN_FLIGHT_CONFIG, DEFAULT_MAX_IN_FLIGHT),
+            longOf(configs, MAX_BLOCK_MS_CONFIG, DEFAULT_MAX_BLOCK_MS));
+    }
+
+    private CloudEventProducer(Producer<K, byte[]> producer, KafkaAvroCloudEventSerializer serializer,
+            CloudEventPartitioner partitioner, ExecutorService executor, boolean owned,
+            int maxInFlight, long maxBlockMs) {
+
+        if(maxInFlight <= 0){
+            throw new IllegalArgumentException(MAX_IN_FLIGHT_CONFIG + " must be greater than zero");
+        }
+
+        this.producer = Objects.requireNonNull(producer);
+        this.serializer = Objects.requireNonNull(serializer);
+        this.partitioner = partitioner;
+        this.executor = Objects.requireNonNull(executor);
+        this.owned = owned;
+        this.maxInFlight = maxInFlight;
+        this.maxBlockMs = maxBlockMs;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        this.completer = daemon("cloudevent-producer-completions").newThread(this::complete);
+        this.completer.start();
+    }
+
+    private static KafkaAvroCloudEventSerializer serializerOf(Map<String, Object> configs) {
+        var serializer = new KafkaAvroCloudEventSerializer();
+        serializer.configure(configs, false);
+
+        return serializer;
+    }
+
+    private static CloudEventPartitioner partitionerOf(Map<String, Object> configs) {
+        var config = configs.get(ProducerConfig.PARTITIONER_CLASS_CONFIG);
+
+        if(config == CloudEventPartitioner.class
+                || CloudEventPartitioner.class.getName().equals(config)){
+
+            var partitioner = new CloudEventPartitioner();
+            partitioner.configure(configs);
+            return partitioner;
+        }
+        return null;
+    }
+
+    private static int intOf(Map<String, ?> configs, String name, int defaultValue) {
+        return (int)longOf(configs, name, defaultValue);
+    }
+
+    private static long longOf(Map<String, ?> configs, String name, long defaultValue) {
+        var config = configs.get(name);
+
+        if(config == null){
+            return defaultValue;
+        } else if(config instanceof Number){
+            return ((Number)config).longValue();
+        } else {
+            return Long.parseLong(config.toString().trim());
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        var sequence = new AtomicInteger();
+        return runnable -> {
+            var thread = new Thread(runnable, name + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Sends the event asynchronously, blocking only when there is no
+     * in-flight room.
+     *
+     * @return Completed with the broker ack, or exceptionally with the
+     * serialization or send failure. Its dependent actions run on the single
+     * completion thread and must not block, use the {@code *Async} variants
+     * for those that do
+     * @throws TimeoutException When no in-flight room was available within {@code max.block.ms}
+     * @throws InterruptException When interrupted while waiting for in-flight room
+     */
+    public CompletableFuture<RecordMetadata> send(String topic, K key, CloudEvent event) {
+        Objects.requireNonNull(topic);
+        Objects.requireNonNull(event);
+
+        try {
+            if(!inFlight.tryAcquire(maxBlockMs, TimeUnit.MILLISECONDS)){
+                throw new TimeoutException("Failed to send within " + maxBlockMs
+                    + " ms, there are " + maxInFlight + " records in flight");
+            }
+        }catch(InterruptedException e){
+            throw new InterruptException(e);
+        }
+
+        var entry = new Entry(topic, key, event);
+        synchronized(pending){
+            pending.add(entry);
+            submitted++;
+        }
+
+        try {
+            executor.execute(() -> serialize(entry));
+        }catch(RejectedExecutionException e){
+            entry.error = e;
+            entry.ready = true;
+            drain();
+        }
+
+        return entry.future;
+    }
+
+    private void serialize(Entry entry) {
+        try {
+            var headers = new RecordHeaders();
+            var value = serializer.serialize(entry.topic, headers, entry.event);
+
+            Integer partition = null;
+            if(partitioner != null){
+                var of = partitioner.partitionOf(entry.event, producer.partitionsFor(entry.topic).size());
+                partition = (of < 0 ? null : of);
+            }
+
+            entry.record = new ProducerRecord<>(entry.topic, partition, entry.key, value, headers);
+        }catch(RuntimeException e){
+            entry.error = e;
+        }
+
+        entry.ready = true;
+        drain();
+    }
+
+    /**
+     * Hands serialized records to the producer in submission order. The
+     * ready ones are taken out of {@code pending} under its lock and sent
+     * outside of it, by one thread at a time, so {@code send} and the
+     * serializer threads never wait on a producer blocked on its buffer.
+     */
+    private void drain() {
+        synchronized(pending){
+            if(draining){
+                // the draining thread checks pending again before it stops
+                return;
+            }
+            draining = true;
+        }
+
+        var batch = new ArrayList<Entry>();
+        while(true){
+            synchronized(pending){
+                Entry head;
+                while((head = pending.peek()) != null && head.ready){
+                    batch.add(pending.poll());
+                }
+
+                if(batch.isEmpty()){
+                    draining = false;
+                    return;
+                }
+            }
+
+            for(var entry : batch){
+                send(entry);
+            }
+
+            synchronized(pending){
+                sent += batch.size();
+                pending.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private void send(Entry entry) {
+        if(entry.error != null){
+            completions.add(new Completion(entry, null, asException(entry.error), null));
+            return;
+        }
+
+        try {
+            producer.send(entry.record, (metadata, exception) ->
+                completions.add(new Completion(entry, metadata, exception, null)));
+        }catch(RuntimeException e){
+            completions.add(new Completion(entry, null, e, null));
+        }
+    }
+
+    private static Exception asException(Throwable error) {
+        return (error instanceof Exception ? (Exception)error : new RuntimeException(error));
+    }
+
+    private void complete() {
+        var batch = new ArrayList<Completion>(COMPLETION_BATCH);
+        try {
+            while(true){
+                batch.add(completions.take());
+                completions.drainTo(batch, COMPLETION_BATCH - 1);
+
+                for(var completion : batch){
+                    if(completion == SHUTDOWN){
+                        return;
+                    }
+                    complete(completion);
+                }
+                batch.clear();
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void complete(Completion completion) {
+        if(completion.barrier != null){
+            completion.barrier.countDown();
+            return;
+        }
+
+        var entry = completion.entry;
+        inFlight.release();
+
+        if(completion.exception != null){
+            failed.increment();
+            entry.future.completeExceptionally(completion.exception);
+
+        } else {
+            acknowledged.increment();
+            latency.record(System.nanoTime() - entry.started);
+            entry.future.complete(completion.metadata);
+        }
+    }
+
+    /**
+     * Blocks until every event sent before this call is acknowledged or failed,
+     * and its future completed.
+     */
+    public void flush() {
+        try {
+            synchronized(pending){
+                var target = submitted;
+                while(sent < target){
+                    pending.wait();
+                }
+            }
+
+            producer.flush();
+
+            var barrier = new CountDownLatch(1);
+            completions.add(new Completion(null, null, null, barrier));
+            barrier.await();
+
+        }catch(InterruptedException e){
+            throw new InterruptException(e);
+        }
+    }
+
+    /**
+     * @return Throughput and latency since the creation of this producer
+     */
+    public Stats stats() {
+        return new Stats(this);
+    }
+
+    @Override
+    public void close() {
+        flush();
+
+        completions.add(SHUTDOWN);
+        try {
+            completer.join();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+
+        if(owned){
+            executor.shutdown();
+            serializer.close();
+            producer.close();
+            if(partitioner != null){
+                partitioner.close();
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the producer activity.
+     */
+    @Getter
+    @ToString
+    public static final class Stats {
+
+        /**
+         * Records acknowledged by the broker
+         */
+        private final long acknowledged;
+
+        /**
+         * Records failed to serialize or send
+         */
+        private final long failed;
+
+        /**
+         * Records sent and not completed yet
+         */
+        private final int inFlight;
+
+        /**
+         * Acknowledged records per second, since creation
+         */
+        private final double recordsPerSecond;
+
+        /**
+         * Latency from {@code send} to the future completion, in microseconds
+         */
+        private final long latencyP50Micros;
+        private final long latencyP99Micros;
+        private final long latencyP999Micros;
+        private final long latencyMaxMicros;
+
+        private Stats(CloudEventProducer<?> producer) {
+            this.acknowledged = producer.acknowledged.sum();
+            this.failed = producer.failed.sum();
+            this.inFlight = producer.maxInFlight - producer.inFlight.availablePermits();
+
+            var elapsed = Math.max(1, System.nanoTime() - producer.startedAt);
+            this.recordsPerSecond = acknowledged * 1e9 / elapsed;
+
+            var latency = producer.latency;
+            this.latencyP50Micros = latency.valueAtPercentile(50) / 1000;
+            this.latencyP99Micros = latency.valueAtPercentile(99) / 1000;
+            this.latencyP999Micros = latency.valueAtPercentile(99.9) / 1000;
+            this.latencyMaxMicros = latency.getMax() / 1000;
+        }
+    }
+}
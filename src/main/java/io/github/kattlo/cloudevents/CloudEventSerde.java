@@ -0,0 +1,198 @@
+package io.github.kattlo.cloudevents;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+
+import io.cloudevents.CloudEvent;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+
+/**
+ * Kafka Streams {@link Serde} of {@link CloudEvent}, with the
+ * {@link KafkaAvroCloudEventSerializer} and the
+ * {@link KafkaAvroCloudEventDeserializer} configured with
+ * {@link KafkaAvroCloudEventDeserializer#KEEP_ENCODED_CONFIG}, so events
+ * passing through repartition topics and state stores are not decoded and
+ * encoded again while their data is not read.
+ *
+ * <p>State stores serialize without headers, there the {@code ce_*} headers
+ * go in an envelope with the value, empty for events without data:
+ * <pre>
+ * envelope = 'C' headers:u16 (key:string value:bytes)* value
+ * string   = length:u16 utf-8
+ * bytes    = length:i32, -1 for null, then the bytes
+ * </pre>
+ *
+ * @author fabiojose
+ */
+public class CloudEventSerde implements Serde<CloudEvent> {
+
+    static final byte ENVELOPE = 'C';
+
+    private static final byte[] NO_DATA = new byte[0];
+
+    private final KafkaAvroCloudEventSerializer serializer;
+    private final KafkaAvroCloudEventDeserializer deserializer;
+
+    public CloudEventSerde() {
+        this.serializer = new KafkaAvroCloudEventSerializer();
+        this.deserializer = new KafkaAvroCloudEventDeserializer();
+    }
+
+    public CloudEventSerde(SchemaRegistryClient registry) {
+        this.serializer = new KafkaAvroCloudEventSerializer(registry);
+        this.deserializer = new KafkaAvroCloudEventDeserializer(registry);
+    }
+
+    /**
+     * @param configs Of the serializer and deserializer,
+     * {@link KafkaAvroCloudEventDeserializer#KEEP_ENCODED_CONFIG} is
+     * {@code true} when absent
+     */
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Map<String, Object> all = new HashMap<>(configs);
+        all.putIfAbsent(KafkaAvroCloudEventDeserializer.KEEP_ENCODED_CONFIG, Boolean.TRUE);
+
+        serializer.configure(all, isKey);
+        deserializer.configure(all, isKey);
+    }
+
+    static byte[] envelope(Headers headers, byte[] value) {
+        var all = headers.toArray();
+
+        var size = 1 + 2 + value.length;
+        var keys = new byte[all.length][];
+        for(int i = 0; i < all.length; i++){
+            keys[i] = all[i].key().getBytes(StandardCharsets.UTF_8);
+            size += 2 + keys[i].length + 4 + (all[i].value() == null ? 0 : all[i].value().length);
+        }
+
+        var buffer = ByteBuffer.allocate(size);
+        buffer.put(ENVELOPE);
+        buffer.putShort((short)all.length);
+
+        for(int i = 0; i < all.length; i++){
+            buffer.putShort((short)keys[i].length);
+            buffer.put(keys[i]);
+
+            var header = all[i].value();
+            if(header == null){
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(header.length);
+                buffer.put(header);
+            }
+        }
+        buffer.put(value);
+
+        return buffer.array();
+    }
+
+    static boolean isEnvelope(byte[] bytes) {
+        return bytes != null && bytes.length > 0 && bytes[0] == ENVELOPE;
+    }
+
+    /**
+     * @return The value, after adding the enveloped headers to {@code headers}
+     */
+    static byte[] unenvelope(byte[] bytes, Headers headers) {
+        try {
+            var buffer = ByteBuffer.wrap(bytes);
+            buffer.get();
+
+            for(int h = buffer.getShort() & 0xffff; h > 0; h--){
+                var key = new byte[buffer.getShort() & 0xffff];
+                buffer.get(key);
+
+                byte[] value = null;
+                var length = buffer.getInt();
+                if(length >= 0){
+                    value = new byte[length];
+                    buffer.get(value);
+                }
+
+                headers.remove(new String(key, StandardCharsets.UTF_8));
+                headers.add(new String(key, StandardCharsets.UTF_8), value);
+            }
+
+            var value = new byte[buffer.remaining()];
+            buffer.get(value);
+            return value;
+
+        }catch(BufferUnderflowException | IllegalArgumentException e){
+            throw new SerializationException("Invalid CloudEvent envelope", e);
+        }
+    }
+
+    @Override
+    public Serializer<CloudEvent> serializer() {
+        return new Serializer<CloudEvent>() {
+
+            @Override
+            public byte[] serialize(String topic, CloudEvent event) {
+                if(event == null){
+                    return null;
+                }
+
+                var headers = new RecordHeaders();
+                var value = serializer.serialize(topic, headers, event);
+
+                // not null, that would delete it from the store
+                return envelope(headers, (value == null ? NO_DATA : value));
+            }
+
+            @Override
+            public byte[] serialize(String topic, Headers headers, CloudEvent event) {
+                if(event == null){
+                    return null;
+                }
+                return serializer.serialize(topic, headers, event);
+            }
+        };
+    }
+
+    @Override
+    public Deserializer<CloudEvent> deserializer() {
+        return new Deserializer<CloudEvent>() {
+
+            @Override
+            public CloudEvent deserialize(String topic, byte[] bytes) {
+                return deserialize(topic, new RecordHeaders(), bytes);
+            }
+
+            @Override
+            public CloudEvent deserialize(String topic, Headers headers, byte[] bytes) {
+                if(bytes == null){
+                    // data-less when there are ce_* headers
+                    return deserializer.deserialize(topic, headers, null);
+                }
+
+                // changelogs read as source topics have the enveloped values
+                if(isEnvelope(bytes)){
+                    var enveloped = new RecordHeaders();
+                    headers.forEach(h -> enveloped.add(h));
+
+                    return deserializer.deserialize(topic, enveloped, unenvelope(bytes, enveloped));
+                }
+
+                return deserializer.deserialize(topic, headers, bytes);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        serializer.close();
+        deserializer.close();
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.kattlo.cloudevents;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The compact {@code ce_dataschema}: {@code sr:<alias>:<schema id>}, an
+ * opaque URI pointing to a schema in the registry known by the alias.
+ *
+ * @author fabiojose
+ */
+final class CompactDataSchema {
+
+    static final String SCHEME = "sr";
+    private static final String PREFIX = SCHEME + ":";
+
+    private CompactDataSchema() {
+    }
+
+    static byte[] format(String alias, int id) {
+        return (PREFIX + alias + ":" + id).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static boolean isCompact(URI dataschema) {
+        return dataschema != null
+            && SCHEME.equals(dataschema.getScheme())
+            && dataschema.isOpaque();
+    }
+
+    /**
+     * @return The registry alias
+     */
+    static String aliasOf(URI compact) {
+        var part = compact.getSchemeSpecificPart();
+        var separator = part.lastIndexOf(':');
+        if(separator <= 0){
+            throw new IllegalArgumentException("Invalid compact dataschema: " + compact);
+        }
+
+        return part.substring(0, separator);
+    }
+
+    /**
+     * @return The schema id
+     */
+    static int idOf(URI compact) {
+        var part = compact.getSchemeSpecificPart();
+        try {
+            return Integer.parseInt(part.substring(part.lastIndexOf(':') + 1));
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException("Invalid compact dataschema: " + compact, e);
+        }
+    }
+}
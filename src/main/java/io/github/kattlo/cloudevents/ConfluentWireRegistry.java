@@ -0,0 +1,62 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.apache.avro.Schema;
+
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+
+/**
+ * {@link WireRegistry} of a Confluent {@link SchemaRegistryClient}. The
+ * {@link RestClientException} are the cause of the {@link IOException}
+ * thrown.
+ *
+ * @author fabiojose
+ */
+final class ConfluentWireRegistry implements WireRegistry {
+
+    private final SchemaRegistryClient client;
+
+    ConfluentWireRegistry(SchemaRegistryClient client) {
+        this.client = Objects.requireNonNull(client);
+    }
+
+    @Override
+    public int register(String subject, Schema schema) throws IOException {
+        try {
+            return client.register(subject, new AvroSchema(schema));
+        }catch(RestClientException e){
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int idOf(String subject, Schema schema) throws IOException {
+        try {
+            return client.getId(subject, new AvroSchema(schema));
+        }catch(RestClientException e){
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int versionOf(String subject, Schema schema) throws IOException {
+        try {
+            return client.getVersion(subject, new AvroSchema(schema));
+        }catch(RestClientException e){
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Schema schemaOf(int id) throws IOException {
+        try {
+            return (Schema)client.getSchemaById(id).rawSchema();
+        }catch(RestClientException e){
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package io.github.kattlo.cloudevents;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Conversions;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Time;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.DataException;
+
+/**
+ * Translation between Avro and Kafka Connect schemas and values, used by
+ * {@link AvroCloudEventConverter}. Records, primitives, enums as strings,
+ * fixed as bytes, arrays, maps, nullable unions and the date, time-millis,
+ * timestamp-millis and decimal logical types; other unions are not supported.
+ *
+ * @author fabiojose
+ */
+final class ConnectSchemas {
+
+    private static final Conversions.DecimalConversion DECIMAL = new Conversions.DecimalConversion();
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private ConnectSchemas() {
+    }
+
+    private static Schema nonNullOf(Schema union) {
+        var types = union.getTypes();
+        if(types.size() == 2){
+            if(types.get(0).getType() == Schema.Type.NULL){
+                return types.get(1);
+            }
+            if(types.get(1).getType() == Schema.Type.NULL){
+                return types.get(0);
+            }
+        }
+        throw new DataException("Just unions of null and one type are supported: " + union);
+    }
+
+    /**
+     * @return The Connect schema of the Avro one
+     */
+    static org.apache.kafka.connect.data.Schema toConnect(Schema avro) {
+        return toConnect(avro, false);
+    }
+
+    private static org.apache.kafka.connect.data.Schema toConnect(Schema avro, boolean optional) {
+        SchemaBuilder builder;
+        var logical = avro.getLogicalType();
+
+        switch(avro.getType()){
+            case UNION:
+                return toConnect(nonNullOf(avro), true);
+
+            case RECORD:
+                builder = SchemaBuilder.struct().name(avro.getFullName());
+                for(var field : avro.getFields()){
+                    builder.field(field.name(), toConnect(field.schema(), false));
+                }
+                break;
+
+            case ARRAY:
+                builder = SchemaBuilder.array(toConnect(avro.getElementType(), false));
+                break;
+
+            case MAP:
+                builder = SchemaBuilder.map(org.apache.kafka.connect.data.Schema.STRING_SCHEMA,
+                    toConnect(avro.getValueType(), false));
+                break;
+
+            case INT:
+                if(logical instanceof LogicalTypes.Date){
+                    builder = Date.builder();
+                } else if(logical instanceof LogicalTypes.TimeMillis){
+                    builder = Time.builder();
+                } else {
+                    builder = SchemaBuilder.int32();
+                }
+                break;
+
+            case LONG:
+                builder = (logical instanceof LogicalTypes.TimestampMillis
+                    ? Timestamp.builder()
+                    : SchemaBuilder.int64());
+                break;
+
+            case BYTES:
+            case FIXED:
+                builder = (logical instanceof LogicalTypes.Decimal
+                    ? Decimal.builder(((LogicalTypes.Decimal)logical).getScale())
+                    : SchemaBuilder.bytes());
+                break;
+
+            case STRING:
+            case ENUM:
+                builder = SchemaBuilder.string();
+                break;
+
+            case FLOAT:
+                builder = SchemaBuilder.float32();
+                break;
+
+            case DOUBLE:
+                builder = SchemaBuilder.float64();
+                break;
+
+            case BOOLEAN:
+                builder = SchemaBuilder.bool();
+                break;
+
+            default:
+                throw new DataException("Avro type " + avro.getType() + " not supported");
+        }
+
+        if(optional){
+            builder.optional();
+        }
+        return builder.build();
+    }
+
+    private static byte[] bytesOf(Object value) {
+        if(value instanceof GenericFixed){
+            return ((GenericFixed)value).bytes();
+        }
+
+        var buffer = ((ByteBuffer)value).duplicate();
+        var result = new byte[buffer.remaining()];
+        buffer.get(result);
+        return result;
+    }
+
+    /**
+     * @return The Avro value as the Connect value of its translated schema
+     */
+    static Object toConnect(Schema avro, org.apache.kafka.connect.data.Schema connect, Object value) {
+        if(value == null){
+            return null;
+        }
+
+        var logical = avro.getLogicalType();
+        switch(avro.getType()){
+            case UNION:
+                return toConnect(nonNullOf(avro), connect, value);
+
+            case RECORD: {
+                var record = (IndexedRecord)value;
+                var struct = new Struct(connect);
+                var fields = avro.getFields();
+                var connectFields = connect.fields();
+
+                for(int i = 0; i < fields.size(); i++){
+                    var field = fields.get(i);
+                    var connectField = connectFields.get(i);
+
+                    struct.put(connectField, toConnect(field.schema(), connectField.schema(),
+                        record.get(field.pos())));
+                }
+                return struct;
+            }
+
+            case ARRAY: {
+                var items = (Collection<?>)value;
+                var result = new ArrayList<Object>(items.size());
+                for(var item : items){
+                    result.add(toConnect(avro.getElementType(), connect.valueSchema(), item));
+                }
+                return result;
+            }
+
+            case MAP: {
+                var entries = (Map<?, ?>)value;
+                var result = new HashMap<String, Object>(entries.size() * 4 / 3 + 1);
+                for(var entry : entries.entrySet()){
+                    result.put(entry.getKey().toString(),
+                        toConnect(avro.getValueType(), connect.valueSchema(), entry.getValue()));
+                }
+                return result;
+            }
+
+            case INT:
+                if(logical instanceof LogicalTypes.Date){
+                    return new java.util.Date(((Integer)value) * MILLIS_PER_DAY);
+                } else if(logical instanceof LogicalTypes.TimeMillis){
+                    return new java.util.Date((Integer)value);
+                }
+                return value;
+
+            case LONG:
+                return (logical instanceof LogicalTypes.TimestampMillis
+                    ? new java.util.Date((Long)value)
+                    : value);
+
+            case BYTES:
+            case FIXED:
+                if(logical instanceof LogicalTypes.Decimal){
+                    return (value instanceof BigDecimal
+                        ? value
+                        : new BigDecimal(new java.math.BigInteger(bytesOf(value)),
+                            ((LogicalTypes.Decimal)logical).getScale()));
+                }
+                return bytesOf(value);
+
+            case STRING:
+            case ENUM:
+                return value.toString();
+
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * @return The Avro schema of the Connect one, records named by the
+     * Connect schema name or after their field
+     */
+    static Schema toAvro(org.apache.kafka.connect.data.Schema connect) {
+        return toAvro(connect, "ConnectRecord");
+    }
+
+    private static Schema toAvro(org.apache.kafka.connect.data.Schema connect, String path) {
+        Schema result;
+        var name = connect.name();
+
+        switch(connect.type()){
+            case STRUCT: {
+                var fields = new ArrayList<Schema.Field>();
+                for(var field : connect.fields()){
+                    var schema = toAvro(field.schema(), path + "_" + field.name());
+                    fields.add(field.schema().isOptional()
+                        ? new Schema.Field(field.name(), schema, null, Schema.Field.NULL_DEFAULT_VALUE)
+                        : new Schema.Field(field.name(), schema));
+                }
+
+                var full = (name == null ? path : name);
+                var dot = full.lastIndexOf('.');
+                result = (dot < 0
+                    ? Schema.createRecord(full, null, null, false, fields)
+                    : Schema.createRecord(full.substring(dot + 1), null, full.substring(0, dot), false, fields));
+                break;
+            }
+
+            case ARRAY:
+                result = Schema.createArray(toAvro(connect.valueSchema(), path + "_item"));
+                break;
+
+            case MAP:
+                if(connect.keySchema().type() != org.apache.kafka.connect.data.Schema.Type.STRING){
+                    throw new DataException("Just maps of string keys are supported: " + connect);
+                }
+                result = Schema.createMap(toAvro(connect.valueSchema(), path + "_value"));
+                break;
+
+            case INT8:
+            case INT16:
+                result = Schema.create(Schema.Type.INT);
+                break;
+
+            case INT32:
+                result = Schema.create(Schema.Type.INT);
+                if(Date.LOGICAL_NAME.equals(name)){
+                    LogicalTypes.date().addToSchema(result);
+                } else if(Time.LOGICAL_NAME.equals(name)){
+                    LogicalTypes.timeMillis().addToSchema(result);
+                }
+                break;
+
+            case INT64:
+                result = Schema.create(Schema.Type.LONG);
+                if(Timestamp.LOGICAL_NAME.equals(name)){
+                    LogicalTypes.timestampMillis().addToSchema(result);
+                }
+                break;
+
+            case BYTES:
+                result = Schema.create(Schema.Type.BYTES);
+                if(Decimal.LOGICAL_NAME.equals(name)){
+                    var scale = Integer.parseInt(connect.parameters().get(Decimal.SCALE_FIELD));
+                    LogicalTypes.decimal(Math.max(scale, 38), scale).addToSchema(result);
+                }
+                break;
+
+            case STRING:
+                result = Schema.create(Schema.Type.STRING);
+                break;
+
+            case FLOAT32:
+                result = Schema.create(Schema.Type.FLOAT);
+                break;
+
+            case FLOAT64:
+                result = Schema.create(Schema.Type.DOUBLE);
+                break;
+
+            case BOOLEAN:
+                result = Schema.create(Schema.Type.BOOLEAN);
+                break;
+
+            default:
+                throw new DataException("Connect type " + connect.type() + " not supported");
+        }
+
+        return (connect.isOptional()
+            ? Schema.createUnion(List.of(Schema.create(Schema.Type.NULL), result))
+            : result);
+    }
+
+    /**
+     * @return The Connect value as the Avro value of its translated schema
+     */
+    static Object toAvro(org.apache.kafka.connect.data.Schema connect, Schema avro, Object value) {
+        if(value == null){
+            return null;
+        }
+        if(avro.getType() == Schema.Type.UNION){
+            avro = nonNullOf(avro);
+        }
+
+        var logical = avro.getLogicalType();
+        switch(connect.type()){
+            case STRUCT: {
+                var struct = (Struct)value;
+                var record = new GenericData.Record(avro);
+                var fields = avro.getFields();
+                var connectFields = connect.fields();
+
+                for(int i = 0; i < fields.size(); i++){
+                    var connectField = connectFields.get(i);
+                    record.put(i, toAvro(connectField.schema(), fields.get(i).schema(),
+                        struct.get(connectField)));
+                }
+                return record;
+            }
+
+            case ARRAY: {
+                var items = (Collection<?>)value;
+                var result = new GenericData.Array<Object>(items.size(), avro);
+                for(var item : items){
+                    result.add(toAvro(connect.valueSchema(), avro.getElementType(), item));
+                }
+                return result;
+            }
+
+            case MAP: {
+                var entries = (Map<?, ?>)value;
+                var result = new HashMap<String, Object>(entries.size() * 4 / 3 + 1);
+                for(var entry : entries.entrySet()){
+                    result.put((String)entry.getKey(),
+                        toAvro(connect.valueSchema(), avro.getValueType(), entry.getValue()));
+                }
+                return result;
+            }
+
+            case INT8:
+                return ((Byte)value).intValue();
+
+            case INT16:
+                return ((Short)value).intValue();
+
+            case INT32:
+                if(logical instanceof LogicalTypes.Date){
+                    return (int)(((java.util.Date)value).getTime() / MILLIS_PER_DAY);
+                } else if(logical instanceof LogicalTypes.TimeMillis){
+                    return (int)((java.util.Date)value).getTime();
+                }
+                return value;
+
+            case INT64:
+                return (logical instanceof LogicalTypes.TimestampMillis
+                    ? ((java.util.Date)value).getTime()
+                    : value);
+
+            case BYTES:
+                if(logical instanceof LogicalTypes.Decimal){
+                    return DECIMAL.toBytes((BigDecimal)value, avro, logical);
+                }
+                return (value instanceof ByteBuffer ? value : ByteBuffer.wrap((byte[])value));
+
+            default:
+                return value;
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package io.github.kattlo.cloudevents;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+
+/**
+ * The field by field {@code customEncode} and {@code customDecode} that the
+ * Avro compiler generates for specific records, instead of the reflective
+ * {@link SpecificDatumWriter} and {@link SpecificDatumReader} path.
+ *
+ * <p>Avro takes them just with the
+ * {@code org.apache.avro.specific.use_custom_coders} system property, for the
+ * whole JVM. Here they are taken per serializer and deserializer, with a copy
+ * of the model of the generated class. Classes without custom coders, like
+ * those with logical types, keep the reflective path.
+ *
+ * @author fabiojose
+ */
+public final class CustomCoders {
+
+    /**
+     * When {@code true} the specific records are written and read by their
+     * custom coders. Default is {@code true}
+     */
+    public static final String ENABLED_CONFIG = "cloudevents.avro.specific.custom.coders";
+
+    private static final Map<Schema, SpecificData> MODELS = new ConcurrentHashMap<>();
+
+    private CustomCoders() {
+    }
+
+    static boolean enabledOf(Map<String, ?> configs) {
+        var config = configs.get(ENABLED_CONFIG);
+
+        if(config == null){
+            return true;
+        } else if(config instanceof Boolean){
+            return (Boolean)config;
+        } else {
+            return Boolean.parseBoolean(config.toString().trim());
+        }
+    }
+
+    /**
+     * @return The model of the generated class, with its conversions and the
+     * custom coders enabled
+     */
+    static SpecificData modelOf(Schema schema) {
+        var model = MODELS.get(schema);
+        if(model == null){
+            model = MODELS.computeIfAbsent(schema, s -> {
+                var generated = SpecificData.getForSchema(s);
+
+                var custom = new SpecificData(generated.getClassLoader());
+                generated.getConversions().forEach(custom::addLogicalTypeConversion);
+                custom.setCustomCoders(true);
+
+                return custom;
+            });
+        }
+        return model;
+    }
+
+    static DatumWriter<Object> writerOf(Schema schema, IndexedRecord value, boolean enabled) {
+        if(!(value instanceof SpecificRecord)){
+            return new GenericDatumWriter<>(schema);
+        }
+
+        return (enabled
+            ? new SpecificDatumWriter<>(schema, modelOf(schema))
+            : new SpecificDatumWriter<>(schema));
+    }
+
+    static DatumReader<Object> readerOf(Schema writer, Schema reader, boolean enabled) {
+        return (enabled
+            ? new SpecificDatumReader<>(writer, reader, modelOf(reader))
+            : new SpecificDatumReader<>(writer, reader));
+    }
+}
@@ -0,0 +1,239 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.ResolvingDecoder;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.util.Utf8;
+
+/**
+ * Decodes Avro payloads with the configured {@link StringDecoding} and
+ * interns the strings of designated fields through bounded dictionaries.
+ *
+ * <p>Thread-safe: readers and decoders are kept per thread, dictionaries
+ * are shared.
+ *
+ * @author fabiojose
+ */
+final class DatumDecoder {
+
+    private final StringDecoding decoding;
+    private final Map<String, StringDictionary> dictionaries;
+    private final boolean customCoders;
+
+    private final ThreadLocal<ByteArrayDecoder> decoders =
+        ThreadLocal.withInitial(ByteArrayDecoder::new);
+
+    private final ThreadLocal<Map<Schema, Map<Schema, DatumReader<Object>>>> readers =
+        ThreadLocal.withInitial(IdentityHashMap::new);
+
+    DatumDecoder(StringDecoding decoding, Collection<String> internedFields,
+            int maxInternedEntries) {
+        this(decoding, internedFields, maxInternedEntries, false);
+    }
+
+    /**
+     * @param customCoders To read specific records with {@link CustomCoders},
+     * unless strings are decoded the custom way: custom coders read them
+     * field by field, without the overrides
+     */
+    DatumDecoder(StringDecoding decoding, Collection<String> internedFields,
+            int maxInternedEntries, boolean customCoders) {
+
+        this.decoding = Objects.requireNonNull(decoding);
+
+        var dictionaries = new HashMap<String, StringDictionary>();
+        for(var field : internedFields){
+            dictionaries.put(field, new StringDictionary(maxInternedEntries));
+        }
+        this.dictionaries = Map.copyOf(dictionaries);
+        this.customCoders = customCoders && !isCustom();
+    }
+
+    /**
+     * @return {@code true} when strings are not decoded the Avro default way
+     */
+    boolean isCustom() {
+        return decoding != StringDecoding.UTF8 || !dictionaries.isEmpty();
+    }
+
+    /**
+     * Decodes the Avro binary found at {@code offset} of {@code payload}.
+     */
+    Object decode(Schema writer, Schema reader, boolean specific, byte[] payload,
+            int offset, int length) throws IOException {
+
+        var decoder = decoders.get();
+
+        var byReader = readers.get().get(writer);
+        if(byReader == null){
+            byReader = new IdentityHashMap<>();
+            readers.get().put(writer, byReader);
+        }
+
+        var datumReader = byReader.get(reader);
+        if(datumReader == null){
+            if(specific && customCoders){
+                datumReader = CustomCoders.readerOf(writer, reader, true);
+            } else {
+                datumReader = specific
+                    ? new SpecificReader(writer, reader, this, decoder)
+                    : new GenericReader(writer, reader, this, decoder);
+            }
+
+            byReader.put(reader, datumReader);
+        }
+
+        return datumReader.read(null, decoder.configure(payload, offset, length));
+    }
+
+    private static boolean isJavaString(Schema expected) {
+        return expected.getProp(GenericData.STRING_PROP) != null;
+    }
+
+    /**
+     * @return The string to set, or {@code null} to fallback to the Avro default
+     */
+    private Object readString(Schema expected, Decoder in, ByteArrayDecoder decoder,
+            StringDictionary dictionary) throws IOException {
+
+        if(dictionary != null){
+            in.skipString();
+
+            var interned = dictionary.lookup(decoder.buffer(), decoder.lastOffset(),
+                decoder.lastLength());
+
+            return interned != null ? interned : notInterned(expected, decoder);
+        }
+
+        if(decoding == StringDecoding.LAZY && !isJavaString(expected)){
+            in.skipString();
+            return new LazyUtf8(decoder.buffer(), decoder.lastOffset(), decoder.lastLength());
+        }
+
+        return null;
+    }
+
+    /**
+     * The last string skipped, as it would be without interning.
+     */
+    private Object notInterned(Schema expected, ByteArrayDecoder decoder) {
+        var bytes = decoder.buffer();
+        var offset = decoder.lastOffset();
+        var length = decoder.lastLength();
+
+        if(isJavaString(expected)){
+            return new String(bytes, offset, length, StandardCharsets.UTF_8);
+        }
+
+        if(decoding == StringDecoding.LAZY){
+            return new LazyUtf8(bytes, offset, length);
+        }
+
+        return new Utf8(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
+    private static final class GenericReader extends GenericDatumReader<Object> {
+
+        private final DatumDecoder owner;
+        private final ByteArrayDecoder decoder;
+        private StringDictionary dictionary;
+
+        GenericReader(Schema writer, Schema reader, DatumDecoder owner,
+                ByteArrayDecoder decoder) {
+            super(writer, reader);
+            this.owner = owner;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public Object read(Object reuse, Decoder in) throws IOException {
+            // always through the resolver, the fast reader ignores the overrides
+            var resolver = getResolver(getSchema(), getExpected());
+            resolver.configure(in);
+            var result = read(reuse, getExpected(), resolver);
+            resolver.drain();
+
+            return result;
+        }
+
+        @Override
+        protected void readField(Object r, Schema.Field f, Object oldDatum,
+                ResolvingDecoder in, Object state) throws IOException {
+
+            var enclosing = dictionary;
+            dictionary = owner.dictionaries.get(f.name());
+            try {
+                super.readField(r, f, oldDatum, in, state);
+            } finally {
+                dictionary = enclosing;
+            }
+        }
+
+        @Override
+        protected Object readString(Object old, Schema expected, Decoder in)
+                throws IOException {
+
+            var result = owner.readString(expected, in, decoder, dictionary);
+            return result != null ? result : super.readString(old, expected, in);
+        }
+    }
+
+    private static final class SpecificReader extends SpecificDatumReader<Object> {
+
+        private final DatumDecoder owner;
+        private final ByteArrayDecoder decoder;
+        private StringDictionary dictionary;
+
+        SpecificReader(Schema writer, Schema reader, DatumDecoder owner,
+                ByteArrayDecoder decoder) {
+            super(writer, reader);
+            this.owner = owner;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public Object read(Object reuse, Decoder in) throws IOException {
+            // always through the resolver, the fast reader ignores the overrides
+            var resolver = getResolver(getSchema(), getExpected());
+            resolver.configure(in);
+            var result = read(reuse, getExpected(), resolver);
+            resolver.drain();
+
+            return result;
+        }
+
+        @Override
+        protected void readField(Object r, Schema.Field f, Object oldDatum,
+                ResolvingDecoder in, Object state) throws IOException {
+
+            var enclosing = dictionary;
+            dictionary = owner.dictionaries.get(f.name());
+            try {
+                super.readField(r, f, oldDatum, in, state);
+            } finally {
+                dictionary = enclosing;
+            }
+        }
+
+        @Override
+        protected Object readString(Object old, Schema expected, Decoder in)
+                throws IOException {
+
+            var result = owner.readString(expected, in, decoder, dictionary);
+            return result != null ? result : super.readString(old, expected, in);
+        }
+    }
+}
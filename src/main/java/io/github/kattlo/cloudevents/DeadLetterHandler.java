@@ -0,0 +1,28 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Where the tolerant mode forwards the records that could not be
+ * deserialized. Implementations that also implement
+ * {@link org.apache.kafka.common.Configurable} receive the deserializer
+ * configurations.
+ *
+ * @see PoisonPills
+ * @author fabiojose
+ */
+public interface DeadLetterHandler extends Closeable {
+
+    /**
+     * Called in the thread that deserializes, keep it short or hand it over.
+     *
+     * @param failed With the raw bytes and headers as received, not copied:
+     * do not modify them
+     */
+    void forward(FailedCloudEvent failed) throws Exception;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.kattlo.cloudevents;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Configurable;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link DeadLetterHandler} that produces the failed records to a topic, the
+ * raw bytes and headers as received plus {@link #CAUSE_HEADER} and
+ * {@link #TOPIC_HEADER}. Sends are asynchronous, errors are logged.
+ *
+ * <p>The producer has the {@code bootstrap.servers} of the deserializer and
+ * the configurations prefixed by {@link #PRODUCER_PREFIX}.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class DeadLetterProducer implements DeadLetterHandler, Configurable {
+
+    /**
+     * Where to produce the failed records. Default is the topic they were
+     * consumed from, plus {@code .dlq}
+     */
+    public static final String TOPIC_CONFIG = "cloudevents.avro.poison.dead.letter.topic";
+
+    /**
+     * Prefix of the dead-letter producer configurations
+     */
+    public static final String PRODUCER_PREFIX = "cloudevents.avro.poison.dead.letter.producer.";
+
+    public static final String CAUSE_HEADER = "poison_cause";
+    public static final String TOPIC_HEADER = "poison_topic";
+
+    private static final String DEFAULT_SUFFIX = ".dlq";
+
+    private Producer<byte[], byte[]> producer;
+    private String topic;
+
+    public DeadLetterProducer() {
+    }
+
+    DeadLetterProducer(Producer<byte[], byte[]> producer, String topic) {
+        this.producer = producer;
+        this.topic = topic;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        var config = configs.get(TOPIC_CONFIG);
+        topic = (config == null ? null : config.toString().trim());
+
+        Map<String, Object> producerConfigs = new HashMap<>();
+        var bootstrap = configs.get(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG);
+        if(bootstrap != null){
+            producerConfigs.put(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        }
+        configs.forEach((key, value) -> {
+            if(key.startsWith(PRODUCER_PREFIX)){
+                producerConfigs.put(key.substring(PRODUCER_PREFIX.length()), value);
+            }
+        });
+
+        producer = new KafkaProducer<>(producerConfigs, new ByteArraySerializer(), new ByteArraySerializer());
+    }
+
+    @Override
+    public void forward(FailedCloudEvent failed) {
+        var headers = new RecordHeaders();
+        if(failed.getHeaders() != null){
+            // the same instances, the consumer record ones would become read-only
+            failed.getHeaders().forEach(headers::add);
+        }
+        headers.add(CAUSE_HEADER, failed.getCause().name().getBytes(StandardCharsets.UTF_8));
+        headers.add(TOPIC_HEADER, failed.getTopic().getBytes(StandardCharsets.UTF_8));
+
+        var destination = (topic == null ? failed.getTopic() + DEFAULT_SUFFIX : topic);
+
+        producer.send(new ProducerRecord<byte[], byte[]>(destination, null, null, failed.getBytes(), headers),
+            (metadata, exception) -> {
+                if(exception != null){
+                    log.error("Error producing {} to {}", failed, destination, exception);
+                }
+            });
+    }
+
+    @Override
+    public void close() {
+        if(producer != null){
+            producer.close();
+        }
+    }
+}
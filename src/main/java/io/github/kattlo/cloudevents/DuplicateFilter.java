@@ -0,0 +1,289 @@
+package io.github.kattlo.cloudevents;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Recently seen events, by the 64-bit fingerprint of the raw
+ * {@code ce_source} and {@code ce_id} headers, to skip redeliveries before
+ * decoding them.
+ *
+ * <p>Fingerprints are kept in two generations of primitive hash sets, the
+ * older one is dropped when the newer is full or older than half of the
+ * TTL. So an event is remembered between half and the whole TTL, with at
+ * most {@link #MAX_ENTRIES_CONFIG} entries, around 32 bytes each.
+ *
+ * <p>The deserializers just check it. The {@link CloudEventConsumer} marks
+ * the events it handled; with another consumer loop, call
+ * {@link #markSeen(Headers)} once the event was handled.
+ *
+ * @author fabiojose
+ */
+public final class DuplicateFilter {
+
+    /**
+     * When {@code true}, duplicated events are skipped. Default is {@code false}
+     */
+    public static final String ENABLED_CONFIG = "cloudevents.avro.dedup.enabled";
+
+    /**
+     * Max number of remembered events. Default is 100000
+     */
+    public static final String MAX_ENTRIES_CONFIG = "cloudevents.avro.dedup.max.entries";
+
+    /**
+     * Max milliseconds to remember an event. Default is 300000
+     */
+    public static final String TTL_MS_CONFIG = "cloudevents.avro.dedup.ttl.ms";
+
+    static final String SOURCE_HEADER = "ce_source";
+    static final String ID_HEADER = "ce_id";
+
+    private static final int DEFAULT_MAX_ENTRIES = 100_000;
+    private static final long DEFAULT_TTL_MS = 300_000;
+
+    /**
+     * Open addressing set of non-zero longs
+     */
+    static final class LongSet {
+        private final long[] table;
+        private final int mask;
+        private int size;
+
+        LongSet(int expected) {
+            var capacity = Integer.highestOneBit(Math.max(expected, 2) * 2 - 1) << 1;
+            table = new long[capacity];
+            mask = capacity - 1;
+        }
+
+        private int slotOf(long value) {
+            var slot = (int)(value ^ (value >>> 32)) & mask;
+            while(table[slot] != 0 && table[slot] != value){
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        boolean contains(long value) {
+            return table[slotOf(value)] == value;
+        }
+
+        void add(long value) {
+            var slot = slotOf(value);
+            if(table[slot] == 0){
+                table[slot] = value;
+                size++;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            Arrays.fill(table, 0);
+            size = 0;
+        }
+    }
+
+    private final int generationSize;
+    private final long generationMs;
+    private final LongSupplier clock;
+
+    private LongSet current;
+    private LongSet previous;
+    private long rotatedAt;
+
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    public DuplicateFilter(int maxEntries, long ttlMs) {
+        this(maxEntries, ttlMs, System::currentTimeMillis);
+    }
+
+    DuplicateFilter(int maxEntries, long ttlMs, LongSupplier clock) {
+        if(maxEntries < 2){
+            throw new IllegalArgumentException(MAX_ENTRIES_CONFIG + " must be at least 2");
+        }
+        if(ttlMs < 2){
+            throw new IllegalArgumentException(TTL_MS_CONFIG + " must be at least 2");
+        }
+
+        this.generationSize = maxEntries / 2;
+        this.generationMs = ttlMs / 2;
+        this.clock = clock;
+
+        this.current = new LongSet(generationSize);
+        this.previous = new LongSet(generationSize);
+        this.rotatedAt = clock.getAsLong();
+    }
+
+    /**
+     * @return The configured filter, or {@code null} when not enabled
+     */
+    static DuplicateFilter of(Map<String, ?> configs) {
+        var enabled = configs.get(ENABLED_CONFIG);
+        if(enabled == null || !Boolean.parseBoolean(enabled.toString().trim())){
+            return null;
+        }
+
+        var maxEntries = configs.get(MAX_ENTRIES_CONFIG);
+        var ttlMs = configs.get(TTL_MS_CONFIG);
+
+        return new DuplicateFilter(
+            maxEntries == null ? DEFAULT_MAX_ENTRIES : Integer.parseInt(maxEntries.toString().trim()),
+            ttlMs == null ? DEFAULT_TTL_MS : Long.parseLong(ttlMs.toString().trim()));
+    }
+
+    /**
+     * FNV-1a over source, a separator and id, with the murmur3 finalizer.
+     * Never zero.
+     */
+    static long fingerprintOf(byte[] source, byte[] id) {
+        var hash = 0xcbf29ce484222325L;
+        for(var b : source){
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        hash = (hash ^ 0xff) * 0x100000001b3L;
+        for(var b : id){
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return (hash == 0 ? 1 : hash);
+    }
+
+    private void rotate(long now) {
+        var dropped = previous;
+        previous = current;
+        current = dropped;
+        current.clear();
+
+        rotatedAt = now;
+    }
+
+    /**
+     * @return The fingerprint of the {@code ce_source} and {@code ce_id}
+     * headers, or {@code 0} when they are absent
+     */
+    static long fingerprintOf(Headers headers) {
+        var source = (headers == null ? null : headers.lastHeader(SOURCE_HEADER));
+        var id = (headers == null ? null : headers.lastHeader(ID_HEADER));
+        if(source == null || id == null || source.value() == null || id.value() == null){
+            return 0;
+        }
+
+        return fingerprintOf(source.value(), id.value());
+    }
+
+    private void expire(long now) {
+        var elapsed = now - rotatedAt;
+        if(elapsed >= generationMs){
+            rotate(now);
+            if(elapsed >= generationMs * 2){
+                previous.clear();
+            }
+        }
+    }
+
+    /**
+     * Checks the event of these headers, without remembering it.
+     *
+     * @return {@code true} when the same {@code ce_source} and {@code ce_id}
+     * were seen recently, {@code false} when not or they are absent
+     */
+    public boolean contains(Headers headers) {
+        var fingerprint = fingerprintOf(headers);
+        if(fingerprint == 0){
+            return false;
+        }
+        checked.increment();
+
+        synchronized(this){
+            expire(clock.getAsLong());
+
+            if(current.contains(fingerprint) || previous.contains(fingerprint)){
+                duplicates.increment();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Remembers the event of these headers. Call it once the event was
+     * handled, so one that failed or was never handled, like those of a
+     * revoked partition, is not skipped when delivered again.
+     */
+    public void markSeen(Headers headers) {
+        var fingerprint = fingerprintOf(headers);
+        if(fingerprint == 0){
+            return;
+        }
+
+        synchronized(this){
+            var now = clock.getAsLong();
+            expire(now);
+
+            current.add(fingerprint);
+            if(current.size() >= generationSize){
+                rotate(now);
+            }
+        }
+    }
+
+    /**
+     * Checks and remembers the event of these headers, {@link #contains(Headers)}
+     * followed by {@link #markSeen(Headers)}.
+     *
+     * @return {@code true} when the same {@code ce_source} and {@code ce_id}
+     * were seen recently, {@code false} when not or they are absent
+     */
+    public boolean isDuplicate(Headers headers) {
+        if(contains(headers)){
+            return true;
+        }
+
+        markSeen(headers);
+        return false;
+    }
+
+    /**
+     * @return Events checked, those with {@code ce_source} and {@code ce_id}
+     */
+    public long getChecked() {
+        return checked.sum();
+    }
+
+    /**
+     * @return Events found as duplicated
+     */
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    /**
+     * @return Ratio of duplicated to checked events, {@code 0} when none checked
+     */
+    public double getHitRate() {
+        var total = getChecked();
+        return (total == 0 ? 0 : (double)getDuplicates() / total);
+    }
+
+    /**
+     * @return Number of remembered events
+     */
+    public synchronized int size() {
+        return current.size() + previous.size();
+    }
+}
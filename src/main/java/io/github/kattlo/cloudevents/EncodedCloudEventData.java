@@ -0,0 +1,80 @@
+package io.github.kattlo.cloudevents;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.apache.avro.generic.IndexedRecord;
+
+/**
+ * Data that keeps the wire format value it was deserialized from, decoded
+ * just on the first {@link #getValue()}. The
+ * {@link KafkaAvroCloudEventSerializer} writes those bytes back as they are,
+ * without encoding, while the value was not decoded: a decoded value may
+ * have been modified, so it is encoded again.
+ *
+ * <p>Created by the {@link KafkaAvroCloudEventDeserializer} when
+ * {@link KafkaAvroCloudEventDeserializer#KEEP_ENCODED_CONFIG} is
+ * {@code true}, as in the {@link CloudEventSerde}.
+ *
+ * @author fabiojose
+ */
+public final class EncodedCloudEventData<T extends IndexedRecord> extends AvroCloudEventData<T> {
+
+    private final byte[] encoded;
+    private final Supplier<T> loader;
+    private volatile T loaded;
+
+    EncodedCloudEventData(byte[] encoded, Supplier<T> loader) {
+        this.encoded = Objects.requireNonNull(encoded);
+        this.loader = Objects.requireNonNull(loader);
+    }
+
+    /**
+     * @return The wire format value, as received: do not modify it
+     */
+    public byte[] getEncoded() {
+        return encoded;
+    }
+
+    /**
+     * @return {@code true} when the value was already decoded
+     */
+    public boolean isLoaded() {
+        return loaded != null;
+    }
+
+    /**
+     * Avro records are mutable and their hash or equality skips the
+     * {@code order: ignore} fields, so just a value never handed out is
+     * known to be the one of the encoded bytes.
+     *
+     * @return {@code true} when the value was not decoded
+     */
+    public boolean isUnchanged() {
+        return loaded == null;
+    }
+
+    /**
+     * @throws org.apache.kafka.common.errors.SerializationException When the
+     * value could not be decoded
+     */
+    @Override
+    public T getValue() {
+        var result = loaded;
+        if(result == null){
+            synchronized(this){
+                result = loaded;
+                if(result == null){
+                    result = Objects.requireNonNull(loader.get());
+                    loaded = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "EncodedCloudEventData(encoded=" + encoded.length + " bytes, loaded=" + isLoaded() + ")";
+    }
+}
@@ -0,0 +1,192 @@
+package io.github.kattlo.cloudevents;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.kafka.common.header.Headers;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.CloudEventData;
+import io.cloudevents.SpecVersion;
+
+/**
+ * Marker returned in place of the events that could not be deserialized,
+ * when {@link PoisonPills#ENABLED_CONFIG} is {@code true}. It keeps the raw
+ * bytes, the headers and the cause, as they are; the context attributes are
+ * read from the {@code ce_*} headers on demand, {@code null} when absent or
+ * invalid, and there is no data.
+ *
+ * @author fabiojose
+ */
+public final class FailedCloudEvent implements CloudEvent {
+
+    private static final String PREFIX = "ce_";
+
+    private static final Set<String> ATTRIBUTES = Set.of("specversion", "id", "source",
+        "type", "datacontenttype", "dataschema", "subject", "time");
+
+    private final String topic;
+    private final Headers headers;
+    private final byte[] bytes;
+    private final PoisonPills.Cause cause;
+    private final RuntimeException exception;
+
+    FailedCloudEvent(String topic, Headers headers, byte[] bytes, PoisonPills.Cause cause,
+            RuntimeException exception) {
+
+        this.topic = topic;
+        this.headers = headers;
+        this.bytes = bytes;
+        this.cause = cause;
+        this.exception = exception;
+    }
+
+    /**
+     * @return {@code true} when the event is a marker of a record that could
+     * not be deserialized
+     */
+    public static boolean isFailed(CloudEvent event) {
+        return event instanceof FailedCloudEvent;
+    }
+
+    /**
+     * @return Where the record was consumed from
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * @return The record headers, as received
+     */
+    public Headers getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return The record value, as received: do not modify it
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public PoisonPills.Cause getCause() {
+        return cause;
+    }
+
+    public RuntimeException getException() {
+        return exception;
+    }
+
+    private String headerOf(String attribute) {
+        var header = (headers == null ? null : headers.lastHeader(PREFIX + attribute));
+        return (header == null || header.value() == null
+            ? null
+            : new String(header.value(), StandardCharsets.UTF_8));
+    }
+
+    private static URI uriOf(String value) {
+        try {
+            return (value == null ? null : URI.create(value));
+        }catch(IllegalArgumentException e){
+            return null;
+        }
+    }
+
+    @Override
+    public CloudEventData getData() {
+        return null;
+    }
+
+    @Override
+    public SpecVersion getSpecVersion() {
+        try {
+            var specversion = headerOf("specversion");
+            return (specversion == null ? null : SpecVersion.parse(specversion));
+        }catch(RuntimeException e){
+            return null;
+        }
+    }
+
+    @Override
+    public String getId() {
+        return headerOf("id");
+    }
+
+    @Override
+    public String getType() {
+        return headerOf("type");
+    }
+
+    @Override
+    public URI getSource() {
+        return uriOf(headerOf("source"));
+    }
+
+    @Override
+    public String getDataContentType() {
+        var header = (headers == null ? null : headers.lastHeader("content-type"));
+        return (header == null || header.value() == null
+            ? headerOf("datacontenttype")
+            : new String(header.value(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public URI getDataSchema() {
+        return uriOf(headerOf("dataschema"));
+    }
+
+    @Override
+    public String getSubject() {
+        return headerOf("subject");
+    }
+
+    @Override
+    public OffsetDateTime getTime() {
+        try {
+            var time = headerOf("time");
+            return (time == null ? null : OffsetDateTime.parse(time));
+        }catch(DateTimeParseException e){
+            return null;
+        }
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        if(!ATTRIBUTES.contains(name)){
+            throw new IllegalArgumentException("Invalid attribute: " + name);
+        }
+        return headerOf(name);
+    }
+
+    @Override
+    public Object getExtension(String name) {
+        return (ATTRIBUTES.contains(name) ? null : headerOf(name));
+    }
+
+    @Override
+    public Set<String> getExtensionNames() {
+        var names = new LinkedHashSet<String>();
+        if(headers != null){
+            for(var header : headers){
+                if(header.key().startsWith(PREFIX)){
+                    var name = header.key().substring(PREFIX.length());
+                    if(!ATTRIBUTES.contains(name)){
+                        names.add(name);
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public String toString() {
+        return "FailedCloudEvent(topic=" + topic + ", id=" + getId() + ", cause=" + cause
+            + ", bytes=" + (bytes == null ? 0 : bytes.length) + ")";
+    }
+}
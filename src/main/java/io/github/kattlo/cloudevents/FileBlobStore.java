@@ -0,0 +1,127 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.apache.avro.util.ByteBufferInputStream;
+import org.apache.kafka.common.Configurable;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link BlobStore} on a directory, shared by producers and consumers, with
+ * one file per payload. Payloads are read through memory-mapped files, so
+ * they are paged in only when decoded and never copied to the heap as a
+ * whole.
+ *
+ * <p>References are relative to the directory: {@code <topic>/<uuid>}.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class FileBlobStore implements BlobStore, Configurable {
+
+    /**
+     * Directory of the payloads
+     */
+    public static final String DIRECTORY_CONFIG = "cloudevents.avro.claimcheck.file.directory";
+
+    private Path directory;
+
+    public FileBlobStore() {
+    }
+
+    public FileBlobStore(Path directory) {
+        this.directory = Objects.requireNonNull(directory).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        var config = configs.get(DIRECTORY_CONFIG);
+        if(config == null){
+            throw new IllegalArgumentException(DIRECTORY_CONFIG + " is required");
+        }
+
+        directory = Paths.get(config.toString()).toAbsolutePath().normalize();
+        log.debug("{}={}", DIRECTORY_CONFIG, directory);
+    }
+
+    private Path directory() {
+        if(directory == null){
+            throw new IllegalStateException(DIRECTORY_CONFIG + " not configured");
+        }
+        return directory;
+    }
+
+    private Path pathOf(String reference) {
+        var path = directory().resolve(reference).normalize();
+        if(!path.startsWith(directory) || path.equals(directory)){
+            throw new IllegalArgumentException("Reference out of the store: " + reference);
+        }
+        return path;
+    }
+
+    @Override
+    public String put(String topic, byte[] payload) throws IOException {
+        var reference = topic + "/" + UUID.randomUUID();
+        var path = pathOf(reference);
+
+        Files.createDirectories(path.getParent());
+
+        // readers never see partial payloads
+        var temporary = Files.createTempFile(path.getParent(), ".claimcheck", ".tmp");
+        try {
+            Files.write(temporary, payload);
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        }catch(IOException e){
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        return reference;
+    }
+
+    /**
+     * Deletes the payload files, and leftovers of failed puts, last modified
+     * before the instant
+     */
+    @Override
+    public int expire(Instant before) throws IOException {
+        var cutoff = FileTime.from(before);
+        var deleted = 0;
+
+        try(var paths = Files.walk(directory())){
+            for(var path : (Iterable<Path>)paths::iterator){
+                if(Files.isRegularFile(path)
+                        && Files.getLastModifiedTime(path).compareTo(cutoff) < 0
+                        && Files.deleteIfExists(path)){
+                    deleted++;
+                }
+            }
+        }
+
+        log.debug("{} payloads expired from {}", deleted, directory);
+        return deleted;
+    }
+
+    @Override
+    public InputStream open(String reference) throws IOException {
+        try(var channel = FileChannel.open(pathOf(reference), StandardOpenOption.READ)){
+            var mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            return new ByteBufferInputStream(List.of(mapped));
+        }
+    }
+}
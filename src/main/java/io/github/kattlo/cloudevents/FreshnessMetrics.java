@@ -0,0 +1,243 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.Measurable;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.utils.Time;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Freshness of the consumed events: the milliseconds from {@code ce_time}
+ * to the deserialization, in a {@link LatencyHistogram} per topic and
+ * {@code ce_type}, since the start.
+ *
+ * <p>Exposed as Kafka metrics, and so in JMX under
+ * {@code io.github.kattlo.cloudevents:type=cloudevents-freshness,topic=<topic>,ce-type=<ce_type>},
+ * with {@code freshness-ms-p50}, {@code freshness-ms-p99},
+ * {@code freshness-ms-p999}, {@code freshness-ms-max} and
+ * {@code freshness-count}. Events without a valid {@code ce_time} count in
+ * {@code freshness-invalid-total}.
+ *
+ * <p>Overhead per record, read from the raw headers without decoding: two
+ * header lookups, the allocation-free parse of {@code ce_time}, a scan of
+ * the known topic and type pairs and the atomic updates of one histogram.
+ * Nothing is allocated once the pair is known. Types beyond
+ * {@link #MAX_TYPES_CONFIG} per topic are recorded as {@code other}.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public final class FreshnessMetrics implements Closeable {
+
+    /**
+     * When {@code true}, the freshness is recorded. Default is {@code false}
+     */
+    public static final String ENABLED_CONFIG = "cloudevents.avro.freshness.enabled";
+
+    /**
+     * Max distinct {@code ce_type} per topic. Default is 100
+     */
+    public static final String MAX_TYPES_CONFIG = "cloudevents.avro.freshness.max.types";
+
+    public static final String GROUP = "cloudevents-freshness";
+
+    public static final String JMX_PREFIX = "io.github.kattlo.cloudevents";
+
+    static final String TIME_HEADER = "ce_time";
+    static final String TYPE_HEADER = "ce_type";
+    static final String OTHER_TYPE = "other";
+
+    private static final int DEFAULT_MAX_TYPES = 100;
+    private static final byte[] NO_TYPE = new byte[0];
+
+    private static final class Entry {
+        final String topic;
+        final byte[] type;
+        final LatencyHistogram histogram;
+
+        Entry(String topic, byte[] type, LatencyHistogram histogram) {
+            this.topic = topic;
+            this.type = type;
+            this.histogram = histogram;
+        }
+    }
+
+    private final Metrics metrics;
+    private final Map<String, String> tags;
+    private final int maxTypes;
+    private final LongSupplier clock;
+
+    private volatile Entry[] entries = new Entry[0];
+    private final Map<String, LatencyHistogram> others = new HashMap<>();
+    private final Map<String, Integer> typesPerTopic = new HashMap<>();
+    private final Map<String, Integer> overflowedPerTopic = new HashMap<>();
+
+    private final LongAdder invalid = new LongAdder();
+
+    /**
+     * @param clientId Added as {@code client-id} tag, when not {@code null}
+     */
+    @SuppressWarnings("deprecation")
+    public FreshnessMetrics(int maxTypes, String clientId) {
+        this(new Metrics(new MetricConfig(), List.of(new JmxReporter(JMX_PREFIX)), Time.SYSTEM),
+            maxTypes, clientId, System::currentTimeMillis);
+    }
+
+    FreshnessMetrics(Metrics metrics, int maxTypes, String clientId, LongSupplier clock) {
+        if(maxTypes < 1){
+            throw new IllegalArgumentException(MAX_TYPES_CONFIG + " must be at least 1");
+        }
+
+        this.metrics = metrics;
+        this.maxTypes = maxTypes;
+        this.clock = clock;
+        this.tags = (clientId == null ? Map.of() : Map.of("client-id", clientId));
+
+        metrics.addMetric(metrics.metricName("freshness-invalid-total", GROUP,
+            "Events without a valid ce_time", tags), (Measurable)(config, now) -> invalid.sum());
+    }
+
+    /**
+     * @return The configured metrics, or {@code null} when not enabled
+     */
+    static FreshnessMetrics of(Map<String, ?> configs) {
+        var enabled = configs.get(ENABLED_CONFIG);
+        if(enabled == null || !Boolean.parseBoolean(enabled.toString().trim())){
+            return null;
+        }
+
+        var maxTypes = configs.get(MAX_TYPES_CONFIG);
+        var clientId = configs.get("client.id");
+
+        return new FreshnessMetrics(
+            maxTypes == null ? DEFAULT_MAX_TYPES : Integer.parseInt(maxTypes.toString().trim()),
+            clientId == null ? null : clientId.toString());
+    }
+
+    private void register(String topic, String type, LatencyHistogram histogram) {
+        var metricTags = new HashMap<>(tags);
+        metricTags.put("topic", topic);
+        metricTags.put("ce-type", type);
+        log.debug("freshness metrics of {}", metricTags);
+
+        metrics.addMetric(metrics.metricName("freshness-ms-p50", GROUP,
+            "Median of milliseconds from ce_time to consume", metricTags),
+            (Measurable)(config, now) -> histogram.valueAtPercentile(50));
+        metrics.addMetric(metrics.metricName("freshness-ms-p99", GROUP,
+            "99th percentile of milliseconds from ce_time to consume", metricTags),
+            (Measurable)(config, now) -> histogram.valueAtPercentile(99));
+        metrics.addMetric(metrics.metricName("freshness-ms-p999", GROUP,
+            "99.9th percentile of milliseconds from ce_time to consume", metricTags),
+            (Measurable)(config, now) -> histogram.valueAtPercentile(99.9));
+        metrics.addMetric(metrics.metricName("freshness-ms-max", GROUP,
+            "Max milliseconds from ce_time to consume", metricTags),
+            (Measurable)(config, now) -> histogram.getMax());
+        metrics.addMetric(metrics.metricName("freshness-count", GROUP,
+            "Events with ce_time", metricTags),
+            (Measurable)(config, now) -> histogram.getCount());
+    }
+
+    private Entry find(String topic, byte[] type) {
+        for(var entry : entries){
+            if(entry.topic.equals(topic) && Arrays.equals(entry.type, type)){
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private synchronized Entry create(String topic, byte[] type) {
+        var entry = find(topic, type);
+        if(entry != null){
+            return entry;
+        }
+
+        var types = typesPerTopic.getOrDefault(topic, 0);
+
+        if(types < maxTypes){
+            entry = new Entry(topic, type.clone(), new LatencyHistogram());
+            register(topic, new String(type, StandardCharsets.UTF_8), entry.histogram);
+            typesPerTopic.put(topic, types + 1);
+
+        } else {
+            var other = others.computeIfAbsent(topic, t -> {
+                var histogram = new LatencyHistogram();
+                register(t, OTHER_TYPE, histogram);
+                return histogram;
+            });
+            entry = new Entry(topic, type.clone(), other);
+
+            // some overflowed types are known too, the rest takes this slow path
+            var overflowed = overflowedPerTopic.getOrDefault(topic, 0);
+            if(overflowed >= maxTypes){
+                return entry;
+            }
+            overflowedPerTopic.put(topic, overflowed + 1);
+        }
+
+        var grown = Arrays.copyOf(entries, entries.length + 1);
+        grown[entries.length] = entry;
+        entries = grown;
+
+        return entry;
+    }
+
+    /**
+     * Records the freshness of the event in these raw headers
+     */
+    public void record(String topic, Headers headers) {
+        var time = (headers == null ? null : headers.lastHeader(TIME_HEADER));
+        if(time == null){
+            return;
+        }
+
+        var millis = Rfc3339.epochMillisOf(time.value());
+        if(millis == Rfc3339.INVALID){
+            invalid.increment();
+            return;
+        }
+
+        var type = headers.lastHeader(TYPE_HEADER);
+        var typeBytes = (type == null || type.value() == null ? NO_TYPE : type.value());
+
+        var entry = find(topic, typeBytes);
+        if(entry == null){
+            entry = create(topic, typeBytes);
+        }
+
+        entry.histogram.record(clock.getAsLong() - millis);
+    }
+
+    /**
+     * @return The histogram of the topic and type, or {@code null} when none
+     * was recorded
+     */
+    public LatencyHistogram getHistogram(String topic, String type) {
+        var entry = find(topic, type.getBytes(StandardCharsets.UTF_8));
+        return (entry == null ? null : entry.histogram);
+    }
+
+    /**
+     * @return Events without a valid {@code ce_time}
+     */
+    public long getInvalid() {
+        return invalid.sum();
+    }
+
+    @Override
+    public void close() {
+        metrics.close();
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Unsynchronized in-memory {@link OutputStream} that exposes its backing
+ * array, so encoded records can be sliced without copies.
+ *
+ * @author fabiojose
+ */
+final class GrowableBuffer extends OutputStream {
+
+    private byte[] buf;
+    private int count;
+
+    GrowableBuffer(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    private void ensure(int length) {
+        var required = count + length;
+        if(required > buf.length){
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, required));
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        ensure(1);
+        buf[count++] = (byte)b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensure(len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    void writeInt(int value) {
+        ensure(4);
+        buf[count++] = (byte)(value >>> 24);
+        buf[count++] = (byte)(value >>> 16);
+        buf[count++] = (byte)(value >>> 8);
+        buf[count++] = (byte)value;
+    }
+
+    /**
+     * @return The number of bytes written so far
+     */
+    int position() {
+        return count;
+    }
+
+    /**
+     * Slice of the bytes written, only valid until the next write.
+     */
+    ByteBuffer slice(int offset, int length) {
+        return ByteBuffer.wrap(buf, offset, length).slice();
+    }
+
+    /**
+     * @return A copy of the bytes written
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    void reset() {
+        count = 0;
+    }
+}
@@ -0,0 +1,256 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.SerializationException;
+
+import io.cloudevents.CloudEvent;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deserializes whole {@code poll()} batches of raw records, decoding in
+ * parallel when the batch is large enough. Records keep the partition
+ * order they had in the batch.
+ *
+ * <pre>
+ * var batch = new KafkaAvroCloudEventBatchDeserializer();
+ * batch.configure(configs);
+ *
+ * ConsumerRecords&lt;byte[], byte[]&gt; raw = consumer.poll(timeout);
+ * ConsumerRecords&lt;byte[], CloudEvent&gt; events = batch.deserialize(raw);
+ * </pre>
+ *
+ * <p>All workers share the caches of the wrapped
+ * {@link KafkaAvroCloudEventDeserializer}. When its {@link DuplicateFilter}
+ * is enabled, duplicated records are checked in order, before decoding,
+ * and left out of the result.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class KafkaAvroCloudEventBatchDeserializer implements Closeable {
+
+    /**
+     * Batches with fewer records are decoded by the calling thread. Default is 64
+     */
+    public static final String PARALLELISM_THRESHOLD_CONFIG = "cloudevents.avro.batch.parallelism.threshold";
+
+    /**
+     * Number of threads of the own {@link ForkJoinPool}, used when no
+     * executor is given. Default is the common pool
+     */
+    public static final String PARALLELISM_CONFIG = "cloudevents.avro.batch.parallelism";
+
+    private static final int DEFAULT_PARALLELISM_THRESHOLD = 64;
+
+    private final KafkaAvroCloudEventDeserializer deserializer;
+
+    private ExecutorService executor;
+    private boolean ownedExecutor;
+    private int parallelism;
+    private int threshold = DEFAULT_PARALLELISM_THRESHOLD;
+
+    public KafkaAvroCloudEventBatchDeserializer() {
+        this(new KafkaAvroCloudEventDeserializer());
+    }
+
+    public KafkaAvroCloudEventBatchDeserializer(KafkaAvroCloudEventDeserializer deserializer) {
+        this.deserializer = Objects.requireNonNull(deserializer);
+    }
+
+    /**
+     * @param executor To decode on, like a virtual-thread per task executor.
+     * It is not shutdown by {@link #close()}
+     */
+    public KafkaAvroCloudEventBatchDeserializer(KafkaAvroCloudEventDeserializer deserializer,
+            ExecutorService executor) {
+        this(deserializer);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    private static int intOf(Map<String, ?> configs, String name, int defaultValue) {
+        var config = configs.get(name);
+
+        if(config == null){
+            return defaultValue;
+        } else if(config instanceof Number){
+            return ((Number)config).intValue();
+        } else {
+            return Integer.parseInt(config.toString().trim());
+        }
+    }
+
+    /**
+     * Configures this and the wrapped deserializer, as value deserializer.
+     */
+    public void configure(Map<String, ?> configs) {
+        deserializer.configure(configs, false);
+
+        threshold = intOf(configs, PARALLELISM_THRESHOLD_CONFIG, DEFAULT_PARALLELISM_THRESHOLD);
+
+        if(executor == null){
+            var configured = intOf(configs, PARALLELISM_CONFIG, 0);
+            if(configured > 0){
+                executor = new ForkJoinPool(configured);
+                ownedExecutor = true;
+            } else {
+                executor = ForkJoinPool.commonPool();
+            }
+        }
+
+        parallelism = (executor instanceof ForkJoinPool
+            ? ((ForkJoinPool)executor).getParallelism()
+            : Runtime.getRuntime().availableProcessors());
+
+        log.debug("{}={}, parallelism={}", PARALLELISM_THRESHOLD_CONFIG, threshold, parallelism);
+    }
+
+    private void decode(List<ConsumerRecord<byte[], byte[]>> records, CloudEvent[] events,
+            int from, int to) {
+
+        for(int i = from; i < to; i++){
+            var record = records.get(i);
+            if(record == null){
+                continue;
+            }
+
+            try {
+                events[i] = deserializer.decodeEvent(record.topic(), record.headers(), record.value());
+            }catch(RuntimeException e){
+                throw new SerializationException("Error deserializing value for partition "
+                    + record.topic() + "-" + record.partition() + " at offset " + record.offset()
+                    + ". If needed, please seek past the record to continue consumption.", e);
+            }
+        }
+    }
+
+    private void decodeInParallel(List<ConsumerRecord<byte[], byte[]>> records, CloudEvent[] events) {
+
+        var count = records.size();
+        var chunks = Math.min(count, parallelism * 2);
+        var size = (count + chunks - 1) / chunks;
+
+        var tasks = new ArrayList<Callable<Void>>(chunks);
+        for(int from = 0; from < count; from += size){
+            final var start = from;
+            final var end = Math.min(from + size, count);
+            tasks.add(() -> {
+                decode(records, events, start, end);
+                return null;
+            });
+        }
+
+        try {
+            for(Future<Void> done : executor.invokeAll(tasks)){
+                done.get();
+            }
+        }catch(InterruptedException e){
+            throw new InterruptException(e);
+        }catch(ExecutionException e){
+            if(e.getCause() instanceof SerializationException){
+                throw (SerializationException)e.getCause();
+            }
+            throw new SerializationException(e.getCause());
+        }
+    }
+
+    /**
+     * @param records As returned by the {@code poll()} of a consumer with
+     * byte array deserializers
+     * @return The same records, with the deserialized CloudEvent as value
+     */
+    public ConsumerRecords<byte[], CloudEvent> deserialize(ConsumerRecords<byte[], byte[]> records) {
+        if(records.isEmpty()){
+            return ConsumerRecords.empty();
+        }
+
+        var partitions = new ArrayList<>(records.partitions());
+        var count = records.count();
+
+        var flat = new ArrayList<ConsumerRecord<byte[], byte[]>>(count);
+        var bounds = new int[partitions.size() + 1];
+
+        for(int p = 0; p < partitions.size(); p++){
+            bounds[p] = flat.size();
+            flat.addAll(records.records(partitions.get(p)));
+        }
+        bounds[partitions.size()] = flat.size();
+
+        // duplicates are nulled out, those seen before and those repeated in
+        // this batch, in the order they were consumed
+        var filter = deserializer.getDuplicateFilter();
+        if(filter != null){
+            var batch = new DuplicateFilter.LongSet(count);
+            var duplicates = 0;
+            for(int r = 0; r < count; r++){
+                var fingerprint = DuplicateFilter.fingerprintOf(flat.get(r).headers());
+                if(fingerprint == 0){
+                    continue;
+                }
+
+                if(batch.contains(fingerprint) || filter.contains(flat.get(r).headers())){
+                    flat.set(r, null);
+                    duplicates++;
+                } else {
+                    batch.add(fingerprint);
+                }
+            }
+            if(duplicates > 0){
+                log.debug("{} duplicated records skipped", duplicates);
+            }
+        }
+
+        var events = new CloudEvent[count];
+        if(count < threshold || parallelism <= 1){
+            decode(flat, events, 0, count);
+        } else {
+            decodeInParallel(flat, events);
+        }
+
+        Map<TopicPartition, List<ConsumerRecord<byte[], CloudEvent>>> result =
+            new LinkedHashMap<>(partitions.size() * 2);
+
+        for(int p = 0; p < partitions.size(); p++){
+            var decoded = new ArrayList<ConsumerRecord<byte[], CloudEvent>>(bounds[p + 1] - bounds[p]);
+            for(int r = bounds[p]; r < bounds[p + 1]; r++){
+                var record = flat.get(r);
+                if(record == null){
+                    continue;
+                }
+
+                decoded.add(new ConsumerRecord<>(record.topic(), record.partition(),
+                    record.offset(), record.timestamp(), record.timestampType(), null,
+                    record.serializedKeySize(), record.serializedValueSize(), record.key(),
+                    events[r], record.headers(), record.leaderEpoch()));
+            }
+            if(!decoded.isEmpty()){
+                result.put(partitions.get(p), decoded);
+            }
+        }
+
+        return new ConsumerRecords<>(result);
+    }
+
+    @Override
+    public void close() {
+        deserializer.close();
+
+        if(ownedExecutor){
+            executor.shutdown();
+        }
+    }
+}
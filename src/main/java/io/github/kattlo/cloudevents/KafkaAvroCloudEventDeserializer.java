@@ -1,16 +1,37 @@
 package io.github.kattlo.cloudevents;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.header.Headers;
 
 import io.cloudevents.CloudEvent;
 import io.cloudevents.core.builder.CloudEventBuilder;
 import io.cloudevents.core.message.Encoding;
 import io.cloudevents.kafka.CloudEventDeserializer;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
 import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
 import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import io.confluent.kafka.serializers.subject.strategy.SubjectNameStrategy;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -21,8 +42,73 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class KafkaAvroCloudEventDeserializer extends KafkaAvroDeserializer {
 
+    /**
+     * How to decode string fields, one of {@link StringDecoding}. Default is
+     * {@link StringDecoding#UTF8}
+     */
+    public static final String STRING_DECODING_CONFIG = "cloudevents.avro.string.decoding";
+
+    /**
+     * Comma separated names of low-cardinality string fields whose values
+     * are shared through a bounded dictionary, per field name.
+     */
+    public static final String INTERNED_FIELDS_CONFIG = "cloudevents.avro.string.interned.fields";
+
+    /**
+     * Max distinct values kept per interned field. Default is 1024
+     */
+    public static final String INTERNED_MAX_ENTRIES_CONFIG = "cloudevents.avro.string.interned.max.entries";
+
+    /**
+     * Comma separated {@code alias=registry url} used to expand the compact
+     * {@code ce_dataschema}. Unknown aliases are this registry
+     */
+    public static final String DATASCHEMA_ALIASES_CONFIG = "cloudevents.avro.dataschema.aliases";
+
+    /**
+     * When {@code true} the compact {@code ce_dataschema} is expanded to the
+     * full registry URL while deserializing, otherwise it is kept as is and
+     * may be expanded with {@link #expand(String, URI)}. Default is {@code true}
+     */
+    public static final String DATASCHEMA_EXPAND_CONFIG = "cloudevents.avro.dataschema.expand";
+
+    /**
+     * When {@code true} the data is an {@link EncodedCloudEventData}, decoded
+     * on demand and written back as received by the serializer while not
+     * decoded. Default is {@code false}
+     */
+    public static final String KEEP_ENCODED_CONFIG = "cloudevents.avro.keep.encoded";
+
+    private static final int DEFAULT_INTERNED_MAX_ENTRIES = 1024;
+
+    private static final byte MAGIC = 0x0;
+    private static final int HEADER_SIZE = 1 + 4;
+    private static final String SPECVERSION_HEADER = "ce_specversion";
+
     private CloudEventDeserializer ce = new CloudEventDeserializer();
 
+    private DatumDecoder datum =
+        new DatumDecoder(StringDecoding.UTF8, List.of(), DEFAULT_INTERNED_MAX_ENTRIES);
+
+    private final Map<Integer, Schema> writerSchemas = new ConcurrentHashMap<>();
+    private final Map<Schema, Schema> specificSchemas = new ConcurrentHashMap<>();
+    private WireRegistry wireRegistry;
+    private boolean customCoders;
+
+    private String schemaRegistryUrl;
+    private Map<String, String> dataschemaAliases = Map.of();
+    private boolean dataschemaExpand = true;
+    private boolean keepEncoded;
+    private final Map<String, URI> expandedDataschemas = new ConcurrentHashMap<>();
+
+    private BlobStore claimCheckStore;
+    private ZstdDictionaries dictionaries;
+    private DuplicateFilter duplicates;
+    private PoisonPills poisonPills;
+    private FreshnessMetrics freshness;
+    private SpanSink spanSink;
+    private CloudEventDispatcher<?> dispatcher;
+
     public KafkaAvroCloudEventDeserializer() {
     }
 
@@ -30,26 +116,510 @@ public class KafkaAvroCloudEventDeserializer extends KafkaAvroDeserializer {
         super(registry);
     }
 
+    private static StringDecoding stringDecodingOf(Map<String, ?> configs) {
+        var config = configs.get(STRING_DECODING_CONFIG);
+
+        if(config == null){
+            return StringDecoding.UTF8;
+        } else if(config instanceof StringDecoding){
+            return (StringDecoding)config;
+        } else if(config instanceof String){
+            return StringDecoding.valueOf(((String)config).trim().toUpperCase());
+        } else {
+            throw new IllegalArgumentException(STRING_DECODING_CONFIG + " can be of type String or " + StringDecoding.class.getName());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<String> internedFieldsOf(Map<String, ?> configs) {
+        var config = configs.get(INTERNED_FIELDS_CONFIG);
+
+        if(config == null){
+            return List.of();
+        } else if(config instanceof Collection){
+            return (Collection<String>)config;
+        } else if(config instanceof String){
+            return Arrays.stream(((String)config).split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toList());
+        } else {
+            throw new IllegalArgumentException(INTERNED_FIELDS_CONFIG + " can be of type String or " + Collection.class.getName());
+        }
+    }
+
+    private static int internedMaxEntriesOf(Map<String, ?> configs) {
+        var config = configs.get(INTERNED_MAX_ENTRIES_CONFIG);
+
+        if(config == null){
+            return DEFAULT_INTERNED_MAX_ENTRIES;
+        } else if(config instanceof Number){
+            return ((Number)config).intValue();
+        } else {
+            return Integer.parseInt(config.toString().trim());
+        }
+    }
+
+    private static String schemaRegistryUrlOf(Map<String, ?> configs) {
+        var config = configs.get(KafkaAvroDeserializerConfig.SCHEMA_REGISTRY_URL_CONFIG);
+
+        if(config instanceof List){
+            var urls = (List<?>)config;
+            return (urls.isEmpty() ? null : urls.get(0).toString());
+        } else if(config != null){
+            return config.toString().split(",")[0].trim();
+        }
+        return null;
+    }
+
+    private static Map<String, String> dataschemaAliasesOf(Map<String, ?> configs) {
+        var config = configs.get(DATASCHEMA_ALIASES_CONFIG);
+        if(config == null){
+            return Map.of();
+        }
+
+        var result = new HashMap<String, String>();
+        for(var alias : config.toString().split(",")){
+            if(alias.isBlank()){
+                continue;
+            }
+
+            var separator = alias.indexOf('=');
+            if(separator <= 0){
+                throw new IllegalArgumentException(DATASCHEMA_ALIASES_CONFIG + " must be alias=url pairs: " + alias);
+            }
+            result.put(alias.substring(0, separator).trim(), alias.substring(separator + 1).trim());
+        }
+        return result;
+    }
+
+    private static boolean dataschemaExpandOf(Map<String, ?> configs) {
+        var config = configs.get(DATASCHEMA_EXPAND_CONFIG);
+
+        if(config == null){
+            return true;
+        } else if(config instanceof Boolean){
+            return (Boolean)config;
+        } else {
+            return Boolean.parseBoolean(config.toString().trim());
+        }
+    }
+
+    private static boolean keepEncodedOf(Map<String, ?> configs) {
+        var config = configs.get(KEEP_ENCODED_CONFIG);
+
+        if(config == null){
+            return false;
+        } else if(config instanceof Boolean){
+            return (Boolean)config;
+        } else {
+            return Boolean.parseBoolean(config.toString().trim());
+        }
+    }
+
     @Override
     public void configure(Map<String, ?> configs, boolean isKey) {
         log.debug("deserializer configurations {}", configs);
 
         super.configure(configs, isKey);
         ce.configure(configs, isKey);
+
+        customCoders = CustomCoders.enabledOf(configs);
+        datum = new DatumDecoder(stringDecodingOf(configs), internedFieldsOf(configs),
+            internedMaxEntriesOf(configs), customCoders);
+
+        schemaRegistryUrl = schemaRegistryUrlOf(configs);
+        dataschemaAliases = dataschemaAliasesOf(configs);
+        dataschemaExpand = dataschemaExpandOf(configs);
+        expandedDataschemas.clear();
+        keepEncoded = keepEncodedOf(configs);
+
+        writerSchemas.clear();
+        wireRegistry = (WireFormat.engineOf(configs) == WireFormat.Engine.LEAN
+            ? WireFormat.registryOf(configs, super.schemaRegistry)
+            : null);
+
+        claimCheckStore = ClaimCheck.storeOf(configs);
+        if(dictionaries != null){
+            dictionaries.close();
+        }
+        dictionaries = ZstdDictionaries.of(configs);
+        duplicates = DuplicateFilter.of(configs);
+
+        if(poisonPills != null){
+            poisonPills.close();
+        }
+        poisonPills = PoisonPills.of(configs);
+
+        if(freshness != null){
+            freshness.close();
+        }
+        freshness = FreshnessMetrics.of(configs);
+
+        closeSpanSink();
+        spanSink = (Tracing.enabledOf(configs) ? Tracing.sinkOf(configs) : null);
+
+        dispatcher = CloudEventDispatcher.of(configs);
+    }
+
+    /**
+     * @return Where the spans of sampled events are recorded, or {@code null}
+     * when {@link Tracing#ENABLED_CONFIG} is not set
+     */
+    public SpanSink getSpanSink() {
+        return spanSink;
+    }
+
+    private void closeSpanSink() {
+        if(spanSink != null){
+            try {
+                spanSink.close();
+            }catch(IOException e){
+                log.warn("Error closing the span sink", e);
+            }
+        }
+    }
+
+    /**
+     * @return The freshness histograms, or {@code null} when
+     * {@link FreshnessMetrics#ENABLED_CONFIG} is not set
+     */
+    public FreshnessMetrics getFreshnessMetrics() {
+        return freshness;
+    }
+
+    /**
+     * @return The filter of duplicated events, with its hit rate, or
+     * {@code null} when {@link DuplicateFilter#ENABLED_CONFIG} is not set
+     */
+    public DuplicateFilter getDuplicateFilter() {
+        return duplicates;
+    }
+
+    /**
+     * @return The counters of failed records, by cause, or {@code null} when
+     * {@link PoisonPills#ENABLED_CONFIG} is not set
+     */
+    public PoisonPills getPoisonPills() {
+        return poisonPills;
+    }
+
+    /**
+     * Checks the raw headers, without decoding anything nor remembering them
+     */
+    boolean isSeen(Headers headers) {
+        return duplicates != null && duplicates.contains(headers);
+    }
+
+    /**
+     * Expands the compact {@code sr:<alias>:<schema id>} to the full
+     * {@code <registry>/subjects/<subject>/versions/<version>/schema}, or to
+     * {@code <registry>/schemas/ids/<schema id>} when the subject can not be
+     * resolved, like for aliases of other registries. Results are cached.
+     *
+     * @param topic Where the event was consumed from
+     * @param dataschema Any {@code ce_dataschema}
+     * @return The full URL, or the argument itself when it is not compact
+     */
+    public URI expand(String topic, URI dataschema) {
+        if(!CompactDataSchema.isCompact(dataschema)){
+            return dataschema;
+        }
+
+        var key = topic + ' ' + dataschema;
+        var expanded = expandedDataschemas.get(key);
+        if(expanded == null){
+            expanded = resolve(topic, dataschema);
+
+            var cached = expandedDataschemas.putIfAbsent(key, expanded);
+            if(cached != null){
+                expanded = cached;
+            }
+        }
+        return expanded;
+    }
+
+    private URI resolve(String topic, URI compact) {
+        var alias = CompactDataSchema.aliasOf(compact);
+        var id = CompactDataSchema.idOf(compact);
+
+        var registry = dataschemaAliases.get(alias);
+        if(registry == null || registry.equals(schemaRegistryUrl)){
+            try {
+                var schema = new AvroSchema(writerSchemaOf(id));
+                var subjectName = ((SubjectNameStrategy)super.valueSubjectNameStrategy)
+                    .subjectName(topic, Boolean.FALSE, schema);
+                var version = super.schemaRegistry.getVersion(subjectName, schema);
+
+                return URI.create(schemaRegistryUrl + "/subjects/" + subjectName
+                    + "/versions/" + version + "/schema");
+
+            }catch(IOException | RestClientException | RuntimeException e){
+                log.debug("subject of {} not resolved, expanding by id", compact, e);
+                registry = schemaRegistryUrl;
+            }
+        }
+
+        return URI.create(registry + "/schemas/ids/" + id);
+    }
+
+    /**
+     * Lock-free in front of the registry client, that synchronizes every lookup.
+     */
+    private Schema writerSchemaOf(int id) throws IOException, RestClientException {
+        var schema = writerSchemas.get(id);
+        if(schema == null){
+            schema = (wireRegistry == null
+                ? (Schema)super.schemaRegistry.getSchemaById(id).rawSchema()
+                : wireRegistry.schemaOf(id));
+
+            var cached = writerSchemas.putIfAbsent(id, schema);
+            if(cached != null){
+                schema = cached;
+            }
+        }
+        return schema;
+    }
+
+    private Schema specificSchemaOf(Schema writer) {
+        return specificSchemas.computeIfAbsent(writer, w -> {
+            var type = SpecificData.get().getClass(w);
+            if(type == null){
+                throw new SerializationException("Could not find class "
+                    + w.getFullName() + " specified in writer's schema");
+            }
+            return SpecificData.get().getSchema(type);
+        });
+    }
+
+    /**
+     * Decodes the Confluent wire format with the configured
+     * {@link StringDecoding} and interned fields.
+     *
+     * @param reader Schema of the specific record to decode into, or
+     * {@code null} for the one of {@code specific.avro.reader}
+     */
+    private Object decode(byte[] bytes, Schema reader) {
+        var buffer = ByteBuffer.wrap(bytes);
+        if(bytes.length < HEADER_SIZE || buffer.get() != MAGIC){
+            throw new SerializationException("Unknown magic byte!");
+        }
+        var id = buffer.getInt();
+
+        try {
+            var writer = writerSchemaOf(id);
+            if(reader != null){
+                return datum.decode(writer, reader, true, bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+            }
+
+            return datum.decode(writer, (useSpecificAvroReader ? specificSchemaOf(writer) : writer),
+                useSpecificAvroReader, bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+
+        }catch(IOException | RestClientException | RuntimeException e){
+            throw new SerializationException("Error deserializing Avro message for id " + id, e);
+        }
+    }
+
+    /**
+     * Streams the claim-checked payload from the store, on demand.
+     */
+    private GenericRecord load(String reference, Schema specific) {
+        if(claimCheckStore == null){
+            throw new SerializationException("No " + ClaimCheck.STORE_CONFIG
+                + " configured to read " + reference);
+        }
+
+        try(var in = new DataInputStream(claimCheckStore.open(reference))){
+            if(in.readByte() != MAGIC){
+                throw new SerializationException("Unknown magic byte!");
+            }
+            var writer = writerSchemaOf(in.readInt());
+
+            DatumReader<Object> reader;
+            if(specific != null){
+                reader = CustomCoders.readerOf(writer, specific, customCoders);
+            } else {
+                reader = (useSpecificAvroReader
+                    ? CustomCoders.readerOf(writer, specificSchemaOf(writer), customCoders)
+                    : new GenericDatumReader<>(writer));
+            }
+
+            return (GenericRecord)reader.read(null, DecoderFactory.get().directBinaryDecoder(in, null));
+
+        }catch(IOException | RestClientException | RuntimeException e){
+            throw new SerializationException("Error reading claim-checked payload " + reference, e);
+        }
+    }
+
+    /**
+     * @return The bytes uncompressed, when there is the {@code avrocodec}
+     * extension, or as they are
+     */
+    private byte[] uncompressed(Headers headers, byte[] bytes) {
+        var codec = (headers == null ? null : headers.lastHeader(ZstdDictionaries.HEADER));
+        if(codec == null || bytes == null){
+            return bytes;
+        }
+
+        if(dictionaries == null){
+            throw new SerializationException("No " + ZstdDictionaries.DIRECTORY_CONFIG
+                + " configured to read " + ZstdDictionaries.EXTENSION + "="
+                + new String(codec.value(), StandardCharsets.UTF_8));
+        }
+
+        return dictionaries.decompress(new String(codec.value(), StandardCharsets.UTF_8), bytes);
     }
 
+    @Override
+    public void close() {
+        if(freshness != null){
+            freshness.close();
+        }
+        if(poisonPills != null){
+            poisonPills.close();
+        }
+        closeSpanSink();
+        if(dictionaries != null){
+            dictionaries.close();
+        }
+        if(claimCheckStore != null){
+            try {
+                claimCheckStore.close();
+            }catch(IOException e){
+                log.warn("Error closing the claim-check store", e);
+            }
+        }
+        super.close();
+    }
+
+    /**
+     * @return {@code null} for events already seen, when
+     * {@link DuplicateFilter#ENABLED_CONFIG} is {@code true}, without decoding them,
+     * and for tombstones without {@code ce_*} headers. Events with headers and
+     * a {@code null} or empty value are built without data. Events are seen
+     * once {@link DuplicateFilter#markSeen(Headers)} after they were handled,
+     * not here, so one polled and never handled is delivered again
+     */
     @Override
     public CloudEvent deserialize(String topic, Headers headers, byte[] bytes) {
+        if(isSeen(headers)){
+            log.debug("skipping duplicated event of {}", topic);
+            return null;
+        }
+
+        return decodeEvent(topic, headers, bytes);
+    }
+
+    /**
+     * Deserializes without checking for duplicates
+     *
+     * @return A {@link FailedCloudEvent} when it could not be deserialized and
+     * {@link PoisonPills#ENABLED_CONFIG} is {@code true}
+     */
+    CloudEvent decodeEvent(String topic, Headers headers, byte[] bytes) {
+        if(poisonPills == null){
+            return traced(topic, headers, bytes);
+        }
+
+        try {
+            return traced(topic, headers, bytes);
+        }catch(RuntimeException e){
+            return poisonPills.failed(topic, headers, bytes, e);
+        }
+    }
+
+    private CloudEvent traced(String topic, Headers headers, byte[] bytes) {
+        if(freshness != null){
+            freshness.record(topic, headers);
+        }
+
+        var traceparent = (spanSink == null || headers == null
+            ? null
+            : headers.lastHeader(Tracing.TRACEPARENT_HEADER));
+
+        if(traceparent != null && Tracing.isSampled(traceparent.value())){
+            var start = System.currentTimeMillis() * 1000;
+            var begin = System.nanoTime();
+
+            var result = build(topic, headers, bytes);
+            Tracing.record(spanSink, topic, headers, traceparent.value(), start, System.nanoTime() - begin);
+
+            return result;
+        }
+
+        return build(topic, headers, bytes);
+    }
+
+    /**
+     * @param reader Schema of the specific record to decode into, or {@code null}
+     */
+    private GenericRecord valueOf(String topic, Headers headers, byte[] bytes, Schema reader) {
+        var uncompressed = uncompressed(headers, bytes);
 
-        var value = super.deserialize(topic, headers, bytes);
-        var data = new AvroCloudEventData<GenericRecord>((GenericRecord)value);
+        // the KafkaAvroDeserializer reads specific records by reflection
+        var custom = reader != null || datum.isCustom() || wireRegistry != null
+            || (customCoders && useSpecificAvroReader);
+
+        return (GenericRecord)(custom && uncompressed != null
+            ? decode(uncompressed, reader)
+            : super.deserialize(topic, headers, uncompressed));
+    }
+
+    /**
+     * @return The event of the headers alone, or {@code null} for tombstones
+     * without them
+     */
+    private CloudEvent dataless(String topic, Headers headers) {
+        if(headers == null || headers.lastHeader(SPECVERSION_HEADER) == null){
+            return null;
+        }
+
+        var event = ce.deserialize(topic, headers, null);
+        if(dataschemaExpand && CompactDataSchema.isCompact(event.getDataSchema())){
+            return CloudEventBuilder.from(event)
+                .withDataSchema(expand(topic, event.getDataSchema()))
+                .build();
+        }
+        return event;
+    }
+
+    private CloudEvent build(String topic, Headers headers, byte[] bytes) {
+        if(bytes == null || bytes.length == 0){
+            return dataless(topic, headers);
+        }
+
+        var claimCheck = (headers == null ? null : headers.lastHeader(ClaimCheck.HEADER));
+
+        // the class of the ce_type, when dispatched
+        var route = (dispatcher == null ? null : dispatcher.routeOf(headers));
+        var reader = (route == null ? null : route.reader);
+
+        AvroCloudEventData<GenericRecord> data;
+        if(claimCheck != null){
+            var reference = new String(claimCheck.value(), StandardCharsets.UTF_8);
+            data = new ClaimCheckCloudEventData<>(reference, () -> load(reference, reader));
+
+        } else if(keepEncoded){
+            data = new EncodedCloudEventData<>(bytes, () -> valueOf(topic, headers, bytes, reader));
+
+        } else if(route != null){
+            data = new CloudEventDispatcher.RoutedCloudEventData<>(valueOf(topic, headers, bytes, reader), route);
+
+        } else {
+            data = new AvroCloudEventData<GenericRecord>(valueOf(topic, headers, bytes, null));
+        }
 
         var event = ce.deserialize(topic, headers, bytes);
 
-        var result = CloudEventBuilder
+        var builder = CloudEventBuilder
             .from(event)
-            .withData(AvroCloudEventData.MIME_TYPE, data)
-            .build();
+            .withData(AvroCloudEventData.MIME_TYPE, data);
+
+        if(dataschemaExpand && CompactDataSchema.isCompact(event.getDataSchema())){
+            builder.withDataSchema(expand(topic, event.getDataSchema()));
+        }
+
+        var result = builder.build();
 
         return result;
     }
@@ -1,17 +1,31 @@
 package io.github.kattlo.cloudevents;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificRecord;
 import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 
 import io.cloudevents.CloudEvent;
 import io.cloudevents.core.message.Encoding;
 import io.cloudevents.kafka.CloudEventSerializer;
 import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
 import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
 import io.confluent.kafka.schemaregistry.client.rest.entities.SchemaReference;
 import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
@@ -30,9 +44,61 @@ public class KafkaAvroCloudEventSerializer extends KafkaAvroSerializer {
 
     public static final String DATASCHEMA_HEADER = "ce_dataschema";
 
+    /**
+     * When {@code true}, schemas are registered in background and
+     * {@link #serialize(String, Headers, Object)} waits at most
+     * {@link #REGISTRATION_MAX_WAIT_MS_CONFIG} for them. Default is {@code false}
+     */
+    public static final String ASYNC_REGISTRATION_CONFIG = "cloudevents.avro.registration.async";
+
+    /**
+     * Max milliseconds to wait for a schema registration in progress, then a
+     * retriable {@link org.apache.kafka.common.errors.TimeoutException} is
+     * thrown. Default is 5000
+     */
+    public static final String REGISTRATION_MAX_WAIT_MS_CONFIG = "cloudevents.avro.registration.max.wait.ms";
+
+    /**
+     * When set, {@code ce_dataschema} is the compact {@code sr:<alias>:<schema id>},
+     * instead of the full registry URL. The deserializer expands it back
+     */
+    public static final String DATASCHEMA_ALIAS_CONFIG = "cloudevents.avro.dataschema.alias";
+
+    private static final long DEFAULT_REGISTRATION_MAX_WAIT_MS = 5000;
+
+    /**
+     * Encoding buffer of one {@link #serialize(String, Headers, Object)}, or
+     * reused by the events of one {@link #serializeAll(String, List)}
+     */
+    private static final class Scratch {
+        final GrowableBuffer buffer = new GrowableBuffer(128);
+        BinaryEncoder encoder;
+    }
+
     private final CloudEventSerializer ce = new CloudEventSerializer();
+    private final Map<Schema, DatumWriter<Object>> writers = new ConcurrentHashMap<>();
+    private final Map<String, Map<Schema, SchemaRegistrar.Registration>> registrations =
+        new ConcurrentHashMap<>();
     private String schemaRegistryUrl;
 
+    private WireFormat wire;
+    private SchemaManifest.Registrations manifest;
+    private boolean customCoders = true;
+
+    private volatile SchemaRegistrar registrar;
+    private boolean configured;
+    private boolean asyncRegistration;
+    private long registrationMaxWaitMs = DEFAULT_REGISTRATION_MAX_WAIT_MS;
+    private String dataschemaAlias;
+
+    private BlobStore claimCheckStore;
+    private int claimCheckThreshold = ClaimCheck.DEFAULT_THRESHOLD;
+
+    private ZstdDictionaries dictionaries;
+
+    private boolean tracing;
+    private double sampleRate;
+
     public KafkaAvroCloudEventSerializer() {
     }
 
@@ -57,6 +123,43 @@ public class KafkaAvroCloudEventSerializer extends KafkaAvroSerializer {
         return encoding;
     }
 
+    private static boolean asyncRegistrationOf(Map<String, ?> configs) {
+        var config = configs.get(ASYNC_REGISTRATION_CONFIG);
+
+        if(config == null){
+            return false;
+        } else if(config instanceof Boolean){
+            return (Boolean)config;
+        } else {
+            return Boolean.parseBoolean(config.toString().trim());
+        }
+    }
+
+    private static String dataschemaAliasOf(Map<String, ?> configs) {
+        var config = configs.get(DATASCHEMA_ALIAS_CONFIG);
+        if(config == null){
+            return null;
+        }
+
+        var alias = config.toString().trim();
+        if(alias.isEmpty() || alias.contains(":") || alias.contains("/")){
+            throw new IllegalArgumentException(DATASCHEMA_ALIAS_CONFIG + "=" + alias + " not supported");
+        }
+        return alias;
+    }
+
+    private static long registrationMaxWaitMsOf(Map<String, ?> configs) {
+        var config = configs.get(REGISTRATION_MAX_WAIT_MS_CONFIG);
+
+        if(config == null){
+            return DEFAULT_REGISTRATION_MAX_WAIT_MS;
+        } else if(config instanceof Number){
+            return ((Number)config).longValue();
+        } else {
+            return Long.parseLong(config.toString().trim());
+        }
+    }
+
     @Override
     public void configure(Map<String, ?> configs, boolean isKey) {
         var encoding = encodingOf(configs);
@@ -72,72 +175,383 @@ public class KafkaAvroCloudEventSerializer extends KafkaAvroSerializer {
             log.debug("{}={}", KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
                 schemaRegistryUrl);;
 
+            dataschemaAlias = dataschemaAliasOf(configs);
+            asyncRegistration = asyncRegistrationOf(configs);
+            registrationMaxWaitMs = registrationMaxWaitMsOf(configs);
+
+            registrations.clear();
+            writers.clear();
+            customCoders = CustomCoders.enabledOf(configs);
+            manifest = SchemaManifest.registrationsOf(configs, schemaRegistryUrl, dataschemaAlias);
+            wire = WireFormat.of(configs, super.schemaRegistry, schemaRegistryUrl, dataschemaAlias,
+                manifest);
+
+            synchronized(this){
+                if(registrar != null){
+                    registrar.close();
+                }
+                // without async registration, just schemaReady() creates it
+                registrar = (asyncRegistration ? new SchemaRegistrar(this::registrationOf) : null);
+                configured = true;
+            }
+
+            claimCheckStore = ClaimCheck.storeOf(configs);
+            claimCheckThreshold = ClaimCheck.thresholdOf(configs);
+
+            if(dictionaries != null){
+                dictionaries.close();
+            }
+            dictionaries = ZstdDictionaries.of(configs);
+
+            tracing = Tracing.enabledOf(configs);
+            sampleRate = Tracing.sampleRateOf(configs);
+
         } else {
             throw new IllegalArgumentException(CloudEventSerializer.ENCODING_CONFIG + "=" + encoding + " not supported");
         }
     }
 
-    @Override
-    public byte[] serialize(String topic, Headers headers, Object event) {
+    /**
+     * @return {@code null} for events without data
+     */
+    private static AvroCloudEventData<?> dataOf(Object event) {
         if( !(event instanceof CloudEvent)){
             throw new IllegalArgumentException("event argument must be an instance of " + CloudEvent.class);
         }
 
-        final var ceEvent = (CloudEvent)event;
+        var data = ((CloudEvent)event).getData();
+        if(data == null){
+            return null;
 
-        ce.serialize(topic, headers, ceEvent);
-        log.debug("CloudEvent headers {}", headers);
+        } else if(data instanceof AvroCloudEventData){
+            return (AvroCloudEventData<?>)data;
+
+        } else {
+            throw new IllegalArgumentException("CloudEvent data attribute must be an instance of "
+                + AvroCloudEventData.class.getName());
+        }
+    }
 
+    private String subjectOf(String topic, Schema schema) {
+        // use the strategy to create the subject name
+        var strategy = (SubjectNameStrategy)super.valueSubjectNameStrategy;
+        log.debug("SubjectNameStrategy {}", strategy);
 
-        if(ceEvent.getData() instanceof AvroCloudEventData) {
-            var data = (AvroCloudEventData<?>)ceEvent.getData();
-            var value = data.getValue();
-            var valueType = value.getClass();
-            log.debug("value to serialize as avro {}", value);
+        var subjectName = strategy.subjectName(topic, Boolean.FALSE,
+            new NoSchema(schema.getFullName()));
 
-            // serialize CloudEvent data and register the schema
-            var bytes = super.serialize(topic, headers, data.getValue());
+        log.debug("SubjectName {}", subjectName);
+        return subjectName;
+    }
 
-            // use the strategy to create the subject name
-            var strategy = (SubjectNameStrategy)super.valueSubjectNameStrategy;
-            log.debug("SubjectNameStrategy {}", strategy);
+    private byte[] dataschemaOf(String subjectName, Schema schema) {
 
-            var subjectName = strategy.subjectName(topic, Boolean.FALSE,
-                new NoSchema(valueType.getPackageName(), valueType.getSimpleName()));
+        // get the versionId of the schema, not the latest of the subject
+        try {
+            var version = super.schemaRegistry.getVersion(subjectName, new AvroSchema(schema));
+            log.debug("Schema versionId {}", version);
 
-            log.info("SubjectName {}", subjectName);
+            return WireFormat.dataschemaOf(schemaRegistryUrl, subjectName, version);
 
-            // get the versionId of registered schema
-            try {
-                var versions = super.schemaRegistry.getAllVersions(subjectName);
-                var version = versions.get(versions.size() -1);
-                log.debug("Schema versionId {}", version);
+        }catch(IOException | RestClientException e){
+            throw new SerializationException(e.getMessage(), e);
+        }
+    }
 
-                var dataschema = schemaRegistryUrl + "/subjects/" + subjectName + "/versions/" + version + "/schema";
-                log.debug("{}={}", DATASCHEMA_HEADER, dataschema);
+    /**
+     * @return The compact form, when there is an alias, or the full URL
+     */
+    private byte[] dataschemaOf(String subjectName, Schema schema, int id) {
+        return (dataschemaAlias == null
+            ? dataschemaOf(subjectName, schema)
+            : CompactDataSchema.format(dataschemaAlias, id));
+    }
 
-                headers.remove(DATASCHEMA_HEADER);
-                headers.add(DATASCHEMA_HEADER, dataschema.getBytes());
+    /**
+     * @return The registration of the topic and schema, resolved again just
+     * when the schema id changes
+     */
+    private SchemaRegistrar.Registration registrationOf(String topic, Schema schema, int id) {
+        var schemas = registrations.get(topic);
+        if(schemas == null){
+            schemas = registrations.computeIfAbsent(topic, t -> new ConcurrentHashMap<>());
+        }
 
-            }catch(IOException | RestClientException e){
-                throw new SerializationException(e.getMessage(), e);
-            }
+        var registration = schemas.get(schema);
+        if(registration == null || registration.id != id){
+            registration = new SchemaRegistrar.Registration(id,
+                dataschemaOf(subjectOf(topic, schema), schema, id));
+            schemas.put(schema, registration);
+        }
+        return registration;
+    }
+
+    private static void dataschema(Headers headers, byte[] dataschema) {
+        headers.remove(DATASCHEMA_HEADER);
+        headers.add(DATASCHEMA_HEADER, dataschema);
+    }
 
+    /**
+     * @return The bytes, or the stub when they went to the claim-check store
+     */
+    private byte[] claimCheck(String topic, Headers headers, byte[] bytes) {
+        if(claimCheckStore == null || bytes.length <= claimCheckThreshold){
             return bytes;
+        }
 
-        } else {
-            throw new IllegalArgumentException("CloudEvent data attribute must be an instance of "
-                + AvroCloudEventData.class.getName());
+        try {
+            var reference = claimCheckStore.put(topic, bytes);
+            log.debug("{} bytes claim-checked as {}", bytes.length, reference);
+
+            headers.remove(ClaimCheck.HEADER);
+            headers.add(ClaimCheck.HEADER, reference.getBytes(StandardCharsets.UTF_8));
+
+            return Arrays.copyOf(bytes, ClaimCheck.STUB_SIZE);
+
+        }catch(IOException e){
+            throw new SerializationException("Error storing claim-checked payload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return The bytes compressed with the dictionary of the schema, when
+     * configured, or claim-checked
+     */
+    private byte[] encoded(String topic, Headers headers, Schema schema, byte[] bytes) {
+        // of the event deserialized from, written by ce.serialize() as extensions
+        headers.remove(ZstdDictionaries.HEADER);
+        headers.remove(ClaimCheck.HEADER);
+
+        if(dictionaries != null && (claimCheckStore == null || bytes.length <= claimCheckThreshold)){
+            return dictionaries.compress(schema.getFullName(), bytes, headers);
+        }
+
+        return claimCheck(topic, headers, bytes);
+    }
+
+    private SchemaRegistrar.Registration registrationOf(String topic, Schema schema) {
+        if(wire != null){
+            return wire.registrationOf(topic, schema);
+        }
+
+        var schemas = registrations.get(topic);
+        var registration = (schemas == null ? null : schemas.get(schema));
+        if(registration != null){
+            return registration;
+        }
+
+        var subjectName = subjectOf(topic, schema);
+        if(manifest != null){
+            registration = manifest.registrationOf(subjectName, schema);
+            if(registration != null){
+                registrations.computeIfAbsent(topic, t -> new ConcurrentHashMap<>())
+                    .put(schema, registration);
+                return registration;
+            }
+        }
+
+        return registrationOf(topic, schema, idOf(subjectName, schema));
+    }
+
+    private SchemaRegistrar registrar() {
+        var result = registrar;
+        if(result == null){
+            synchronized(this){
+                if(!configured){
+                    throw new IllegalStateException("Serializer not configured");
+                }
+
+                result = registrar;
+                if(result == null){
+                    result = new SchemaRegistrar(this::registrationOf);
+                    registrar = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Readiness of a data schema: starts its registration in background, or
+     * its lookup when {@code auto.register.schemas=false}, if not started yet.
+     *
+     * @return Completed with the schema id when the events with this data
+     * schema can be serialized without waiting for the registry
+     */
+    public CompletableFuture<Integer> schemaReady(String topic, Schema schema) {
+        return registrar().registrationOf(topic, schema)
+            .thenApply(registration -> registration.id);
+    }
+
+    /**
+     * @return {@code true} when {@link #schemaReady(String, Schema)} completed
+     * successfully for this topic and data schema
+     */
+    public boolean isSchemaReady(String topic, Schema schema) {
+        return registrar().isReady(topic, schema);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object event) {
+        return serialize(topic, headers, event, new Scratch());
+    }
+
+    private byte[] serialize(String topic, Headers headers, Object event, Scratch scratch) {
+        if(!tracing){
+            return serializeEvent(topic, headers, event, scratch);
+        }
+
+        var start = System.currentTimeMillis();
+        var begin = System.nanoTime();
+
+        var result = serializeEvent(topic, headers, event, scratch);
+        Tracing.stamp(headers, sampleRate, start, System.nanoTime() - begin);
+
+        return result;
+    }
+
+    /**
+     * @return {@code null} for events without data, with just the headers
+     */
+    private byte[] serializeEvent(String topic, Headers headers, Object event, Scratch scratch) {
+        var data = dataOf(event);
+
+        ce.serialize(topic, headers, (CloudEvent)event);
+        log.debug("CloudEvent headers {}", headers);
+
+        if(data == null){
+            // no schema work, and no stale extensions of the event deserialized from
+            headers.remove(ZstdDictionaries.HEADER);
+            headers.remove(ClaimCheck.HEADER);
+            return null;
+        }
+
+        if(data instanceof EncodedCloudEventData && ((EncodedCloudEventData<?>)data).isUnchanged()){
+            // as deserialized, with its avrocodec and dataschema extensions
+            return ((EncodedCloudEventData<?>)data).getEncoded();
+        }
+
+        var value = data.getValue();
+        log.debug("value to serialize as avro {}", value);
+
+        var schema = value.getSchema();
+
+        // the KafkaAvroSerializer writes specific records by reflection, and
+        // looks the schema up in the registry
+        if(asyncRegistration || wire != null || manifest != null
+                || (customCoders && value instanceof SpecificRecord)){
+            var registration = (asyncRegistration
+                ? registrar().await(topic, schema, registrationMaxWaitMs)
+                : registrationOf(topic, schema));
+            dataschema(headers, registration.dataschema);
+
+            if(wire != null){
+                return encoded(topic, headers, schema, wire.encode(registration.id, value));
+            }
+
+            scratch.buffer.reset();
+            scratch.encoder = encode(scratch.buffer, registration.id, writerOf(schema, value), value,
+                scratch.encoder);
+
+            return encoded(topic, headers, schema, scratch.buffer.toByteArray());
+        }
+
+        // serialize CloudEvent data and register the schema
+        var bytes = super.serialize(topic, headers, value);
+
+        var id = ByteBuffer.wrap(bytes, 1, 4).getInt();
+        dataschema(headers, registrationOf(topic, schema, id).dataschema);
+
+        return encoded(topic, headers, schema, bytes);
+    }
+
+    private DatumWriter<Object> writerOf(Schema schema, IndexedRecord value) {
+        return writers.computeIfAbsent(schema, s -> CustomCoders.writerOf(s, value, customCoders));
+    }
+
+    private int idOf(String subjectName, Schema schema) {
+        try {
+            var parsed = new AvroSchema(schema);
+            return (super.autoRegisterSchema
+                ? super.schemaRegistry.register(subjectName, parsed)
+                : super.schemaRegistry.getId(subjectName, parsed));
+
+        }catch(IOException | RestClientException e){
+            throw new SerializationException("Error retrieving Avro schema for "
+                + subjectName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Appends the wire format: magic byte, schema id and the Avro binary.
+     */
+    private static BinaryEncoder encode(GrowableBuffer buffer, int id, DatumWriter<Object> writer,
+            Object value, BinaryEncoder reuse) {
+
+        buffer.write(MAGIC_BYTE);
+        buffer.writeInt(id);
+
+        var encoder = EncoderFactory.get().directBinaryEncoder(buffer, reuse);
+        try {
+            writer.write(value, encoder);
+        }catch(IOException | RuntimeException e){
+            throw new SerializationException("Error serializing Avro message", e);
+        }
+
+        return encoder;
+    }
+
+    /**
+     * Serializes many events at once, each one through the same path of
+     * {@link #serialize(String, Headers, Object)}, so byte compatible with
+     * it, reusing one encoding buffer for the whole batch. Subjects, schema
+     * ids and {@code ce_dataschema} are resolved once per data schema by
+     * the caches of that path.
+     *
+     * @param topic Where the events will be sent
+     * @param events To serialize
+     * @return The serialized events, in the same order
+     */
+    public List<SerializedCloudEvent> serializeAll(String topic, List<CloudEvent> events) {
+        var scratch = new Scratch();
+
+        var result = new ArrayList<SerializedCloudEvent>(events.size());
+        for(var event : events){
+            var headers = new RecordHeaders();
+            var value = serialize(topic, headers, event, scratch);
+
+            result.add(new SerializedCloudEvent((value == null ? null : ByteBuffer.wrap(value)), headers));
+        }
+
+        return result;
+    }
+
+    @Override
+    public void close() {
+        synchronized(this){
+            if(registrar != null){
+                registrar.close();
+                registrar = null;
+            }
+        }
+        if(dictionaries != null){
+            dictionaries.close();
+        }
+        if(claimCheckStore != null){
+            try {
+                claimCheckStore.close();
+            }catch(IOException e){
+                log.warn("Error closing the claim-check store", e);
+            }
         }
+        super.close();
     }
 
     private static final class NoSchema implements ParsedSchema {
 
-        private final String namespace;
         private final String name;
 
-        public NoSchema(String namespace, String name) {
-            this.namespace = Objects.requireNonNull(namespace);
+        public NoSchema(String name) {
             this.name = Objects.requireNonNull(name);
         }
 
@@ -153,7 +567,7 @@ public class KafkaAvroCloudEventSerializer extends KafkaAvroSerializer {
 
         @Override
         public String name() {
-            return namespace + "." + name;
+            return name;
         }
 
         @Override
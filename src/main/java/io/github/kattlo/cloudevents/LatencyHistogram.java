@@ -0,0 +1,131 @@
+package io.github.kattlo.cloudevents;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, fixed size, log-linear histogram of non-negative values, in the
+ * spirit of HdrHistogram: each power of two is split in 16 linear buckets,
+ * so any reported value is within ~6% of the recorded one.
+ *
+ * <p>Recording is allocation-free and safe from any thread.
+ *
+ * @author fabiojose
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int HALF = SUB >> 1;
+    private static final int SIZE = SUB + (Long.SIZE - SUB_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SIZE);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    static int indexOf(long value) {
+        if(value < SUB){
+            return (int)value;
+        }
+
+        var exponent = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BITS + 1;
+        var sub = (int)(value >>> exponent);
+
+        return SUB + (exponent - 1) * HALF + (sub - HALF);
+    }
+
+    static long highestValueOf(int index) {
+        if(index < SUB){
+            return index;
+        }
+
+        var exponent = (index - SUB) / HALF + 1;
+        long sub = (index - SUB) % HALF + HALF;
+
+        return ((sub + 1) << exponent) - 1;
+    }
+
+    /**
+     * @param value To record, negative values are recorded as zero
+     */
+    public void record(long value) {
+        var v = Math.max(0, value);
+
+        counts.incrementAndGet(indexOf(v));
+        count.incrementAndGet();
+
+        var current = max.get();
+        while(v > current && !max.compareAndSet(current, v)){
+            current = max.get();
+        }
+    }
+
+    /**
+     * Adds the values recorded by other histogram, e.g. one per thread,
+     * not atomically with concurrent recordings in it.
+     */
+    public void add(LatencyHistogram other) {
+        for(int i = 0; i < SIZE; i++){
+            var c = other.counts.get(i);
+            if(c > 0){
+                counts.addAndGet(i, c);
+            }
+        }
+        count.addAndGet(other.count.get());
+
+        var v = other.max.get();
+        var current = max.get();
+        while(v > current && !max.compareAndSet(current, v)){
+            current = max.get();
+        }
+    }
+
+    /**
+     * @return Number of recorded values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return The exact max recorded value
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile Between 0 and 100
+     * @return The highest value equivalent to the value at the percentile, or
+     * zero when nothing was recorded
+     */
+    public long valueAtPercentile(double percentile) {
+        var total = count.get();
+        if(total == 0){
+            return 0;
+        }
+
+        var rank = Math.max(1, (long)Math.ceil(Math.min(100, percentile) / 100 * total));
+
+        long cumulative = 0;
+        for(int i = 0; i < SIZE; i++){
+            cumulative += counts.get(i);
+            if(cumulative >= rank){
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    /**
+     * Clears all recorded values, not atomically with concurrent recordings.
+     */
+    public void reset() {
+        for(int i = 0; i < SIZE; i++){
+            counts.set(i, 0);
+        }
+        count.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.kattlo.cloudevents;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Avro string decoded lazily from the bytes of the record payload it was
+ * read from. Nothing is copied or decoded until the first call that needs
+ * characters, then the decoded {@link String} is kept.
+ *
+ * <p>Each instance references the whole payload array, do not mutate the
+ * array after deserialization.
+ *
+ * @author fabiojose
+ */
+public final class LazyUtf8 implements CharSequence, Comparable<LazyUtf8> {
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int byteLength;
+
+    private String string;
+    private int hash;
+
+    LazyUtf8(byte[] bytes, int offset, int byteLength) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.byteLength = byteLength;
+    }
+
+    /**
+     * @return The number of UTF-8 encoded bytes
+     */
+    public int getByteLength() {
+        return byteLength;
+    }
+
+    /**
+     * @return A copy of the UTF-8 encoded bytes
+     */
+    public byte[] getBytes() {
+        return Arrays.copyOfRange(bytes, offset, offset + byteLength);
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        var result = string;
+        if(result == null){
+            result = new String(bytes, offset, byteLength, StandardCharsets.UTF_8);
+            string = result;
+        }
+        return result;
+    }
+
+    @Override
+    public int compareTo(LazyUtf8 other) {
+        return Arrays.compareUnsigned(bytes, offset, offset + byteLength,
+            other.bytes, other.offset, other.offset + other.byteLength);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if(this == other){
+            return true;
+        }
+        if(!(other instanceof LazyUtf8)){
+            return false;
+        }
+
+        var that = (LazyUtf8)other;
+        return Arrays.equals(bytes, offset, offset + byteLength,
+            that.bytes, that.offset, that.offset + that.byteLength);
+    }
+
+    @Override
+    public int hashCode() {
+        var h = hash;
+        if(h == 0){
+            for(int i = offset; i < offset + byteLength; i++){
+                h = h * 31 + bytes[i];
+            }
+            hash = h;
+        }
+        return h;
+    }
+}
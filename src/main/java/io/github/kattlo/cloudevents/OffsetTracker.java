@@ -0,0 +1,140 @@
+package io.github.kattlo.cloudevents;
+
+/**
+ * Offsets of one partition dispatched in order and completed in any order.
+ * The committable offset is the lowest one not completed yet, so a commit
+ * never skips a record still being handled.
+ *
+ * @author fabiojose
+ */
+final class OffsetTracker {
+
+    private long[] offsets = new long[64];
+    private boolean[] done = new boolean[64];
+    private int head;
+    private int size;
+
+    private long next = -1;
+    private long committed = -1;
+    private boolean stopped;
+
+    /**
+     * @param offset Greater than any offset dispatched before
+     */
+    synchronized void dispatched(long offset) {
+        if(size == offsets.length){
+            grow();
+        }
+
+        var tail = (head + size) & (offsets.length - 1);
+        offsets[tail] = offset;
+        done[tail] = false;
+        size++;
+
+        next = offset + 1;
+    }
+
+    private void grow() {
+        var length = offsets.length;
+        var grown = new long[length << 1];
+        var flags = new boolean[length << 1];
+
+        for(int i = 0; i < size; i++){
+            grown[i] = offsets[(head + i) & (length - 1)];
+            flags[i] = done[(head + i) & (length - 1)];
+        }
+
+        offsets = grown;
+        done = flags;
+        head = 0;
+    }
+
+    synchronized void completed(long offset) {
+        var mask = offsets.length - 1;
+
+        int low = 0;
+        int high = size - 1;
+        while(low <= high){
+            var middle = (low + high) >>> 1;
+            var value = offsets[(head + middle) & mask];
+
+            if(value < offset){
+                low = middle + 1;
+            } else if(value > offset){
+                high = middle - 1;
+            } else {
+                done[(head + middle) & mask] = true;
+                break;
+            }
+        }
+
+        while(size > 0 && done[head]){
+            head = (head + 1) & mask;
+            size--;
+        }
+
+        if(size == 0){
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return Records dispatched and not completed yet, including the
+     * completed ones waiting for a lower offset
+     */
+    synchronized int pending() {
+        return size;
+    }
+
+    /**
+     * @return The offset to commit, or -1 when it is already committed
+     */
+    synchronized long committable() {
+        var offset = (size == 0 ? next : offsets[head]);
+        return (offset <= committed ? -1 : offset);
+    }
+
+    /**
+     * @param offset Committed with success, the failed ones are sent again
+     * by the next {@link #committable()}
+     */
+    synchronized void committed(long offset) {
+        committed = Math.max(committed, offset);
+    }
+
+    /**
+     * Stops at the lowest offset not completed: it is never committed, so
+     * the records from it are consumed again.
+     */
+    synchronized void stop() {
+        stopped = true;
+        notifyAll();
+    }
+
+    synchronized boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * @return {@code true} when every dispatched record completed in time,
+     * {@code false} when not or as soon as it is stopped
+     */
+    synchronized boolean awaitCompletion(long timeoutMs) throws InterruptedException {
+        var deadline = System.currentTimeMillis() + timeoutMs;
+
+        while(size > 0 && !stopped){
+            var remaining = deadline - System.currentTimeMillis();
+            if(remaining <= 0){
+                return false;
+            }
+            wait(remaining);
+        }
+        return (size == 0);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "OffsetTracker(pending=" + size + ", next=" + next + ", committed=" + committed
+            + ", lowest=" + (size == 0 ? -1 : offsets[head]) + ", stopped=" + stopped + ")";
+    }
+}
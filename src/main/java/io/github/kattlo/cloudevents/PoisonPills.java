@@ -0,0 +1,220 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.kafka.common.Configurable;
+import org.apache.kafka.common.header.Headers;
+
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tolerant deserialization: records that could not be deserialized become a
+ * {@link FailedCloudEvent}, instead of an exception thrown inside
+ * {@code poll()}, so the batch keeps flowing. Failures are counted by
+ * {@link Cause} and, when {@link #DEAD_LETTER_CONFIG} is set, forwarded to
+ * its {@link DeadLetterHandler}.
+ *
+ * <p>Lazy data, like claim-checked or kept encoded, fails when accessed,
+ * not while deserializing.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public final class PoisonPills {
+
+    /**
+     * When {@code true}, records that could not be deserialized become a
+     * {@link FailedCloudEvent}. Default is {@code false}
+     */
+    public static final String ENABLED_CONFIG = "cloudevents.avro.poison.tolerant";
+
+    /**
+     * {@link DeadLetterHandler} implementation to forward the failed records,
+     * like {@link DeadLetterProducer}. Default is none
+     */
+    public static final String DEAD_LETTER_CONFIG = "cloudevents.avro.poison.dead.letter.class";
+
+    private static final int NOT_FOUND = 404;
+
+    public enum Cause {
+        /**
+         * The schema id is not in the registry
+         */
+        UNKNOWN_SCHEMA,
+
+        /**
+         * The registry failed or could not be reached
+         */
+        REGISTRY_UNAVAILABLE,
+
+        /**
+         * Not the wire format, or truncated, or not of the writer schema
+         */
+        CORRUPT_PAYLOAD,
+
+        /**
+         * Missing or invalid {@code ce_*} headers
+         */
+        INVALID_ATTRIBUTES,
+
+        OTHER
+    }
+
+    private final Map<Cause, LongAdder> counters = new EnumMap<>(Cause.class);
+    private final DeadLetterHandler deadLetter;
+
+    public PoisonPills(DeadLetterHandler deadLetter) {
+        this.deadLetter = deadLetter;
+        for(var cause : Cause.values()){
+            counters.put(cause, new LongAdder());
+        }
+    }
+
+    static boolean enabledOf(Map<String, ?> configs) {
+        var config = configs.get(ENABLED_CONFIG);
+
+        if(config == null){
+            return false;
+        } else if(config instanceof Boolean){
+            return (Boolean)config;
+        } else {
+            return Boolean.parseBoolean(config.toString().trim());
+        }
+    }
+
+    static DeadLetterHandler deadLetterOf(Map<String, ?> configs) {
+        var config = configs.get(DEAD_LETTER_CONFIG);
+
+        Class<?> type;
+        if(config == null){
+            return null;
+        } else if(config instanceof Class){
+            type = (Class<?>)config;
+        } else if(config instanceof String){
+            try {
+                type = Class.forName(((String)config).trim());
+            }catch(ClassNotFoundException e){
+                throw new IllegalArgumentException(DEAD_LETTER_CONFIG + "=" + config + " not found", e);
+            }
+        } else {
+            throw new IllegalArgumentException(DEAD_LETTER_CONFIG + " can be of type String or " + Class.class.getName());
+        }
+
+        if(!DeadLetterHandler.class.isAssignableFrom(type)){
+            throw new IllegalArgumentException(DEAD_LETTER_CONFIG + "=" + type.getName()
+                + " must implement " + DeadLetterHandler.class.getName());
+        }
+
+        try {
+            var handler = (DeadLetterHandler)type.getDeclaredConstructor().newInstance();
+            if(handler instanceof Configurable){
+                ((Configurable)handler).configure(configs);
+            }
+
+            return handler;
+        }catch(ReflectiveOperationException e){
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return {@code null} when {@link #ENABLED_CONFIG} is not {@code true}
+     */
+    static PoisonPills of(Map<String, ?> configs) {
+        return (enabledOf(configs) ? new PoisonPills(deadLetterOf(configs)) : null);
+    }
+
+    /**
+     * @return The cause, by the first known exception of the chain
+     */
+    static Cause causeOf(Throwable exception) {
+        for(var e = exception; e != null; e = (e.getCause() == e ? null : e.getCause())){
+            if(e instanceof RestClientException){
+                return (((RestClientException)e).getStatus() == NOT_FOUND
+                    ? Cause.UNKNOWN_SCHEMA
+                    : Cause.REGISTRY_UNAVAILABLE);
+
+            } else if(e instanceof IOException
+                    && e.getClass().getPackageName().startsWith("java.net")){
+                return Cause.REGISTRY_UNAVAILABLE;
+
+            } else if(e instanceof AvroRuntimeException
+                    || e instanceof EOFException
+                    || e instanceof IndexOutOfBoundsException
+                    || e instanceof NegativeArraySizeException
+                    || e instanceof BufferUnderflowException
+                    || "Unknown magic byte!".equals(e.getMessage())){
+                return Cause.CORRUPT_PAYLOAD;
+
+            } else if(e.getClass().getName().startsWith("io.cloudevents.")){
+                return Cause.INVALID_ATTRIBUTES;
+            }
+        }
+        return Cause.OTHER;
+    }
+
+    /**
+     * Counts and forwards the failure to the dead-letter handler, if any.
+     *
+     * @return The marker to return in place of the event
+     */
+    FailedCloudEvent failed(String topic, Headers headers, byte[] bytes, RuntimeException exception) {
+        var cause = causeOf(exception);
+        counters.get(cause).increment();
+
+        var failed = new FailedCloudEvent(topic, headers, bytes, cause, exception);
+        log.warn("Tolerating {}", failed, exception);
+
+        if(deadLetter != null){
+            try {
+                deadLetter.forward(failed);
+            }catch(Exception e){
+                log.error("Error forwarding {} to the dead-letter", failed, e);
+            }
+        }
+
+        return failed;
+    }
+
+    /**
+     * @return Records that failed by the cause
+     */
+    public long count(Cause cause) {
+        return counters.get(cause).sum();
+    }
+
+    /**
+     * @return Records that failed by any cause
+     */
+    public long total() {
+        long total = 0;
+        for(var counter : counters.values()){
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return The configured handler, or {@code null}
+     */
+    public DeadLetterHandler getDeadLetter() {
+        return deadLetter;
+    }
+
+    void close() {
+        if(deadLetter != null){
+            try {
+                deadLetter.close();
+            }catch(IOException e){
+                log.warn("Error closing the dead-letter handler", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.kattlo.cloudevents;
+
+/**
+ * Allocation-free parser of RFC 3339 timestamps, as written in the
+ * {@code ce_time} header: {@code 2021-03-10T14:05:07.123456Z} or with a
+ * {@code ±hh:mm} offset. The fraction is truncated to milliseconds.
+ *
+ * @author fabiojose
+ */
+final class Rfc3339 {
+
+    /**
+     * Returned for text that is not a valid timestamp
+     */
+    static final long INVALID = Long.MIN_VALUE;
+
+    private Rfc3339() {
+    }
+
+    private static int digits(byte[] text, int from, int count) {
+        var result = 0;
+        for(int i = from; i < from + count; i++){
+            var digit = text[i] - '0';
+            if(digit < 0 || digit > 9){
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date, from
+     * Howard Hinnant's {@code days_from_civil}
+     */
+    static long daysOf(int year, int month, int day) {
+        var y = (month <= 2 ? year - 1 : year);
+        var era = Math.floorDiv(y, 400);
+        var yoe = y - era * 400;
+        var doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        var doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+
+        return era * 146097L + doe - 719468;
+    }
+
+    private static boolean isLeap(int year) {
+        return (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOf(int year, int month) {
+        switch(month){
+            case 2:
+                return isLeap(year) ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @param text UTF-8 or ASCII bytes of the timestamp
+     * @return Milliseconds since the epoch, or {@link #INVALID}
+     */
+    static long epochMillisOf(byte[] text) {
+        if(text == null || text.length < 20){
+            return INVALID;
+        }
+
+        var year = digits(text, 0, 4);
+        var month = digits(text, 5, 2);
+        var day = digits(text, 8, 2);
+        var hour = digits(text, 11, 2);
+        var minute = digits(text, 14, 2);
+        var second = digits(text, 17, 2);
+
+        var t = text[10];
+        if(year < 0 || month < 1 || month > 12 || day < 1 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 60
+                || text[4] != '-' || text[7] != '-' || text[13] != ':' || text[16] != ':'
+                || (t != 'T' && t != 't' && t != ' ')
+                || day > lengthOf(year, month)){
+            return INVALID;
+        }
+
+        var i = 19;
+        var millis = 0;
+        if(text[i] == '.'){
+            i++;
+            var start = i;
+            while(i < text.length && text[i] >= '0' && text[i] <= '9'){
+                if(i - start < 3){
+                    millis = millis * 10 + (text[i] - '0');
+                }
+                i++;
+            }
+            if(i == start){
+                return INVALID;
+            }
+            for(int n = i - start; n < 3; n++){
+                millis *= 10;
+            }
+        }
+
+        if(i >= text.length){
+            return INVALID;
+        }
+
+        int offset;
+        var zone = text[i];
+        if((zone == 'Z' || zone == 'z') && i + 1 == text.length){
+            offset = 0;
+        } else if((zone == '+' || zone == '-') && i + 6 == text.length && text[i + 3] == ':'){
+            var hours = digits(text, i + 1, 2);
+            var minutes = digits(text, i + 4, 2);
+            if(hours < 0 || hours > 23 || minutes < 0 || minutes > 59){
+                return INVALID;
+            }
+            offset = (hours * 60 + minutes) * (zone == '-' ? -1 : 1);
+        } else {
+            return INVALID;
+        }
+
+        // a leap second is read as the :59 one
+        var seconds = daysOf(year, month, day) * 86_400L
+            + hour * 3600 + (minute - offset) * 60 + Math.min(second, 59);
+
+        return seconds * 1000 + millis;
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.kattlo.cloudevents;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.apache.kafka.common.Configurable;
+
+/**
+ * Lock-free, fixed size, multi-producer ring of spans, the default
+ * {@link SpanSink}. When the reader falls behind the oldest spans are
+ * overwritten and counted as dropped.
+ *
+ * <pre>
+ * var sink = (RingBufferSpanSink)deserializer.getSpanSink();
+ * sink.drain(span -&gt; exporter.export(span));
+ * </pre>
+ *
+ * @author fabiojose
+ */
+public class RingBufferSpanSink implements SpanSink, Configurable {
+
+    /**
+     * Number of spans kept, rounded up to a power of two. Default is 8192
+     */
+    public static final String CAPACITY_CONFIG = "cloudevents.avro.tracing.ring.capacity";
+
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    private static final class Slot {
+        final long sequence;
+        final Span span;
+
+        Slot(long sequence, Span span) {
+            this.sequence = sequence;
+            this.span = span;
+        }
+    }
+
+    private AtomicReferenceArray<Slot> slots;
+    private int mask;
+
+    private final AtomicLong head = new AtomicLong();
+    private long cursor;
+    private final LongAdder dropped = new LongAdder();
+
+    public RingBufferSpanSink() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RingBufferSpanSink(int capacity) {
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        if(capacity < 1){
+            throw new IllegalArgumentException(CAPACITY_CONFIG + " must be at least 1");
+        }
+
+        var size = Integer.highestOneBit(capacity);
+        if(size < capacity){
+            size <<= 1;
+        }
+
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        var config = configs.get(CAPACITY_CONFIG);
+        if(config != null){
+            allocate(config instanceof Number
+                ? ((Number)config).intValue()
+                : Integer.parseInt(config.toString().trim()));
+        }
+    }
+
+    @Override
+    public void accept(Span span) {
+        var sequence = head.getAndIncrement();
+        slots.set((int)sequence & mask, new Slot(sequence, span));
+    }
+
+    /**
+     * Hands the spans accepted since the last drain, oldest first. Just one
+     * thread may drain at time.
+     *
+     * @return Number of drained spans
+     */
+    public synchronized int drain(Consumer<Span> consumer) {
+        var drained = 0;
+        var last = head.get();
+
+        var capacity = slots.length();
+        if(last - cursor > capacity){
+            dropped.add(last - cursor - capacity);
+            cursor = last - capacity;
+        }
+
+        while(cursor < last){
+            var slot = slots.get((int)cursor & mask);
+            if(slot == null || slot.sequence < cursor){
+                // claimed, but not written yet
+                break;
+            }
+            if(slot.sequence > cursor){
+                // overwritten by a faster writer
+                dropped.increment();
+            } else {
+                consumer.accept(slot.span);
+                drained++;
+            }
+            cursor++;
+        }
+
+        return drained;
+    }
+
+    /**
+     * @return Spans overwritten before being drained
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,258 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The data schemas known at build time, by the fingerprint of their full
+ * text, with their id and version in the subjects of a registry.
+ * Written by {@link SchemaManifestWriter}, embedded in the jar as the
+ * {@link #RESOURCE} and loaded by the serializer at {@code configure()}, so
+ * it resolves the schema id and {@code ce_dataschema} without registry calls.
+ *
+ * <p>One schema per line, with its registrations when resolved:
+ * <pre>
+ * registry &lt;url&gt;
+ * &lt;fingerprint&gt; &lt;full name&gt;
+ * &lt;fingerprint&gt; &lt;full name&gt; &lt;id&gt; &lt;version&gt; &lt;subject&gt;
+ * </pre>
+ * The fingerprint is the {@link SchemaNormalization#fingerprint64(byte[])} of
+ * the schema as the registry compares it, {@link AvroSchema#canonicalString()},
+ * in hex: unlike the Parsing Canonical Form, it tells apart the versions
+ * that change just defaults, docs, aliases or logical types. The
+ * registrations are taken as they are, just when the registry is
+ * the {@code schema.registry.url} of the serializer: build it again when the
+ * registry changes.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public final class SchemaManifest {
+
+    /**
+     * Classpath resource of the manifests, all of them with this name are
+     * loaded. {@code none} to not load them. Default is {@link #RESOURCE}
+     */
+    public static final String RESOURCE_CONFIG = "cloudevents.avro.schema.manifest";
+
+    public static final String RESOURCE = "META-INF/cloudevents/schema-manifest";
+
+    static final String NONE = "none";
+
+    private static final String REGISTRY = "registry";
+
+    public static final class Entry {
+        public final long fingerprint;
+        public final String name;
+        public final String subject;
+        public final int id;
+        public final int version;
+
+        /**
+         * @param subject {@code null} when not resolved in a registry
+         */
+        public Entry(long fingerprint, String name, String subject, int id, int version) {
+            this.fingerprint = fingerprint;
+            this.name = name;
+            this.subject = subject;
+            this.id = id;
+            this.version = version;
+        }
+
+        public Entry(Schema schema) {
+            this(fingerprintOf(schema), schema.getFullName(), null, 0, 0);
+        }
+
+        @Override
+        public String toString() {
+            var line = String.format("%016x", fingerprint) + ' ' + name;
+            return (subject == null
+                ? line
+                : line + ' ' + id + ' ' + version + ' ' + subject);
+        }
+    }
+
+    /**
+     * The registrations of the manifests, by subject and fingerprint
+     */
+    static final class Registrations {
+        private final Map<String, Map<Long, SchemaRegistrar.Registration>> subjects;
+        private final Map<Schema, Long> fingerprints = new ConcurrentHashMap<>();
+
+        private Registrations(Map<String, Map<Long, SchemaRegistrar.Registration>> subjects) {
+            this.subjects = subjects;
+        }
+
+        /**
+         * @return {@code null} when the schema is not in the subject
+         */
+        SchemaRegistrar.Registration registrationOf(String subject, Schema schema) {
+            var schemas = subjects.get(subject);
+            if(schemas == null){
+                return null;
+            }
+
+            var fingerprint = fingerprints.get(schema);
+            if(fingerprint == null){
+                fingerprint = fingerprints.computeIfAbsent(schema, SchemaManifest::fingerprintOf);
+            }
+            return schemas.get(fingerprint);
+        }
+    }
+
+    private final String registry;
+    private final List<Entry> entries;
+
+    /**
+     * @param registry {@code null} when the entries are not resolved
+     */
+    public SchemaManifest(String registry, List<Entry> entries) {
+        this.registry = registry;
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    public String getRegistry() {
+        return registry;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public static long fingerprintOf(Schema schema) {
+        return SchemaNormalization.fingerprint64(
+            new AvroSchema(schema).canonicalString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String urlOf(String url) {
+        var result = url.trim();
+        return (result.endsWith("/") ? result.substring(0, result.length() - 1) : result);
+    }
+
+    public void write(Path file) throws IOException {
+        var lines = new StringBuilder();
+        if(registry != null){
+            lines.append(REGISTRY).append(' ').append(registry).append('\n');
+        }
+        for(var entry : entries){
+            lines.append(entry).append('\n');
+        }
+
+        var parent = file.toAbsolutePath().getParent();
+        if(parent != null){
+            Files.createDirectories(parent);
+        }
+        Files.write(file, lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SchemaManifest read(InputStream in) throws IOException {
+        String registry = null;
+        var entries = new ArrayList<Entry>();
+
+        var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        for(var line = reader.readLine(); line != null; line = reader.readLine()){
+            if(line.isBlank()){
+                continue;
+            }
+
+            var fields = line.trim().split(" ", 5);
+            try {
+                if(REGISTRY.equals(fields[0]) && fields.length == 2){
+                    registry = fields[1];
+                } else if(fields.length == 2){
+                    entries.add(new Entry(Long.parseUnsignedLong(fields[0], 16), fields[1], null, 0, 0));
+                } else if(fields.length == 5){
+                    entries.add(new Entry(Long.parseUnsignedLong(fields[0], 16), fields[1], fields[4],
+                        Integer.parseInt(fields[2]), Integer.parseInt(fields[3])));
+                } else {
+                    throw new IOException("Invalid schema manifest line: " + line);
+                }
+            }catch(NumberFormatException e){
+                throw new IOException("Invalid schema manifest line: " + line, e);
+            }
+        }
+
+        return new SchemaManifest(registry, entries);
+    }
+
+    private static String resourceOf(Map<String, ?> configs) {
+        var config = configs.get(RESOURCE_CONFIG);
+        return (config == null ? RESOURCE : config.toString().trim());
+    }
+
+    /**
+     * @param schemaRegistryUrl The registrations of other registries are ignored
+     * @param dataschemaAlias For the compact {@code ce_dataschema}, or {@code null}
+     * @return {@code null} when there are no registrations for the registry
+     */
+    static Registrations registrationsOf(Map<String, ?> configs, String schemaRegistryUrl,
+            String dataschemaAlias) {
+
+        var resource = resourceOf(configs);
+        if(NONE.equalsIgnoreCase(resource) || schemaRegistryUrl == null){
+            return null;
+        }
+
+        var loader = Thread.currentThread().getContextClassLoader();
+        if(loader == null){
+            loader = SchemaManifest.class.getClassLoader();
+        }
+
+        var subjects = new HashMap<String, Map<Long, SchemaRegistrar.Registration>>();
+        try {
+            var urls = loader.getResources(resource);
+            while(urls.hasMoreElements()){
+                var url = urls.nextElement();
+
+                SchemaManifest manifest;
+                try(var in = url.openStream()){
+                    manifest = read(in);
+                }
+
+                if(manifest.registry == null
+                        || !urlOf(manifest.registry).equals(urlOf(schemaRegistryUrl))){
+                    log.debug("Schema manifest {} not of the registry {}", url, schemaRegistryUrl);
+                    continue;
+                }
+
+                for(var entry : manifest.entries){
+                    if(entry.subject != null){
+                        var dataschema = (dataschemaAlias == null
+                            ? WireFormat.dataschemaOf(schemaRegistryUrl, entry.subject, entry.version)
+                            : CompactDataSchema.format(dataschemaAlias, entry.id));
+
+                        var registered = subjects.computeIfAbsent(entry.subject, s -> new HashMap<>())
+                            .putIfAbsent(entry.fingerprint, new SchemaRegistrar.Registration(entry.id, dataschema));
+                        if(registered != null && registered.id != entry.id){
+                            throw new IOException(url + " has the schema " + entry.name + " of "
+                                + entry.subject + " with the id " + entry.id + ", but it is "
+                                + registered.id + " in another manifest");
+                        }
+                    }
+                }
+                log.debug("Schema manifest {} loaded", url);
+            }
+        }catch(IOException e){
+            throw new IllegalArgumentException(RESOURCE_CONFIG + "=" + resource + ": " + e.getMessage(), e);
+        }
+
+        return (subjects.isEmpty() ? null : new Registrations(subjects));
+    }
+}
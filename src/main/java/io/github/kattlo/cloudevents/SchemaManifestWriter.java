@@ -0,0 +1,185 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaParseException;
+
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+
+/**
+ * Writes the {@link SchemaManifest} of the {@code .avsc} files, at build time.
+ *
+ * <p>As command line tool, run by the {@code schemaManifest} Gradle task:
+ * <pre>
+ * java -cp ... io.github.kattlo.cloudevents.SchemaManifestWriter \
+ *   [--registry &lt;url&gt;] [--subject &lt;subject&gt;]... &lt;output file&gt; &lt;.avsc directory&gt;...
+ * </pre>
+ * With {@code --registry} the schemas are looked up in its subjects, all of
+ * them when there is no {@code --subject}, and their ids and versions go to
+ * the manifest. Nothing is registered.
+ *
+ * @author fabiojose
+ */
+public final class SchemaManifestWriter {
+
+    private static final int NOT_FOUND = 404;
+
+    private SchemaManifestWriter() {
+    }
+
+    /**
+     * @return The schemas of all {@code .avsc} files in the directories, in
+     * the order of their paths. Those with named types of other files are
+     * parsed after them
+     */
+    public static List<Schema> parse(Collection<Path> directories) throws IOException {
+        var pending = new ArrayList<Path>();
+        for(var directory : directories){
+            try(var files = Files.walk(directory)){
+                pending.addAll(files
+                    .filter(file -> file.toString().endsWith(".avsc"))
+                    .sorted()
+                    .collect(Collectors.toList()));
+            }
+        }
+
+        var result = new ArrayList<Schema>();
+        Map<String, Schema> types = new HashMap<>();
+        while(!pending.isEmpty()){
+            var before = pending.size();
+            SchemaParseException failure = null;
+
+            for(var i = pending.iterator(); i.hasNext(); ){
+                var file = i.next();
+
+                // a fresh parser, a failed parse leaves the names it defined
+                var parser = new Schema.Parser().addTypes(types);
+                try {
+                    result.add(parser.parse(file.toFile()));
+                    types = parser.getTypes();
+                    i.remove();
+                }catch(SchemaParseException e){
+                    failure = new SchemaParseException(file + ": " + e.getMessage());
+                }
+            }
+
+            if(pending.size() == before){
+                throw failure;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The manifest of the schemas, resolved in the subjects of the
+     * registry, or in all of them when there are no subjects
+     */
+    public static SchemaManifest resolve(List<Schema> schemas, String registryUrl,
+            SchemaRegistryClient registry, Collection<String> subjects) throws IOException {
+
+        try {
+            var names = (subjects.isEmpty() ? registry.getAllSubjects() : subjects);
+
+            var entries = new ArrayList<SchemaManifest.Entry>();
+            for(var schema : schemas){
+                var fingerprint = SchemaManifest.fingerprintOf(schema);
+                var parsed = new AvroSchema(schema);
+
+                var resolved = false;
+                for(var subject : names){
+                    try {
+                        var id = registry.getId(subject, parsed);
+                        var version = registry.getVersion(subject, parsed);
+
+                        entries.add(new SchemaManifest.Entry(fingerprint, schema.getFullName(),
+                            subject, id, version));
+                        resolved = true;
+
+                    }catch(RestClientException e){
+                        // not in the subject, or no such subject
+                        if(e.getStatus() != NOT_FOUND){
+                            throw e;
+                        }
+                    }
+                }
+
+                if(!resolved){
+                    entries.add(new SchemaManifest.Entry(schema));
+                }
+            }
+
+            // the same subject and fingerprint would resolve to one of them
+            var keys = new HashMap<String, SchemaManifest.Entry>();
+            for(var entry : entries){
+                if(entry.subject == null){
+                    continue;
+                }
+
+                var collision = keys.putIfAbsent(entry.subject + ' ' + entry.fingerprint, entry);
+                if(collision != null){
+                    throw new IOException("Schemas " + collision.name + " and " + entry.name
+                        + " collide in the subject " + entry.subject);
+                }
+            }
+
+            return new SchemaManifest(registryUrl, entries);
+
+        }catch(RestClientException e){
+            throw new IOException("Error resolving the schemas in " + registryUrl + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String registryUrl = null;
+        var subjects = new ArrayList<String>();
+
+        var i = 0;
+        for(; i < args.length - 1 && args[i].startsWith("--"); i += 2){
+            if("--registry".equals(args[i])){
+                registryUrl = args[i + 1];
+            } else if("--subject".equals(args[i])){
+                subjects.add(args[i + 1]);
+            } else {
+                break;
+            }
+        }
+
+        if(args.length - i < 2 || (registryUrl == null && !subjects.isEmpty())){
+            System.err.println("usage: SchemaManifestWriter [--registry <url>] [--subject <subject>]... <output file> <.avsc directory>...");
+            System.exit(1);
+        }
+
+        var output = Paths.get(args[i++]);
+
+        var directories = new ArrayList<Path>();
+        for(; i < args.length; i++){
+            directories.add(Paths.get(args[i]));
+        }
+
+        var schemas = parse(directories);
+        var manifest = (registryUrl == null
+            ? new SchemaManifest(null, schemas.stream()
+                .map(SchemaManifest.Entry::new)
+                .collect(Collectors.toList()))
+            : resolve(schemas, registryUrl, new CachedSchemaRegistryClient(registryUrl, 100), subjects));
+
+        manifest.write(output);
+
+        var registrations = manifest.getEntries().stream().filter(e -> e.subject != null).count();
+        System.out.println(schemas.size() + " schemas, " + registrations + " registrations: " + output);
+    }
+}
@@ -0,0 +1,141 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.Schema;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.TimeoutException;
+
+/**
+ * Registers, or looks up, data schemas in background threads. Concurrent
+ * requests for the same topic and schema share one registry round trip.
+ *
+ * @author fabiojose
+ */
+final class SchemaRegistrar implements Closeable {
+
+    /**
+     * What the registry resolved for one topic and schema.
+     */
+    static final class Registration {
+        final int id;
+        final byte[] dataschema;
+
+        Registration(int id, byte[] dataschema) {
+            this.id = id;
+            this.dataschema = dataschema;
+        }
+    }
+
+    @FunctionalInterface
+    interface Resolver {
+        Registration resolve(String topic, Schema schema);
+    }
+
+    private final Resolver resolver;
+    private final ExecutorService executor;
+    private final Map<String, Map<Schema, CompletableFuture<Registration>>> registrations =
+        new ConcurrentHashMap<>();
+
+    SchemaRegistrar(Resolver resolver) {
+        this.resolver = Objects.requireNonNull(resolver);
+
+        var sequence = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "cloudevent-schema-registrar-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return The registration, started now when there is none in progress or
+     * completed. Failed registrations are forgotten, to be retried by the next
+     * call.
+     */
+    CompletableFuture<Registration> registrationOf(String topic, Schema schema) {
+        var schemas = registrations.computeIfAbsent(topic, t -> new ConcurrentHashMap<>());
+
+        var registration = schemas.get(schema);
+        if(registration == null){
+            var created = new CompletableFuture<Registration>();
+
+            registration = schemas.putIfAbsent(schema, created);
+            if(registration == null){
+                registration = created;
+
+                CompletableFuture.supplyAsync(() -> resolver.resolve(topic, schema), executor)
+                    .whenComplete((r, e) -> {
+                        if(e != null){
+                            schemas.remove(schema, created);
+                            created.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+                        } else {
+                            created.complete(r);
+                        }
+                    });
+            }
+        }
+
+        return registration;
+    }
+
+    /**
+     * @param maxWaitMs How long to wait for a registration in progress
+     * @throws TimeoutException When it did not complete in time, the
+     * registration keeps going in background
+     */
+    Registration await(String topic, Schema schema, long maxWaitMs) {
+        var registration = registrationOf(topic, schema);
+
+        var done = registration.getNow(null);
+        if(done != null){
+            return done;
+        }
+
+        try {
+            return registration.get(maxWaitMs, TimeUnit.MILLISECONDS);
+
+        }catch(java.util.concurrent.TimeoutException e){
+            throw new TimeoutException("Schema " + schema.getFullName() + " of topic "
+                + topic + " not registered within " + maxWaitMs + " ms");
+
+        }catch(ExecutionException e){
+            var cause = e.getCause();
+            if(cause instanceof SerializationException){
+                throw (SerializationException)cause;
+            }
+            throw new SerializationException(cause.getMessage(), cause);
+
+        }catch(InterruptedException e){
+            throw new InterruptException(e);
+        }
+    }
+
+    /**
+     * @return {@code true} when the registration completed successfully
+     */
+    boolean isReady(String topic, Schema schema) {
+        var schemas = registrations.get(topic);
+        var registration = (schemas == null ? null : schemas.get(schema));
+
+        return registration != null
+            && registration.isDone()
+            && !registration.isCompletedExceptionally();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+
+/**
+ * File with the schemas of a capture, by id, so it is replayed without a
+ * registry. One {@code <id> <schema>} per line, the schema in the
+ * canonical single line form.
+ *
+ * @author fabiojose
+ */
+public final class SchemaSnapshot {
+
+    private SchemaSnapshot() {
+    }
+
+    /**
+     * Writes the schemas of these ids, as found in the registry
+     */
+    public static void write(Path file, SchemaRegistryClient registry, Collection<Integer> ids)
+            throws IOException {
+
+        var lines = new StringBuilder();
+        for(var id : ids){
+            try {
+                lines.append(id).append(' ')
+                    .append(registry.getSchemaById(id).canonicalString())
+                    .append('\n');
+
+            }catch(RestClientException e){
+                throw new IOException("Error getting the schema id " + id + ": " + e.getMessage(), e);
+            }
+        }
+
+        Files.write(file, lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The schemas by id
+     */
+    public static Map<Integer, String> read(Path file) throws IOException {
+        var result = new TreeMap<Integer, String>();
+
+        for(var line : Files.readAllLines(file, StandardCharsets.UTF_8)){
+            if(line.isBlank()){
+                continue;
+            }
+
+            var separator = line.indexOf(' ');
+            if(separator < 1){
+                throw new IOException(file + " has an invalid line: " + line);
+            }
+            result.put(Integer.parseInt(line.substring(0, separator)), line.substring(separator + 1));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return Registry with the snapshot schemas under their original ids,
+     * as versions of the {@code <topic>-value} subject
+     */
+    public static SchemaRegistryClient registryOf(Path file, String topic) throws IOException {
+        var registry = new MockSchemaRegistryClient();
+        var subject = topic + "-value";
+
+        var version = 1;
+        for(var schema : read(file).entrySet()){
+            try {
+                registry.register(subject, new AvroSchema(schema.getValue()), version++, schema.getKey());
+            }catch(RestClientException e){
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        return registry;
+    }
+}
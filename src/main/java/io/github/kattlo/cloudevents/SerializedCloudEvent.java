@@ -0,0 +1,53 @@
+package io.github.kattlo.cloudevents;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import org.apache.kafka.common.header.Headers;
+
+import io.cloudevents.CloudEvent;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One {@link CloudEvent} serialized by
+ * {@link KafkaAvroCloudEventSerializer#serializeAll(String, java.util.List)},
+ * ready to send.
+ *
+ * @author fabiojose
+ */
+@ToString
+@Getter
+public final class SerializedCloudEvent {
+
+    /**
+     * Wire format value, send it as is with the {@code ByteBufferSerializer}.
+     * It is {@code null} for events without data
+     */
+    private final ByteBuffer value;
+
+    /**
+     * The {@code ce_*} headers, including {@code ce_dataschema}
+     */
+    private final Headers headers;
+
+    SerializedCloudEvent(ByteBuffer value, Headers headers) {
+        this.value = value;
+        this.headers = Objects.requireNonNull(headers);
+    }
+
+    /**
+     * @return A copy of the value, to send with the {@code ByteArraySerializer},
+     * or {@code null} for events without data
+     */
+    public byte[] toByteArray() {
+        if(value == null){
+            return null;
+        }
+
+        var result = new byte[value.remaining()];
+        value.duplicate().get(result);
+
+        return result;
+    }
+}
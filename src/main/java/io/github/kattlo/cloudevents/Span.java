@@ -0,0 +1,65 @@
+package io.github.kattlo.cloudevents;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One timed step of an event, from the producer to the consumer.
+ *
+ * @author fabiojose
+ */
+@Getter
+@ToString
+public final class Span {
+
+    public enum Kind {
+        /**
+         * Serialization in the producer, its id is the parent-id of the
+         * {@code traceparent}
+         */
+        SERIALIZE,
+
+        /**
+         * From the end of the serialization to the start of the deserialization
+         */
+        TRANSIT,
+
+        /**
+         * Deserialization in the consumer
+         */
+        DESERIALIZE
+    }
+
+    private final Kind kind;
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final long spanId;
+
+    /**
+     * Zero for the root span
+     */
+    private final long parentSpanId;
+
+    private final String topic;
+    private final long startEpochMicros;
+    private final long durationNanos;
+
+    Span(Kind kind, long traceIdHigh, long traceIdLow, long spanId, long parentSpanId,
+            String topic, long startEpochMicros, long durationNanos) {
+        this.kind = kind;
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.topic = topic;
+        this.startEpochMicros = startEpochMicros;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * @return The 32 lowercase hex digits of the trace-id
+     */
+    public String getTraceId() {
+        return Tracing.hex(traceIdHigh) + Tracing.hex(traceIdLow);
+    }
+}
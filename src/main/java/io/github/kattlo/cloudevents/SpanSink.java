@@ -0,0 +1,24 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the spans of the sampled events, see {@link Tracing}.
+ * Called on the deserializing threads, so it must not block.
+ *
+ * <p>Implementations with a public no-args constructor can be configured
+ * by {@link Tracing#SINK_CONFIG}, they are configured with the
+ * deserializer configurations when implement
+ * {@link org.apache.kafka.common.Configurable}.
+ *
+ * @author fabiojose
+ */
+public interface SpanSink extends Closeable {
+
+    void accept(Span span);
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.kattlo.cloudevents;
+
+import org.apache.avro.util.Utf8;
+
+/**
+ * How the {@link KafkaAvroCloudEventDeserializer} decodes Avro string fields.
+ *
+ * @author fabiojose
+ */
+public enum StringDecoding {
+
+    /**
+     * Avro default, each string is copied to a new {@link Utf8}
+     */
+    UTF8,
+
+    /**
+     * Each string is a {@link LazyUtf8} view over the record payload,
+     * nothing is copied nor decoded until used
+     */
+    LAZY;
+}
@@ -0,0 +1,110 @@
+package io.github.kattlo.cloudevents;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Bounded dictionary of UTF-8 encoded strings that returns a shared
+ * {@link String} for bytes already seen. Lookups do not allocate and do
+ * not lock, only new entries are added under a lock.
+ *
+ * <p>When full, no entry is added anymore and lookups of unknown bytes
+ * return {@code null}.
+ *
+ * @author fabiojose
+ */
+final class StringDictionary {
+
+    private static final class Entry {
+        final int hash;
+        final byte[] bytes;
+        final String value;
+
+        Entry(int hash, byte[] bytes, String value) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.value = value;
+        }
+    }
+
+    private final int maxEntries;
+    private final Entry[] table;
+    private final int mask;
+    private int size;
+
+    StringDictionary(int maxEntries) {
+        if(maxEntries <= 0){
+            throw new IllegalArgumentException("maxEntries must be greater than zero");
+        }
+
+        this.maxEntries = maxEntries;
+
+        // at most half full, so probing stays short
+        var capacity = Integer.highestOneBit(maxEntries * 2 - 1) << 1;
+        this.table = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 1;
+        for(int i = offset; i < offset + length; i++){
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private Entry find(int hash, byte[] bytes, int offset, int length) {
+        for(int i = hash & mask; ; i = (i + 1) & mask){
+            var entry = table[i];
+            if(entry == null){
+                return null;
+            }
+            if(entry.hash == hash && Arrays.equals(entry.bytes, 0, entry.bytes.length,
+                    bytes, offset, offset + length)){
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * @return The shared instance, or {@code null} when the dictionary is full
+     * and the bytes are unknown
+     */
+    String lookup(byte[] bytes, int offset, int length) {
+        var hash = hash(bytes, offset, length);
+
+        var entry = find(hash, bytes, offset, length);
+        if(entry != null){
+            return entry.value;
+        }
+
+        return add(hash, bytes, offset, length);
+    }
+
+    private synchronized String add(int hash, byte[] bytes, int offset, int length) {
+        var entry = find(hash, bytes, offset, length);
+        if(entry != null){
+            return entry.value;
+        }
+
+        if(size >= maxEntries){
+            return null;
+        }
+
+        var copy = Arrays.copyOfRange(bytes, offset, offset + length);
+        entry = new Entry(hash, copy, new String(copy, StandardCharsets.UTF_8));
+
+        int i = hash & mask;
+        while(table[i] != null){
+            i = (i + 1) & mask;
+        }
+        table[i] = entry;
+        size++;
+
+        return entry.value;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
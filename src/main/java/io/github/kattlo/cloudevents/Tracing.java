@@ -0,0 +1,329 @@
+package io.github.kattlo.cloudevents;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.kafka.common.Configurable;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Distributed tracing through the CloudEvents distributed-tracing
+ * extension: the serializer stamps the W3C {@code traceparent}, keeping
+ * the trace-id and the sampled flag of the event when it has one, and the
+ * deserializer records the spans of the sampled events in a
+ * {@link SpanSink}.
+ *
+ * <p>For sampled events the serializer adds its timing to the
+ * {@code tracestate}, as {@code cloudevents-avro=<start ms>:<duration ns>:<parent-id>},
+ * so the deserializer records the {@link Span.Kind#SERIALIZE},
+ * {@link Span.Kind#TRANSIT} and {@link Span.Kind#DESERIALIZE} spans.
+ *
+ * <p>Ids come from {@link ThreadLocalRandom} and are written as hex
+ * straight into the header bytes. Events not sampled cost a header lookup
+ * and a flag check in the deserializer.
+ *
+ * @author fabiojose
+ */
+public final class Tracing {
+
+    public static final String TRACEPARENT = "traceparent";
+    public static final String TRACESTATE = "tracestate";
+
+    public static final String TRACEPARENT_HEADER = "ce_" + TRACEPARENT;
+    public static final String TRACESTATE_HEADER = "ce_" + TRACESTATE;
+
+    /**
+     * When {@code true}, the serializer stamps the {@code traceparent} and the
+     * deserializer records spans. Default is {@code false}
+     */
+    public static final String ENABLED_CONFIG = "cloudevents.avro.tracing.enabled";
+
+    /**
+     * Ratio of the new traces that are sampled, between 0 and 1. Default is 0.01
+     */
+    public static final String SAMPLE_RATE_CONFIG = "cloudevents.avro.tracing.sample.rate";
+
+    /**
+     * Class name, or {@link Class}, of the {@link SpanSink}. Default is
+     * {@link RingBufferSpanSink}
+     */
+    public static final String SINK_CONFIG = "cloudevents.avro.tracing.sink";
+
+    static final String STATE_KEY = "cloudevents-avro";
+
+    private static final double DEFAULT_SAMPLE_RATE = 0.01;
+    private static final int TRACEPARENT_LENGTH = 55;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STATE_PREFIX = (STATE_KEY + "=").getBytes(StandardCharsets.US_ASCII);
+
+    private Tracing() {
+    }
+
+    static boolean enabledOf(Map<String, ?> configs) {
+        var config = configs.get(ENABLED_CONFIG);
+        return config != null && Boolean.parseBoolean(config.toString().trim());
+    }
+
+    static double sampleRateOf(Map<String, ?> configs) {
+        var config = configs.get(SAMPLE_RATE_CONFIG);
+
+        double rate;
+        if(config == null){
+            rate = DEFAULT_SAMPLE_RATE;
+        } else if(config instanceof Number){
+            rate = ((Number)config).doubleValue();
+        } else {
+            rate = Double.parseDouble(config.toString().trim());
+        }
+
+        if(rate < 0 || rate > 1){
+            throw new IllegalArgumentException(SAMPLE_RATE_CONFIG + "=" + rate + " must be between 0 and 1");
+        }
+        return rate;
+    }
+
+    static SpanSink sinkOf(Map<String, ?> configs) {
+        var config = configs.get(SINK_CONFIG);
+
+        Class<?> type;
+        if(config == null){
+            type = RingBufferSpanSink.class;
+        } else if(config instanceof Class){
+            type = (Class<?>)config;
+        } else if(config instanceof String){
+            try {
+                type = Class.forName(((String)config).trim());
+            }catch(ClassNotFoundException e){
+                throw new IllegalArgumentException(SINK_CONFIG + "=" + config + " not found", e);
+            }
+        } else {
+            throw new IllegalArgumentException(SINK_CONFIG + " can be of type String or " + Class.class.getName());
+        }
+
+        if(!SpanSink.class.isAssignableFrom(type)){
+            throw new IllegalArgumentException(SINK_CONFIG + "=" + type.getName()
+                + " must implement " + SpanSink.class.getName());
+        }
+
+        try {
+            var sink = (SpanSink)type.getDeclaredConstructor().newInstance();
+            if(sink instanceof Configurable){
+                ((Configurable)sink).configure(configs);
+            }
+
+            return sink;
+        }catch(ReflectiveOperationException e){
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    static String hex(long value) {
+        var result = new byte[16];
+        writeHex(result, 0, value, 16);
+        return new String(result, StandardCharsets.US_ASCII);
+    }
+
+    private static void writeHex(byte[] to, int from, long value, int digits) {
+        for(int i = from + digits - 1; i >= from; i--){
+            to[i] = HEX[(int)value & 0xf];
+            value >>>= 4;
+        }
+    }
+
+    private static int digitOf(byte b) {
+        if(b >= '0' && b <= '9'){
+            return b - '0';
+        } else if(b >= 'a' && b <= 'f'){
+            return b - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private static long hexOf(byte[] from, int offset, int digits) {
+        long result = 0;
+        for(int i = offset; i < offset + digits; i++){
+            result = (result << 4) | digitOf(from[i]);
+        }
+        return result;
+    }
+
+    private static boolean isHex(byte[] value, int offset, int digits) {
+        for(int i = offset; i < offset + digits; i++){
+            if(digitOf(value[i]) < 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@code 00-<trace-id>-<parent-id>-<flags>}, later versions may append fields
+     */
+    static boolean isValid(byte[] traceparent) {
+        return traceparent != null
+            && traceparent.length >= TRACEPARENT_LENGTH
+            && (traceparent.length == TRACEPARENT_LENGTH || traceparent[TRACEPARENT_LENGTH] == '-')
+            && traceparent[2] == '-' && traceparent[35] == '-' && traceparent[52] == '-'
+            && isHex(traceparent, 0, 2) && !(traceparent[0] == 'f' && traceparent[1] == 'f')
+            && isHex(traceparent, 3, 32) && isHex(traceparent, 36, 16) && isHex(traceparent, 53, 2)
+            && (hexOf(traceparent, 3, 16) | hexOf(traceparent, 19, 16)) != 0
+            && hexOf(traceparent, 36, 16) != 0;
+    }
+
+    static boolean isSampled(byte[] traceparent) {
+        return isValid(traceparent) && (digitOf(traceparent[54]) & 1) == 1;
+    }
+
+    static byte[] traceparent(long traceIdHigh, long traceIdLow, long spanId, boolean sampled) {
+        var result = new byte[TRACEPARENT_LENGTH];
+        result[0] = '0';
+        result[1] = '0';
+        result[2] = '-';
+        writeHex(result, 3, traceIdHigh, 16);
+        writeHex(result, 19, traceIdLow, 16);
+        result[35] = '-';
+        writeHex(result, 36, spanId, 16);
+        result[52] = '-';
+        result[53] = '0';
+        result[54] = (byte)(sampled ? '1' : '0');
+
+        return result;
+    }
+
+    private static long nonZero(ThreadLocalRandom random) {
+        long result;
+        do {
+            result = random.nextLong();
+        } while(result == 0);
+        return result;
+    }
+
+    /**
+     * Stamps the {@code traceparent} with a new parent-id, the one of the
+     * serialization span, and its timing in the {@code tracestate} when
+     * sampled.
+     */
+    static void stamp(Headers headers, double sampleRate, long startMillis, long durationNanos) {
+        var random = ThreadLocalRandom.current();
+
+        var upstream = headers.lastHeader(TRACEPARENT_HEADER);
+        var value = (upstream == null ? null : upstream.value());
+
+        long high;
+        long low;
+        long parent;
+        boolean sampled;
+        if(isValid(value)){
+            high = hexOf(value, 3, 16);
+            low = hexOf(value, 19, 16);
+            parent = hexOf(value, 36, 16);
+            sampled = (digitOf(value[54]) & 1) == 1;
+        } else {
+            high = random.nextLong();
+            low = nonZero(random);
+            parent = 0;
+            sampled = random.nextDouble() < sampleRate;
+        }
+
+        headers.remove(TRACEPARENT_HEADER);
+        headers.add(TRACEPARENT_HEADER, traceparent(high, low, nonZero(random), sampled));
+
+        if(sampled){
+            var state = headers.lastHeader(TRACESTATE_HEADER);
+            var entry = STATE_KEY + "=" + startMillis + ":" + durationNanos + ":" + hex(parent);
+
+            var others = (state == null || state.value() == null
+                ? ""
+                : withoutEntry(new String(state.value(), StandardCharsets.US_ASCII)));
+
+            headers.remove(TRACESTATE_HEADER);
+            headers.add(TRACESTATE_HEADER, (others.isEmpty() ? entry : entry + "," + others)
+                .getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static String withoutEntry(String tracestate) {
+        var result = new StringBuilder(tracestate.length());
+        for(var member : tracestate.split(",")){
+            var trimmed = member.trim();
+            if(!trimmed.isEmpty() && !trimmed.startsWith(STATE_KEY + "=")){
+                if(result.length() > 0){
+                    result.append(',');
+                }
+                result.append(trimmed);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * @return Index of the value of our entry in the tracestate, or -1
+     */
+    private static int stateOf(byte[] tracestate) {
+        outer:
+        for(int i = 0; i + STATE_PREFIX.length <= tracestate.length; i++){
+            if(i > 0 && tracestate[i - 1] != ',' && tracestate[i - 1] != ' '){
+                continue;
+            }
+            for(int j = 0; j < STATE_PREFIX.length; j++){
+                if(tracestate[i + j] != STATE_PREFIX[j]){
+                    continue outer;
+                }
+            }
+            return i + STATE_PREFIX.length;
+        }
+        return -1;
+    }
+
+    /**
+     * Records the spans of a sampled event
+     *
+     * @param startEpochMicros Start of the deserialization
+     * @param durationNanos Of the deserialization
+     */
+    static void record(SpanSink sink, String topic, Headers headers, byte[] traceparent,
+            long startEpochMicros, long durationNanos) {
+
+        var random = ThreadLocalRandom.current();
+
+        var high = hexOf(traceparent, 3, 16);
+        var low = hexOf(traceparent, 19, 16);
+        var serialization = hexOf(traceparent, 36, 16);
+
+        var state = headers.lastHeader(TRACESTATE_HEADER);
+        var value = (state == null ? null : state.value());
+        var index = (value == null ? -1 : stateOf(value));
+
+        if(index >= 0){
+            long startMillis = 0;
+            long serializeNanos = 0;
+            long parent = 0;
+            var field = 0;
+
+            for(int i = index; i < value.length && value[i] != ','; i++){
+                var b = value[i];
+                if(b == ':'){
+                    field++;
+                } else if(field == 0 && b >= '0' && b <= '9'){
+                    startMillis = startMillis * 10 + (b - '0');
+                } else if(field == 1 && b >= '0' && b <= '9'){
+                    serializeNanos = serializeNanos * 10 + (b - '0');
+                } else if(field == 2 && digitOf(b) >= 0){
+                    parent = (parent << 4) | digitOf(b);
+                }
+            }
+
+            var serializeStart = startMillis * 1000;
+            var transitStart = serializeStart + serializeNanos / 1000;
+
+            sink.accept(new Span(Span.Kind.SERIALIZE, high, low, serialization, parent,
+                topic, serializeStart, serializeNanos));
+            sink.accept(new Span(Span.Kind.TRANSIT, high, low, nonZero(random), serialization,
+                topic, transitStart, Math.max(0, startEpochMicros - transitStart) * 1000));
+        }
+
+        sink.accept(new Span(Span.Kind.DESERIALIZE, high, low, nonZero(random), serialization,
+            topic, startEpochMicros, durationNanos));
+    }
+}
@@ -0,0 +1,253 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.common.Configurable;
+import org.apache.kafka.common.errors.SerializationException;
+
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import io.confluent.kafka.serializers.subject.strategy.SubjectNameStrategy;
+
+/**
+ * The Confluent wire format, magic byte, 4 bytes schema id and the Avro
+ * binary, written and read without the {@code KafkaAvroSerializer} and
+ * {@code KafkaAvroDeserializer} per-record work: no subject name, no schema
+ * parsing and no registry client lookup per record.
+ *
+ * <p>The {@link Engine#LEAN} engine resolves the schema id and the
+ * {@code ce_dataschema} once per topic and data schema, through a
+ * {@link WireRegistry}, keeps one writer per data schema and encodes into a
+ * per-thread buffer. The output is byte-for-byte the one of
+ * {@link Engine#CONFLUENT}.
+ *
+ * @author fabiojose
+ */
+public final class WireFormat {
+
+    /**
+     * How the data is written and read, one of {@link Engine}. Default is
+     * {@link Engine#CONFLUENT}
+     */
+    public static final String ENGINE_CONFIG = "cloudevents.avro.wire.engine";
+
+    /**
+     * Class of the {@link WireRegistry} used by {@link Engine#LEAN}. Default
+     * is the schema registry client of the serializer
+     */
+    public static final String REGISTRY_CONFIG = "cloudevents.avro.wire.registry.class";
+
+    public enum Engine {
+        /**
+         * Through the {@code KafkaAvroSerializer} and {@code KafkaAvroDeserializer}
+         */
+        CONFLUENT,
+
+        /**
+         * Through this module, with its own caches and the {@link WireRegistry}
+         */
+        LEAN
+    }
+
+    static final byte MAGIC = 0x0;
+    static final int HEADER_SIZE = 1 + 4;
+
+    private static final class Scratch {
+        final GrowableBuffer buffer = new GrowableBuffer(256);
+        BinaryEncoder encoder;
+    }
+
+    private final WireRegistry registry;
+    private final SubjectNameStrategy strategy;
+    private final boolean autoRegister;
+    private final boolean customCoders;
+    private final String schemaRegistryUrl;
+    private final String dataschemaAlias;
+    private final SchemaManifest.Registrations manifest;
+
+    private final Map<String, Map<Schema, SchemaRegistrar.Registration>> registrations =
+        new ConcurrentHashMap<>();
+    private final Map<Schema, DatumWriter<Object>> writers = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<Scratch> scratches = ThreadLocal.withInitial(Scratch::new);
+
+    WireFormat(WireRegistry registry, SubjectNameStrategy strategy, boolean autoRegister,
+            boolean customCoders, String schemaRegistryUrl, String dataschemaAlias,
+            SchemaManifest.Registrations manifest) {
+
+        this.registry = Objects.requireNonNull(registry);
+        this.strategy = Objects.requireNonNull(strategy);
+        this.autoRegister = autoRegister;
+        this.customCoders = customCoders;
+        this.schemaRegistryUrl = schemaRegistryUrl;
+        this.dataschemaAlias = dataschemaAlias;
+        this.manifest = manifest;
+    }
+
+    static Engine engineOf(Map<String, ?> configs) {
+        var config = configs.get(ENGINE_CONFIG);
+
+        if(config == null){
+            return Engine.CONFLUENT;
+        } else if(config instanceof Engine){
+            return (Engine)config;
+        } else if(config instanceof String){
+            return Engine.valueOf(((String)config).trim().toUpperCase());
+        } else {
+            throw new IllegalArgumentException(ENGINE_CONFIG + " can be of type String or " + Engine.class.getName());
+        }
+    }
+
+    /**
+     * @return The configured registry, or the one of the client
+     */
+    static WireRegistry registryOf(Map<String, ?> configs, SchemaRegistryClient client) {
+        var config = configs.get(REGISTRY_CONFIG);
+
+        Class<?> type;
+        if(config == null){
+            return new ConfluentWireRegistry(client);
+        } else if(config instanceof Class){
+            type = (Class<?>)config;
+        } else if(config instanceof String){
+            try {
+                type = Class.forName(((String)config).trim());
+            }catch(ClassNotFoundException e){
+                throw new IllegalArgumentException(REGISTRY_CONFIG + "=" + config + " not found", e);
+            }
+        } else {
+            throw new IllegalArgumentException(REGISTRY_CONFIG + " can be of type String or " + Class.class.getName());
+        }
+
+        if(!WireRegistry.class.isAssignableFrom(type)){
+            throw new IllegalArgumentException(REGISTRY_CONFIG + "=" + type.getName()
+                + " must implement " + WireRegistry.class.getName());
+        }
+
+        try {
+            var registry = (WireRegistry)type.getDeclaredConstructor().newInstance();
+            if(registry instanceof Configurable){
+                ((Configurable)registry).configure(configs);
+            }
+
+            return registry;
+        }catch(ReflectiveOperationException e){
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param manifest The registrations known at build time, or {@code null}
+     * @return The configured engine, or {@code null} when it is {@link Engine#CONFLUENT}
+     */
+    static WireFormat of(Map<String, ?> configs, SchemaRegistryClient client,
+            String schemaRegistryUrl, String dataschemaAlias, SchemaManifest.Registrations manifest) {
+
+        if(engineOf(configs) != Engine.LEAN){
+            return null;
+        }
+
+        var config = new KafkaAvroSerializerConfig(configs);
+        return new WireFormat(registryOf(configs, client),
+            (SubjectNameStrategy)config.valueSubjectNameStrategy(), config.autoRegisterSchema(),
+            CustomCoders.enabledOf(configs), schemaRegistryUrl, dataschemaAlias, manifest);
+    }
+
+    /**
+     * @return The {@code ce_dataschema} of the full registry URL
+     */
+    static byte[] dataschemaOf(String schemaRegistryUrl, String subjectName, int version) {
+        return (schemaRegistryUrl + "/subjects/" + subjectName + "/versions/" + version + "/schema")
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private SchemaRegistrar.Registration resolve(String topic, Schema schema) {
+        var subjectName = strategy.subjectName(topic, Boolean.FALSE, new AvroSchema(schema));
+
+        if(manifest != null){
+            var registration = manifest.registrationOf(subjectName, schema);
+            if(registration != null){
+                return registration;
+            }
+        }
+
+        try {
+            var id = (autoRegister
+                ? registry.register(subjectName, schema)
+                : registry.idOf(subjectName, schema));
+
+            var dataschema = (dataschemaAlias == null
+                ? dataschemaOf(schemaRegistryUrl, subjectName, registry.versionOf(subjectName, schema))
+                : CompactDataSchema.format(dataschemaAlias, id));
+
+            return new SchemaRegistrar.Registration(id, dataschema);
+
+        }catch(IOException | RuntimeException e){
+            throw new SerializationException("Error retrieving Avro schema for "
+                + subjectName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return The schema id and {@code ce_dataschema}, resolved by the registry
+     * just the first time
+     */
+    SchemaRegistrar.Registration registrationOf(String topic, Schema schema) {
+        var schemas = registrations.get(topic);
+        if(schemas == null){
+            schemas = registrations.computeIfAbsent(topic, t -> new ConcurrentHashMap<>());
+        }
+
+        var registration = schemas.get(schema);
+        if(registration == null){
+            registration = resolve(topic, schema);
+
+            var cached = schemas.putIfAbsent(schema, registration);
+            if(cached != null){
+                registration = cached;
+            }
+        }
+        return registration;
+    }
+
+    private DatumWriter<Object> writerOf(IndexedRecord value) {
+        var schema = value.getSchema();
+
+        var writer = writers.get(schema);
+        if(writer == null){
+            writer = writers.computeIfAbsent(schema, s -> CustomCoders.writerOf(s, value, customCoders));
+        }
+        return writer;
+    }
+
+    /**
+     * @return The wire format of the value, with the schema id
+     */
+    byte[] encode(int id, IndexedRecord value) {
+        var scratch = scratches.get();
+        var buffer = scratch.buffer;
+        buffer.reset();
+
+        buffer.write(MAGIC);
+        buffer.writeInt(id);
+
+        scratch.encoder = EncoderFactory.get().directBinaryEncoder(buffer, scratch.encoder);
+        try {
+            writerOf(value).write(value, scratch.encoder);
+        }catch(IOException | RuntimeException e){
+            throw new SerializationException("Error serializing Avro message", e);
+        }
+
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+
+/**
+ * The few schema registry operations the {@link WireFormat} engine needs.
+ * Lookups are cached by the engine, implementations may do a round trip per
+ * call.
+ *
+ * <p>Implementations configured by {@link WireFormat#REGISTRY_CONFIG} must
+ * have a public no-args constructor and, when they implement
+ * {@link org.apache.kafka.common.Configurable}, receive the serializer
+ * configurations.
+ *
+ * @author fabiojose
+ */
+public interface WireRegistry {
+
+    /**
+     * @return The id of the schema, registered under the subject when new
+     */
+    int register(String subject, Schema schema) throws IOException;
+
+    /**
+     * @return The id of the schema already registered under the subject
+     */
+    int idOf(String subject, Schema schema) throws IOException;
+
+    /**
+     * @return The version of the schema already registered under the subject
+     */
+    int versionOf(String subject, Schema schema) throws IOException;
+
+    /**
+     * @return The schema of the id
+     */
+    Schema schemaOf(int id) throws IOException;
+}
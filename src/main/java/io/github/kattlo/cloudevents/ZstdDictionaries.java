@@ -0,0 +1,270 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-record zstd compression of the Avro payload, with dictionaries
+ * trained per data schema by {@link ZstdDictionaryTrainer}.
+ *
+ * <p>Dictionaries are files named {@code <schema full name>.dict}, in a
+ * directory shared by producers and consumers. The magic byte and the
+ * schema id stay as is, just the Avro binary is compressed, and the record
+ * carries {@code zstd:<dictionary id>} in the {@code avrocodec} extension.
+ *
+ * <p>The dictionaries are native memory, released by {@link #close()}.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public final class ZstdDictionaries {
+
+    /**
+     * CloudEvent extension with the codec of the Avro payload
+     */
+    public static final String EXTENSION = "avrocodec";
+
+    public static final String HEADER = "ce_" + EXTENSION;
+
+    /**
+     * Directory with the {@code <schema full name>.dict} files. When absent the
+     * compression is disabled
+     */
+    public static final String DIRECTORY_CONFIG = "cloudevents.avro.zstd.dictionaries";
+
+    /**
+     * Compression level. Default is 3
+     */
+    public static final String LEVEL_CONFIG = "cloudevents.avro.zstd.level";
+
+    /**
+     * Max bytes of a decompressed payload, larger frames are rejected
+     * before decompressing. Default is 16777216, 16 MiB
+     */
+    public static final String MAX_DECOMPRESSED_CONFIG = "cloudevents.avro.zstd.max.decompressed.bytes";
+
+    static final String SUFFIX = ".dict";
+    private static final String CODEC_PREFIX = "zstd:";
+    private static final int DEFAULT_LEVEL = 3;
+    private static final int DEFAULT_MAX_DECOMPRESSED = 16 * 1024 * 1024;
+    private static final int HEADER_SIZE = 1 + 4;
+
+    private static final int FRAME_MAGIC = 0xFD2FB528;
+
+    private static final class Dictionary {
+        final byte[] codec;
+        final ZstdDictCompress compress;
+
+        Dictionary(long id, ZstdDictCompress compress) {
+            this.codec = (CODEC_PREFIX + id).getBytes();
+            this.compress = compress;
+        }
+    }
+
+    private final Map<String, Dictionary> bySchema;
+    private final Map<String, ZstdDictDecompress> byCodec;
+    private final int maxDecompressed;
+
+    private ZstdDictionaries(Map<String, Dictionary> bySchema, Map<String, ZstdDictDecompress> byCodec,
+            int maxDecompressed) {
+        this.bySchema = bySchema;
+        this.byCodec = byCodec;
+        this.maxDecompressed = maxDecompressed;
+    }
+
+    /**
+     * @return The dictionaries in the configured directory, or {@code null}
+     * when not configured
+     */
+    static ZstdDictionaries of(Map<String, ?> configs) {
+        var directory = configs.get(DIRECTORY_CONFIG);
+        if(directory == null){
+            return null;
+        }
+
+        return load(Paths.get(directory.toString()), levelOf(configs), maxDecompressedOf(configs));
+    }
+
+    static int levelOf(Map<String, ?> configs) {
+        var config = configs.get(LEVEL_CONFIG);
+
+        if(config == null){
+            return DEFAULT_LEVEL;
+        } else if(config instanceof Number){
+            return ((Number)config).intValue();
+        } else {
+            return Integer.parseInt(config.toString().trim());
+        }
+    }
+
+    static int maxDecompressedOf(Map<String, ?> configs) {
+        var config = configs.get(MAX_DECOMPRESSED_CONFIG);
+
+        int result;
+        if(config == null){
+            return DEFAULT_MAX_DECOMPRESSED;
+        } else if(config instanceof Number){
+            result = ((Number)config).intValue();
+        } else {
+            result = Integer.parseInt(config.toString().trim());
+        }
+
+        if(result <= 0 || result > Integer.MAX_VALUE - HEADER_SIZE){
+            throw new IllegalArgumentException(MAX_DECOMPRESSED_CONFIG + " must be greater than zero"
+                + " and less than " + (Integer.MAX_VALUE - HEADER_SIZE));
+        }
+        return result;
+    }
+
+    static ZstdDictionaries load(Path directory, int level, int maxDecompressed) {
+        var bySchema = new HashMap<String, Dictionary>();
+        var byCodec = new HashMap<String, ZstdDictDecompress>();
+
+        try(var files = Files.list(directory)){
+            for(var file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+                    .collect(Collectors.toList())){
+
+                var name = file.getFileName().toString();
+                var schema = name.substring(0, name.length() - SUFFIX.length());
+
+                var content = Files.readAllBytes(file);
+                var id = Zstd.getDictIdFromDict(content);
+                if(id == 0){
+                    throw new IllegalArgumentException("Not a zstd dictionary: " + file);
+                }
+
+                var dictionary = new Dictionary(id, new ZstdDictCompress(content, level));
+                bySchema.put(schema, dictionary);
+                byCodec.put(new String(dictionary.codec), new ZstdDictDecompress(content));
+
+                log.debug("zstd dictionary {} for {}", id, schema);
+            }
+        }catch(IOException e){
+            bySchema.values().forEach(dictionary -> dictionary.compress.close());
+            byCodec.values().forEach(ZstdDictDecompress::close);
+            throw new UncheckedIOException(e);
+        }
+
+        return new ZstdDictionaries(bySchema, byCodec, maxDecompressed);
+    }
+
+    /**
+     * @param schema Full name of the data schema
+     * @param bytes Wire format value
+     * @return The compressed value, or the same one when there is no
+     * dictionary for the schema or it would not get smaller
+     */
+    byte[] compress(String schema, byte[] bytes, Headers headers) {
+        var dictionary = bySchema.get(schema);
+        if(dictionary == null || bytes.length <= HEADER_SIZE){
+            return bytes;
+        }
+
+        var length = bytes.length - HEADER_SIZE;
+        var result = new byte[HEADER_SIZE + (int)Zstd.compressBound(length)];
+        System.arraycopy(bytes, 0, result, 0, HEADER_SIZE);
+
+        var size = Zstd.compressFastDict(result, HEADER_SIZE, bytes, HEADER_SIZE, length, dictionary.compress);
+        if(Zstd.isError(size)){
+            throw new SerializationException("Error compressing with zstd: " + Zstd.getErrorName(size));
+        }
+
+        if(HEADER_SIZE + size >= bytes.length){
+            return bytes;
+        }
+
+        headers.remove(HEADER);
+        headers.add(HEADER, dictionary.codec);
+
+        return Arrays.copyOf(result, HEADER_SIZE + (int)size);
+    }
+
+    /**
+     * The Frame_Content_Size of the frame header, as in RFC 8878, read in
+     * place: zstd-jni reads it just from a whole array.
+     *
+     * @return The content size, or -1 when the frame does not have it
+     */
+    static long contentSizeOf(byte[] bytes, int offset) {
+        if(bytes.length - offset < 5
+                || (bytes[offset] & 0xFF | (bytes[offset + 1] & 0xFF) << 8
+                    | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24) != FRAME_MAGIC){
+            throw new SerializationException("Not a zstd frame");
+        }
+
+        var descriptor = bytes[offset + 4] & 0xFF;
+        var singleSegment = (descriptor & 0x20) != 0;
+        var fcsFlag = descriptor >>> 6;
+        var didFlag = descriptor & 0x03;
+
+        var position = offset + 5 + (singleSegment ? 0 : 1) + (didFlag == 3 ? 4 : didFlag);
+        var fcsSize = (fcsFlag == 0 ? (singleSegment ? 1 : 0) : 1 << fcsFlag);
+        if(fcsSize == 0){
+            return -1;
+        } else if(bytes.length - position < fcsSize){
+            throw new SerializationException("Truncated zstd frame header");
+        }
+
+        long size = 0;
+        for(int i = fcsSize - 1; i >= 0; i--){
+            size = (size << 8) | (bytes[position + i] & 0xFF);
+        }
+        return (fcsSize == 2 ? size + 256 : size);
+    }
+
+    /**
+     * @param codec Value of the {@code avrocodec} extension
+     * @param bytes Compressed wire format value
+     * @return The uncompressed wire format value
+     */
+    byte[] decompress(String codec, byte[] bytes) {
+        var dictionary = byCodec.get(codec);
+        if(dictionary == null){
+            throw new SerializationException("No zstd dictionary for " + EXTENSION + "=" + codec);
+        }
+
+        var length = contentSizeOf(bytes, HEADER_SIZE);
+        if(length <= 0){
+            throw new SerializationException("Invalid zstd frame content size " + length);
+        } else if(length > maxDecompressed){
+            throw new SerializationException("zstd frame content size " + length
+                + " greater than " + MAX_DECOMPRESSED_CONFIG + "=" + maxDecompressed);
+        }
+
+        var result = new byte[HEADER_SIZE + (int)length];
+        System.arraycopy(bytes, 0, result, 0, HEADER_SIZE);
+
+        var size = Zstd.decompressFastDict(result, HEADER_SIZE, bytes, HEADER_SIZE,
+            bytes.length - HEADER_SIZE, dictionary);
+        if(Zstd.isError(size) || size != length){
+            throw new SerializationException("Error decompressing with zstd: "
+                + (Zstd.isError(size) ? Zstd.getErrorName(size) : "size " + size));
+        }
+
+        return result;
+    }
+
+    /**
+     * Releases the native dictionaries, they can not be used after
+     */
+    void close() {
+        bySchema.values().forEach(dictionary -> dictionary.compress.close());
+        byCodec.values().forEach(ZstdDictDecompress::close);
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+
+/**
+ * Trains the zstd dictionaries used by {@link ZstdDictionaries}, one per
+ * data schema, with samples of the Avro values.
+ *
+ * <p>As command line tool, the samples are Avro data files:
+ * <pre>
+ * java -cp ... io.github.kattlo.cloudevents.ZstdDictionaryTrainer \
+ *   [--size &lt;bytes&gt;] &lt;output directory&gt; &lt;samples.avro&gt;...
+ * </pre>
+ * Writes {@code <schema full name>.dict} in the output directory.
+ *
+ * @author fabiojose
+ */
+public final class ZstdDictionaryTrainer {
+
+    public static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+
+    private static final int MAX_SAMPLES_SIZE = 64 * 1024 * 1024;
+
+    private ZstdDictionaryTrainer() {
+    }
+
+    /**
+     * @param samples Values of the same data schema, at least some hundreds
+     * of them for a useful dictionary
+     * @param size Max size of the dictionary, in bytes
+     * @return The dictionary
+     */
+    public static byte[] train(Collection<? extends IndexedRecord> samples, int size) {
+        if(samples.isEmpty()){
+            throw new IllegalArgumentException("samples must not be empty");
+        }
+
+        var schema = samples.iterator().next().getSchema();
+        var writer = writerOf(schema, samples.iterator().next());
+
+        var out = new ByteArrayOutputStream(256);
+        var encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+        var encoded = new ArrayList<byte[]>(samples.size());
+        try {
+            for(var sample : samples){
+                if(!schema.equals(sample.getSchema())){
+                    throw new IllegalArgumentException("samples must have the same schema: "
+                        + schema.getFullName() + ", " + sample.getSchema().getFullName());
+                }
+
+                out.reset();
+                writer.write(sample, encoder);
+                encoded.add(out.toByteArray());
+            }
+        }catch(IOException e){
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+
+        return trainEncoded(encoded, size);
+    }
+
+    /**
+     * @param samples Avro binary values, without the magic byte and schema id
+     * @param size Max size of the dictionary, in bytes
+     * @return The dictionary
+     */
+    public static byte[] trainEncoded(List<byte[]> samples, int size) {
+        var total = 0L;
+        for(var sample : samples){
+            total += sample.length;
+        }
+
+        var trainer = new ZstdDictTrainer((int)Math.min(total, MAX_SAMPLES_SIZE), size);
+        for(var sample : samples){
+            if(!trainer.addSample(sample)){
+                break;
+            }
+        }
+
+        return trainer.trainSamples();
+    }
+
+    /**
+     * Writes the dictionary as {@code <schema full name>.dict}
+     *
+     * @return The written file
+     */
+    public static Path write(Path directory, Schema schema, byte[] dictionary) throws IOException {
+        Files.createDirectories(directory);
+        return Files.write(directory.resolve(schema.getFullName() + ZstdDictionaries.SUFFIX), dictionary);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DatumWriter<Object> writerOf(Schema schema, IndexedRecord value) {
+        return (DatumWriter<Object>)(value instanceof SpecificRecord
+            ? new SpecificDatumWriter<>(schema)
+            : new GenericDatumWriter<>(schema));
+    }
+
+    private static List<IndexedRecord> read(Path file) throws IOException {
+        var result = new ArrayList<IndexedRecord>();
+        try(var reader = new DataFileReader<Object>(file.toFile(), new GenericDatumReader<>())){
+            for(var record : reader){
+                result.add((IndexedRecord)record);
+            }
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException {
+        var size = DEFAULT_DICTIONARY_SIZE;
+        var i = 0;
+        if(args.length > 1 && "--size".equals(args[0])){
+            size = Integer.parseInt(args[1]);
+            i = 2;
+        }
+
+        if(args.length - i < 2){
+            System.err.println("usage: ZstdDictionaryTrainer [--size <bytes>] <output directory> <samples.avro>...");
+            System.exit(1);
+        }
+
+        var output = Paths.get(args[i++]);
+
+        var samples = new ArrayList<IndexedRecord>();
+        for(; i < args.length; i++){
+            samples.addAll(read(Paths.get(args[i])));
+        }
+
+        var dictionary = train(samples, size);
+        var file = write(output, samples.get(0).getSchema(), dictionary);
+
+        System.out.println(samples.size() + " samples, " + dictionary.length + " bytes dictionary: " + file);
+    }
+}
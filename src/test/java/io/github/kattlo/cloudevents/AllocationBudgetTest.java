@@ -0,0 +1,253 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+/**
+ * Bytes allocated per record by serialize and deserialize, after warm-up,
+ * against the budgets of {@code allocation-budgets.properties}. When a
+ * change allocates less, lower the budget with it.
+ */
+public class AllocationBudgetTest {
+
+    private static final String BUDGETS = "/allocation-budgets.properties";
+
+    private static final int WARMUP = 20_000;
+    private static final int RECORDS = 5_000;
+    private static final int ROUNDS = 3;
+
+    private static final Schema WIDE;
+    private static final Schema NESTED;
+    static {
+        var fields = SchemaBuilder.record("Largo").namespace("org.acme").fields();
+        for(int i = 0; i < 10; i++){
+            fields = fields
+                .requiredLong("codigo" + i)
+                .requiredString("nome" + i)
+                .requiredDouble("valor" + i)
+                .requiredBoolean("ativo" + i);
+        }
+        WIDE = fields.endRecord();
+
+        var endereco = SchemaBuilder.record("Endereco").namespace("org.acme").fields()
+            .requiredString("rua")
+            .requiredString("cidade")
+        .endRecord();
+
+        var cliente = SchemaBuilder.record("Cliente").namespace("org.acme").fields()
+            .requiredString("nome")
+            .name("endereco").type(endereco).noDefault()
+        .endRecord();
+
+        var item = SchemaBuilder.record("Item").namespace("org.acme").fields()
+            .requiredString("sku")
+            .requiredLong("quantidade")
+            .requiredDouble("preco")
+        .endRecord();
+
+        NESTED = SchemaBuilder.record("Pedido").namespace("org.acme").fields()
+            .requiredString("id")
+            .name("cliente").type(cliente).noDefault()
+            .name("itens").type().array().items(item).noDefault()
+        .endRecord();
+    }
+
+    private static Properties budgets;
+
+    @BeforeAll
+    public static void budgets() throws IOException {
+        budgets = new Properties();
+        try(var in = AllocationBudgetTest.class.getResourceAsStream(BUDGETS)){
+            assertNotNull(in, BUDGETS + " not found");
+            budgets.load(in);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        var threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean,
+            "JVM without thread allocation measures");
+
+        var sun = (com.sun.management.ThreadMXBean)threads;
+        assumeTrue(sun.isThreadAllocatedMemorySupported(), "JVM without thread allocation measures");
+        if(!sun.isThreadAllocatedMemoryEnabled()){
+            sun.setThreadAllocatedMemoryEnabled(true);
+        }
+        return sun;
+    }
+
+    /**
+     * @return The least bytes per record of the rounds, so a JIT compilation
+     * in the middle of one does not fail the budget
+     */
+    private static long bytesPerRecord(IntConsumer operation) {
+        var threads = threads();
+        var id = Thread.currentThread().getId();
+
+        long least = Long.MAX_VALUE;
+        for(int round = 0; round < ROUNDS; round++){
+            var before = threads.getThreadAllocatedBytes(id);
+            for(int i = 0; i < RECORDS; i++){
+                operation.accept(i);
+            }
+            var after = threads.getThreadAllocatedBytes(id);
+
+            least = Math.min(least, (after - before) / RECORDS);
+        }
+        return least;
+    }
+
+    private static void assertWithinBudget(String scenario, long actual) {
+        var budget = budgets.getProperty(scenario);
+        assertNotNull(budget, scenario + " without budget in " + BUDGETS);
+
+        assertTrue(actual <= Long.parseLong(budget.trim()),
+            scenario + " allocated " + actual + " bytes per record, the budget is " + budget);
+    }
+
+    private static CloudEvent eventOf(IndexedRecord value) {
+        return CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(value.getSchema().getFullName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(value))
+            .build();
+    }
+
+    private static Headers[] headers() {
+        var headers = new Headers[RECORDS];
+        for(int i = 0; i < RECORDS; i++){
+            headers[i] = new RecordHeaders();
+        }
+        return headers;
+    }
+
+    private static void assertScenario(String scenario, IndexedRecord value) {
+
+        var topico = "meu-topico-alocacao";
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+
+        serializer.configure(configs, Boolean.FALSE);
+        deserializer.configure(configs, Boolean.FALSE);
+
+        var evento = eventOf(value);
+
+        // warm-up
+        for(int i = 0; i < WARMUP; i++){
+            var headers = new RecordHeaders();
+            deserializer.deserialize(topico, headers, serializer.serialize(topico, headers, evento));
+        }
+
+        // serialize
+        var serializeHeaders = new ArrayList<Headers[]>();
+        for(int round = 0; round < ROUNDS; round++){
+            serializeHeaders.add(headers());
+        }
+        var round = new int[1];
+        var serialized = new byte[RECORDS][];
+
+        var serialize = bytesPerRecord(i -> {
+            var headers = serializeHeaders.get(round[0])[i];
+            serialized[i] = serializer.serialize(topico, headers, evento);
+            if(i == RECORDS - 1){
+                round[0]++;
+            }
+        });
+
+        // deserialize, the headers of the last round
+        var deserializeHeaders = serializeHeaders.get(ROUNDS - 1);
+        var deserialize = bytesPerRecord(i -> deserializer.deserialize(topico,
+            deserializeHeaders[i], serialized[i]));
+
+        serializer.close();
+        deserializer.close();
+
+        assertWithinBudget(scenario + ".serialize", serialize);
+        assertWithinBudget(scenario + ".deserialize", deserialize);
+    }
+
+    @Test
+    public void should_keep_small_records_within_the_budget() {
+
+        assertScenario("small", new AvroEventDataExample(130l, "Nome 130", "Descrição 130"));
+    }
+
+    @Test
+    public void should_keep_wide_records_within_the_budget() {
+
+        var valor = new GenericData.Record(WIDE);
+        for(int i = 0; i < 10; i++){
+            valor.put("codigo" + i, 130l + i);
+            valor.put("nome" + i, "Nome " + i);
+            valor.put("valor" + i, 13.0 * i);
+            valor.put("ativo" + i, i % 2 == 0);
+        }
+
+        assertScenario("wide", valor);
+    }
+
+    @Test
+    public void should_keep_nested_records_within_the_budget() {
+
+        var endereco = new GenericData.Record(NESTED.getField("cliente").schema()
+            .getField("endereco").schema());
+        endereco.put("rua", "Rua 130");
+        endereco.put("cidade", "Porto Alegre");
+
+        var cliente = new GenericData.Record(NESTED.getField("cliente").schema());
+        cliente.put("nome", "Nome 130");
+        cliente.put("endereco", endereco);
+
+        var itemSchema = NESTED.getField("itens").schema().getElementType();
+        var itens = new ArrayList<GenericData.Record>();
+        for(int i = 0; i < 5; i++){
+            var item = new GenericData.Record(itemSchema);
+            item.put("sku", "SKU-" + i);
+            item.put("quantidade", (long)i + 1);
+            item.put("preco", 9.9 * (i + 1));
+            itens.add(item);
+        }
+
+        var valor = new GenericData.Record(NESTED);
+        valor.put("id", UUID.randomUUID().toString());
+        valor.put("cliente", cliente);
+        valor.put("itens", itens);
+
+        assertScenario("nested", valor);
+    }
+}
@@ -0,0 +1,291 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class AvroCloudEventConverterTest {
+
+    private static final Schema PEDIDO;
+    static {
+        var decimal = LogicalTypes.decimal(10, 2).addToSchema(Schema.create(Schema.Type.BYTES));
+        var timestamp = LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG));
+
+        var item = SchemaBuilder.record("Item").namespace("org.acme").fields()
+            .requiredString("sku")
+            .name("preco").type(decimal).noDefault()
+        .endRecord();
+
+        PEDIDO = SchemaBuilder.record("Pedido").namespace("org.acme").fields()
+            .requiredString("id")
+            .name("criado").type(timestamp).noDefault()
+            .optionalString("observacao")
+            .name("itens").type().array().items(item).noDefault()
+            .name("atributos").type().map().values().stringType().noDefault()
+            .name("situacao").type().enumeration("Situacao").symbols("ABERTO", "FECHADO").noDefault()
+        .endRecord();
+    }
+
+    private static Map<String, Object> configs() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        return configs;
+    }
+
+    private static GenericRecord pedido() {
+        var itemSchema = PEDIDO.getField("itens").schema().getElementType();
+        var item = new GenericData.Record(itemSchema);
+        item.put("sku", "SKU-130");
+        item.put("preco", new org.apache.avro.Conversions.DecimalConversion().toBytes(
+            new BigDecimal("13.09"), itemSchema.getField("preco").schema(),
+            itemSchema.getField("preco").schema().getLogicalType()));
+
+        var valor = new GenericData.Record(PEDIDO);
+        valor.put("id", "pedido-130");
+        valor.put("criado", 1_600_000_000_000l);
+        valor.put("observacao", null);
+        valor.put("itens", List.of(item));
+        valor.put("atributos", Map.of("canal", "loja"));
+        valor.put("situacao", new GenericData.EnumSymbol(PEDIDO.getField("situacao").schema(), "ABERTO"));
+        return valor;
+    }
+
+    @Test
+    public void should_map_headers_and_data_to_the_struct() {
+
+        // setup
+        var topico = "meu-topico-connect";
+        var registry = new MockSchemaRegistryClient();
+
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs(), false);
+
+        var converter = new AvroCloudEventConverter(registry);
+        converter.configure(configs(), false);
+
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(AvroEventDataExample.class.getName())
+            .withSubject("assunto")
+            .withExtension("tenant", "acme")
+            .withExtension("prioridade", 7)
+            .withData(AvroCloudEventData.MIME_TYPE,
+                new AvroCloudEventData<>(new AvroEventDataExample(130l, "Nome 130", "Descrição 130")))
+            .build();
+
+        var headers = new RecordHeaders();
+        var valor = serializer.serialize(topico, headers, evento);
+
+        // act
+        var actual = converter.toConnectData(topico, headers, valor);
+
+        // assert
+        assertEquals(AvroCloudEventConverter.ENVELOPE_NAME, actual.schema().name());
+
+        var struct = (Struct)actual.value();
+        assertEquals(evento.getId(), struct.getString(AvroCloudEventConverter.ID_FIELD));
+        assertEquals("/exemplo/enviar", struct.getString(AvroCloudEventConverter.SOURCE_FIELD));
+        assertEquals("assunto", struct.getString(AvroCloudEventConverter.SUBJECT_FIELD));
+        assertEquals("acme", struct.getMap(AvroCloudEventConverter.EXTENSIONS_FIELD).get("tenant"));
+        // the binary mode carries the extensions as strings
+        assertEquals("7", struct.getMap(AvroCloudEventConverter.EXTENSIONS_FIELD).get("prioridade"));
+
+        var dado = struct.getStruct(AvroCloudEventConverter.DATA_FIELD);
+        assertEquals(130l, dado.getInt64("code"));
+        assertEquals("Nome 130", dado.getString("name"));
+
+        serializer.close();
+        converter.close();
+    }
+
+    @Test
+    public void should_map_the_time_with_its_zero_seconds() {
+
+        // setup
+        var topico = "meu-topico-connect";
+        var registry = new MockSchemaRegistryClient();
+
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs(), false);
+
+        var converter = new AvroCloudEventConverter(registry);
+        converter.configure(configs(), false);
+
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(AvroEventDataExample.class.getName())
+            .withTime(OffsetDateTime.parse("2021-03-01T10:15:00-03:00"))
+            .withData(AvroCloudEventData.MIME_TYPE,
+                new AvroCloudEventData<>(new AvroEventDataExample(131l, "Nome 131", "Descrição 131")))
+            .build();
+
+        var headers = new RecordHeaders();
+        var valor = serializer.serialize(topico, headers, evento);
+
+        // act
+        var actual = converter.toConnectData(topico, headers, valor);
+
+        // assert
+        var struct = (Struct)actual.value();
+        assertEquals("2021-03-01T10:15:00-03:00", struct.getString(AvroCloudEventConverter.TIME_FIELD));
+
+        serializer.close();
+        converter.close();
+    }
+
+    @Test
+    public void should_convert_back_for_source_connectors() {
+
+        // setup
+        var topico = "meu-topico-connect";
+        var registry = new MockSchemaRegistryClient();
+
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs(), false);
+
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        deserializer.configure(configs(), false);
+
+        var converter = new AvroCloudEventConverter(registry);
+        converter.configure(configs(), false);
+
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(PEDIDO.getFullName())
+            .withTime(OffsetDateTime.parse("2021-03-01T10:15:30.123Z"))
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(pedido()))
+            .build();
+
+        var headers = new RecordHeaders();
+        var connect = converter.toConnectData(topico, headers, serializer.serialize(topico, headers, evento));
+
+        var dado = ((Struct)connect.value()).getStruct(AvroCloudEventConverter.DATA_FIELD);
+        assertEquals(new BigDecimal("13.09"), dado.<Struct>getArray("itens").get(0).get("preco"));
+        assertEquals("ABERTO", dado.getString("situacao"));
+        assertNull(dado.getString("observacao"));
+
+        // act
+        var saida = new RecordHeaders();
+        var valor = converter.fromConnectData("outro-topico", saida, connect.schema(), connect.value());
+
+        // assert
+        var actual = deserializer.deserialize("outro-topico", saida, valor);
+        assertEquals(evento.getId(), actual.getId());
+        assertEquals(evento.getTime(), actual.getTime());
+
+        GenericRecord registro = AvroCloudEventData.dataOf(actual.getData());
+        assertEquals("pedido-130", registro.get("id").toString());
+        assertEquals(1_600_000_000_000l, registro.get("criado"));
+        assertEquals("loja", ((Map<?, ?>)registro.get("atributos")).entrySet().iterator().next()
+            .getValue().toString());
+        assertEquals("SKU-130", ((GenericRecord)((List<?>)registro.get("itens")).get(0)).get("sku")
+            .toString());
+
+        serializer.close();
+        deserializer.close();
+        converter.close();
+    }
+
+    @Test
+    public void should_cache_the_schema_translation() {
+
+        // setup
+        var topico = "meu-topico-connect";
+        var registry = new MockSchemaRegistryClient();
+
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs(), false);
+
+        var converter = new AvroCloudEventConverter(registry);
+        converter.configure(configs(), false);
+
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(PEDIDO.getFullName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(pedido()))
+            .build();
+
+        var headers1 = new RecordHeaders();
+        var valor1 = serializer.serialize(topico, headers1, evento);
+        var headers2 = new RecordHeaders();
+        var valor2 = serializer.serialize(topico, headers2, evento);
+
+        // act
+        var primeiro = converter.toConnectData(topico, headers1, valor1);
+        var segundo = converter.toConnectData(topico, headers2, valor2);
+
+        // assert
+        assertNotNull(primeiro.schema());
+        assertSame(primeiro.schema(), segundo.schema());
+
+        assertThrows(DataException.class, () ->
+            converter.fromConnectData(topico, new RecordHeaders(),
+                org.apache.kafka.connect.data.Schema.STRING_SCHEMA, "nao e um evento"));
+
+        serializer.close();
+        converter.close();
+    }
+
+    @Test
+    public void should_convert_events_without_data() {
+
+        // setup
+        var topico = "meu-topico-connect";
+        var converter = new AvroCloudEventConverter(new MockSchemaRegistryClient());
+        converter.configure(configs(), false);
+
+        var struct = new Struct(AvroCloudEventConverter.DATALESS_SCHEMA)
+            .put(AvroCloudEventConverter.SPECVERSION_FIELD, "1.0")
+            .put(AvroCloudEventConverter.ID_FIELD, "id-130")
+            .put(AvroCloudEventConverter.SOURCE_FIELD, "/exemplo/heartbeat")
+            .put(AvroCloudEventConverter.TYPE_FIELD, "exemplo.heartbeat");
+
+        var headers = new RecordHeaders();
+
+        // act
+        var valor = converter.fromConnectData(topico, headers, struct.schema(), struct);
+        var actual = converter.toConnectData(topico, headers, valor);
+
+        // assert
+        assertNull(valor);
+        assertSame(AvroCloudEventConverter.DATALESS_SCHEMA, actual.schema());
+        assertEquals("id-130", ((Struct)actual.value()).getString(AvroCloudEventConverter.ID_FIELD));
+
+        assertNull(converter.toConnectData(topico, new RecordHeaders(), null).value());
+
+        converter.close();
+    }
+}
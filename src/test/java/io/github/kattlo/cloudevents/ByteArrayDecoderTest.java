@@ -0,0 +1,108 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.Utf8;
+import org.junit.jupiter.api.Test;
+
+public class ByteArrayDecoderTest {
+
+    private static final Schema SCHEMA = SchemaBuilder.record("Todos").namespace("org.acme")
+        .fields()
+            .requiredBoolean("ativo")
+            .requiredInt("inteiro")
+            .requiredLong("longo")
+            .requiredFloat("flutuante")
+            .requiredDouble("duplo")
+            .requiredString("texto")
+            .requiredBytes("bytes")
+            .optionalString("opcional")
+            .name("lista").type().array().items().longType().noDefault()
+            .name("mapa").type().map().values().stringType().noDefault()
+            .name("fixo").type().fixed("Fixo").size(3).noDefault()
+            .name("enumerado").type().enumeration("Cor").symbols("AZUL", "VERDE").noDefault()
+        .endRecord();
+
+    private static byte[] encode(GenericRecord record) throws Exception {
+        var out = new ByteArrayOutputStream();
+        var encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(SCHEMA).write(record, encoder);
+        encoder.flush();
+
+        return out.toByteArray();
+    }
+
+    @Test
+    public void should_decode_every_avro_type() throws Exception {
+
+        // setup
+        var expected = new GenericData.Record(SCHEMA);
+        expected.put("ativo", true);
+        expected.put("inteiro", -300);
+        expected.put("longo", Long.MAX_VALUE);
+        expected.put("flutuante", 3.5f);
+        expected.put("duplo", -1.25d);
+        expected.put("texto", new Utf8("Descrição 300"));
+        expected.put("bytes", ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        expected.put("opcional", null);
+        expected.put("lista", List.of(1l, -2l, 300000000000l));
+        expected.put("mapa", Map.of(new Utf8("chave"), new Utf8("valor")));
+        expected.put("fixo", new GenericData.Fixed(SCHEMA.getField("fixo").schema(), new byte[]{7, 8, 9}));
+        expected.put("enumerado", new GenericData.EnumSymbol(SCHEMA.getField("enumerado").schema(), "VERDE"));
+
+        var bytes = encode(expected);
+
+        // act
+        var actual = new GenericDatumReader<GenericRecord>(SCHEMA)
+            .read(null, new ByteArrayDecoder().configure(bytes, 0, bytes.length));
+
+        // assert
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void should_keep_the_position_of_the_last_string() throws Exception {
+
+        // setup
+        var padding = new byte[]{9, 9};
+        var texto = "Nome 300".getBytes();
+
+        var bytes = new byte[padding.length + 1 + texto.length];
+        bytes[padding.length] = (byte)(texto.length << 1);
+        System.arraycopy(texto, 0, bytes, padding.length + 1, texto.length);
+
+        var decoder = new ByteArrayDecoder().configure(bytes, padding.length, bytes.length - padding.length);
+
+        // act
+        decoder.skipString();
+
+        // assert
+        assertEquals(padding.length + 1, decoder.lastOffset());
+        assertEquals(texto.length, decoder.lastLength());
+    }
+
+    @Test
+    public void should_throw_when_payload_is_truncated() {
+
+        // setup
+        var bytes = new byte[]{(byte)(10 << 1), 'a', 'b'};
+        var decoder = new ByteArrayDecoder().configure(bytes, 0, bytes.length);
+
+        // act
+        assertThrows(EOFException.class, () -> decoder.readString(null));
+    }
+}
@@ -0,0 +1,160 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class CaptureReplayToolTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    public void should_read_the_appended_records() throws Exception {
+
+        // setup
+        var arquivo = diretorio.resolve("captura.cap");
+
+        var headers = new RecordHeaders();
+        headers.add("ce_id", "1".getBytes(StandardCharsets.UTF_8));
+        headers.add("ce_nulo", null);
+
+        try(var writer = new CaptureWriter(arquivo, "meu-topico")){
+            writer.append(10l, headers, new byte[] {0, 0, 0, 0, 7, 1, 2});
+            writer.append(11l, new RecordHeaders(), null);
+        }
+
+        // act
+        try(var writer = new CaptureWriter(arquivo, "meu-topico")){
+            writer.append(12l, new RecordHeaders(), new byte[] {3});
+        }
+
+        var lidos = new ArrayList<CapturedRecord>();
+        long total;
+        try(var reader = new CaptureReader(arquivo)){
+            total = reader.forEach(lidos::add);
+
+            // assert
+            assertEquals("meu-topico", reader.getTopic());
+        }
+
+        assertEquals(3, total);
+        assertEquals(10l, lidos.get(0).getTimestamp());
+        assertArrayEquals("1".getBytes(StandardCharsets.UTF_8),
+            lidos.get(0).getHeaders().lastHeader("ce_id").value());
+        assertNull(lidos.get(0).getHeaders().lastHeader("ce_nulo").value());
+        assertArrayEquals(new byte[] {0, 0, 0, 0, 7, 1, 2}, lidos.get(0).getValue());
+        assertNull(lidos.get(1).getValue());
+        assertArrayEquals(new byte[] {3}, lidos.get(2).getValue());
+
+        assertThrows(IllegalArgumentException.class, () -> new CaptureWriter(arquivo, "outro-topico"));
+    }
+
+    @Test
+    public void should_drop_the_truncated_last_record() throws Exception {
+
+        // setup
+        var arquivo = diretorio.resolve("captura.cap");
+
+        try(var writer = new CaptureWriter(arquivo, "meu-topico")){
+            writer.append(10l, new RecordHeaders(), new byte[] {1});
+            writer.append(11l, new RecordHeaders(), new byte[100]);
+        }
+
+        try(var channel = FileChannel.open(arquivo, StandardOpenOption.WRITE)){
+            channel.truncate(Files.size(arquivo) - 10);
+        }
+
+        // act
+        long lidos;
+        try(var reader = new CaptureReader(arquivo)){
+            lidos = reader.forEach(r -> {});
+        }
+
+        try(var writer = new CaptureWriter(arquivo, "meu-topico")){
+            writer.append(12l, new RecordHeaders(), new byte[] {2});
+        }
+
+        var valores = new ArrayList<byte[]>();
+        try(var reader = new CaptureReader(arquivo)){
+            reader.forEach(r -> valores.add(r.getValue()));
+        }
+
+        // assert
+        assertEquals(1, lidos);
+        assertEquals(2, valores.size());
+        assertArrayEquals(new byte[] {2}, valores.get(1));
+    }
+
+    @Test
+    public void should_replay_the_capture_with_the_schema_snapshot() throws Exception {
+
+        // setup
+        var topico = "meu-topico-replay";
+        var arquivo = diretorio.resolve("captura.cap");
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+
+        serializer.configure(configs, Boolean.FALSE);
+
+        try(var writer = new CaptureWriter(arquivo, topico)){
+            for(int i = 0; i < 50; i++){
+                var valor = new AvroEventDataExample((long)i, "Nome " + i, "Descrição " + i);
+                var evento = CloudEventBuilder.v1()
+                    .withId(UUID.randomUUID().toString())
+                    .withSource(URI.create("/exemplo/enviar"))
+                    .withType(valor.getClass().getName())
+                    .withTime(OffsetDateTime.now())
+                    .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+                    .build();
+
+                var headers = new RecordHeaders();
+                var bytes = serializer.serialize(topico, headers, evento);
+                writer.append(System.currentTimeMillis(), headers, bytes);
+            }
+
+            SchemaSnapshot.write(CaptureReplayTool.schemasOf(arquivo), registry, writer.getSchemaIds());
+        }
+        serializer.close();
+
+        // act
+        var report = CaptureReplayTool.replay(arquivo, Map.of(), 1, 2);
+
+        // assert
+        assertEquals(100, report.getRecords());
+        assertEquals(100, report.getLatency().getCount());
+        assertTrue(report.getRecordsPerSecond() > 0);
+        assertEquals(1, SchemaSnapshot.read(CaptureReplayTool.schemasOf(arquivo)).size());
+    }
+}
@@ -0,0 +1,404 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.cloudevents.kafka.PartitionKeyExtensionInterceptor;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class CloudEventConsumerTest {
+
+    private static final String TOPICO = "meu-topico-consumidor";
+    private static final TopicPartition PARTICAO = new TopicPartition(TOPICO, 0);
+
+    private MockConsumer<String, CloudEvent> mock;
+    private ExecutorService executor;
+    private Thread loop;
+
+    @BeforeEach
+    public void beforeEach() {
+        mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        mock.assign(List.of(PARTICAO));
+        mock.updateBeginningOffsets(Map.of(PARTICAO, 0l));
+
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        executor.shutdownNow();
+    }
+
+    private void start(CloudEventConsumer<String> consumer) {
+        loop = new Thread(consumer);
+        loop.start();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.currentTimeMillis() + 10_000;
+        while(!condition.getAsBoolean()){
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    private static CloudEvent evento(String partitionKey) {
+        var builder = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/consumir"))
+            .withType("exemplo.consumir");
+
+        if(partitionKey != null){
+            builder.withExtension(PartitionKeyExtensionInterceptor.PARTITION_KEY_EXTENSION, partitionKey);
+        }
+
+        return builder.build();
+    }
+
+    private void add(long offset, String key, String partitionKey) {
+        mock.addRecord(new ConsumerRecord<>(TOPICO, 0, offset, key, evento(partitionKey)));
+    }
+
+    @Test
+    public void should_handle_the_events_of_each_key_in_order() throws Exception {
+
+        // setup
+        Map<String, List<Long>> handled = new ConcurrentHashMap<>();
+        var consumer = new CloudEventConsumer<String>(mock, record ->
+            handled.computeIfAbsent(record.key(), k -> Collections.synchronizedList(new ArrayList<>()))
+                .add(record.offset()),
+            executor, Map.of(CloudEventConsumer.LANES_CONFIG, 8));
+
+        for(long offset = 0; offset < 1000; offset++){
+            add(offset, "chave-" + (offset % 13), null);
+        }
+
+        // act
+        start(consumer);
+        await(() -> consumer.handled() == 1000);
+        consumer.close();
+
+        // assert
+        assertEquals(13, handled.size());
+        handled.values().forEach(offsets -> {
+            var sorted = new ArrayList<>(offsets);
+            Collections.sort(sorted);
+            assertEquals(sorted, offsets);
+        });
+        assertEquals(1000, mock.committed(Set.of(PARTICAO)).get(PARTICAO).offset());
+    }
+
+    @Test
+    public void should_shard_by_the_partitionkey_extension() throws Exception {
+
+        // setup
+        var order = Collections.synchronizedList(new ArrayList<Long>());
+        var consumer = new CloudEventConsumer<String>(mock, record -> order.add(record.offset()),
+            executor, Map.of());
+
+        // same partitionkey, distinct record keys
+        for(long offset = 0; offset < 500; offset++){
+            add(offset, "chave-" + offset, "agregado-1");
+        }
+
+        // act
+        start(consumer);
+        await(() -> consumer.handled() == 500);
+        consumer.close();
+
+        // assert
+        for(int i = 0; i < 500; i++){
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    public void should_not_commit_beyond_a_pending_event() throws Exception {
+
+        // setup
+        var release = new CountDownLatch(1);
+        var consumer = new CloudEventConsumer<String>(mock, record -> {
+                if("lenta".equals(record.key())){
+                    release.await();
+                }
+            },
+            executor, Map.of(CloudEventConsumer.COMMIT_INTERVAL_MS_CONFIG, "0"));
+
+        add(0, "rapida", null);
+        add(1, "lenta", null);
+        for(long offset = 2; offset < 10; offset++){
+            add(offset, "rapida-" + offset, null);
+        }
+
+        // act
+        start(consumer);
+        await(() -> consumer.handled() == 9);
+        await(() -> mock.committed(Set.of(PARTICAO)).get(PARTICAO) != null);
+
+        // assert
+        assertEquals(1, mock.committed(Set.of(PARTICAO)).get(PARTICAO).offset());
+
+        release.countDown();
+        await(() -> consumer.handled() == 10);
+        consumer.close();
+
+        assertEquals(10, mock.committed(Set.of(PARTICAO)).get(PARTICAO).offset());
+    }
+
+    @Test
+    public void should_pause_and_resume_the_partition() throws Exception {
+
+        // setup
+        var release = new CountDownLatch(1);
+        var consumer = new CloudEventConsumer<String>(mock, record -> release.await(),
+            executor, Map.of(CloudEventConsumer.MAX_PENDING_CONFIG, 4));
+
+        for(long offset = 0; offset < 5; offset++){
+            add(offset, "chave", null);
+        }
+
+        // act
+        start(consumer);
+        await(() -> mock.paused().contains(PARTICAO));
+
+        // assert
+        release.countDown();
+        await(() -> consumer.handled() == 5);
+        await(() -> mock.paused().isEmpty());
+
+        consumer.close();
+        loop.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Test
+    public void should_close_before_run() {
+
+        // setup
+        var configs = new HashMap<String, Object>();
+        var consumer = new CloudEventConsumer<String>(mock, record -> {}, executor, configs);
+
+        // act
+        consumer.close();
+
+        // assert
+        assertEquals(0, consumer.handled());
+    }
+
+    @Test
+    public void should_skip_the_records_that_could_not_be_deserialized() throws Exception {
+
+        // setup
+        var handled = Collections.synchronizedList(new ArrayList<Long>());
+        var consumer = new CloudEventConsumer<String>(mock, record -> handled.add(record.offset()),
+            executor, Map.of());
+
+        add(0, "chave", null);
+        mock.addRecord(new ConsumerRecord<>(TOPICO, 0, 1, "chave",
+            new FailedCloudEvent(TOPICO, null, new byte[]{1, 2, 3},
+                PoisonPills.Cause.CORRUPT_PAYLOAD, new RuntimeException("corrompido"))));
+        add(2, "chave", null);
+
+        // act
+        start(consumer);
+        await(() -> consumer.handled() == 2);
+        consumer.close();
+
+        // assert
+        assertEquals(List.of(0l, 2l), handled);
+        assertEquals(1, consumer.poisoned());
+        assertEquals(3, mock.committed(Set.of(PARTICAO)).get(PARTICAO).offset());
+    }
+
+    @Test
+    public void should_handle_the_redelivered_events_of_a_stopped_partition() throws Exception {
+
+        // setup
+        var configs = new HashMap<String, Object>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG, "http://localhost:8081");
+        configs.put(DuplicateFilter.ENABLED_CONFIG, "true");
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs, false);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        deserializer.configure(configs, false);
+
+        var headers = new ArrayList<RecordHeaders>();
+        var valores = new ArrayList<byte[]>();
+        for(long offset = 0; offset < 5; offset++){
+            var valor = new AvroEventDataExample(offset, "Nome " + offset, "Descrição " + offset);
+            var evento = CloudEventBuilder.v1()
+                .withId(UUID.randomUUID().toString())
+                .withSource(URI.create("/exemplo/consumir"))
+                .withType(valor.getClass().getName())
+                .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+                .build();
+
+            headers.add(new RecordHeaders());
+            valores.add(serializer.serialize(TOPICO, headers.get((int)offset), evento));
+        }
+
+        // as the KafkaConsumer does with the deserializer
+        java.util.function.Consumer<MockConsumer<String, CloudEvent>> entregar = destino -> {
+            for(int offset = 0; offset < 5; offset++){
+                destino.addRecord(new ConsumerRecord<>(TOPICO, 0, offset, 0l, TimestampType.CREATE_TIME,
+                    0l, 0, 0, "chave", deserializer.deserialize(TOPICO, headers.get(offset), valores.get(offset)),
+                    headers.get(offset)));
+            }
+        };
+
+        var parar = new CloudEventConsumer<String>(mock, record -> {
+                if(record.offset() == 2){
+                    throw new IllegalStateException("sempre falha");
+                }
+            },
+            executor, deserializer.getDuplicateFilter(), Map.of(CloudEventConsumer.RETRIES_CONFIG, 0));
+
+        entregar.accept(mock);
+        start(parar);
+        await(() -> parar.failed() == 1);
+        parar.close();
+
+        var redelivery = new MockConsumer<String, CloudEvent>(OffsetResetStrategy.EARLIEST);
+        redelivery.assign(List.of(PARTICAO));
+        redelivery.updateBeginningOffsets(Map.of(PARTICAO, 0l));
+
+        var handled = Collections.synchronizedList(new ArrayList<Long>());
+        var consumer = new CloudEventConsumer<String>(redelivery, record -> handled.add(record.offset()),
+            executor, deserializer.getDuplicateFilter(), Map.of());
+
+        // act
+        entregar.accept(redelivery);
+        start(consumer);
+        await(() -> consumer.handled() == 3);
+        consumer.close();
+
+        // assert
+        assertEquals(2, parar.handled());
+        assertEquals(List.of(2l, 3l, 4l), handled);
+        assertEquals(2, consumer.skipped());
+        assertEquals(5, redelivery.committed(Set.of(PARTICAO)).get(PARTICAO).offset());
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_retry_the_event_whose_handler_threw() throws Exception {
+
+        // setup
+        var tentativas = new AtomicInteger();
+        var consumer = new CloudEventConsumer<String>(mock, record -> {
+                if(record.offset() == 1 && tentativas.incrementAndGet() < 3){
+                    throw new IllegalStateException("indisponivel");
+                }
+            },
+            executor, Map.of(CloudEventConsumer.RETRY_BACKOFF_MS_CONFIG, 1));
+
+        for(long offset = 0; offset < 3; offset++){
+            add(offset, "chave", null);
+        }
+
+        // act
+        start(consumer);
+        await(() -> consumer.handled() == 3);
+        consumer.close();
+
+        // assert
+        assertEquals(3, tentativas.get());
+        assertEquals(0, consumer.failed());
+        assertEquals(3, mock.committed(Set.of(PARTICAO)).get(PARTICAO).offset());
+    }
+
+    @Test
+    public void should_stop_the_partition_at_the_event_that_failed() throws Exception {
+
+        // setup
+        var handled = Collections.synchronizedList(new ArrayList<Long>());
+        var consumer = new CloudEventConsumer<String>(mock, record -> {
+                if(record.offset() == 2){
+                    throw new IllegalStateException("sempre falha");
+                }
+                handled.add(record.offset());
+            },
+            executor, Map.of(CloudEventConsumer.RETRIES_CONFIG, 1,
+                CloudEventConsumer.RETRY_BACKOFF_MS_CONFIG, 1));
+
+        for(long offset = 0; offset < 5; offset++){
+            add(offset, "chave", null);
+        }
+
+        // act
+        start(consumer);
+        await(() -> consumer.failed() == 1);
+        await(() -> mock.paused().contains(PARTICAO));
+        consumer.close();
+
+        // assert
+        assertEquals(List.of(0l, 1l), handled);
+        assertEquals(2, mock.committed(Set.of(PARTICAO)).get(PARTICAO).offset());
+    }
+
+    @Test
+    public void should_forward_the_event_that_failed_to_the_dead_letter() throws Exception {
+
+        // setup
+        var mortos = Collections.synchronizedList(new ArrayList<Long>());
+        CloudEventHandler<String> deadLetter = record -> mortos.add(record.offset());
+
+        var consumer = new CloudEventConsumer<String>(mock, record -> {
+                if(record.offset() == 1){
+                    throw new IllegalStateException("sempre falha");
+                }
+            },
+            executor, Map.of(CloudEventConsumer.RETRIES_CONFIG, 0,
+                CloudEventConsumer.DEAD_LETTER_CONFIG, deadLetter));
+
+        for(long offset = 0; offset < 3; offset++){
+            add(offset, "chave", null);
+        }
+
+        // act
+        start(consumer);
+        await(() -> consumer.handled() == 2);
+        consumer.close();
+
+        // assert
+        assertEquals(List.of(1l), mortos);
+        assertEquals(1, consumer.failed());
+        assertEquals(3, mock.committed(Set.of(PARTICAO)).get(PARTICAO).offset());
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class CloudEventDispatcherTest {
+
+    private static final String TOPICO = "meu-topico-dispatcher";
+
+    private static Map<String, Object> configs() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        return configs;
+    }
+
+    private static CloudEvent evento(String tipo, long i) {
+        var valor = new GenericData.Record(AvroEventDataExample.getClassSchema());
+        valor.put("code", i);
+        valor.put("name", "Nome " + i);
+        valor.put("description", "Descrição " + i);
+
+        return CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(tipo)
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+    }
+
+    private static ConsumerRecord<String, CloudEvent> registro(CloudEvent evento, Headers headers) {
+        return new ConsumerRecord<>(TOPICO, 0, 0l, 0l, TimestampType.CREATE_TIME,
+            null, 0, 0, null, evento, headers);
+    }
+
+    @Test
+    public void should_decode_into_the_class_of_the_type_and_dispatch() throws Exception {
+
+        // setup
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs(), false);
+
+        var recebidos = new ArrayList<AvroEventDataExample>();
+        var desconhecidos = new ArrayList<CloudEvent>();
+        var dispatcher = new CloudEventDispatcher<String>(record -> desconhecidos.add(record.value()))
+            .on("org.acme.exemplo.criado", AvroEventDataExample.class, (record, data) -> recebidos.add(data));
+
+        var deserializerConfigs = configs();
+        deserializerConfigs.put(CloudEventDispatcher.DISPATCHER_CONFIG, dispatcher);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        deserializer.configure(deserializerConfigs, false);
+
+        var headers = new RecordHeaders();
+        var valor = serializer.serialize(TOPICO, headers, evento("org.acme.exemplo.criado", 130));
+
+        // act
+        var evento = deserializer.deserialize(TOPICO, headers, valor);
+        dispatcher.handle(registro(evento, headers));
+
+        // assert
+        assertTrue(AvroCloudEventData.dataOf(evento.getData()) instanceof AvroEventDataExample);
+        assertEquals(1, recebidos.size());
+        assertEquals(130l, recebidos.get(0).getCode());
+        assertEquals("Nome 130", recebidos.get(0).getName().toString());
+        assertTrue(desconhecidos.isEmpty());
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_dispatch_the_unknown_types_to_the_fallback() throws Exception {
+
+        // setup
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs(), false);
+
+        List<Object> recebidos = new ArrayList<>();
+        var desconhecidos = new ArrayList<CloudEvent>();
+        var dispatcher = new CloudEventDispatcher<String>(record -> desconhecidos.add(record.value()))
+            .on("org.acme.exemplo.criado", AvroEventDataExample.class, (record, data) -> recebidos.add(data))
+            .on("org.acme.exemplo.removido", AvroEventDataExample.class, (record, data) -> recebidos.add(data));
+
+        var deserializerConfigs = configs();
+        deserializerConfigs.put(CloudEventDispatcher.DISPATCHER_CONFIG, dispatcher);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        deserializer.configure(deserializerConfigs, false);
+
+        var headers = new RecordHeaders();
+        var valor = serializer.serialize(TOPICO, headers, evento("org.acme.exemplo.alterado", 7));
+
+        // act
+        var evento = deserializer.deserialize(TOPICO, headers, valor);
+        dispatcher.handle(registro(evento, headers));
+        dispatcher.handle(registro(evento, new RecordHeaders()));
+
+        // assert
+        assertTrue(recebidos.isEmpty());
+        assertEquals(2, desconhecidos.size());
+        assertTrue(AvroCloudEventData.dataOf(desconhecidos.get(0).getData()) instanceof GenericRecord);
+        assertNull(dispatcher.routeOf("org.acme.exemplo.alterado".getBytes(StandardCharsets.UTF_8)));
+
+        assertThrows(IllegalArgumentException.class, () ->
+            dispatcher.on("org.acme.exemplo.criado", AvroEventDataExample.class, (record, data) -> {}));
+
+        serializer.close();
+        deserializer.close();
+    }
+}
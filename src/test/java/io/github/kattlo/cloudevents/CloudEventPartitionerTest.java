@@ -0,0 +1,118 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.PartitionKeyExtensionInterceptor;
+
+public class CloudEventPartitionerTest {
+
+    private static final String TOPICO = "meu-topico-particoes";
+    private static final int PARTICOES = 12;
+
+    private static Cluster cluster() {
+        var node = new Node(0, "localhost", 9092);
+        var partitions = new ArrayList<PartitionInfo>();
+        for(int i = 0; i < PARTICOES; i++){
+            partitions.add(new PartitionInfo(TOPICO, i, node, new Node[]{node}, new Node[]{node}));
+        }
+        return new Cluster("meu-cluster", Set.of(node), partitions, Set.of(), Set.of());
+    }
+
+    private static CloudEvent evento(String partitionKey) {
+        var builder = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/particionar"))
+            .withType("exemplo.particionar")
+            .withSubject("assunto-130");
+
+        if(partitionKey != null){
+            builder.withExtension(PartitionKeyExtensionInterceptor.PARTITION_KEY_EXTENSION, partitionKey);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void should_partition_by_the_murmur2_of_the_partitionkey() {
+
+        // setup
+        var partitioner = new CloudEventPartitioner();
+        partitioner.configure(Map.of());
+
+        var cluster = cluster();
+        var expected = Utils.toPositive(Utils.murmur2("cliente-130".getBytes(StandardCharsets.UTF_8)))
+            % PARTICOES;
+
+        // act
+        var primeira = partitioner.partition(TOPICO, null, null, evento("cliente-130"), null, cluster);
+        var segunda = partitioner.partition(TOPICO, "outra-chave", "outra-chave".getBytes(),
+            evento("cliente-130"), null, cluster);
+
+        // assert
+        assertEquals(expected, primeira);
+        assertEquals(expected, segunda);
+
+        partitioner.close();
+    }
+
+    @Test
+    public void should_partition_by_the_configured_attribute() {
+
+        // setup
+        var partitioner = new CloudEventPartitioner();
+        partitioner.configure(Map.of(CloudEventPartitioner.ATTRIBUTE_CONFIG, "subject"));
+
+        var expected = Utils.toPositive(Utils.murmur2("assunto-130".getBytes(StandardCharsets.UTF_8)))
+            % PARTICOES;
+
+        // act
+        var actual = partitioner.partition(TOPICO, null, null, evento(null), null, cluster());
+
+        // assert
+        assertEquals(expected, actual);
+
+        partitioner.close();
+    }
+
+    @Test
+    public void should_fallback_to_the_default_partitioner_without_the_attribute() {
+
+        // setup
+        var partitioner = new CloudEventPartitioner();
+        partitioner.configure(Map.of(CloudEventPartitioner.MAX_CACHED_KEYS_CONFIG, "2"));
+
+        var cluster = cluster();
+        var chave = "chave-130".getBytes(StandardCharsets.UTF_8);
+        var expected = Utils.toPositive(Utils.murmur2(chave)) % PARTICOES;
+
+        // act
+        var actual = partitioner.partition(TOPICO, "chave-130", chave, evento(null), null, cluster);
+
+        var distintas = new HashSet<Integer>();
+        for(int i = 0; i < 100; i++){
+            distintas.add(partitioner.partition(TOPICO, null, null, evento("cliente-" + i), null, cluster));
+        }
+
+        // assert
+        assertEquals(expected, actual);
+        assertTrue(distintas.size() > 1);
+
+        partitioner.close();
+    }
+}
@@ -0,0 +1,225 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.cloudevents.kafka.PartitionKeyExtensionInterceptor;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class CloudEventProducerTest {
+
+    private static final String TOPICO = "meu-topico-produtor";
+
+    private static KafkaAvroCloudEventSerializer serializer() {
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+
+        var serializer = new KafkaAvroCloudEventSerializer(new MockSchemaRegistryClient());
+        serializer.configure(configs, Boolean.FALSE);
+
+        return serializer;
+    }
+
+    private static CloudEvent evento(long code) {
+        var valor = new AvroEventDataExample(code, "Nome " + code, "Descrição " + code);
+
+        return CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(AvroEventDataExample.class.getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+    }
+
+    @Test
+    public void should_send_in_the_submission_order() throws Exception {
+
+        // setup
+        var mock = new MockProducer<String, byte[]>(true, new StringSerializer(), new ByteArraySerializer());
+        var executor = Executors.newFixedThreadPool(4);
+        var producer = new CloudEventProducer<>(mock, serializer(), executor, 100, Duration.ofSeconds(5));
+
+        var futures = new ArrayList<CompletableFuture<RecordMetadata>>();
+
+        // act
+        for(int i = 0; i < 500; i++){
+            futures.add(producer.send(TOPICO, "chave-" + (i % 7), evento(i)));
+        }
+        producer.flush();
+
+        // assert
+        var history = mock.history();
+        assertEquals(500, history.size());
+        for(int i = 0; i < 500; i++){
+            assertEquals("chave-" + (i % 7), history.get(i).key());
+            assertTrue(history.get(i).headers().lastHeader("ce_dataschema") != null);
+            assertTrue(futures.get(i).isDone());
+            assertEquals(TOPICO, futures.get(i).get().topic());
+        }
+
+        var stats = producer.stats();
+        assertEquals(500, stats.getAcknowledged());
+        assertEquals(0, stats.getFailed());
+        assertEquals(0, stats.getInFlight());
+
+        producer.close();
+        executor.shutdown();
+    }
+
+    @Test
+    public void should_block_when_max_in_flight_is_reached() {
+
+        // setup
+        var mock = new MockProducer<String, byte[]>(false, new StringSerializer(), new ByteArraySerializer());
+        var executor = Executors.newSingleThreadExecutor();
+        var producer = new CloudEventProducer<>(mock, serializer(), executor, 2, Duration.ofMillis(50));
+
+        producer.send(TOPICO, "chave", evento(1));
+        producer.send(TOPICO, "chave", evento(2));
+
+        // act
+        assertThrows(TimeoutException.class, () -> producer.send(TOPICO, "chave", evento(3)));
+
+        // assert
+        assertEquals(2, producer.stats().getInFlight());
+
+        while(!mock.completeNext()){
+            Thread.onSpinWait();
+        }
+        var next = producer.send(TOPICO, "chave", evento(4));
+
+        while(!next.isDone()){
+            mock.completeNext();
+            Thread.onSpinWait();
+        }
+        assertEquals(TOPICO, next.join().topic());
+
+        producer.close();
+        executor.shutdown();
+    }
+
+    @Test
+    public void should_complete_exceptionally_when_the_send_fails() throws Exception {
+
+        // setup
+        var mock = new MockProducer<String, byte[]>(false, new StringSerializer(), new ByteArraySerializer());
+        var executor = Executors.newSingleThreadExecutor();
+        var producer = new CloudEventProducer<>(mock, serializer(), executor, 10, Duration.ofSeconds(5));
+
+        var future = producer.send(TOPICO, "chave", evento(1));
+        var error = new IllegalStateException("falhou");
+
+        // act
+        while(!mock.errorNext(error)){
+            Thread.onSpinWait();
+        }
+
+        // assert
+        var actual = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertSame(error, actual.getCause());
+        assertEquals(1, producer.stats().getFailed());
+        assertEquals(0, producer.stats().getInFlight());
+
+        producer.close();
+        executor.shutdown();
+    }
+
+    @Test
+    public void should_complete_exceptionally_when_serialization_fails() {
+
+        // setup
+        var mock = new MockProducer<String, byte[]>(true, new StringSerializer(), new ByteArraySerializer());
+        var executor = Executors.newSingleThreadExecutor();
+        var producer = new CloudEventProducer<>(mock, serializer(), executor, 10, Duration.ofSeconds(5));
+
+        var semDados = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType("sem.dados")
+            .withData("text/plain", "texto".getBytes())
+            .build();
+
+        // act
+        var future = producer.send(TOPICO, "chave", semDados);
+        producer.flush();
+
+        // assert
+        assertTrue(future.isCompletedExceptionally());
+        assertFalse(mock.history().iterator().hasNext());
+
+        producer.close();
+        executor.shutdown();
+    }
+
+    @Test
+    public void should_send_to_the_partition_of_the_partitionkey() {
+
+        // setup
+        var node = new Node(0, "localhost", 9092);
+        var partitions = new ArrayList<PartitionInfo>();
+        for(int i = 0; i < 12; i++){
+            partitions.add(new PartitionInfo(TOPICO, i, node, new Node[]{node}, new Node[]{node}));
+        }
+        var cluster = new Cluster("meu-cluster", Set.of(node), partitions, Set.of(), Set.of());
+
+        var mock = new MockProducer<String, byte[]>(cluster, true, null, new StringSerializer(),
+            new ByteArraySerializer());
+        var executor = Executors.newSingleThreadExecutor();
+
+        var partitioner = new CloudEventPartitioner();
+        partitioner.configure(Map.of());
+        var producer = new CloudEventProducer<>(mock, serializer(), partitioner, executor, 10,
+            Duration.ofSeconds(5));
+
+        var evento = CloudEventBuilder.v1(evento(1))
+            .withExtension(PartitionKeyExtensionInterceptor.PARTITION_KEY_EXTENSION, "cliente-130")
+            .build();
+
+        // act
+        producer.send(TOPICO, "chave", evento);
+        producer.flush();
+
+        // assert
+        var expected = Utils.toPositive(Utils.murmur2("cliente-130".getBytes(StandardCharsets.UTF_8))) % 12;
+        assertEquals(expected, mock.history().get(0).partition());
+
+        producer.close();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,224 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.test.TestRecord;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class CloudEventSerdeTest {
+
+    private static Map<String, Object> configs() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "true");
+        return configs;
+    }
+
+    private static CloudEvent evento(AvroEventDataExample valor) {
+        return CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getClass().getName())
+            .withTime(OffsetDateTime.now())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+    }
+
+    private static Properties streams() {
+        var props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "meu-app-" + UUID.randomUUID());
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        return props;
+    }
+
+    @Test
+    public void should_keep_the_encoded_bytes_through_repartition_and_store() {
+
+        // setup
+        var registry = new MockSchemaRegistryClient();
+
+        var serde = new CloudEventSerde(registry);
+        serde.configure(configs(), false);
+
+        var produtor = new KafkaAvroCloudEventSerializer(registry);
+        produtor.configure(configs(), false);
+
+        var builder = new StreamsBuilder();
+        builder.stream("entrada", Consumed.with(Serdes.String(), serde))
+            .selectKey((k, v) -> v.getSource().toString())
+            .groupByKey(Grouped.with(Serdes.String(), serde))
+            .reduce((anterior, atual) -> atual, Materialized.with(Serdes.String(), serde))
+            .toStream()
+            .to("saida", Produced.with(Serdes.String(), serde));
+
+        var headers = new RecordHeaders();
+        var valor = produtor.serialize("entrada", headers,
+            evento(new AvroEventDataExample(130l, "Nome 130", "Descrição 130")));
+
+        try(var driver = new TopologyTestDriver(builder.build(), streams())){
+            var entrada = driver.createInputTopic("entrada", new StringSerializer(), new ByteArraySerializer());
+            var saida = driver.createOutputTopic("saida", new StringDeserializer(), new ByteArrayDeserializer());
+
+            // act
+            entrada.pipeInput(new TestRecord<>("chave", valor, headers));
+            var actual = saida.readRecord();
+
+            // assert
+            assertArrayEquals(valor, actual.value());
+
+            var evento = serde.deserializer().deserialize("saida", actual.headers(), actual.value());
+            AvroEventDataExample dado = AvroCloudEventData.dataOf(evento.getData());
+            assertEquals("Nome 130", dado.getName().toString());
+        }
+
+        produtor.close();
+        serde.close();
+    }
+
+    @Test
+    public void should_encode_again_when_the_data_changes() {
+
+        // setup
+        var registry = new MockSchemaRegistryClient();
+
+        var serde = new CloudEventSerde(registry);
+        serde.configure(configs(), false);
+
+        var builder = new StreamsBuilder();
+        builder.stream("entrada", Consumed.with(Serdes.String(), serde))
+            .map((k, v) -> {
+                AvroEventDataExample dado = AvroCloudEventData.dataOf(v.getData());
+                dado.setName("Nome alterado");
+                return KeyValue.pair(k, v);
+            })
+            .to("saida", Produced.with(Serdes.String(), serde));
+
+        try(var driver = new TopologyTestDriver(builder.build(), streams())){
+            var entrada = driver.createInputTopic("entrada", new StringSerializer(), serde.serializer());
+            var saida = driver.createOutputTopic("saida", new StringDeserializer(), serde.deserializer());
+
+            // act
+            entrada.pipeInput("chave", evento(new AvroEventDataExample(130l, "Nome 130", "Descrição 130")));
+            var actual = saida.readValue();
+
+            // assert
+            AvroEventDataExample dado = AvroCloudEventData.dataOf(actual.getData());
+            assertEquals("Nome alterado", dado.getName().toString());
+        }
+
+        serde.close();
+    }
+
+    @Test
+    public void should_encode_again_the_data_changed_to_the_same_hash() {
+
+        // setup
+        var serde = new CloudEventSerde(new MockSchemaRegistryClient());
+        serde.configure(configs(), false);
+
+        var bytes = serde.serializer().serialize("meu-topico-serde",
+            evento(new AvroEventDataExample(130l, "Nome Aa", "Descrição 130")));
+        var evento = serde.deserializer().deserialize("meu-topico-serde", bytes);
+
+        AvroEventDataExample dado = AvroCloudEventData.dataOf(evento.getData());
+        dado.setName("Nome BB");
+        assertEquals("Nome Aa".hashCode(), "Nome BB".hashCode());
+
+        // act
+        var actual = serde.deserializer().deserialize("meu-topico-serde",
+            serde.serializer().serialize("meu-topico-serde", evento));
+
+        // assert
+        AvroEventDataExample alterado = AvroCloudEventData.dataOf(actual.getData());
+        assertEquals("Nome BB", alterado.getName().toString());
+
+        serde.close();
+    }
+
+    @Test
+    public void should_envelope_the_headers_without_them() {
+
+        // setup
+        var serde = new CloudEventSerde(new MockSchemaRegistryClient());
+        serde.configure(configs(), false);
+
+        var evento = evento(new AvroEventDataExample(130l, "Nome 130", "Descrição 130"));
+
+        // act
+        var bytes = serde.serializer().serialize("meu-topico-serde", evento);
+        var actual = serde.deserializer().deserialize("meu-topico-serde", bytes);
+
+        // assert
+        assertTrue(CloudEventSerde.isEnvelope(bytes));
+        assertEquals(evento.getId(), actual.getId());
+
+        var dado = (EncodedCloudEventData<?>)actual.getData();
+        assertFalse(dado.isLoaded());
+        assertTrue(dado.isUnchanged());
+        assertEquals(130l, ((AvroEventDataExample)AvroCloudEventData.dataOf(dado)).getCode());
+        assertFalse(dado.isUnchanged());
+
+        serde.close();
+    }
+
+    @Test
+    public void should_keep_events_without_data_in_the_store() {
+
+        // setup
+        var serde = new CloudEventSerde(new MockSchemaRegistryClient());
+        serde.configure(configs(), false);
+
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/heartbeat"))
+            .withType("exemplo.heartbeat")
+            .build();
+
+        // act
+        var bytes = serde.serializer().serialize("meu-topico-serde", evento);
+        var actual = serde.deserializer().deserialize("meu-topico-serde", bytes);
+
+        // assert
+        assertTrue(CloudEventSerde.isEnvelope(bytes));
+        assertEquals(evento.getId(), actual.getId());
+        assertNull(actual.getData());
+
+        serde.close();
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.io.Encoder;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class CustomCodersTest {
+
+    private static final AtomicInteger CODIFICADOS = new AtomicInteger();
+
+    public static class Espiao extends AvroEventDataExample {
+        private static final long serialVersionUID = 1L;
+
+        public Espiao(Long code, CharSequence name, CharSequence description) {
+            super(code, name, description);
+        }
+
+        @Override
+        public void customEncode(Encoder out) throws IOException {
+            CODIFICADOS.incrementAndGet();
+            super.customEncode(out);
+        }
+    }
+
+    private static Map<String, Object> configs() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "true");
+        return configs;
+    }
+
+    private static CloudEvent evento(AvroEventDataExample valor) {
+        return CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(AvroEventDataExample.class.getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+    }
+
+    @Test
+    public void should_encode_specific_records_with_their_custom_coder() {
+
+        // setup
+        var topico = "meu-topico-coders";
+        var registry = new MockSchemaRegistryClient();
+
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs(), false);
+
+        var desligado = configs();
+        desligado.put(CustomCoders.ENABLED_CONFIG, "false");
+        var reflexivo = new KafkaAvroCloudEventSerializer(registry);
+        reflexivo.configure(desligado, false);
+
+        var evento = evento(new Espiao(130l, "Nome 130", "Descrição 130"));
+        var esperado = reflexivo.serialize(topico, new RecordHeaders(), evento);
+        var antes = CODIFICADOS.get();
+
+        // act
+        byte[] actual = null;
+        for(int i = 0; i < 10; i++){
+            actual = serializer.serialize(topico, new RecordHeaders(), evento);
+        }
+
+        // assert
+        assertEquals(10, CODIFICADOS.get() - antes);
+        assertArrayEquals(esperado, actual);
+
+        serializer.close();
+        reflexivo.close();
+    }
+
+    @Test
+    public void should_decode_specific_records_with_and_without_custom_strings() {
+
+        // setup
+        var topico = "meu-topico-coders";
+        var registry = new MockSchemaRegistryClient();
+
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs(), false);
+
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        deserializer.configure(configs(), false);
+
+        var internados = configs();
+        internados.put(KafkaAvroCloudEventDeserializer.INTERNED_FIELDS_CONFIG, "name");
+        var internador = new KafkaAvroCloudEventDeserializer(registry);
+        internador.configure(internados, false);
+
+        var headers = new RecordHeaders();
+        var valor = serializer.serialize(topico, headers,
+            evento(new AvroEventDataExample(130l, "Nome 130", "Descrição 130")));
+
+        // act
+        AvroEventDataExample actual = AvroCloudEventData.dataOf(
+            deserializer.deserialize(topico, headers, valor).getData());
+        AvroEventDataExample interno = AvroCloudEventData.dataOf(
+            internador.deserialize(topico, headers, valor).getData());
+
+        // assert
+        assertEquals(130l, actual.getCode());
+        assertEquals("Nome 130", actual.getName().toString());
+        assertEquals("Descrição 130", actual.getDescription().toString());
+
+        assertEquals("Nome 130", interno.getName().toString());
+        assertTrue(CustomCoders.modelOf(AvroEventDataExample.getClassSchema()).useCustomCoders());
+
+        serializer.close();
+        deserializer.close();
+        internador.close();
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class DuplicateFilterTest {
+
+    private static Headers headers(String source, String id) {
+        var headers = new RecordHeaders();
+        headers.add(DuplicateFilter.SOURCE_HEADER, source.getBytes(StandardCharsets.UTF_8));
+        headers.add(DuplicateFilter.ID_HEADER, id.getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+
+    @Test
+    public void should_find_the_duplicated_source_and_id() {
+
+        // setup
+        var filter = new DuplicateFilter(1000, 60_000);
+
+        // act
+        var primeiro = filter.isDuplicate(headers("/exemplo/enviar", "1"));
+        var repetido = filter.isDuplicate(headers("/exemplo/enviar", "1"));
+        var outraOrigem = filter.isDuplicate(headers("/exemplo/outro", "1"));
+        var semId = filter.isDuplicate(new RecordHeaders());
+
+        // assert
+        assertFalse(primeiro);
+        assertTrue(repetido);
+        assertFalse(outraOrigem);
+        assertFalse(semId);
+
+        assertEquals(3, filter.getChecked());
+        assertEquals(1, filter.getDuplicates());
+        assertEquals(1.0 / 3, filter.getHitRate());
+    }
+
+    @Test
+    public void should_forget_after_the_ttl() {
+
+        // setup
+        var agora = new AtomicLong();
+        var filter = new DuplicateFilter(1000, 1000, agora::get);
+
+        filter.isDuplicate(headers("/exemplo/enviar", "1"));
+
+        // act
+        agora.set(600);
+        var dentroDoTtl = filter.isDuplicate(headers("/exemplo/enviar", "1"));
+
+        agora.set(2200);
+        var foraDoTtl = filter.isDuplicate(headers("/exemplo/enviar", "1"));
+
+        // assert
+        assertTrue(dentroDoTtl);
+        assertFalse(foraDoTtl);
+    }
+
+    @Test
+    public void should_keep_at_most_the_max_entries() {
+
+        // setup
+        var filter = new DuplicateFilter(100, 60_000);
+
+        // act
+        for(int i = 0; i < 10_000; i++){
+            filter.isDuplicate(headers("/exemplo/enviar", String.valueOf(i)));
+        }
+
+        // assert
+        assertTrue(filter.size() <= 100);
+        assertTrue(filter.isDuplicate(headers("/exemplo/enviar", "9999")));
+        assertFalse(filter.isDuplicate(headers("/exemplo/enviar", "0")));
+    }
+
+    @Test
+    public void should_deserialize_again_the_event_that_failed() throws Exception {
+
+        // setup
+        var topico = "meu-topico-dedup";
+        var configs = new HashMap<String, Object>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG, "http://localhost:8081");
+        configs.put(DuplicateFilter.ENABLED_CONFIG, "true");
+
+        var serializer = new KafkaAvroCloudEventSerializer(new MockSchemaRegistryClient());
+        serializer.configure(configs, false);
+
+        // the schema is not there yet, as when the registry is down
+        var registry = new MockSchemaRegistryClient();
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        deserializer.configure(configs, false);
+
+        var valor = new AvroEventDataExample(130l, "Nome 130", "Descrição 130");
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+
+        var headers = new RecordHeaders();
+        var bytes = serializer.serialize(topico, headers, evento);
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(topico, headers, bytes));
+
+        // act
+        registry.register(topico + "-value", new AvroSchema(valor.getSchema()));
+        var actual = deserializer.deserialize(topico, headers, bytes);
+        var naoTratado = deserializer.deserialize(topico, headers, bytes);
+
+        deserializer.getDuplicateFilter().markSeen(headers);
+        var tratado = deserializer.deserialize(topico, headers, bytes);
+
+        // assert
+        assertNotNull(actual);
+        assertEquals(evento.getId(), actual.getId());
+        assertNotNull(naoTratado);
+        assertNull(tratado);
+
+        serializer.close();
+        deserializer.close();
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileBlobStoreTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    public void should_put_and_open_the_payload() throws Exception {
+
+        // setup
+        var store = new FileBlobStore();
+        store.configure(Map.of(FileBlobStore.DIRECTORY_CONFIG, diretorio.toString()));
+
+        var conteudo = new byte[64 * 1024];
+        for(int i = 0; i < conteudo.length; i++){
+            conteudo[i] = (byte)i;
+        }
+
+        // act
+        var referencia = store.put("meu-topico", conteudo);
+
+        // assert
+        assertTrue(referencia.startsWith("meu-topico/"));
+        assertTrue(Files.exists(diretorio.resolve(referencia)));
+
+        try(var in = store.open(referencia)){
+            assertArrayEquals(conteudo, in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void should_expire_the_payloads_put_before_the_instant() throws Exception {
+
+        // setup
+        var store = new FileBlobStore(diretorio);
+
+        var antiga = store.put("meu-topico", new byte[]{1, 2, 3});
+        var recente = store.put("meu-topico", new byte[]{4, 5, 6});
+
+        var agora = Instant.now();
+        Files.setLastModifiedTime(diretorio.resolve(antiga), FileTime.from(agora.minus(Duration.ofDays(8))));
+        Files.setLastModifiedTime(diretorio.resolve(recente), FileTime.from(agora));
+
+        // act
+        var actual = store.expire(agora.minus(Duration.ofDays(7)));
+
+        // assert
+        assertEquals(1, actual);
+        assertFalse(Files.exists(diretorio.resolve(antiga)));
+        assertTrue(Files.exists(diretorio.resolve(recente)));
+    }
+
+    @Test
+    public void should_throw_when_the_reference_is_out_of_the_directory() {
+
+        // setup
+        var store = new FileBlobStore(diretorio);
+
+        // act
+        assertThrows(IllegalArgumentException.class, () -> store.open("../../etc/passwd"));
+    }
+}
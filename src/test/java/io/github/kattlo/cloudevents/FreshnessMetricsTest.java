@@ -0,0 +1,80 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+
+public class FreshnessMetricsTest {
+
+    private static final String TOPICO = "meu-topico";
+
+    // 2021-03-10T14:05:07Z
+    private static final long TEMPO = 1615385107000l;
+
+    private static Headers headers(String time, String type) {
+        var headers = new RecordHeaders();
+        headers.add(FreshnessMetrics.TIME_HEADER, time.getBytes(StandardCharsets.UTF_8));
+        headers.add(FreshnessMetrics.TYPE_HEADER, type.getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+
+    @Test
+    public void should_record_the_freshness_per_type() {
+
+        // setup
+        var metrics = new Metrics();
+        var freshness = new FreshnessMetrics(metrics, 10, "meu-cliente", () -> TEMPO + 250);
+
+        // act
+        freshness.record(TOPICO, headers("2021-03-10T14:05:07Z", "pedido.criado"));
+        freshness.record(TOPICO, headers("2021-03-10T14:05:07Z", "pedido.criado"));
+        freshness.record(TOPICO, headers("2021-03-10T11:05:06.900-03:00", "pedido.pago"));
+        freshness.record(TOPICO, headers("ontem", "pedido.pago"));
+
+        // assert
+        var criado = freshness.getHistogram(TOPICO, "pedido.criado");
+        assertEquals(2, criado.getCount());
+        assertEquals(250, criado.getMax());
+
+        assertEquals(350, freshness.getHistogram(TOPICO, "pedido.pago").getMax());
+        assertEquals(1, freshness.getInvalid());
+
+        var max = metrics.metric(metrics.metricName("freshness-ms-max", FreshnessMetrics.GROUP,
+            Map.of("client-id", "meu-cliente", "topic", TOPICO, "ce-type", "pedido.pago")));
+        assertEquals(350.0, max.metricValue());
+
+        freshness.close();
+    }
+
+    @Test
+    public void should_record_as_other_beyond_the_max_types() {
+
+        // setup
+        var metrics = new Metrics();
+        var freshness = new FreshnessMetrics(metrics, 2, null, () -> TEMPO + 10);
+
+        // act
+        for(int i = 0; i < 500; i++){
+            freshness.record(TOPICO, headers("2021-03-10T14:05:07Z", "tipo." + i));
+        }
+
+        // assert
+        assertNotNull(freshness.getHistogram(TOPICO, "tipo.0"));
+        assertNotNull(freshness.getHistogram(TOPICO, "tipo.1"));
+        assertNull(freshness.getHistogram(TOPICO, "tipo.499"));
+
+        var outros = metrics.metric(metrics.metricName("freshness-count", FreshnessMetrics.GROUP,
+            Map.of("topic", TOPICO, "ce-type", FreshnessMetrics.OTHER_TYPE)));
+        assertEquals(498.0, outros.metricValue());
+
+        freshness.close();
+    }
+}
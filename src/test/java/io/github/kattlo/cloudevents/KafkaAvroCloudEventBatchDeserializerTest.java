@@ -0,0 +1,196 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class KafkaAvroCloudEventBatchDeserializerTest {
+
+    private static final String TOPICO = "meu-topico-lote";
+
+    private static Map<String, Object> configs() {
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "true");
+
+        return configs;
+    }
+
+    private static ConsumerRecords<byte[], byte[]> records(KafkaAvroCloudEventSerializer serializer,
+            int partitions, int perPartition) {
+
+        Map<TopicPartition, List<ConsumerRecord<byte[], byte[]>>> records = new HashMap<>();
+
+        for(int p = 0; p < partitions; p++){
+            var list = new ArrayList<ConsumerRecord<byte[], byte[]>>();
+            for(long offset = 0; offset < perPartition; offset++){
+                var valor = new AvroEventDataExample(p * 1000 + offset, "Nome " + offset, "Descrição " + offset);
+                var evento = CloudEventBuilder.v1()
+                    .withId(UUID.randomUUID().toString())
+                    .withSource(URI.create("/exemplo/enviar"))
+                    .withType(AvroEventDataExample.class.getName())
+                    .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+                    .build();
+
+                var headers = new RecordHeaders();
+                var bytes = serializer.serialize(TOPICO, headers, evento);
+
+                list.add(new ConsumerRecord<>(TOPICO, p, offset, 0l, TimestampType.CREATE_TIME,
+                    null, 0, bytes.length, null, bytes, headers));
+            }
+            records.put(new TopicPartition(TOPICO, p), list);
+        }
+
+        return new ConsumerRecords<>(records);
+    }
+
+    @Test
+    public void should_deserialize_in_parallel_keeping_partition_order() {
+
+        // setup
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var batch = new KafkaAvroCloudEventBatchDeserializer(
+            new KafkaAvroCloudEventDeserializer(registry));
+
+        var configs = configs();
+        configs.put(KafkaAvroCloudEventBatchDeserializer.PARALLELISM_THRESHOLD_CONFIG, 10);
+        configs.put(KafkaAvroCloudEventBatchDeserializer.PARALLELISM_CONFIG, 4);
+
+        serializer.configure(configs, Boolean.FALSE);
+        batch.configure(configs);
+
+        var raw = records(serializer, 3, 100);
+
+        // act
+        var actual = batch.deserialize(raw);
+
+        // assert
+        assertEquals(raw.count(), actual.count());
+        assertEquals(raw.partitions(), actual.partitions());
+
+        for(var partition : raw.partitions()){
+            var expected = raw.records(partition);
+            var events = actual.records(partition);
+
+            for(int i = 0; i < expected.size(); i++){
+                assertEquals(expected.get(i).offset(), events.get(i).offset());
+                assertSame(expected.get(i).headers(), events.get(i).headers());
+
+                AvroEventDataExample value = AvroCloudEventData.dataOf(events.get(i).value().getData());
+                assertEquals(partition.partition() * 1000 + i, value.getCode());
+            }
+        }
+
+        serializer.close();
+        batch.close();
+    }
+
+    @Test
+    public void should_deserialize_batches_below_the_threshold() {
+
+        // setup
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var batch = new KafkaAvroCloudEventBatchDeserializer(
+            new KafkaAvroCloudEventDeserializer(registry));
+
+        var configs = configs();
+        configs.put(KafkaAvroCloudEventBatchDeserializer.PARALLELISM_THRESHOLD_CONFIG, "1000");
+
+        serializer.configure(configs, Boolean.FALSE);
+        batch.configure(configs);
+
+        var raw = records(serializer, 2, 5);
+
+        // act
+        var actual = batch.deserialize(raw);
+
+        // assert
+        assertEquals(10, actual.count());
+
+        serializer.close();
+        batch.close();
+    }
+
+    @Test
+    public void should_throw_with_partition_and_offset_of_bad_record() {
+
+        // setup
+        var registry = new MockSchemaRegistryClient();
+        var batch = new KafkaAvroCloudEventBatchDeserializer(
+            new KafkaAvroCloudEventDeserializer(registry));
+
+        batch.configure(configs());
+
+        var bad = new ConsumerRecord<byte[], byte[]>(TOPICO, 2, 42l, null, new byte[]{9, 9, 9});
+        var raw = new ConsumerRecords<>(Map.of(new TopicPartition(TOPICO, 2), List.of(bad)));
+
+        // act
+        var actual = assertThrows(SerializationException.class, () -> batch.deserialize(raw));
+
+        // assert
+        assertTrue(actual.getMessage().contains(TOPICO + "-2 at offset 42"));
+
+        batch.close();
+    }
+
+    @Test
+    public void should_leave_out_the_redelivered_records() {
+
+        // setup
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        var batch = new KafkaAvroCloudEventBatchDeserializer(deserializer);
+
+        var configs = configs();
+        configs.put(DuplicateFilter.ENABLED_CONFIG, "true");
+
+        serializer.configure(configs, Boolean.FALSE);
+        batch.configure(configs);
+
+        var raw = records(serializer, 2, 5);
+        var primeiro = batch.deserialize(raw);
+        assertEquals(10, primeiro.count());
+        primeiro.forEach(record -> deserializer.getDuplicateFilter().markSeen(record.headers()));
+
+        // act
+        var actual = batch.deserialize(raw);
+
+        // assert
+        assertTrue(actual.isEmpty());
+        assertEquals(10, deserializer.getDuplicateFilter().getDuplicates());
+        assertEquals(0.5, deserializer.getDuplicateFilter().getHitRate());
+
+        serializer.close();
+        batch.close();
+    }
+}
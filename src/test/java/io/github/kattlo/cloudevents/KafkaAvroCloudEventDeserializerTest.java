@@ -1,19 +1,33 @@
 package io.github.kattlo.cloudevents;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.management.ManagementFactory;
 import java.net.URI;
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
+import javax.management.ObjectName;
+
 import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.luben.zstd.Zstd;
 
 import io.cloudevents.core.builder.CloudEventBuilder;
 import io.cloudevents.kafka.CloudEventSerializer;
@@ -181,4 +195,609 @@ public class KafkaAvroCloudEventDeserializerTest {
         serializer.close();
         deserializer.close();
     }
+
+    @Test
+    public void should_deserialize_strings_as_lazy_views() {
+
+        // setup
+        var topico = "meu-topico-des";
+
+        var expected = new AvroEventDataExample(130l, "Nome 130", "Descrição 130");
+        var data = new AvroCloudEventData<>(expected);
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "true");
+        configs.put(KafkaAvroCloudEventDeserializer.STRING_DECODING_CONFIG, "LAZY");
+
+        serializer.configure(configs, Boolean.FALSE);
+        deserializer.configure(configs, Boolean.FALSE);
+
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(expected.getClass().getName())
+            .withTime(OffsetDateTime.now())
+            .withData(AvroCloudEventData.MIME_TYPE, data)
+            .build();
+
+        Headers headers = new RecordHeaders();
+        var bytes = serializer.serialize(topico, headers, evento);
+
+        // act
+        var actual = deserializer.deserialize(topico, headers, bytes);
+
+        // assert
+        AvroEventDataExample actualValue = AvroCloudEventData.dataOf(actual.getData());
+
+        assertTrue(actualValue.getName() instanceof LazyUtf8);
+        assertTrue(actualValue.getDescription() instanceof LazyUtf8);
+        assertEquals(expected.getCode(), actualValue.getCode());
+        assertEquals(expected.getName(), actualValue.getName().toString());
+        assertEquals(expected.getDescription(), actualValue.getDescription().toString());
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_share_the_values_of_interned_fields() {
+
+        // setup
+        var topico = "meu-topico-des";
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "false");
+        configs.put(KafkaAvroCloudEventDeserializer.INTERNED_FIELDS_CONFIG, "name");
+
+        serializer.configure(configs, Boolean.FALSE);
+        deserializer.configure(configs, Boolean.FALSE);
+
+        Headers headers1 = new RecordHeaders();
+        var bytes1 = serializer.serialize(topico, headers1, CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(AvroEventDataExample.class.getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(
+                new AvroEventDataExample(1l, "ATIVO", "Descrição 1")))
+            .build());
+
+        Headers headers2 = new RecordHeaders();
+        var bytes2 = serializer.serialize(topico, headers2, CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(AvroEventDataExample.class.getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(
+                new AvroEventDataExample(2l, "ATIVO", "Descrição 2")))
+            .build());
+
+        // act
+        GenericRecord actual1 = AvroCloudEventData.dataOf(
+            deserializer.deserialize(topico, headers1, bytes1).getData());
+        GenericRecord actual2 = AvroCloudEventData.dataOf(
+            deserializer.deserialize(topico, headers2, bytes2).getData());
+
+        // assert
+        assertEquals("ATIVO", actual1.get("name"));
+        assertSame(actual1.get("name"), actual2.get("name"));
+        assertEquals("Descrição 2", actual2.get("description").toString());
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_expand_the_compact_dataschema() {
+
+        // setup
+        var topico = "meu-topico-des";
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var compacto = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+
+        serializer.configure(configs, Boolean.FALSE);
+        deserializer.configure(configs, Boolean.FALSE);
+
+        configs.put(KafkaAvroCloudEventSerializer.DATASCHEMA_ALIAS_CONFIG, "principal");
+        compacto.configure(configs, Boolean.FALSE);
+
+        var valor = new AvroEventDataExample(130l, "Nome 130", "Descrição 130");
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+
+        Headers completos = new RecordHeaders();
+        serializer.serialize(topico, completos, evento);
+
+        Headers headers = new RecordHeaders();
+        var bytes = compacto.serialize(topico, headers, evento);
+
+        // act
+        var actual = deserializer.deserialize(topico, headers, bytes);
+
+        // assert
+        var expected = new String(completos.lastHeader(
+            KafkaAvroCloudEventSerializer.DATASCHEMA_HEADER).value());
+
+        assertEquals(expected, actual.getDataSchema().toString());
+
+        serializer.close();
+        compacto.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_keep_the_compact_dataschema_when_not_expanding() {
+
+        // setup
+        var topico = "meu-topico-des";
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(KafkaAvroCloudEventSerializer.DATASCHEMA_ALIAS_CONFIG, "outro");
+        configs.put(KafkaAvroCloudEventDeserializer.DATASCHEMA_EXPAND_CONFIG, "false");
+        configs.put(KafkaAvroCloudEventDeserializer.DATASCHEMA_ALIASES_CONFIG,
+            "outro=http://outro:8081");
+
+        serializer.configure(configs, Boolean.FALSE);
+        deserializer.configure(configs, Boolean.FALSE);
+
+        var valor = new AvroEventDataExample(130l, "Nome 130", "Descrição 130");
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+
+        Headers headers = new RecordHeaders();
+        var bytes = serializer.serialize(topico, headers, evento);
+
+        // act
+        var actual = deserializer.deserialize(topico, headers, bytes);
+
+        // assert
+        assertEquals("sr:outro:1", actual.getDataSchema().toString());
+        assertEquals(URI.create("http://outro:8081/schemas/ids/1"),
+            deserializer.expand(topico, actual.getDataSchema()));
+        assertSame(deserializer.expand(topico, actual.getDataSchema()),
+            deserializer.expand(topico, actual.getDataSchema()));
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_resolve_claim_checked_data_on_demand(@TempDir Path diretorio) {
+
+        // setup
+        var topico = "meu-topico-des";
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "true");
+        configs.put(ClaimCheck.STORE_CONFIG, FileBlobStore.class.getName());
+        configs.put(ClaimCheck.THRESHOLD_CONFIG, 1024);
+        configs.put(FileBlobStore.DIRECTORY_CONFIG, diretorio.toString());
+
+        serializer.configure(configs, Boolean.FALSE);
+        deserializer.configure(configs, Boolean.FALSE);
+
+        var expected = new AvroEventDataExample(130l, "Nome 130", "Descrição 130".repeat(1000));
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(expected.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(expected))
+            .build();
+
+        Headers headers = new RecordHeaders();
+        var bytes = serializer.serialize(topico, headers, evento);
+
+        // act
+        var actual = deserializer.deserialize(topico, headers, bytes);
+
+        // assert
+        assertEquals(ClaimCheck.STUB_SIZE, bytes.length);
+        assertNotNull(actual.getExtension(ClaimCheck.EXTENSION));
+
+        var data = (ClaimCheckCloudEventData<?>)actual.getData();
+        assertFalse(data.isLoaded());
+
+        AvroEventDataExample value = AvroCloudEventData.dataOf(data);
+        assertEquals(expected, value);
+        assertTrue(data.isLoaded());
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_not_claim_check_below_the_threshold(@TempDir Path diretorio) {
+
+        // setup
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(ClaimCheck.STORE_CONFIG, FileBlobStore.class);
+        configs.put(FileBlobStore.DIRECTORY_CONFIG, diretorio.toString());
+
+        serializer.configure(configs, Boolean.FALSE);
+
+        var valor = new AvroEventDataExample(130l, "Nome 130", "Descrição 130");
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+
+        // act
+        Headers headers = new RecordHeaders();
+        var bytes = serializer.serialize("meu-topico-des", headers, evento);
+
+        // assert
+        assertTrue(bytes.length > ClaimCheck.STUB_SIZE);
+        assertNull(headers.lastHeader(ClaimCheck.HEADER));
+
+        serializer.close();
+    }
+
+    @Test
+    public void should_decompress_the_zstd_dictionary_compressed_data(@TempDir Path diretorio) throws Exception {
+
+        // setup
+        var topico = "meu-topico-des";
+
+        var amostras = new ArrayList<AvroEventDataExample>();
+        for(int i = 0; i < 1000; i++){
+            amostras.add(new AvroEventDataExample((long)i, "Nome " + i,
+                "Descrição do produto " + i + " categoria " + (i % 7)));
+        }
+        ZstdDictionaryTrainer.write(diretorio, AvroEventDataExample.getClassSchema(),
+            ZstdDictionaryTrainer.train(amostras, 4 * 1024));
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "true");
+        configs.put(ZstdDictionaries.DIRECTORY_CONFIG, diretorio.toString());
+
+        serializer.configure(configs, Boolean.FALSE);
+        deserializer.configure(configs, Boolean.FALSE);
+
+        var expected = new AvroEventDataExample(130l, "Nome 130",
+            "Descrição do produto 130 categoria 4");
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(expected.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(expected))
+            .build();
+
+        Headers headers = new RecordHeaders();
+        var bytes = serializer.serialize(topico, headers, evento);
+
+        // act
+        var actual = deserializer.deserialize(topico, headers, bytes);
+
+        // assert
+        var codec = actual.getExtension(ZstdDictionaries.EXTENSION);
+        assertNotNull(codec);
+        assertTrue(codec.toString().startsWith("zstd:"));
+
+        AvroEventDataExample value = AvroCloudEventData.dataOf(actual.getData());
+        assertEquals(expected, value);
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_reject_the_zstd_frame_larger_than_the_max(@TempDir Path diretorio) throws Exception {
+
+        // setup
+        var topico = "meu-topico-des";
+
+        var amostras = new ArrayList<AvroEventDataExample>();
+        for(int i = 0; i < 1000; i++){
+            amostras.add(new AvroEventDataExample((long)i, "Nome " + i,
+                "Descrição do produto " + i + " categoria " + (i % 7)));
+        }
+        ZstdDictionaryTrainer.write(diretorio, AvroEventDataExample.getClassSchema(),
+            ZstdDictionaryTrainer.train(amostras, 4 * 1024));
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(ZstdDictionaries.DIRECTORY_CONFIG, diretorio.toString());
+
+        serializer.configure(configs, Boolean.FALSE);
+
+        configs.put(ZstdDictionaries.MAX_DECOMPRESSED_CONFIG, 16);
+        deserializer.configure(configs, Boolean.FALSE);
+
+        var valor = new AvroEventDataExample(130l, "Nome 130", "Descrição do produto 130 categoria 4");
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+
+        Headers headers = new RecordHeaders();
+        var bytes = serializer.serialize(topico, headers, evento);
+
+        // act
+        var tamanho = ZstdDictionaries.contentSizeOf(bytes, 5);
+
+        // assert
+        assertNotNull(headers.lastHeader(ZstdDictionaries.HEADER));
+        assertEquals(Zstd.decompressedSize(Arrays.copyOfRange(bytes, 5, bytes.length)), tamanho);
+        assertTrue(tamanho > 16);
+
+        assertThrows(SerializationException.class, () ->
+            deserializer.deserialize(topico, headers, bytes));
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_not_compress_without_dictionary_for_the_schema(@TempDir Path diretorio) {
+
+        // setup
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(ZstdDictionaries.DIRECTORY_CONFIG, diretorio.toString());
+
+        serializer.configure(configs, Boolean.FALSE);
+
+        var valor = new AvroEventDataExample(130l, "Nome 130", "Descrição 130");
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+
+        // act
+        Headers headers = new RecordHeaders();
+        serializer.serialize("meu-topico-des", headers, evento);
+
+        // assert
+        assertNull(headers.lastHeader(ZstdDictionaries.HEADER));
+
+        serializer.close();
+    }
+
+    @Test
+    public void should_record_the_freshness_of_the_event_type() throws Exception {
+
+        // setup
+        var topico = "meu-topico-des";
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(FreshnessMetrics.ENABLED_CONFIG, "true");
+        configs.put("client.id", "meu-cliente");
+
+        serializer.configure(configs, Boolean.FALSE);
+        deserializer.configure(configs, Boolean.FALSE);
+
+        var valor = new AvroEventDataExample(130l, "Nome 130", "Descrição 130");
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType("exemplo.criado")
+            .withTime(OffsetDateTime.now().minusSeconds(2))
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+
+        Headers headers = new RecordHeaders();
+        var bytes = serializer.serialize(topico, headers, evento);
+
+        // act
+        deserializer.deserialize(topico, headers, bytes);
+
+        // assert
+        var histogram = deserializer.getFreshnessMetrics().getHistogram(topico, "exemplo.criado");
+        assertEquals(1, histogram.getCount());
+        assertTrue(histogram.getMax() >= 2000);
+
+        var mbean = new ObjectName(FreshnessMetrics.JMX_PREFIX
+            + ":type=" + FreshnessMetrics.GROUP
+            + ",client-id=meu-cliente,topic=" + topico + ",ce-type=exemplo.criado");
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(mbean));
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_record_the_spans_of_the_sampled_event() {
+
+        // setup
+        var topico = "meu-topico-des";
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(Tracing.ENABLED_CONFIG, "true");
+        configs.put(Tracing.SAMPLE_RATE_CONFIG, "1");
+
+        serializer.configure(configs, Boolean.FALSE);
+        deserializer.configure(configs, Boolean.FALSE);
+
+        var valor = new AvroEventDataExample(130l, "Nome 130", "Descrição 130");
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+
+        Headers headers = new RecordHeaders();
+        var bytes = serializer.serialize(topico, headers, evento);
+
+        // act
+        var actual = deserializer.deserialize(topico, headers, bytes);
+
+        // assert
+        assertNotNull(actual.getExtension(Tracing.TRACEPARENT));
+
+        var spans = new ArrayList<Span>();
+        ((RingBufferSpanSink)deserializer.getSpanSink()).drain(spans::add);
+
+        assertEquals(3, spans.size());
+        assertEquals(Span.Kind.SERIALIZE, spans.get(0).getKind());
+        assertEquals(Span.Kind.TRANSIT, spans.get(1).getKind());
+        assertEquals(Span.Kind.DESERIALIZE, spans.get(2).getKind());
+
+        var traceparent = actual.getExtension(Tracing.TRACEPARENT).toString();
+        for(var span : spans){
+            assertTrue(traceparent.contains(span.getTraceId()));
+            assertEquals(topico, span.getTopic());
+        }
+        assertEquals(spans.get(0).getSpanId(), spans.get(2).getParentSpanId());
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_build_events_without_data_from_the_headers() {
+
+        // setup
+        var topico = "meu-topico-controle";
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+
+        serializer.configure(configs, Boolean.FALSE);
+        deserializer.configure(configs, Boolean.FALSE);
+
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/heartbeat"))
+            .withType("exemplo.heartbeat")
+            .withSubject("tombstone")
+            .build();
+
+        Headers headers = new RecordHeaders();
+        var bytes = serializer.serialize(topico, headers, evento);
+
+        // act
+        var actual = deserializer.deserialize(topico, headers, bytes);
+        var vazio = deserializer.deserialize(topico, headers, new byte[0]);
+        var tombstone = deserializer.deserialize(topico, new RecordHeaders(), null);
+
+        // assert
+        assertNull(bytes);
+        assertEquals(evento.getId(), actual.getId());
+        assertEquals("tombstone", actual.getSubject());
+        assertNull(actual.getData());
+
+        assertEquals(evento.getId(), vazio.getId());
+        assertNull(tombstone);
+
+        serializer.close();
+        deserializer.close();
+    }
 }
@@ -1,24 +1,44 @@
 package io.github.kattlo.cloudevents;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.net.URI;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.junit.jupiter.api.Test;
 
+import io.cloudevents.CloudEvent;
 import io.cloudevents.core.builder.CloudEventBuilder;
 import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
 import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
 import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import io.confluent.kafka.serializers.subject.TopicRecordNameStrategy;
 import org.acme.AvroEventDataExample;
 
 public class KafkaAvroCloudEventSerializerTest {
@@ -213,4 +233,510 @@ public class KafkaAvroCloudEventSerializerTest {
 
         serializer.close();
     }
+
+    @Test
+    public void should_serialize_all_as_serialize_does() {
+
+        // setup
+        var topico = "meu-topico";
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+
+        serializer.configure(configs, Boolean.FALSE);
+
+        var eventos = new ArrayList<CloudEvent>();
+        for(long i = 0; i < 50; i++){
+            var valor = new AvroEventDataExample(i, "Nome " + i, "Descrição " + i);
+            eventos.add(CloudEventBuilder
+                .v1()
+                .withId(UUID.randomUUID().toString())
+                .withSource(URI.create("/exemplo/enviar"))
+                .withType(valor.getClass().getName())
+                .withTime(OffsetDateTime.now())
+                .withData("application/avro", new AvroCloudEventData<>(valor))
+                .build());
+        }
+
+        // act
+        var actual = serializer.serializeAll(topico, eventos);
+
+        // assert
+        assertEquals(eventos.size(), actual.size());
+        for(int i = 0; i < eventos.size(); i++){
+            Headers headers = new RecordHeaders();
+            var expected = serializer.serialize(topico, headers, eventos.get(i));
+
+            assertArrayEquals(expected, actual.get(i).toByteArray());
+            assertEquals(headers, actual.get(i).getHeaders());
+        }
+
+        serializer.close();
+    }
+
+    @Test
+    public void should_serialize_all_keeping_the_order_of_many_schemas() throws Exception {
+
+        // setup
+        var topico = "meu-topico";
+
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(KafkaAvroSerializerConfig.VALUE_SUBJECT_NAME_STRATEGY,
+            TopicRecordNameStrategy.class.getName());
+
+        serializer.configure(configs, Boolean.FALSE);
+
+        var outro = SchemaBuilder.record("Outro").namespace("org.acme")
+            .fields().requiredString("texto").endRecord();
+
+        var eventos = new ArrayList<CloudEvent>();
+        for(int i = 0; i < 10; i++){
+            IndexedRecord valor;
+            if(i % 2 == 0){
+                valor = new AvroEventDataExample((long)i, "Nome " + i, "Descrição " + i);
+            } else {
+                var record = new GenericData.Record(outro);
+                record.put("texto", "Texto " + i);
+                valor = record;
+            }
+
+            eventos.add(CloudEventBuilder
+                .v1()
+                .withId(String.valueOf(i))
+                .withSource(URI.create("/exemplo/enviar"))
+                .withType(valor.getSchema().getFullName())
+                .withData("application/avro", new AvroCloudEventData<>(valor))
+                .build());
+        }
+
+        // act
+        var actual = serializer.serializeAll(topico, eventos);
+
+        // assert
+        for(int i = 0; i < eventos.size(); i++){
+            var headers = actual.get(i).getHeaders();
+            assertEquals(String.valueOf(i), new String(headers.lastHeader("ce_id").value()));
+
+            var dataschema = new String(headers.lastHeader(
+                KafkaAvroCloudEventSerializer.DATASCHEMA_HEADER).value());
+
+            var subject = topico + "-" + (i % 2 == 0
+                ? AvroEventDataExample.class.getName()
+                : outro.getFullName());
+
+            assertEquals("http://localhost:8081/subjects/" + subject + "/versions/1/schema", dataschema);
+        }
+
+        serializer.close();
+    }
+
+    /**
+     * Registry whose registrations wait for the test to release them.
+     */
+    private static class SlowSchemaRegistryClient extends MockSchemaRegistryClient {
+
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger registrations = new AtomicInteger();
+
+        @Override
+        public int register(String subject, ParsedSchema schema) {
+            registrations.incrementAndGet();
+            try {
+                release.await();
+                return super.register(subject, schema);
+            }catch(Exception e){
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static Map<String, Object> asyncConfigs(long maxWaitMs) {
+        Map<String, Object> configs = new HashMap<>();
+
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(KafkaAvroCloudEventSerializer.ASYNC_REGISTRATION_CONFIG, "true");
+        configs.put(KafkaAvroCloudEventSerializer.REGISTRATION_MAX_WAIT_MS_CONFIG, maxWaitMs);
+
+        return configs;
+    }
+
+    private static CloudEvent evento(long code) {
+        var valor = new AvroEventDataExample(code, "Nome " + code, "Descrição " + code);
+
+        return CloudEventBuilder
+            .v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getClass().getName())
+            .withData("application/avro", new AvroCloudEventData<>(valor))
+            .build();
+    }
+
+    @Test
+    public void should_coalesce_the_registrations_and_signal_readiness() throws Exception {
+
+        // setup
+        var topico = "meu-topico";
+        var registry = new SlowSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+
+        serializer.configure(asyncConfigs(5000), Boolean.FALSE);
+
+        // act
+        var primeiro = serializer.schemaReady(topico, AvroEventDataExample.getClassSchema());
+        var segundo = serializer.schemaReady(topico, AvroEventDataExample.getClassSchema());
+
+        // assert
+        assertFalse(serializer.isSchemaReady(topico, AvroEventDataExample.getClassSchema()));
+
+        registry.release.countDown();
+        var id = primeiro.get(5, TimeUnit.SECONDS);
+
+        assertEquals(id, segundo.get(5, TimeUnit.SECONDS));
+        assertTrue(serializer.isSchemaReady(topico, AvroEventDataExample.getClassSchema()));
+        assertEquals(1, registry.registrations.get());
+
+        serializer.close();
+    }
+
+    private static Set<Thread> registrarThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().startsWith("cloudevent-schema-registrar-"))
+            .filter(Thread::isAlive)
+            .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void should_shutdown_the_registrar_of_the_previous_configuration() throws Exception {
+
+        // setup
+        var topico = "meu-topico";
+        var serializer = new KafkaAvroCloudEventSerializer(new MockSchemaRegistryClient());
+
+        var antes = registrarThreads();
+        serializer.configure(asyncConfigs(5000), Boolean.FALSE);
+        serializer.schemaReady(topico, AvroEventDataExample.getClassSchema())
+            .get(5, TimeUnit.SECONDS);
+
+        var anteriores = registrarThreads();
+        anteriores.removeAll(antes);
+        assertFalse(anteriores.isEmpty());
+
+        var configs = asyncConfigs(5000);
+        configs.remove(KafkaAvroCloudEventSerializer.ASYNC_REGISTRATION_CONFIG);
+
+        // act
+        serializer.configure(configs, Boolean.FALSE);
+        serializer.serialize(topico, new RecordHeaders(), evento(1));
+
+        // assert
+        for(var thread : anteriores){
+            thread.join(5000);
+            assertFalse(thread.isAlive());
+        }
+
+        var novas = registrarThreads();
+        novas.removeAll(antes);
+        assertTrue(novas.isEmpty());
+
+        // created on demand
+        assertNotNull(serializer.schemaReady(topico, AvroEventDataExample.getClassSchema())
+            .get(5, TimeUnit.SECONDS));
+
+        serializer.close();
+    }
+
+    @Test
+    public void should_throw_retriable_while_the_schema_is_registering() throws Exception {
+
+        // setup
+        var topico = "meu-topico";
+        var registry = new SlowSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+
+        serializer.configure(asyncConfigs(0), Boolean.FALSE);
+
+        var evento = evento(1);
+
+        // act
+        var actual = assertThrows(TimeoutException.class, () ->
+            serializer.serialize(topico, new RecordHeaders(), evento));
+
+        // assert
+        assertTrue(actual instanceof RetriableException);
+
+        registry.release.countDown();
+        serializer.schemaReady(topico, AvroEventDataExample.getClassSchema())
+            .get(5, TimeUnit.SECONDS);
+
+        Headers headers = new RecordHeaders();
+        var bytes = serializer.serialize(topico, headers, evento);
+        assertEquals(1, registry.registrations.get());
+
+        var sync = new KafkaAvroCloudEventSerializer(registry);
+        var configs = asyncConfigs(0);
+        configs.remove(KafkaAvroCloudEventSerializer.ASYNC_REGISTRATION_CONFIG);
+        sync.configure(configs, Boolean.FALSE);
+
+        Headers expectedHeaders = new RecordHeaders();
+        assertArrayEquals(sync.serialize(topico, expectedHeaders, evento), bytes);
+        assertEquals(expectedHeaders, headers);
+
+        sync.close();
+        serializer.close();
+    }
+
+    @Test
+    public void should_serialize_all_waiting_for_the_async_registration() {
+
+        // setup
+        var topico = "meu-topico";
+        var registry = new SlowSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+
+        serializer.configure(asyncConfigs(0), Boolean.FALSE);
+
+        // act
+        var actual = assertThrows(TimeoutException.class, () ->
+            serializer.serializeAll(topico, List.of(evento(1))));
+
+        // assert
+        assertTrue(actual instanceof RetriableException);
+
+        registry.release.countDown();
+        serializer.close();
+    }
+
+    @Test
+    public void should_serialize_all_the_unchanged_data_as_it_was_encoded() {
+
+        // setup
+        var topico = "meu-topico";
+        var registry = new MockSchemaRegistryClient();
+
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        var configs = asyncConfigs(5000);
+        configs.remove(KafkaAvroCloudEventSerializer.ASYNC_REGISTRATION_CONFIG);
+        serializer.configure(configs, Boolean.FALSE);
+
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        configs.put(KafkaAvroCloudEventDeserializer.KEEP_ENCODED_CONFIG, "true");
+        deserializer.configure(configs, Boolean.FALSE);
+
+        Headers headers = new RecordHeaders();
+        var bytes = serializer.serialize(topico, headers, evento(1));
+        var evento = deserializer.deserialize(topico, headers, bytes);
+
+        // act
+        var lote = serializer.serializeAll(topico, List.of(evento));
+
+        // assert
+        var dado = (EncodedCloudEventData<?>)evento.getData();
+        assertFalse(dado.isLoaded());
+        assertSame(dado.getEncoded(), lote.get(0).getValue().array());
+        assertArrayEquals(bytes, lote.get(0).toByteArray());
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_fill_the_compact_ce_dataschema() {
+
+        // setup
+        var topico = "meu-topico";
+        var serializer = new KafkaAvroCloudEventSerializer(new MockSchemaRegistryClient());
+
+        var configs = asyncConfigs(5000);
+        configs.remove(KafkaAvroCloudEventSerializer.ASYNC_REGISTRATION_CONFIG);
+        configs.put(KafkaAvroCloudEventSerializer.DATASCHEMA_ALIAS_CONFIG, "principal");
+
+        serializer.configure(configs, Boolean.FALSE);
+
+        // act
+        Headers headers = new RecordHeaders();
+        serializer.serialize(topico, headers, evento(1));
+
+        var lote = serializer.serializeAll(topico, List.of(evento(2)));
+
+        // assert
+        assertEquals("sr:principal:1", new String(headers.lastHeader(
+            KafkaAvroCloudEventSerializer.DATASCHEMA_HEADER).value()));
+
+        assertEquals("sr:principal:1", new String(lote.get(0).getHeaders().lastHeader(
+            KafkaAvroCloudEventSerializer.DATASCHEMA_HEADER).value()));
+
+        serializer.close();
+    }
+
+    @Test
+    public void should_throw_when_the_dataschema_alias_is_invalid() {
+
+        // setup
+        var serializer = new KafkaAvroCloudEventSerializer(new MockSchemaRegistryClient());
+
+        var configs = asyncConfigs(5000);
+        configs.put(KafkaAvroCloudEventSerializer.DATASCHEMA_ALIAS_CONFIG, "http://a");
+
+        // act
+        var actual = assertThrows(IllegalArgumentException.class, () ->
+            serializer.configure(configs, Boolean.FALSE));
+
+        // assert
+        assertTrue(actual.getMessage().contains("not supported"));
+        serializer.close();
+    }
+
+    @Test
+    public void should_emit_null_value_for_events_without_data() throws Exception {
+
+        // setup
+        var topico = "meu-topico-controle";
+        var registry = new MockSchemaRegistryClient();
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        serializer.configure(configs, Boolean.FALSE);
+
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/heartbeat"))
+            .withType("exemplo.heartbeat")
+            .build();
+
+        Headers headers = new RecordHeaders();
+
+        // act
+        var actual = serializer.serialize(topico, headers, evento);
+        var lote = serializer.serializeAll(topico, List.of(evento, evento(130l)));
+
+        // assert
+        assertNull(actual);
+        assertEquals(evento.getId(), new String(headers.lastHeader("ce_id").value()));
+        assertNull(headers.lastHeader("ce_dataschema"));
+
+        assertNull(lote.get(0).getValue());
+        assertNull(lote.get(0).toByteArray());
+        assertNotNull(lote.get(1).getValue());
+        assertEquals(1, registry.getAllSubjects().size());
+
+        serializer.close();
+    }
+
+    @Test
+    public void should_not_list_the_subject_versions_per_record() throws Exception {
+
+        // setup
+        var versions = new AtomicInteger();
+        var registry = new MockSchemaRegistryClient(){
+            @Override
+            public synchronized int getVersion(String subject, ParsedSchema schema)
+                    throws io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException {
+                versions.incrementAndGet();
+                return super.getVersion(subject, schema);
+            }
+        };
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs, Boolean.FALSE);
+
+        var evento = CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(AvroEventDataExample.class.getName())
+            .withData(AvroCloudEventData.MIME_TYPE,
+                new AvroCloudEventData<>(new AvroEventDataExample(130l, "Nome 130", "Descrição 130")))
+            .build();
+
+        // act
+        var dataschemas = new ArrayList<String>();
+        for(int i = 0; i < 100; i++){
+            var headers = new RecordHeaders();
+            serializer.serialize("meu-topico", headers, evento);
+            dataschemas.add(new String(headers.lastHeader(KafkaAvroCloudEventSerializer.DATASCHEMA_HEADER).value()));
+        }
+
+        // assert
+        assertEquals(1, versions.get());
+        assertEquals("http://localhost:8081/subjects/meu-topico-value/versions/1/schema", dataschemas.get(99));
+
+        serializer.close();
+    }
+
+    @Test
+    public void should_write_the_version_of_the_schema_not_the_latest() throws Exception {
+
+        // setup
+        var subject = "meu-topico-value";
+        var registry = new MockSchemaRegistryClient();
+        registry.register(subject, new AvroSchema(AvroEventDataExample.getClassSchema()));
+        registry.register(subject, new AvroSchema(SchemaBuilder.record("AvroEventDataExample")
+            .namespace("org.acme").fields()
+                .requiredLong("code")
+                .requiredString("name")
+                .requiredString("description")
+                .optionalString("extra")
+            .endRecord()));
+
+        for(var engine : WireFormat.Engine.values()){
+            Map<String, Object> configs = new HashMap<>();
+            configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+            configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "false");
+            configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+                "http://localhost:8081");
+            configs.put(WireFormat.ENGINE_CONFIG, engine.name().toLowerCase());
+
+            var serializer = new KafkaAvroCloudEventSerializer(registry);
+            serializer.configure(configs, Boolean.FALSE);
+
+            var evento = CloudEventBuilder.v1()
+                .withId(UUID.randomUUID().toString())
+                .withSource(URI.create("/exemplo/enviar"))
+                .withType(AvroEventDataExample.class.getName())
+                .withData(AvroCloudEventData.MIME_TYPE,
+                    new AvroCloudEventData<>(new AvroEventDataExample(130l, "Nome 130", "Descrição 130")))
+                .build();
+
+            // act
+            var headers = new RecordHeaders();
+            serializer.serialize("meu-topico", headers, evento);
+
+            // assert
+            assertEquals("http://localhost:8081/subjects/meu-topico-value/versions/1/schema",
+                new String(headers.lastHeader(KafkaAvroCloudEventSerializer.DATASCHEMA_HEADER).value()));
+
+            serializer.close();
+        }
+    }
 }
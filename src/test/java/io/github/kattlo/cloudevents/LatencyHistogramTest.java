@@ -0,0 +1,79 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void should_report_percentiles_within_the_precision() {
+
+        // setup
+        var histogram = new LatencyHistogram();
+
+        // act
+        for(long v = 1; v <= 100_000; v++){
+            histogram.record(v);
+        }
+
+        // assert
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000, histogram.getMax());
+
+        var p50 = histogram.valueAtPercentile(50);
+        assertTrue(p50 >= 50_000 && p50 <= 50_000 * 1.07, "p50=" + p50);
+
+        var p99 = histogram.valueAtPercentile(99);
+        assertTrue(p99 >= 99_000 && p99 <= 100_000, "p99=" + p99);
+    }
+
+    @Test
+    public void should_keep_small_values_exact() {
+
+        // setup
+        var histogram = new LatencyHistogram();
+
+        // act
+        histogram.record(3);
+        histogram.record(-1);
+
+        // assert
+        assertEquals(0, histogram.valueAtPercentile(50));
+        assertEquals(3, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    public void should_map_every_index_to_its_highest_value() {
+
+        for(long v : new long[]{31, 32, 33, 1_000, 123_456_789, Long.MAX_VALUE}){
+            var index = LatencyHistogram.indexOf(v);
+
+            assertTrue(LatencyHistogram.highestValueOf(index) >= v);
+            if(index > 0){
+                assertTrue(LatencyHistogram.highestValueOf(index - 1) < v);
+            }
+        }
+    }
+
+    @Test
+    public void should_add_the_values_of_other_histogram() {
+
+        // setup
+        var total = new LatencyHistogram();
+        var outro = new LatencyHistogram();
+
+        total.record(10);
+        outro.record(20);
+        outro.record(5_000);
+
+        // act
+        total.add(outro);
+
+        // assert
+        assertEquals(3, total.getCount());
+        assertEquals(5_000, total.getMax());
+        assertEquals(20, total.valueAtPercentile(50));
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class OffsetTrackerTest {
+
+    @Test
+    public void should_commit_up_to_the_lowest_pending_offset() {
+
+        // setup
+        var tracker = new OffsetTracker();
+        for(long offset = 10; offset < 200; offset++){
+            tracker.dispatched(offset);
+        }
+
+        // act
+        for(long offset = 11; offset < 200; offset++){
+            tracker.completed(offset);
+        }
+
+        // assert
+        assertEquals(190, tracker.pending());
+        assertEquals(10, tracker.committable());
+        tracker.committed(10);
+        assertEquals(-1, tracker.committable());
+
+        tracker.completed(10);
+        assertEquals(0, tracker.pending());
+        assertEquals(200, tracker.committable());
+    }
+
+    @Test
+    public void should_track_offsets_with_gaps() throws Exception {
+
+        // setup
+        var tracker = new OffsetTracker();
+        tracker.dispatched(5);
+        tracker.dispatched(9);
+        tracker.dispatched(42);
+
+        // act
+        tracker.completed(9);
+        tracker.completed(5);
+
+        // assert
+        assertEquals(42, tracker.committable());
+        assertFalse(tracker.awaitCompletion(1));
+
+        tracker.completed(42);
+        assertTrue(tracker.awaitCompletion(1));
+        assertEquals(43, tracker.committable());
+    }
+
+    @Test
+    public void should_send_again_the_offset_whose_commit_failed() {
+
+        // setup
+        var tracker = new OffsetTracker();
+        tracker.dispatched(7);
+        tracker.completed(7);
+
+        // act
+        var primeiro = tracker.committable();
+        var segundo = tracker.committable();
+        tracker.committed(segundo);
+
+        // assert
+        assertEquals(8, primeiro);
+        assertEquals(8, segundo);
+        assertEquals(-1, tracker.committable());
+
+        tracker.committed(5);
+        assertEquals(-1, tracker.committable());
+    }
+}
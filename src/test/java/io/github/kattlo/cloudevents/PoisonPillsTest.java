@@ -0,0 +1,169 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class PoisonPillsTest {
+
+    public static class Coletor implements DeadLetterHandler {
+        final List<FailedCloudEvent> encaminhados = new ArrayList<>();
+
+        @Override
+        public void forward(FailedCloudEvent failed) {
+            encaminhados.add(failed);
+        }
+    }
+
+    private static Map<String, Object> configs() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(PoisonPills.ENABLED_CONFIG, "true");
+        configs.put(PoisonPills.DEAD_LETTER_CONFIG, Coletor.class.getName());
+        return configs;
+    }
+
+    private static CloudEvent evento() {
+        return CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(AvroEventDataExample.class.getName())
+            .withData(AvroCloudEventData.MIME_TYPE,
+                new AvroCloudEventData<>(new AvroEventDataExample(130l, "Nome 130", "Descrição 130")))
+            .build();
+    }
+
+    @Test
+    public void should_return_the_marker_of_corrupt_payloads() {
+
+        // setup
+        var topico = "meu-topico-veneno";
+        var registry = new MockSchemaRegistryClient();
+
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs(), false);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        deserializer.configure(configs(), false);
+
+        var evento = evento();
+        var headers = new RecordHeaders();
+        serializer.serialize(topico, headers, evento);
+
+        var corrompido = new byte[]{9, 9, 9};
+
+        // act
+        var actual = deserializer.deserialize(topico, headers, corrompido);
+
+        // assert
+        assertTrue(FailedCloudEvent.isFailed(actual));
+
+        var falha = (FailedCloudEvent)actual;
+        assertEquals(PoisonPills.Cause.CORRUPT_PAYLOAD, falha.getCause());
+        assertEquals(evento.getId(), falha.getId());
+        assertEquals(evento.getSource(), falha.getSource());
+        assertSame(corrompido, falha.getBytes());
+        assertNull(falha.getData());
+
+        var pills = deserializer.getPoisonPills();
+        assertEquals(1, pills.count(PoisonPills.Cause.CORRUPT_PAYLOAD));
+        assertEquals(1, pills.total());
+
+        var coletor = (Coletor)pills.getDeadLetter();
+        assertEquals(1, coletor.encaminhados.size());
+        assertSame(corrompido, coletor.encaminhados.get(0).getBytes());
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_count_unknown_schemas_and_keep_the_batch_flowing() {
+
+        // setup
+        var topico = "meu-topico-veneno";
+        var registry = new MockSchemaRegistryClient();
+
+        var serializer = new KafkaAvroCloudEventSerializer(registry);
+        serializer.configure(configs(), false);
+        var deserializer = new KafkaAvroCloudEventDeserializer(registry);
+        deserializer.configure(configs(), false);
+
+        var headers = new RecordHeaders();
+        var valor = serializer.serialize(topico, headers, evento());
+
+        var desconhecido = valor.clone();
+        ByteBuffer.wrap(desconhecido).putInt(1, 9999);
+
+        // act
+        var falha = deserializer.deserialize(topico, headers, desconhecido);
+        var seguinte = deserializer.deserialize(topico, headers, valor);
+
+        // assert
+        assertEquals(PoisonPills.Cause.UNKNOWN_SCHEMA, ((FailedCloudEvent)falha).getCause());
+        assertEquals(1, deserializer.getPoisonPills().count(PoisonPills.Cause.UNKNOWN_SCHEMA));
+
+        assertTrue(!FailedCloudEvent.isFailed(seguinte));
+        assertEquals(130l, ((org.apache.avro.generic.GenericRecord)AvroCloudEventData
+            .dataOf(seguinte.getData())).get("code"));
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_produce_the_raw_bytes_to_the_dead_letter_topic() {
+
+        // setup
+        var mock = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+        var producer = new DeadLetterProducer(mock, null);
+
+        var headers = new RecordHeaders();
+        headers.add("ce_id", "id-130".getBytes(StandardCharsets.UTF_8));
+
+        var bytes = new byte[]{9, 9, 9};
+        var falha = new FailedCloudEvent("meu-topico-veneno", headers, bytes,
+            PoisonPills.Cause.CORRUPT_PAYLOAD, new RuntimeException("corrompido"));
+
+        // act
+        producer.forward(falha);
+
+        // assert
+        var actual = mock.history().get(0);
+        assertEquals("meu-topico-veneno.dlq", actual.topic());
+        assertSame(bytes, actual.value());
+        assertEquals("id-130", new String(actual.headers().lastHeader("ce_id").value(),
+            StandardCharsets.UTF_8));
+        assertEquals("CORRUPT_PAYLOAD", new String(actual.headers()
+            .lastHeader(DeadLetterProducer.CAUSE_HEADER).value(), StandardCharsets.UTF_8));
+
+        // the consumer record headers stay writable
+        headers.add("outro", new byte[0]);
+
+        producer.close();
+    }
+}
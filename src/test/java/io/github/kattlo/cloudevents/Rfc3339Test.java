@@ -0,0 +1,68 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.jupiter.api.Test;
+
+public class Rfc3339Test {
+
+    private static long epochMillisOf(String text) {
+        return Rfc3339.epochMillisOf(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void should_parse_as_java_time_does() {
+
+        // setup
+        var textos = new String[]{
+            "2021-03-10T14:05:07Z",
+            "2021-03-10T14:05:07.1Z",
+            "2021-03-10T14:05:07.123456789Z",
+            "2020-02-29T23:59:59.999-03:00",
+            "1969-12-31T23:59:59.5+05:30",
+            "1600-01-01T00:00:00Z",
+        };
+
+        for(var texto : textos){
+
+            // act
+            var actual = epochMillisOf(texto);
+
+            // assert
+            var expected = OffsetDateTime.parse(texto, DateTimeFormatter.ISO_OFFSET_DATE_TIME)
+                .toInstant().toEpochMilli();
+            assertEquals(expected, actual, texto);
+        }
+    }
+
+    @Test
+    public void should_return_invalid_for_malformed_text() {
+
+        // setup
+        var textos = new String[]{
+            "",
+            "2021-03-10",
+            "2021-03-10T14:05:07",
+            "2021-02-29T14:05:07Z",
+            "2021-13-10T14:05:07Z",
+            "2021-03-10T24:05:07Z",
+            "2021-03-10T14:05:07.Z",
+            "2021-03-10T14:05:07+0300",
+            "2021-03-10T14:05:07Zx",
+            "2021/03/10T14:05:07Z",
+        };
+
+        for(var texto : textos){
+
+            // act
+            var actual = epochMillisOf(texto);
+
+            // assert
+            assertEquals(Rfc3339.INVALID, actual, texto);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class RingBufferSpanSinkTest {
+
+    private static Span span(long id) {
+        return new Span(Span.Kind.DESERIALIZE, 1l, 2l, id, 0l, "meu-topico", 0l, 10l);
+    }
+
+    @Test
+    public void should_drain_in_order_and_count_the_overwritten() {
+
+        // setup
+        var sink = new RingBufferSpanSink(4);
+        for(long i = 1; i <= 6; i++){
+            sink.accept(span(i));
+        }
+
+        var drenados = new ArrayList<Long>();
+
+        // act
+        var total = sink.drain(s -> drenados.add(s.getSpanId()));
+
+        // assert
+        assertEquals(4, total);
+        assertEquals(List.of(3l, 4l, 5l, 6l), drenados);
+        assertEquals(2, sink.getDropped());
+        assertEquals(0, sink.drain(s -> {}));
+    }
+
+    @Test
+    public void should_accept_from_many_threads() throws Exception {
+
+        // setup
+        var sink = new RingBufferSpanSink(1 << 16);
+        var executor = Executors.newFixedThreadPool(4);
+        var pronto = new CountDownLatch(4);
+
+        // act
+        for(int t = 0; t < 4; t++){
+            executor.execute(() -> {
+                for(long i = 0; i < 10_000; i++){
+                    sink.accept(span(i + 1));
+                }
+                pronto.countDown();
+            });
+        }
+        pronto.await(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // assert
+        assertEquals(40_000, sink.drain(s -> {}));
+        assertEquals(0, sink.getDropped());
+    }
+}
@@ -0,0 +1,209 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class SchemaManifestTest {
+
+    @TempDir
+    Path temp;
+
+    private static Map<String, Object> configs(SchemaRegistryStandIn registry) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "false");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG, registry.getUrl());
+        return configs;
+    }
+
+    private static CloudEvent evento(long i) {
+        var valor = new AvroEventDataExample(i, "Nome " + i, "Descrição " + i);
+        return CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getClass().getName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+    }
+
+    @Test
+    public void should_write_the_fingerprint_and_registration_of_every_avsc() throws Exception {
+
+        // setup
+        var subject = "meu-topico-manifesto-value";
+        var schema = AvroEventDataExample.getClassSchema();
+        var arquivo = temp.resolve("schema-manifest");
+
+        try(var registry = new SchemaRegistryStandIn()){
+            var id = new CachedSchemaRegistryClient(registry.getUrl(), 100)
+                .register(subject, new AvroSchema(schema));
+
+            // act
+            SchemaManifestWriter.main(new String[]{
+                "--registry", registry.getUrl(), arquivo.toString(), "src/main/avro"});
+
+            // assert
+            SchemaManifest actual;
+            try(var in = Files.newInputStream(arquivo)){
+                actual = SchemaManifest.read(in);
+            }
+
+            assertEquals(registry.getUrl(), actual.getRegistry());
+            assertEquals(1, actual.getEntries().size());
+
+            var entry = actual.getEntries().get(0);
+            assertEquals(SchemaNormalization.fingerprint64(new AvroSchema(schema).canonicalString()
+                .getBytes(StandardCharsets.UTF_8)), entry.fingerprint);
+            assertEquals(schema.getFullName(), entry.name);
+            assertEquals(subject, entry.subject);
+            assertEquals(id, entry.id);
+            assertEquals(1, entry.version);
+        }
+    }
+
+    @Test
+    public void should_serialize_without_registry_lookups_with_the_manifest() throws Exception {
+
+        // setup
+        var topico = "meu-topico-manifesto";
+        var subject = topico + "-value";
+        var schema = AvroEventDataExample.getClassSchema();
+
+        try(var registry = new SchemaRegistryStandIn()){
+            var id = new CachedSchemaRegistryClient(registry.getUrl(), 100)
+                .register(subject, new AvroSchema(schema));
+
+            var manifest = new SchemaManifest(registry.getUrl(), List.of(new SchemaManifest.Entry(
+                SchemaManifest.fingerprintOf(schema), schema.getFullName(), subject, id, 1)));
+            manifest.write(temp.resolve(SchemaManifest.RESOURCE));
+
+            var serializer = new KafkaAvroCloudEventSerializer(
+                new CachedSchemaRegistryClient(registry.getUrl(), 100));
+            var deserializer = new KafkaAvroCloudEventDeserializer(
+                new CachedSchemaRegistryClient(registry.getUrl(), 100));
+            deserializer.configure(configs(registry), false);
+
+            var thread = Thread.currentThread();
+            var original = thread.getContextClassLoader();
+            try(var loader = new URLClassLoader(new URL[]{temp.toUri().toURL()}, original)){
+                thread.setContextClassLoader(loader);
+                serializer.configure(configs(registry), false);
+            }finally {
+                thread.setContextClassLoader(original);
+            }
+
+            registry.resetRequests();
+
+            // act
+            var headers = new RecordHeaders();
+            byte[] valor = null;
+            for(int i = 0; i < 10; i++){
+                headers = new RecordHeaders();
+                valor = serializer.serialize(topico, headers, evento(i));
+            }
+
+            // assert
+            assertEquals(0, registry.getRequests());
+            assertArrayEquals((registry.getUrl() + "/subjects/" + subject + "/versions/1/schema")
+                .getBytes(StandardCharsets.UTF_8),
+                headers.lastHeader(KafkaAvroCloudEventSerializer.DATASCHEMA_HEADER).value());
+
+            var actual = deserializer.deserialize(topico, headers, valor);
+            assertTrue(actual.getData() instanceof AvroCloudEventData);
+
+            serializer.close();
+            deserializer.close();
+        }
+    }
+
+    @Test
+    public void should_tell_apart_the_versions_that_change_just_a_default() throws Exception {
+
+        // setup
+        var subject = "meu-topico-manifesto-value";
+        var v1 = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Exemplo\","
+            + "\"fields\":[{\"name\":\"code\",\"type\":\"long\"}]}");
+        var v2 = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Exemplo\","
+            + "\"fields\":[{\"name\":\"code\",\"type\":\"long\",\"default\":0}]}");
+
+        try(var registry = new SchemaRegistryStandIn()){
+            var client = new CachedSchemaRegistryClient(registry.getUrl(), 100);
+            client.register(subject, new AvroSchema(v1));
+            client.register(subject, new AvroSchema(v2));
+
+            // act
+            var actual = SchemaManifestWriter.resolve(List.of(v1, v2), registry.getUrl(), client,
+                List.of(subject));
+
+            // assert
+            assertEquals(SchemaNormalization.parsingFingerprint64(v1),
+                SchemaNormalization.parsingFingerprint64(v2));
+
+            var entries = actual.getEntries();
+            assertEquals(2, entries.size());
+            assertNotEquals(entries.get(0).fingerprint, entries.get(1).fingerprint);
+            assertEquals(1, entries.get(0).version);
+            assertEquals(2, entries.get(1).version);
+
+            assertThrows(IOException.class, () ->
+                SchemaManifestWriter.resolve(List.of(v1, v1), registry.getUrl(), client, List.of(subject)));
+        }
+    }
+
+    @Test
+    public void should_ignore_the_manifest_of_another_registry() throws Exception {
+
+        // setup
+        var schema = AvroEventDataExample.getClassSchema();
+        var manifest = new SchemaManifest("http://outro:8081", List.of(new SchemaManifest.Entry(
+            SchemaManifest.fingerprintOf(schema), schema.getFullName(), "meu-topico-value", 7, 1)));
+        manifest.write(temp.resolve(SchemaManifest.RESOURCE));
+
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(SchemaManifest.RESOURCE_CONFIG, SchemaManifest.RESOURCE);
+
+        var thread = Thread.currentThread();
+        var original = thread.getContextClassLoader();
+        try(var loader = new URLClassLoader(new URL[]{temp.toUri().toURL()}, original)){
+            thread.setContextClassLoader(loader);
+
+            // act
+            var actual = SchemaManifest.registrationsOf(configs, "http://localhost:8081", null);
+
+            // assert
+            assertNull(actual);
+        }finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+}
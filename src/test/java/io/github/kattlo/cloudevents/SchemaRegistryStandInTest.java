@@ -0,0 +1,125 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class SchemaRegistryStandInTest {
+
+    private static Map<String, Object> configs(SchemaRegistryStandIn registry) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG, registry.getUrl());
+        return configs;
+    }
+
+    private static CloudEvent evento(long i) {
+        var valor = new AvroEventDataExample(i, "Nome " + i, "Descrição " + i);
+        return CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getClass().getName())
+            .withTime(OffsetDateTime.now())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+    }
+
+    @Test
+    public void should_serialize_and_deserialize_through_the_stand_in() throws Exception {
+
+        // setup
+        var topico = "meu-topico-standin";
+
+        try(var registry = new SchemaRegistryStandIn()){
+            var serializer = new KafkaAvroCloudEventSerializer(
+                new CachedSchemaRegistryClient(registry.getUrl(), 100));
+            var deserializer = new KafkaAvroCloudEventDeserializer(
+                new CachedSchemaRegistryClient(registry.getUrl(), 100));
+
+            serializer.configure(configs(registry), false);
+            deserializer.configure(configs(registry), false);
+
+            // act
+            for(long i = 0; i < 100; i++){
+                var headers = new RecordHeaders();
+                var bytes = serializer.serialize(topico, headers, evento(i));
+                var actual = deserializer.deserialize(topico, headers, bytes);
+
+                // assert
+                GenericRecord valor = AvroCloudEventData.dataOf(actual.getData());
+                assertEquals(i, valor.get("code"));
+            }
+
+            assertEquals(1, registry.getRequests("POST /subjects/{subject}/versions"));
+            assertEquals(1, registry.getRequests("GET /schemas/ids/{id}"));
+
+            serializer.close();
+            deserializer.close();
+        }
+    }
+
+    @Test
+    public void should_fail_the_serialization_with_the_injected_failures() throws Exception {
+
+        // setup
+        try(var registry = new SchemaRegistryStandIn().withFailureRate(1)){
+            var serializer = new KafkaAvroCloudEventSerializer(
+                new CachedSchemaRegistryClient(registry.getUrl(), 100));
+            serializer.configure(configs(registry), false);
+
+            // act
+            assertThrows(SerializationException.class,
+                () -> serializer.serialize("meu-topico-falha", new RecordHeaders(), evento(130)));
+
+            // assert
+            assertTrue(registry.getRequests() > 0);
+
+            serializer.close();
+        }
+    }
+
+    @Test
+    public void should_delay_the_requests_and_answer_not_found() throws Exception {
+
+        // setup
+        try(var registry = new SchemaRegistryStandIn().withLatency(50_000, 0)){
+            var client = new CachedSchemaRegistryClient(registry.getUrl(), 100);
+            var schema = new AvroSchema(AvroEventDataExample.getClassSchema());
+
+            // act
+            var inicio = System.nanoTime();
+            var id = client.register("meu-topico-value", schema);
+            var decorrido = System.nanoTime() - inicio;
+
+            // assert
+            assertTrue(decorrido >= 50_000_000, "elapsed " + decorrido);
+            assertEquals(1, client.getVersion("meu-topico-value", schema));
+            assertEquals(id, client.getId("meu-topico-value", schema));
+
+            var erro = assertThrows(RestClientException.class,
+                () -> client.getAllVersions("outro-topico-value"));
+            assertEquals(SchemaRegistryStandIn.SUBJECT_NOT_FOUND, erro.getErrorCode());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+public class TracingTest {
+
+    private static final String PAI = "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01";
+
+    private static String header(RecordHeaders headers, String key) {
+        var header = headers.lastHeader(key);
+        return (header == null ? null : new String(header.value(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void should_stamp_a_new_trace_by_the_sample_rate() {
+
+        // setup
+        var amostrado = new RecordHeaders();
+        var naoAmostrado = new RecordHeaders();
+
+        // act
+        Tracing.stamp(amostrado, 1.0, 1615385107000l, 1500l);
+        Tracing.stamp(naoAmostrado, 0.0, 1615385107000l, 1500l);
+
+        // assert
+        var traceparent = header(amostrado, Tracing.TRACEPARENT_HEADER);
+        assertTrue(traceparent.matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01"), traceparent);
+        assertTrue(header(amostrado, Tracing.TRACESTATE_HEADER)
+            .startsWith(Tracing.STATE_KEY + "=1615385107000:1500:"));
+
+        assertTrue(header(naoAmostrado, Tracing.TRACEPARENT_HEADER).endsWith("-00"));
+        assertNull(header(naoAmostrado, Tracing.TRACESTATE_HEADER));
+    }
+
+    @Test
+    public void should_keep_the_trace_of_the_event() {
+
+        // setup
+        var headers = new RecordHeaders();
+        headers.add(Tracing.TRACEPARENT_HEADER, PAI.getBytes(StandardCharsets.US_ASCII));
+        headers.add(Tracing.TRACESTATE_HEADER, "congo=t61rcWkgMzE".getBytes(StandardCharsets.US_ASCII));
+
+        // act
+        Tracing.stamp(headers, 0.0, 1615385107000l, 1500l);
+
+        // assert
+        var traceparent = header(headers, Tracing.TRACEPARENT_HEADER);
+        assertTrue(traceparent.startsWith("00-0af7651916cd43dd8448eb211c80319c-"));
+        assertNotEquals(PAI, traceparent);
+        assertTrue(Tracing.isSampled(traceparent.getBytes(StandardCharsets.US_ASCII)));
+
+        assertEquals(Tracing.STATE_KEY + "=1615385107000:1500:b7ad6b7169203331,congo=t61rcWkgMzE",
+            header(headers, Tracing.TRACESTATE_HEADER));
+    }
+
+    @Test
+    public void should_not_accept_invalid_traceparent() {
+        assertFalse(Tracing.isValid("00-00000000000000000000000000000000-b7ad6b7169203331-01"
+            .getBytes(StandardCharsets.US_ASCII)));
+        assertFalse(Tracing.isValid("ff-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01"
+            .getBytes(StandardCharsets.US_ASCII)));
+        assertFalse(Tracing.isValid("00-0AF7651916CD43DD8448EB211C80319C-b7ad6b7169203331-01"
+            .getBytes(StandardCharsets.US_ASCII)));
+        assertFalse(Tracing.isValid("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331"
+            .getBytes(StandardCharsets.US_ASCII)));
+    }
+}
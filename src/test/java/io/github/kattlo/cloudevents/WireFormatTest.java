@@ -0,0 +1,177 @@
+package io.github.kattlo.cloudevents;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import io.cloudevents.CloudEvent;
+import io.cloudevents.core.builder.CloudEventBuilder;
+import io.cloudevents.kafka.CloudEventSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroDeserializerConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import org.acme.AvroEventDataExample;
+
+public class WireFormatTest {
+
+    public static class Contador implements WireRegistry {
+        static final MockSchemaRegistryClient REGISTRY = new MockSchemaRegistryClient();
+        static final AtomicInteger CHAMADAS = new AtomicInteger();
+
+        private final WireRegistry registry = new ConfluentWireRegistry(REGISTRY);
+
+        @Override
+        public int register(String subject, Schema schema) throws IOException {
+            CHAMADAS.incrementAndGet();
+            return registry.register(subject, schema);
+        }
+
+        @Override
+        public int idOf(String subject, Schema schema) throws IOException {
+            CHAMADAS.incrementAndGet();
+            return registry.idOf(subject, schema);
+        }
+
+        @Override
+        public int versionOf(String subject, Schema schema) throws IOException {
+            CHAMADAS.incrementAndGet();
+            return registry.versionOf(subject, schema);
+        }
+
+        @Override
+        public Schema schemaOf(int id) throws IOException {
+            CHAMADAS.incrementAndGet();
+            return registry.schemaOf(id);
+        }
+    }
+
+    private static Map<String, Object> configs(WireFormat.Engine engine) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(CloudEventSerializer.ENCODING_CONFIG, "BINARY");
+        configs.put(KafkaAvroSerializerConfig.AUTO_REGISTER_SCHEMAS, "true");
+        configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG,
+            "http://localhost:8081");
+        configs.put(WireFormat.ENGINE_CONFIG, engine.name().toLowerCase());
+        return configs;
+    }
+
+    private static CloudEvent evento(IndexedRecord valor) {
+        return CloudEventBuilder.v1()
+            .withId(UUID.randomUUID().toString())
+            .withSource(URI.create("/exemplo/enviar"))
+            .withType(valor.getSchema().getFullName())
+            .withData(AvroCloudEventData.MIME_TYPE, new AvroCloudEventData<>(valor))
+            .build();
+    }
+
+    private static GenericRecord generico() {
+        var schema = SchemaBuilder.record("Generico").namespace("org.acme").fields()
+            .requiredString("nome")
+            .optionalLong("codigo")
+        .endRecord();
+
+        var valor = new GenericData.Record(schema);
+        valor.put("nome", "Nome 130");
+        valor.put("codigo", 130l);
+        return valor;
+    }
+
+    @Test
+    public void should_write_the_same_bytes_of_the_confluent_engine() {
+
+        // setup
+        var topico = "meu-topico-wire";
+        var registry = new MockSchemaRegistryClient();
+
+        var confluent = new KafkaAvroCloudEventSerializer(registry);
+        confluent.configure(configs(WireFormat.Engine.CONFLUENT), false);
+        var lean = new KafkaAvroCloudEventSerializer(registry);
+        lean.configure(configs(WireFormat.Engine.LEAN), false);
+
+        var especifico = evento(new AvroEventDataExample(130l, "Nome 130", "Descrição 130"));
+        var generico = evento(generico());
+
+        for(var evento : new CloudEvent[]{especifico, generico}){
+            var esperadoHeaders = new RecordHeaders();
+            var esperado = confluent.serialize(topico, esperadoHeaders, evento);
+
+            // act
+            var headers = new RecordHeaders();
+            var actual = lean.serialize(topico, headers, evento);
+
+            // assert
+            assertArrayEquals(esperado, actual);
+            assertArrayEquals(esperadoHeaders.lastHeader(KafkaAvroCloudEventSerializer.DATASCHEMA_HEADER).value(),
+                headers.lastHeader(KafkaAvroCloudEventSerializer.DATASCHEMA_HEADER).value());
+        }
+
+        confluent.close();
+        lean.close();
+    }
+
+    @Test
+    public void should_resolve_the_registry_once_per_topic_and_schema() {
+
+        // setup
+        var topico = "meu-topico-wire";
+
+        var configs = configs(WireFormat.Engine.LEAN);
+        configs.put(WireFormat.REGISTRY_CONFIG, Contador.class.getName());
+        configs.put(KafkaAvroDeserializerConfig.SPECIFIC_AVRO_READER_CONFIG, "true");
+
+        var serializer = new KafkaAvroCloudEventSerializer(new MockSchemaRegistryClient());
+        serializer.configure(configs, false);
+        var deserializer = new KafkaAvroCloudEventDeserializer(new MockSchemaRegistryClient());
+        deserializer.configure(configs, false);
+
+        var evento = evento(new AvroEventDataExample(130l, "Nome 130", "Descrição 130"));
+        var antes = Contador.CHAMADAS.get();
+
+        // act
+        AvroEventDataExample actual = null;
+        for(int i = 0; i < 100; i++){
+            var headers = new RecordHeaders();
+            var valor = serializer.serialize(topico, headers, evento);
+            actual = AvroCloudEventData.dataOf(deserializer.deserialize(topico, headers, valor).getData());
+        }
+
+        // assert
+        // register and version, then the schema by id
+        assertEquals(3, Contador.CHAMADAS.get() - antes);
+        assertEquals(130l, actual.getCode());
+        assertEquals("Nome 130", actual.getName().toString());
+
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Test
+    public void should_throw_when_the_engine_is_unknown() {
+
+        // setup
+        var configs = configs(WireFormat.Engine.LEAN);
+        configs.put(WireFormat.ENGINE_CONFIG, "turbo");
+
+        var serializer = new KafkaAvroCloudEventSerializer(new MockSchemaRegistryClient());
+
+        // act
+        assertThrows(IllegalArgumentException.class, () -> serializer.configure(configs, false));
+
+        serializer.close();
+    }
+}
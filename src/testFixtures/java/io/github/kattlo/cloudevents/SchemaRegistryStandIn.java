@@ -0,0 +1,367 @@
+package io.github.kattlo.cloudevents;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+
+/**
+ * Schema Registry in-process, over HTTP on the loopback, with the endpoints
+ * this library uses through {@code CachedSchemaRegistryClient}:
+ *
+ * <pre>
+ * POST /subjects/{subject}/versions               register
+ * POST /subjects/{subject}                        look up the id and version
+ * GET  /schemas/ids/{id}                          schema by id
+ * GET  /subjects                                  subjects
+ * GET  /subjects/{subject}/versions               versions
+ * GET  /subjects/{subject}/versions/{version}     schema by version, or latest
+ * GET  /subjects/{subject}/versions/{version}/schema
+ * </pre>
+ *
+ * So the REST, JSON and connection costs hidden by
+ * {@code MockSchemaRegistryClient} are in the measures, plus the injected
+ * latency and failure rate of every request.
+ *
+ * @author fabiojose
+ */
+public final class SchemaRegistryStandIn implements Closeable {
+
+    public static final String CONTENT_TYPE = "application/vnd.schemaregistry.v1+json";
+
+    static final int SUBJECT_NOT_FOUND = 40401;
+    static final int VERSION_NOT_FOUND = 40402;
+    static final int SCHEMA_NOT_FOUND = 40403;
+    static final int INJECTED_FAILURE = 50001;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final class NotFound extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int code;
+
+        NotFound(int code, String message) {
+            super(message, null, false, false);
+            this.code = code;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final Object lock = new Object();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<Integer, String> schemas = new HashMap<>();
+    private final Map<String, List<Integer>> subjects = new LinkedHashMap<>();
+
+    private final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+
+    private volatile long latencyMicros;
+    private volatile long jitterMicros;
+    private volatile double failureRate;
+
+    /**
+     * Started at a random port of the loopback
+     *
+     * @param threads Handling the requests concurrently
+     */
+    public SchemaRegistryStandIn(int threads) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "schema-registry-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public SchemaRegistryStandIn() throws IOException {
+        this(8);
+    }
+
+    /**
+     * @return To use as {@code schema.registry.url}
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Delays every request by {@code latency} plus an uniform random
+     * {@code [0, jitter)}, in microseconds
+     */
+    public SchemaRegistryStandIn withLatency(long latencyMicros, long jitterMicros) {
+        if(latencyMicros < 0 || jitterMicros < 0){
+            throw new IllegalArgumentException("latency and jitter must be >= 0");
+        }
+        this.latencyMicros = latencyMicros;
+        this.jitterMicros = jitterMicros;
+        return this;
+    }
+
+    /**
+     * Answers this fraction of the requests with HTTP 500
+     *
+     * @param failureRate Between 0 and 1
+     */
+    public SchemaRegistryStandIn withFailureRate(double failureRate) {
+        if(failureRate < 0 || failureRate > 1){
+            throw new IllegalArgumentException("failure rate must be between 0 and 1");
+        }
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    /**
+     * @param endpoint As in the class doc, e.g. {@code "GET /schemas/ids/{id}"}
+     * @return Requests received by the endpoint, failed included
+     */
+    public long getRequests(String endpoint) {
+        var count = requests.get(endpoint);
+        return (count == null ? 0 : count.get());
+    }
+
+    /**
+     * @return All requests received
+     */
+    public long getRequests() {
+        return requests.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public void resetRequests() {
+        requests.clear();
+    }
+
+    private void delay() {
+        var micros = latencyMicros;
+        if(jitterMicros > 0){
+            micros += ThreadLocalRandom.current().nextLong(jitterMicros);
+        }
+
+        if(micros > 0){
+            try {
+                Thread.sleep(micros / 1000, (int)(micros % 1000) * 1000);
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        var bytes = JSON.writeValueAsBytes(body);
+
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try(var out = exchange.getResponseBody()){
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, Object> error(int code, String message) {
+        var error = new LinkedHashMap<String, Object>();
+        error.put("error_code", code);
+        error.put("message", message);
+        return error;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            var method = exchange.getRequestMethod();
+            var path = exchange.getRequestURI().getRawPath().split("/");
+            var segments = new String[path.length - 1];
+            for(int i = 1; i < path.length; i++){
+                segments[i - 1] = URLDecoder.decode(path[i], StandardCharsets.UTF_8);
+            }
+
+            var endpoint = endpointOf(method, segments);
+            requests.computeIfAbsent(endpoint, e -> new AtomicLong()).incrementAndGet();
+
+            delay();
+
+            if(failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate){
+                send(exchange, 500, error(INJECTED_FAILURE, "Injected failure"));
+                return;
+            }
+
+            send(exchange, 200, answer(endpoint, segments, exchange));
+
+        }catch(NotFound e){
+            send(exchange, 404, error(e.code, e.getMessage()));
+
+        }catch(IllegalArgumentException e){
+            send(exchange, 422, error(42201, e.getMessage()));
+
+        }catch(RuntimeException e){
+            send(exchange, 500, error(50001, String.valueOf(e.getMessage())));
+
+        }finally {
+            exchange.close();
+        }
+    }
+
+    private static String endpointOf(String method, String[] segments) {
+        var length = segments.length;
+
+        if(length == 3 && "schemas".equals(segments[0]) && "ids".equals(segments[1])){
+            return method + " /schemas/ids/{id}";
+        }
+        if(length >= 1 && "subjects".equals(segments[0])){
+            switch(length){
+                case 1:
+                    return method + " /subjects";
+                case 2:
+                    return method + " /subjects/{subject}";
+                case 3:
+                    if("versions".equals(segments[2])){
+                        return method + " /subjects/{subject}/versions";
+                    }
+                    break;
+                case 4:
+                    if("versions".equals(segments[2])){
+                        return method + " /subjects/{subject}/versions/{version}";
+                    }
+                    break;
+                case 5:
+                    if("versions".equals(segments[2]) && "schema".equals(segments[4])){
+                        return method + " /subjects/{subject}/versions/{version}/schema";
+                    }
+                    break;
+                default:
+            }
+        }
+
+        return method + " " + String.join("/", segments);
+    }
+
+    private static String schemaOf(HttpExchange exchange) throws IOException {
+        try(var in = exchange.getRequestBody()){
+            JsonNode request = JSON.readTree(in);
+            var schema = (request == null ? null : request.get("schema"));
+            if(schema == null || !schema.isTextual()){
+                throw new IllegalArgumentException("Request without schema");
+            }
+
+            return new AvroSchema(schema.asText()).canonicalString();
+        }
+    }
+
+    private Map<String, Object> version(String subject, int version, int id) {
+        var result = new LinkedHashMap<String, Object>();
+        result.put("subject", subject);
+        result.put("version", version);
+        result.put("id", id);
+        result.put("schema", schemas.get(id));
+        return result;
+    }
+
+    private List<Integer> versionsOf(String subject) {
+        var versions = subjects.get(subject);
+        if(versions == null){
+            throw new NotFound(SUBJECT_NOT_FOUND, "Subject '" + subject + "' not found.");
+        }
+        return versions;
+    }
+
+    private Object answer(String endpoint, String[] segments, HttpExchange exchange) throws IOException {
+        switch(endpoint){
+            case "POST /subjects/{subject}/versions": {
+                var schema = schemaOf(exchange);
+                synchronized(lock){
+                    var id = ids.computeIfAbsent(schema, s -> ids.size() + 1);
+                    schemas.put(id, schema);
+
+                    var versions = subjects.computeIfAbsent(segments[1], s -> new ArrayList<>());
+                    if(!versions.contains(id)){
+                        versions.add(id);
+                    }
+                    return Map.of("id", id);
+                }
+            }
+
+            case "POST /subjects/{subject}": {
+                var schema = schemaOf(exchange);
+                synchronized(lock){
+                    var versions = versionsOf(segments[1]);
+                    var id = ids.get(schema);
+                    if(id == null || !versions.contains(id)){
+                        throw new NotFound(SCHEMA_NOT_FOUND, "Schema not found");
+                    }
+                    return version(segments[1], versions.indexOf(id) + 1, id);
+                }
+            }
+
+            case "GET /schemas/ids/{id}":
+                synchronized(lock){
+                    var schema = schemas.get(Integer.valueOf(segments[2]));
+                    if(schema == null){
+                        throw new NotFound(SCHEMA_NOT_FOUND, "Schema " + segments[2] + " not found");
+                    }
+                    return Map.of("schema", schema);
+                }
+
+            case "GET /subjects":
+                synchronized(lock){
+                    return new ArrayList<>(subjects.keySet());
+                }
+
+            case "GET /subjects/{subject}/versions":
+                synchronized(lock){
+                    var result = new ArrayList<Integer>();
+                    for(int v = 1; v <= versionsOf(segments[1]).size(); v++){
+                        result.add(v);
+                    }
+                    return result;
+                }
+
+            case "GET /subjects/{subject}/versions/{version}":
+            case "GET /subjects/{subject}/versions/{version}/schema":
+                synchronized(lock){
+                    var versions = versionsOf(segments[1]);
+                    var version = ("latest".equals(segments[3])
+                        ? versions.size()
+                        : Integer.parseInt(segments[3]));
+
+                    if(version < 1 || version > versions.size()){
+                        throw new NotFound(VERSION_NOT_FOUND, "Version " + segments[3] + " not found.");
+                    }
+
+                    var id = versions.get(version - 1);
+                    return (segments.length == 5
+                        ? JSON.readTree(schemas.get(id))
+                        : version(segments[1], version, id));
+                }
+
+            default:
+                throw new NotFound(404, "Endpoint " + endpoint + " not found");
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}